@@ -0,0 +1,87 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.*;
+import reactor.core.scheduler.Scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the blocking scheduler under a burst of handler calls that each wait on Mongo or another
+ * service, and the number of platform threads it takes. The peak of the platform threads gauge the scheduler
+ * registers, the same gauge the service exposes in production, is reported as the {@code peakPlatformThreads}
+ * secondary result. Every burst size has its own method, so the operations per invocation match it.
+ * The virtual mode needs a Java 21 runtime:
+ * <pre>
+ * mvn -P benchmarks,java21 test-compile exec:exec@benchmarks -Djmh.args="BlockingSchedulerBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockingSchedulerBenchmark {
+
+    @Param({ReactiveExecutionConfig.BOUNDED_MODE, ReactiveExecutionConfig.VIRTUAL_MODE})
+    public String mode;
+
+    /*
+     * Stands in for the time a handler waits on a Mongo round trip or an IPC reply.
+     */
+    @Param({"5"})
+    public long waitInMillis;
+
+    private Scheduler scheduler;
+
+    private Gauge peakPlatformThreads;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Threads {
+
+        public long peakPlatformThreads;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        scheduler = ReactiveExecutionConfig.newBlockingScheduler(mode, 32, 100_000, meterRegistry);
+        peakPlatformThreads = meterRegistry.get(ReactiveExecutionConfig.PLATFORM_THREADS_METER + ".peak").tag("mode", mode).gauge();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(500)
+    public Long burstOf500Requests(Threads threads) {
+        return burst(500, threads);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2000)
+    public Long burstOf2000Requests(Threads threads) {
+        return burst(2000, threads);
+    }
+
+    private Long burst(int concurrentRequests, Threads threads) {
+        Long completed = Flux.range(0, concurrentRequests)
+                .flatMap(i -> Mono.fromCallable(() -> {
+                    Thread.sleep(waitInMillis);
+                    return i;
+                }).subscribeOn(scheduler), concurrentRequests)
+                .count()
+                .block();
+        threads.peakPlatformThreads = (long) peakPlatformThreads.value();
+        return completed;
+    }
+}
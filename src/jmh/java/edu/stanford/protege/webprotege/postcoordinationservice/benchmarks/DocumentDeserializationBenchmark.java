@@ -0,0 +1,83 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Reads a generated specifications document the way the import does, once with the previous tree model reader and
+ * once with the streaming {@link PostCoordinationDocumentRepository}. The score is in documents per second, so
+ * records per second is the score times {@code records}. Add the gc profiler to see the bytes allocated per record:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@benchmarks -Djmh.args="DocumentDeserializationBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentDeserializationBenchmark {
+
+    private static final String SPECIFICATIONS_ARRAY = "whoficEntityPostcoordinationSpecification";
+
+    @Param({"10000"})
+    public int records;
+
+    private byte[] document;
+
+    private ObjectMapper objectMapper;
+
+    private MinioPostCoordinationDocumentLoader documentLoader;
+
+    private PostCoordinationDocumentRepository documentRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        List<String> axes = List.of("http://id.who.int/icd/schema/laterality", "http://id.who.int/icd/schema/severity",
+                "http://id.who.int/icd/schema/course", "http://id.who.int/icd/schema/temporalPatternAndOnset");
+        List<WhoficEntityPostCoordinationSpecification> specifications = IntStream.range(0, records)
+                .mapToObj(i -> new WhoficEntityPostCoordinationSpecification("http://id.who.int/icd/entity/" + i, "ICD", List.of(
+                        new PostCoordinationSpecification("http://id.who.int/icd/release/11/mms", axes.subList(0, 2), axes.subList(2, 3), axes.subList(3, 4), List.of()),
+                        new PostCoordinationSpecification("http://id.who.int/icd/release/11/pcl", axes, List.of(), List.of(), axes.subList(0, 1)))))
+                .toList();
+        document = objectMapper.writeValueAsBytes(Map.of(SPECIFICATIONS_ARRAY, specifications));
+        documentLoader = mock(MinioPostCoordinationDocumentLoader.class);
+        when(documentLoader.fetchPostCoordinationDocument(anyString())).thenAnswer(invocation -> new ByteArrayInputStream(document));
+        documentRepository = new PostCoordinationDocumentRepository(documentLoader, objectMapper);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) {
+        documentRepository.fetchPostCoordinationSpecifications("document.json").forEach(blackhole::consume);
+    }
+
+    /*
+     * The reader the repository used before: every element is read into a JsonNode and converted again.
+     */
+    @Benchmark
+    public void treeModel(Blackhole blackhole) throws IOException {
+        try (JsonParser jsonParser = new JsonFactory().createParser(documentLoader.fetchPostCoordinationDocument("document.json"))) {
+            jsonParser.nextToken();
+            jsonParser.nextToken();
+            jsonParser.nextToken();
+            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                JsonNode node = objectMapper.readTree(jsonParser);
+                blackhole.consume(objectMapper.treeToValue(node, WhoficEntityPostCoordinationSpecification.class));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.codecs.PostCoordinationCodecProvider;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ApplicationBeans;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.*;
+
+/**
+ * Encodes and decodes a specification history to and from BSON bytes, once through a Jackson converted
+ * {@link Document} the way the repository did before, and once with the {@link PostCoordinationCodecProvider} codec.
+ * Add the gc profiler to compare the allocations:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@benchmarks -Djmh.args="HistoryCodecBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryCodecBenchmark {
+
+    @Param({"1", "20"})
+    public int revisions;
+
+    private ObjectMapper objectMapper;
+
+    private Codec<Document> documentCodec;
+
+    private Codec<EntityPostCoordinationHistory> historyCodec;
+
+    private EntityPostCoordinationHistory history;
+
+    private byte[] bson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ApplicationBeans().objectMapper();
+        documentCodec = PostCoordinationCodecProvider.codecRegistry().get(Document.class);
+        historyCodec = PostCoordinationCodecProvider.codecRegistry().get(EntityPostCoordinationHistory.class);
+        List<String> views = List.of("http://id.who.int/icd/release/11/mms", "http://id.who.int/icd/release/11/pcl");
+        List<PostCoordinationSpecificationRevision> historyRevisions = IntStream.range(0, revisions)
+                .mapToObj(i -> PostCoordinationSpecificationRevision.create(UserId.valueOf("user" + i), views.stream()
+                        .map(view -> new PostCoordinationViewEvent(view, List.of(
+                                new AddToAllowedAxisEvent("http://id.who.int/icd/schema/laterality", view),
+                                new AddToRequiredAxisEvent("http://id.who.int/icd/schema/severity", view),
+                                new AddToNotAllowedAxisEvent("http://id.who.int/icd/schema/course", view))))
+                        .collect(Collectors.toSet())))
+                .toList();
+        history = new EntityPostCoordinationHistory("http://id.who.int/icd/entity/1", "project", historyRevisions);
+        bson = encodeWithCodec();
+    }
+
+    @Benchmark
+    public byte[] encodeWithJackson() {
+        return toBytes(documentCodec, objectMapper.convertValue(history, Document.class));
+    }
+
+    @Benchmark
+    public byte[] encodeWithCodec() {
+        return toBytes(historyCodec, history);
+    }
+
+    @Benchmark
+    public EntityPostCoordinationHistory decodeWithJackson() {
+        Document document = documentCodec.decode(reader(), DecoderContext.builder().build());
+        return objectMapper.convertValue(document, EntityPostCoordinationHistory.class);
+    }
+
+    @Benchmark
+    public EntityPostCoordinationHistory decodeWithCodec() {
+        return historyCodec.decode(reader(), DecoderContext.builder().build());
+    }
+
+    private BsonBinaryReader reader() {
+        return new BsonBinaryReader(ByteBuffer.wrap(bson));
+    }
+
+    private static <T> byte[] toBytes(Codec<T> codec, T value) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, value, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReadWriteLockConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Write throughput of the lock services when every thread edits its own entity.
+ * Run with a growing thread count to see the scaling, for example:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@benchmarks -Djmh.args="ReadWriteLockServiceBenchmark -t 8"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadWriteLockServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LockServiceState {
+
+        @Param({"global", "striped"})
+        public String mode;
+
+        /*
+         * Stands in for the mongo round trip and the replay done while the entity lock is held.
+         */
+        @Param({"2000"})
+        public long workInsideLock;
+
+        public ReadWriteLockService lockService;
+
+        public ProjectId projectId;
+
+        private final AtomicInteger nextEntity = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            ReadWriteLockConfig config = mock(ReadWriteLockConfig.class);
+            when(config.getStripes()).thenReturn(1024);
+            when(config.getMaxRetries()).thenReturn(5);
+            when(config.getTimeout()).thenReturn(1000);
+            when(config.getTimeUnit()).thenReturn(TimeUnit.MILLISECONDS);
+            var readWriteLock = new ReentrantReadWriteLock(true);
+            lockService = "striped".equals(mode)
+                    ? new StripedReadWriteLockServiceImpl(config, readWriteLock)
+                    : new ReadWriteLockServiceImpl(config, readWriteLock);
+            projectId = ProjectId.generate();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EntityState {
+
+        public String entityIri;
+
+        @Setup
+        public void setUp(LockServiceState lockServiceState) {
+            entityIri = "http://id.who.int/icd/entity/" + lockServiceState.nextEntity.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public long writeOwnEntity(LockServiceState lockServiceState, EntityState entityState) {
+        return lockServiceState.lockService.executeWriteLock(lockServiceState.projectId, entityState.entityIri, () -> {
+            Blackhole.consumeCPU(lockServiceState.workInsideLock);
+            return lockServiceState.workInsideLock;
+        });
+    }
+}
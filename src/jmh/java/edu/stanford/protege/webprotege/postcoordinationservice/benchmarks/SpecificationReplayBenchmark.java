@@ -0,0 +1,113 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationEventProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Replays a generated specification history on top of the default specifications of its views, once with the
+ * {@link PostCoordinationEventProcessor} and once with the previous fold, which looked the view up in a set and
+ * moved every axis through the four lists. Every revision changes a few axes of a few views, the way the editors do.
+ * Add the gc profiler to see the bytes allocated per replay:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@benchmarks -Djmh.args="SpecificationReplayBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpecificationReplayBenchmark {
+
+    @Param({"100", "1000"})
+    public int revisions;
+
+    @Param({"12"})
+    public int views;
+
+    @Param({"30"})
+    public int axes;
+
+    private EntityPostCoordinationHistory history;
+
+    private List<PostCoordinationSpecification> defaultSpecifications;
+
+    private PostCoordinationEventProcessor eventProcessor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> viewIris = IntStream.range(0, views).mapToObj(i -> "http://id.who.int/icd/release/11/view" + i).toList();
+        List<String> axisIris = IntStream.range(0, axes).mapToObj(i -> "http://id.who.int/icd/schema/axis" + i).toList();
+        defaultSpecifications = viewIris.stream()
+                .map(view -> new PostCoordinationSpecification(view, new ArrayList<>(), new ArrayList<>(axisIris), new ArrayList<>(), new ArrayList<>()))
+                .toList();
+        List<PostCoordinationSpecificationRevision> specificationRevisions = new ArrayList<>();
+        for (int i = 0; i < revisions; i++) {
+            Set<PostCoordinationViewEvent> viewEvents = new HashSet<>();
+            int changedViews = 1 + random.nextInt(3);
+            for (int j = 0; j < changedViews; j++) {
+                // the views are sent in the case they are configured in or in upper case
+                String view = viewIris.get(random.nextInt(views));
+                String sentView = random.nextBoolean() ? view : view.toUpperCase(Locale.ROOT);
+                List<PostCoordinationSpecificationEvent> events = new ArrayList<>();
+                int changedAxes = 1 + random.nextInt(5);
+                for (int k = 0; k < changedAxes; k++) {
+                    String axis = axisIris.get(random.nextInt(axes));
+                    events.add(switch (random.nextInt(4)) {
+                        case 0 -> new AddToAllowedAxisEvent(axis, sentView);
+                        case 1 -> new AddToDefaultAxisEvent(axis, sentView);
+                        case 2 -> new AddToNotAllowedAxisEvent(axis, sentView);
+                        default -> new AddToRequiredAxisEvent(axis, sentView);
+                    });
+                }
+                viewEvents.add(new PostCoordinationViewEvent(sentView, events));
+            }
+            specificationRevisions.add(new PostCoordinationSpecificationRevision(UserId.getGuest(), (long) i, viewEvents, CommitStatus.COMMITTED, null));
+        }
+        history = new EntityPostCoordinationHistory("http://id.who.int/icd/entity/1", "project", specificationRevisions);
+        eventProcessor = new PostCoordinationEventProcessor();
+    }
+
+    @Benchmark
+    public WhoficEntityPostCoordinationSpecification replay() {
+        return eventProcessor.processHistory(history, defaultSpecifications);
+    }
+
+    /*
+     * The fold the processor used before.
+     */
+    @Benchmark
+    public WhoficEntityPostCoordinationSpecification listFold() {
+        var postCoordinationSpecification = new HashSet<PostCoordinationSpecification>();
+        for (PostCoordinationSpecification specification : defaultSpecifications) {
+            postCoordinationSpecification.add(new PostCoordinationSpecification(specification.getLinearizationView(),
+                    new ArrayList<>(specification.getAllowedAxes()),
+                    new ArrayList<>(specification.getDefaultAxes()),
+                    new ArrayList<>(specification.getNotAllowedAxes()),
+                    new ArrayList<>(specification.getRequiredAxes())));
+        }
+        for (PostCoordinationSpecificationRevision revision : history.getPostCoordinationRevisions()) {
+            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
+                PostCoordinationSpecification specification = postCoordinationSpecification.stream()
+                        .filter(spec -> spec.getLinearizationView() != null && spec.getLinearizationView().equalsIgnoreCase(viewEvent.linearizationView()))
+                        .findFirst()
+                        .orElse(new PostCoordinationSpecification(viewEvent.linearizationView(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+                for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                    event.applyEvent(specification);
+                }
+                postCoordinationSpecification.add(specification);
+            }
+        }
+        return new WhoficEntityPostCoordinationSpecification(history.getWhoficEntityIri(), "ICD", postCoordinationSpecification.stream().toList());
+    }
+}
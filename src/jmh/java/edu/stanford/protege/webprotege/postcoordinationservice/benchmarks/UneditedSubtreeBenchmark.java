@@ -0,0 +1,119 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.benchmarks;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Time to answer the specification and the custom scales of every child of a class, when none of them was ever
+ * edited, with and without the {@link HistoryMembershipService}. Every read of the store waits
+ * {@code roundTripInMillis} and finds nothing, and the processed values are not cached, so the score is the time a
+ * user waits when browsing a subtree for the first time:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@benchmarks -Djmh.args="UneditedSubtreeBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UneditedSubtreeBenchmark {
+
+    private static final List<String> ENTITY_TYPES = List.of("ICD");
+
+    @Param({"true", "false"})
+    public boolean membershipEnabled;
+
+    @Param({"50"})
+    public int children;
+
+    /*
+     * Stands in for a Mongo round trip.
+     */
+    @Param({"1"})
+    public long roundTripInMillis;
+
+    private final ProjectId projectId = ProjectId.generate();
+
+    private List<String> subtree;
+
+    private PostCoordinationService postCoordinationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        subtree = IntStream.range(0, children).mapToObj(i -> "http://id.who.int/icd/entity/unedited/" + i).toList();
+
+        PostCoordinationRepository repository = mock(PostCoordinationRepository.class);
+        when(repository.getExistingHistoryOrderedByRevision(anyString(), eq(projectId))).thenAnswer(roundTrip(Optional.empty()));
+        when(repository.getExistingCustomScaleHistoryOrderedByRevision(anyString(), eq(projectId))).thenAnswer(roundTrip(Optional.empty()));
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(1);
+            IntStream.range(0, 10_000).forEach(i -> consumer.accept("http://id.who.int/icd/entity/edited/" + i));
+            return null;
+        }).when(repository).forEachEntityIriWithHistory(eq(projectId), any());
+
+        PostCoordinationSnapshotService snapshotService = mock(PostCoordinationSnapshotService.class);
+        when(snapshotService.findSpecificationSnapshot(anyString(), eq(projectId))).thenAnswer(roundTrip(Optional.empty()));
+        when(snapshotService.findCustomScalesSnapshot(anyString(), eq(projectId))).thenAnswer(roundTrip(Optional.empty()));
+
+        PostCoordinationConfigSnapshotService configSnapshotService = mock(PostCoordinationConfigSnapshotService.class);
+        when(configSnapshotService.getSnapshot()).thenReturn(new PostCoordinationConfigSnapshot(1,
+                List.of(new TableConfiguration("ICD", List.of("http://id.who.int/icd/schema/laterality", "http://id.who.int/icd/schema/severity"), List.of())),
+                List.of(), List.of(),
+                List.of(new LinearizationDefinition("MMS", "http://id.who.int/icd/release/11/mms", null, null, null, null, null, null, null))));
+
+        ProcessedSpecificationCacheConfig cacheConfig = mock(ProcessedSpecificationCacheConfig.class);
+        when(cacheConfig.isEnabled()).thenReturn(false);
+        when(cacheConfig.getTtl()).thenReturn(Duration.ofMinutes(10));
+        ProcessedSpecificationCache processedCache = new ProcessedSpecificationCache(cacheConfig, new SimpleMeterRegistry());
+
+        HistoryMembershipConfig membershipConfig = mock(HistoryMembershipConfig.class);
+        when(membershipConfig.isEnabled()).thenReturn(membershipEnabled);
+        when(membershipConfig.getExpectedEntitiesPerProject()).thenReturn(100_000L);
+        when(membershipConfig.getFalsePositiveProbability()).thenReturn(0.01);
+        when(membershipConfig.getReloadInterval()).thenReturn(Duration.ofHours(1));
+        HistoryMembershipService historyMembership = new HistoryMembershipService(repository, membershipConfig, Schedulers.immediate(), new SimpleMeterRegistry());
+
+        postCoordinationService = new PostCoordinationService(repository, configSnapshotService,
+                mock(PostCoordinationDocumentRepository.class), mock(NewRevisionsEventEmitterService.class), new PostCoordinationEventProcessor(),
+                mock(EntityTypeService.class), snapshotService, mock(HistoryCheckpointService.class), mock(OptimisticWriteService.class),
+                mock(ImportJobService.class), processedCache, mock(CacheInvalidationService.class), historyMembership,
+                Schedulers.immediate());
+    }
+
+    @Benchmark
+    public void browseSubtree(Blackhole blackhole) {
+        for (String entityIri : subtree) {
+            blackhole.consume(postCoordinationService.fetchHistory(entityIri, projectId, ENTITY_TYPES));
+            blackhole.consume(postCoordinationService.fetchCustomScalesHistory(entityIri, projectId, ENTITY_TYPES));
+        }
+    }
+
+    private <T> Answer<T> roundTrip(T result) {
+        return invocation -> {
+            Thread.sleep(roundTripInMillis);
+            return result;
+        };
+    }
+}
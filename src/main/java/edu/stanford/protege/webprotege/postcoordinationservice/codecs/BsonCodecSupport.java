@@ -0,0 +1,115 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.common.UserId;
+import org.bson.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reading and writing helpers shared by the codecs. The readers accept what both Jackson and the Spring Data mapping
+ * have written into the collections over time, so numbers can be any numeric type, a user id can be a string or an
+ * embedded document, and unknown fields such as {@code _id} or {@code _class} are skipped.
+ */
+final class BsonCodecSupport {
+
+    private BsonCodecSupport() {
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeLong(BsonWriter writer, String name, Long value) {
+        if (value != null) {
+            writer.writeInt64(name, value);
+        }
+    }
+
+    static void writeStrings(BsonWriter writer, String name, Collection<String> values) {
+        writer.writeStartArray(name);
+        if (values != null) {
+            for (String value : values) {
+                writer.writeString(value);
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        if (reader.getCurrentBsonType() != BsonType.STRING) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.readString();
+    }
+
+    static Long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT64 -> reader.readInt64();
+            case INT32 -> (long) reader.readInt32();
+            case DOUBLE -> (long) reader.readDouble();
+            case NULL -> {
+                reader.readNull();
+                yield null;
+            }
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    static List<String> readStrings(BsonReader reader) {
+        return readArray(reader, BsonCodecSupport::readString);
+    }
+
+    static <T> List<T> readArray(BsonReader reader, Function<BsonReader, T> elementReader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return new ArrayList<>();
+        }
+        List<T> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            values.add(elementReader.apply(reader));
+        }
+        reader.readEndArray();
+        return values;
+    }
+
+    static UserId readUserId(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            String id = readString(reader);
+            return id != null ? UserId.valueOf(id) : null;
+        }
+        String id = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if ("id".equals(reader.readName())) {
+                id = readString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return id != null ? UserId.valueOf(id) : null;
+    }
+
+    /**
+     * @return false when the current value is null, which was then consumed.
+     */
+    static boolean isPresent(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+
+/**
+ * Writes a custom scale value event the way Jackson did, with its type name in {@value #TYPE}.
+ */
+public class CustomScalesEventCodec implements Codec<PostCoordinationCustomScalesValueEvent> {
+
+    static final String TYPE = "@type";
+    static final String POST_COORDINATION_AXIS = "postCoordinationAxis";
+    static final String POST_COORDINATION_SCALE_VALUE = "postCoordinationScaleValue";
+
+    @Override
+    public void encode(BsonWriter writer, PostCoordinationCustomScalesValueEvent event, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString(TYPE, typeOf(event));
+        writeString(writer, POST_COORDINATION_AXIS, event.getPostCoordinationAxis());
+        writeString(writer, POST_COORDINATION_SCALE_VALUE, event.getPostCoordinationScaleValue());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PostCoordinationCustomScalesValueEvent decode(BsonReader reader, DecoderContext decoderContext) {
+        String type = null;
+        String axis = null;
+        String scaleValue = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case TYPE -> type = readString(reader);
+                case POST_COORDINATION_AXIS -> axis = readString(reader);
+                case POST_COORDINATION_SCALE_VALUE -> scaleValue = readString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return create(type, axis, scaleValue);
+    }
+
+    @Override
+    public Class<PostCoordinationCustomScalesValueEvent> getEncoderClass() {
+        return PostCoordinationCustomScalesValueEvent.class;
+    }
+
+    public static org.bson.Document toDocument(PostCoordinationCustomScalesValueEvent event) {
+        org.bson.Document document = new org.bson.Document(TYPE, typeOf(event));
+        if (event.getPostCoordinationAxis() != null) {
+            document.append(POST_COORDINATION_AXIS, event.getPostCoordinationAxis());
+        }
+        if (event.getPostCoordinationScaleValue() != null) {
+            document.append(POST_COORDINATION_SCALE_VALUE, event.getPostCoordinationScaleValue());
+        }
+        return document;
+    }
+
+    public static PostCoordinationCustomScalesValueEvent fromDocument(org.bson.Document document) {
+        return create(document.getString(TYPE), document.getString(POST_COORDINATION_AXIS), document.getString(POST_COORDINATION_SCALE_VALUE));
+    }
+
+    private static String typeOf(PostCoordinationCustomScalesValueEvent event) {
+        if (event instanceof AddCustomScaleValueEvent) {
+            return AddCustomScaleValueEvent.TYPE;
+        }
+        if (event instanceof RemoveCustomScaleValueEvent) {
+            return RemoveCustomScaleValueEvent.TYPE;
+        }
+        throw new BsonInvalidOperationException("Unknown custom scale value event " + event.getClass().getName());
+    }
+
+    static PostCoordinationCustomScalesValueEvent create(String type, String axis, String scaleValue) {
+        if (type == null) {
+            throw new BsonInvalidOperationException("Custom scale value event without " + TYPE);
+        }
+        return switch (type) {
+            case AddCustomScaleValueEvent.TYPE -> new AddCustomScaleValueEvent(axis, scaleValue);
+            case RemoveCustomScaleValueEvent.TYPE -> new RemoveCustomScaleValueEvent(axis, scaleValue);
+            default -> throw new BsonInvalidOperationException("Unknown custom scale value event type " + type);
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.PostCoordinationCustomScalesValueEvent;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.SpecificationRevisionCodec.*;
+
+public class CustomScalesRevisionCodec implements Codec<PostCoordinationCustomScalesRevision> {
+
+    private final CustomScalesEventCodec eventCodec = new CustomScalesEventCodec();
+
+    @Override
+    public void encode(BsonWriter writer, PostCoordinationCustomScalesRevision revision, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (revision.userId() != null) {
+            writer.writeString(USER_ID, revision.userId().id());
+        }
+        writeLong(writer, TIMESTAMP, revision.timestamp());
+        writer.writeStartArray(POST_COORDINATION_EVENTS);
+        if (revision.postCoordinationEvents() != null) {
+            for (PostCoordinationCustomScalesValueEvent event : revision.postCoordinationEvents()) {
+                encoderContext.encodeWithChildContext(eventCodec, writer, event);
+            }
+        }
+        writer.writeEndArray();
+        if (revision.commitStatus() != null) {
+            writer.writeString(COMMIT_STATUS, revision.commitStatus().name());
+        }
+        writeString(writer, CHANGE_REQUEST_ID, revision.changeRequestId());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PostCoordinationCustomScalesRevision decode(BsonReader reader, DecoderContext decoderContext) {
+        UserId userId = null;
+        Long timestamp = null;
+        Set<PostCoordinationCustomScalesValueEvent> events = new HashSet<>();
+        CommitStatus commitStatus = null;
+        String changeRequestId = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case USER_ID -> userId = readUserId(reader);
+                case TIMESTAMP -> timestamp = readLong(reader);
+                case POST_COORDINATION_EVENTS -> events.addAll(readArray(reader, r -> eventCodec.decode(r, decoderContext)));
+                case COMMIT_STATUS -> {
+                    String status = readString(reader);
+                    commitStatus = status != null ? CommitStatus.valueOf(status) : null;
+                }
+                case CHANGE_REQUEST_ID -> changeRequestId = readString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new PostCoordinationCustomScalesRevision(userId, timestamp, events, commitStatus, changeRequestId);
+    }
+
+    @Override
+    public Class<PostCoordinationCustomScalesRevision> getEncoderClass() {
+        return PostCoordinationCustomScalesRevision.class;
+    }
+}
@@ -0,0 +1,92 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.EntityCustomScalesValuesSnapshotCodec.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.*;
+
+public class EntityCustomScalesValuesHistoryCodec implements Codec<EntityCustomScalesValuesHistory> {
+
+    private static final String REVISION_COUNT = "revisionCount";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String SCALE_CUSTOMIZATIONS = "scaleCustomizations";
+
+    private final CustomScalesRevisionCodec revisionCodec = new CustomScalesRevisionCodec();
+
+    @Override
+    public void encode(BsonWriter writer, EntityCustomScalesValuesHistory history, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeString(writer, WHOFIC_ENTITY_IRI, history.getWhoficEntityIri());
+        writeString(writer, PROJECT_ID, history.getProjectId());
+        writer.writeStartArray(CUSTOM_SCALE_REVISIONS);
+        if (history.getPostCoordinationCustomScalesRevisions() != null) {
+            for (PostCoordinationCustomScalesRevision revision : history.getPostCoordinationCustomScalesRevisions()) {
+                encoderContext.encodeWithChildContext(revisionCodec, writer, revision);
+            }
+        }
+        writer.writeEndArray();
+        PostCoordinationCustomScalesCheckpoint checkpoint = history.getCustomScalesCheckpoint();
+        if (checkpoint != null) {
+            writer.writeStartDocument(CUSTOM_SCALES_CHECKPOINT);
+            writer.writeInt32(REVISION_COUNT, checkpoint.revisionCount());
+            writeLong(writer, TIMESTAMP, checkpoint.timestamp());
+            writeScaleCustomizations(writer, SCALE_CUSTOMIZATIONS, checkpoint.scaleCustomizations());
+            writer.writeEndDocument();
+        }
+        writer.writeInt64(VERSION, history.getVersion());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public EntityCustomScalesValuesHistory decode(BsonReader reader, DecoderContext decoderContext) {
+        String entityIri = null;
+        String projectId = null;
+        List<PostCoordinationCustomScalesRevision> revisions = new ArrayList<>();
+        PostCoordinationCustomScalesCheckpoint checkpoint = null;
+        Long version = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case WHOFIC_ENTITY_IRI -> entityIri = readString(reader);
+                case PROJECT_ID -> projectId = readString(reader);
+                case CUSTOM_SCALE_REVISIONS -> revisions = readArray(reader, r -> revisionCodec.decode(r, decoderContext));
+                case CUSTOM_SCALES_CHECKPOINT -> checkpoint = isPresent(reader) ? decodeCheckpoint(reader) : null;
+                case VERSION -> version = readLong(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new EntityCustomScalesValuesHistory(entityIri, projectId, revisions, checkpoint, version);
+    }
+
+    @Override
+    public Class<EntityCustomScalesValuesHistory> getEncoderClass() {
+        return EntityCustomScalesValuesHistory.class;
+    }
+
+    private static PostCoordinationCustomScalesCheckpoint decodeCheckpoint(BsonReader reader) {
+        int revisionCount = 0;
+        Long timestamp = null;
+        List<PostCoordinationScaleCustomization> scaleCustomizations = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case REVISION_COUNT -> {
+                    Long count = readLong(reader);
+                    revisionCount = count != null ? count.intValue() : 0;
+                }
+                case TIMESTAMP -> timestamp = readLong(reader);
+                case SCALE_CUSTOMIZATIONS -> scaleCustomizations = readScaleCustomizations(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return PostCoordinationCustomScalesCheckpoint.create(revisionCount, timestamp, scaleCustomizations);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesSnapshot;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesSnapshot.*;
+
+public class EntityCustomScalesValuesSnapshotCodec implements Codec<EntityCustomScalesValuesSnapshot> {
+
+    private static final String SCALE_VALUES = "postcoordinationScaleValues";
+    private static final String AXIS = "postcoordinationAxis";
+
+    @Override
+    public void encode(BsonWriter writer, EntityCustomScalesValuesSnapshot snapshot, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeString(writer, WHOFIC_ENTITY_IRI, snapshot.getWhoficEntityIri());
+        writeString(writer, PROJECT_ID, snapshot.getProjectId());
+        writer.writeInt32(REVISION_COUNT, snapshot.getRevisionCount());
+        writeLong(writer, LAST_REVISION_TIMESTAMP, snapshot.getLastRevisionTimestamp());
+        writeScaleCustomizations(writer, SCALE_CUSTOMIZATIONS, snapshot.getScaleCustomizations());
+        writer.writeInt64(HISTORY_VERSION, snapshot.getHistoryVersion());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public EntityCustomScalesValuesSnapshot decode(BsonReader reader, DecoderContext decoderContext) {
+        String entityIri = null;
+        String projectId = null;
+        int revisionCount = 0;
+        Long lastRevisionTimestamp = null;
+        List<PostCoordinationScaleCustomization> scaleCustomizations = null;
+        Long historyVersion = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case WHOFIC_ENTITY_IRI -> entityIri = readString(reader);
+                case PROJECT_ID -> projectId = readString(reader);
+                case REVISION_COUNT -> revisionCount = Objects.requireNonNullElse(readLong(reader), 0L).intValue();
+                case LAST_REVISION_TIMESTAMP -> lastRevisionTimestamp = readLong(reader);
+                case SCALE_CUSTOMIZATIONS -> scaleCustomizations = readScaleCustomizations(reader);
+                case HISTORY_VERSION -> historyVersion = readLong(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new EntityCustomScalesValuesSnapshot(entityIri, projectId, revisionCount, lastRevisionTimestamp, scaleCustomizations, historyVersion);
+    }
+
+    @Override
+    public Class<EntityCustomScalesValuesSnapshot> getEncoderClass() {
+        return EntityCustomScalesValuesSnapshot.class;
+    }
+
+    static void writeScaleCustomizations(BsonWriter writer, String name, List<PostCoordinationScaleCustomization> scaleCustomizations) {
+        writer.writeStartArray(name);
+        if (scaleCustomizations != null) {
+            for (PostCoordinationScaleCustomization scaleCustomization : scaleCustomizations) {
+                writer.writeStartDocument();
+                writeStrings(writer, SCALE_VALUES, scaleCustomization.getPostcoordinationScaleValues());
+                writeString(writer, AXIS, scaleCustomization.getPostcoordinationAxis());
+                writer.writeEndDocument();
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    static List<PostCoordinationScaleCustomization> readScaleCustomizations(BsonReader reader) {
+        return readArray(reader, r -> {
+            List<String> values = null;
+            String axis = null;
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case SCALE_VALUES -> values = readStrings(r);
+                    case AXIS -> axis = readString(r);
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            return new PostCoordinationScaleCustomization(values, axis);
+        });
+    }
+}
@@ -0,0 +1,139 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+
+public class EntityPostCoordinationHistoryCodec implements Codec<EntityPostCoordinationHistory> {
+
+    private static final String REVISION_COUNT = "revisionCount";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String SPECIFICATIONS = "postcoordinationSpecifications";
+    private static final String LINEARIZATION_VIEW = "linearizationView";
+    private static final String ALLOWED_AXES = "allowedAxes";
+    private static final String DEFAULT_AXES = "defaultAxes";
+    private static final String NOT_ALLOWED_AXES = "notAllowedAxes";
+    private static final String REQUIRED_AXES = "requiredAxes";
+
+    private final SpecificationRevisionCodec revisionCodec;
+
+    public EntityPostCoordinationHistoryCodec() {
+        this(new SpecificationRevisionCodec());
+    }
+
+    public EntityPostCoordinationHistoryCodec(SpecificationRevisionCodec revisionCodec) {
+        this.revisionCodec = revisionCodec;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, EntityPostCoordinationHistory history, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeString(writer, WHOFIC_ENTITY_IRI, history.getWhoficEntityIri());
+        writeString(writer, PROJECT_ID, history.getProjectId());
+        writer.writeStartArray(SPEC_REVISIONS);
+        if (history.getPostCoordinationRevisions() != null) {
+            for (PostCoordinationSpecificationRevision revision : history.getPostCoordinationRevisions()) {
+                encoderContext.encodeWithChildContext(revisionCodec, writer, revision);
+            }
+        }
+        writer.writeEndArray();
+        if (history.getSpecificationCheckpoint() != null) {
+            writer.writeName(SPEC_CHECKPOINT);
+            encodeCheckpoint(writer, history.getSpecificationCheckpoint());
+        }
+        writer.writeInt64(VERSION, history.getVersion());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public EntityPostCoordinationHistory decode(BsonReader reader, DecoderContext decoderContext) {
+        String entityIri = null;
+        String projectId = null;
+        List<PostCoordinationSpecificationRevision> revisions = new ArrayList<>();
+        PostCoordinationSpecificationCheckpoint checkpoint = null;
+        Long version = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case WHOFIC_ENTITY_IRI -> entityIri = readString(reader);
+                case PROJECT_ID -> projectId = readString(reader);
+                case SPEC_REVISIONS -> revisions = readArray(reader, r -> revisionCodec.decode(r, decoderContext));
+                case SPEC_CHECKPOINT -> checkpoint = isPresent(reader) ? decodeCheckpoint(reader) : null;
+                case VERSION -> version = readLong(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new EntityPostCoordinationHistory(entityIri, projectId, revisions, checkpoint, version);
+    }
+
+    @Override
+    public Class<EntityPostCoordinationHistory> getEncoderClass() {
+        return EntityPostCoordinationHistory.class;
+    }
+
+    private static void encodeCheckpoint(BsonWriter writer, PostCoordinationSpecificationCheckpoint checkpoint) {
+        writer.writeStartDocument();
+        writer.writeInt32(REVISION_COUNT, checkpoint.revisionCount());
+        writeLong(writer, TIMESTAMP, checkpoint.timestamp());
+        writer.writeStartArray(SPECIFICATIONS);
+        for (PostCoordinationSpecification specification : checkpoint.postcoordinationSpecifications()) {
+            writer.writeStartDocument();
+            writeString(writer, LINEARIZATION_VIEW, specification.getLinearizationView());
+            writeStrings(writer, ALLOWED_AXES, specification.getAllowedAxes());
+            writeStrings(writer, DEFAULT_AXES, specification.getDefaultAxes());
+            writeStrings(writer, NOT_ALLOWED_AXES, specification.getNotAllowedAxes());
+            writeStrings(writer, REQUIRED_AXES, specification.getRequiredAxes());
+            writer.writeEndDocument();
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    private static PostCoordinationSpecificationCheckpoint decodeCheckpoint(BsonReader reader) {
+        int revisionCount = 0;
+        Long timestamp = null;
+        List<PostCoordinationSpecification> specifications = new ArrayList<>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case REVISION_COUNT -> {
+                    Long count = readLong(reader);
+                    revisionCount = count != null ? count.intValue() : 0;
+                }
+                case TIMESTAMP -> timestamp = readLong(reader);
+                case SPECIFICATIONS -> specifications = readArray(reader, EntityPostCoordinationHistoryCodec::decodeSpecification);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return PostCoordinationSpecificationCheckpoint.create(revisionCount, timestamp, specifications);
+    }
+
+    private static PostCoordinationSpecification decodeSpecification(BsonReader reader) {
+        String view = null;
+        List<String> allowed = null;
+        List<String> defaults = null;
+        List<String> notAllowed = null;
+        List<String> required = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case LINEARIZATION_VIEW -> view = readString(reader);
+                case ALLOWED_AXES -> allowed = readStrings(reader);
+                case DEFAULT_AXES -> defaults = readStrings(reader);
+                case NOT_ALLOWED_AXES -> notAllowed = readStrings(reader);
+                case REQUIRED_AXES -> required = readStrings(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new PostCoordinationSpecification(view, allowed, defaults, notAllowed, required);
+    }
+}
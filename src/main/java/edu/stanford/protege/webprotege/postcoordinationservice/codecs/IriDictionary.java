@@ -0,0 +1,18 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+/**
+ * Small integer codes for the axis and linearization IRIs of one project, used by the compact event encoding. Codes
+ * are never reassigned, so a code written once keeps its IRI.
+ */
+public interface IriDictionary {
+
+    /**
+     * @return the code of the IRI, or -1 when the dictionary does not have it yet.
+     */
+    int codeOf(String iri);
+
+    /**
+     * @throws org.bson.BsonInvalidOperationException when the dictionary has no IRI with this code.
+     */
+    String iriOf(int code);
+}
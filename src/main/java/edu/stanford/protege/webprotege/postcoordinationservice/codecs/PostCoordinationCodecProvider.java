@@ -0,0 +1,67 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.*;
+
+import java.util.List;
+
+import static org.bson.codecs.configuration.CodecRegistries.*;
+
+/**
+ * Hand written codecs for the history documents and their events. They read and write BSON directly, without going
+ * through the Spring Data mapping or an intermediate Jackson tree, and produce the same documents as before so old and
+ * new documents can be mixed in one collection.
+ */
+public class PostCoordinationCodecProvider implements CodecProvider {
+
+    private static final CodecRegistry CODEC_REGISTRY = fromRegistries(
+            fromProviders(new PostCoordinationCodecProvider()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    private final List<Codec<?>> codecs;
+
+    public PostCoordinationCodecProvider() {
+        this(new SpecificationRevisionCodec());
+    }
+
+    private PostCoordinationCodecProvider(SpecificationRevisionCodec specificationRevisionCodec) {
+        this.codecs = List.of(
+                new EntityPostCoordinationHistoryCodec(specificationRevisionCodec),
+                new EntityCustomScalesValuesHistoryCodec(),
+                new EntityCustomScalesValuesSnapshotCodec(),
+                specificationRevisionCodec,
+                new CustomScalesRevisionCodec(),
+                new SpecificationEventCodec(),
+                new CustomScalesEventCodec());
+    }
+
+    /**
+     * The codecs of this provider in front of the driver defaults, for collections that are read or written with
+     * these classes as their document class.
+     */
+    public static CodecRegistry codecRegistry() {
+        return CODEC_REGISTRY;
+    }
+
+    /**
+     * Like {@link #codecRegistry()}, but the specification revisions are read with the IRI dictionary of one project,
+     * and written in the compact format when {@code compact} is set.
+     */
+    public static CodecRegistry codecRegistry(IriDictionary dictionary, boolean compact) {
+        return fromRegistries(
+                fromProviders(new PostCoordinationCodecProvider(new SpecificationRevisionCodec(dictionary, compact))),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        for (Codec<?> codec : codecs) {
+            if (codec.getEncoderClass().isAssignableFrom(clazz)) {
+                return (Codec<T>) codec;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+
+/**
+ * Writes a specification event the way Jackson did, with its type name in {@value #TYPE}, so documents written by
+ * either are read by both.
+ */
+public class SpecificationEventCodec implements Codec<PostCoordinationSpecificationEvent> {
+
+    static final String TYPE = "@type";
+    static final String POST_COORDINATION_AXIS = "postCoordinationAxis";
+    static final String LINEARIZATION_VIEW = "linearizationView";
+
+    @Override
+    public void encode(BsonWriter writer, PostCoordinationSpecificationEvent event, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString(TYPE, event.getType());
+        writeString(writer, POST_COORDINATION_AXIS, event.getPostCoordinationAxis());
+        writeString(writer, LINEARIZATION_VIEW, event.getLinearizationView());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PostCoordinationSpecificationEvent decode(BsonReader reader, DecoderContext decoderContext) {
+        String type = null;
+        String axis = null;
+        String view = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case TYPE -> type = readString(reader);
+                case POST_COORDINATION_AXIS -> axis = readString(reader);
+                case LINEARIZATION_VIEW -> view = readString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return create(type, axis, view);
+    }
+
+    @Override
+    public Class<PostCoordinationSpecificationEvent> getEncoderClass() {
+        return PostCoordinationSpecificationEvent.class;
+    }
+
+    public static org.bson.Document toDocument(PostCoordinationSpecificationEvent event) {
+        org.bson.Document document = new org.bson.Document(TYPE, event.getType());
+        if (event.getPostCoordinationAxis() != null) {
+            document.append(POST_COORDINATION_AXIS, event.getPostCoordinationAxis());
+        }
+        if (event.getLinearizationView() != null) {
+            document.append(LINEARIZATION_VIEW, event.getLinearizationView());
+        }
+        return document;
+    }
+
+    public static PostCoordinationSpecificationEvent fromDocument(org.bson.Document document) {
+        return create(document.getString(TYPE), document.getString(POST_COORDINATION_AXIS), document.getString(LINEARIZATION_VIEW));
+    }
+
+    static PostCoordinationSpecificationEvent create(String type, String axis, String view) {
+        if (type == null) {
+            throw new BsonInvalidOperationException("Specification event without " + TYPE);
+        }
+        return switch (type) {
+            case AddToAllowedAxisEvent.TYPE -> new AddToAllowedAxisEvent(axis, view);
+            case AddToDefaultAxisEvent.TYPE -> new AddToDefaultAxisEvent(axis, view);
+            case AddToNotAllowedAxisEvent.TYPE -> new AddToNotAllowedAxisEvent(axis, view);
+            case AddToRequiredAxisEvent.TYPE -> new AddToRequiredAxisEvent(axis, view);
+            default -> throw new BsonInvalidOperationException("Unknown specification event type " + type);
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.codecs.BsonCodecSupport.*;
+
+/**
+ * Writes the revision with its view events in one of two formats. The verbose format is the one Jackson wrote, with the
+ * full IRIs and type names in every event. The compact format replaces the IRIs by their code in the {@link IriDictionary}
+ * of the project and the type names by {@link #TYPE_CODES}, and leaves out the view of an axis event when it is the
+ * view of its view event:
+ * <pre>
+ * {v: 3, e: [{t: 0, a: 12}, {t: 3, a: 7}]}
+ * </pre>
+ * Both formats are always read, an IRI without a code is written verbose even in the compact format.
+ */
+public class SpecificationRevisionCodec implements Codec<PostCoordinationSpecificationRevision> {
+
+    static final String USER_ID = "userId";
+    static final String TIMESTAMP = "timestamp";
+    static final String POST_COORDINATION_EVENTS = "postCoordinationEvents";
+    static final String COMMIT_STATUS = "commitStatus";
+    static final String CHANGE_REQUEST_ID = "changeRequestId";
+    static final String LINEARIZATION_VIEW = "linearizationView";
+    static final String AXIS_EVENTS = "axisEvents";
+    static final String VIEW_CODE = "v";
+    static final String EVENT_CODES = "e";
+    static final String TYPE_CODE = "t";
+    static final String AXIS_CODE = "a";
+
+    /**
+     * The index of a type name is its code. New types are only ever appended.
+     */
+    static final List<String> TYPE_CODES = List.of(AddToAllowedAxisEvent.TYPE, AddToDefaultAxisEvent.TYPE,
+            AddToNotAllowedAxisEvent.TYPE, AddToRequiredAxisEvent.TYPE);
+
+    private final SpecificationEventCodec eventCodec = new SpecificationEventCodec();
+
+    private final IriDictionary dictionary;
+
+    private final boolean compact;
+
+    public SpecificationRevisionCodec() {
+        this(null, false);
+    }
+
+    /**
+     * @param compact whether new revisions are written in the compact format. Compact revisions are read whenever
+     *                there is a dictionary.
+     */
+    public SpecificationRevisionCodec(IriDictionary dictionary, boolean compact) {
+        this.dictionary = dictionary;
+        this.compact = compact && dictionary != null;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, PostCoordinationSpecificationRevision revision, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (revision.userId() != null) {
+            writer.writeString(USER_ID, revision.userId().id());
+        }
+        writeLong(writer, TIMESTAMP, revision.timestamp());
+        writer.writeStartArray(POST_COORDINATION_EVENTS);
+        if (revision.postCoordinationEvents() != null) {
+            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
+                encodeViewEvent(writer, viewEvent, encoderContext);
+            }
+        }
+        writer.writeEndArray();
+        if (revision.commitStatus() != null) {
+            writer.writeString(COMMIT_STATUS, revision.commitStatus().name());
+        }
+        writeString(writer, CHANGE_REQUEST_ID, revision.changeRequestId());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PostCoordinationSpecificationRevision decode(BsonReader reader, DecoderContext decoderContext) {
+        UserId userId = null;
+        Long timestamp = null;
+        Set<PostCoordinationViewEvent> viewEvents = new HashSet<>();
+        CommitStatus commitStatus = null;
+        String changeRequestId = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case USER_ID -> userId = readUserId(reader);
+                case TIMESTAMP -> timestamp = readLong(reader);
+                case POST_COORDINATION_EVENTS -> viewEvents.addAll(readArray(reader, r -> decodeViewEvent(r, decoderContext)));
+                case COMMIT_STATUS -> {
+                    String status = readString(reader);
+                    commitStatus = status != null ? CommitStatus.valueOf(status) : null;
+                }
+                case CHANGE_REQUEST_ID -> changeRequestId = readString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new PostCoordinationSpecificationRevision(userId, timestamp, viewEvents, commitStatus, changeRequestId);
+    }
+
+    @Override
+    public Class<PostCoordinationSpecificationRevision> getEncoderClass() {
+        return PostCoordinationSpecificationRevision.class;
+    }
+
+    void encodeViewEvent(BsonWriter writer, PostCoordinationViewEvent viewEvent, EncoderContext encoderContext) {
+        int viewCode = compact ? dictionary.codeOf(viewEvent.linearizationView()) : -1;
+        writer.writeStartDocument();
+        if (viewCode < 0) {
+            writeString(writer, LINEARIZATION_VIEW, viewEvent.linearizationView());
+            writer.writeStartArray(AXIS_EVENTS);
+        } else {
+            writer.writeInt32(VIEW_CODE, viewCode);
+            writer.writeStartArray(EVENT_CODES);
+        }
+        if (viewEvent.axisEvents() != null) {
+            for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                if (viewCode < 0 || !encodeCompactEvent(writer, event, viewEvent.linearizationView())) {
+                    encoderContext.encodeWithChildContext(eventCodec, writer, event);
+                }
+            }
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    /**
+     * @return false when the event has an IRI without a code, nothing was written then.
+     */
+    private boolean encodeCompactEvent(BsonWriter writer, PostCoordinationSpecificationEvent event, String parentView) {
+        int typeCode = TYPE_CODES.indexOf(event.getType());
+        int axisCode = event.getPostCoordinationAxis() != null ? dictionary.codeOf(event.getPostCoordinationAxis()) : -1;
+        boolean sameView = Objects.equals(parentView, event.getLinearizationView());
+        int viewCode = sameView || event.getLinearizationView() == null ? -1 : dictionary.codeOf(event.getLinearizationView());
+        if (typeCode < 0 || axisCode < 0 || (!sameView && viewCode < 0)) {
+            return false;
+        }
+        writer.writeStartDocument();
+        writer.writeInt32(TYPE_CODE, typeCode);
+        writer.writeInt32(AXIS_CODE, axisCode);
+        if (!sameView) {
+            writer.writeInt32(VIEW_CODE, viewCode);
+        }
+        writer.writeEndDocument();
+        return true;
+    }
+
+    PostCoordinationViewEvent decodeViewEvent(BsonReader reader, DecoderContext decoderContext) {
+        String view = null;
+        List<PostCoordinationSpecificationEvent> events = new ArrayList<>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case LINEARIZATION_VIEW -> view = readString(reader);
+                case VIEW_CODE -> view = readIri(reader);
+                case AXIS_EVENTS, EVENT_CODES -> {
+                    String parentView = view;
+                    events = readArray(reader, r -> decodeAxisEvent(r, parentView));
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return new PostCoordinationViewEvent(view, events);
+    }
+
+    /*
+     * Reads both formats, an axis event of a compact view event can still be verbose.
+     */
+    private PostCoordinationSpecificationEvent decodeAxisEvent(BsonReader reader, String parentView) {
+        String type = null;
+        String axis = null;
+        String view = parentView;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case SpecificationEventCodec.TYPE -> type = readString(reader);
+                case TYPE_CODE -> {
+                    Long typeCode = readLong(reader);
+                    if (typeCode == null || typeCode < 0 || typeCode >= TYPE_CODES.size()) {
+                        throw new BsonInvalidOperationException("Unknown specification event type code " + typeCode);
+                    }
+                    type = TYPE_CODES.get(typeCode.intValue());
+                }
+                case SpecificationEventCodec.POST_COORDINATION_AXIS -> axis = readString(reader);
+                case AXIS_CODE -> axis = readIri(reader);
+                case SpecificationEventCodec.LINEARIZATION_VIEW -> view = readString(reader);
+                case VIEW_CODE -> view = readIri(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return SpecificationEventCodec.create(type, axis, view);
+    }
+
+    private String readIri(BsonReader reader) {
+        Long code = readLong(reader);
+        if (code == null) {
+            return null;
+        }
+        if (dictionary == null) {
+            throw new BsonInvalidOperationException("Compact event without an IRI dictionary");
+        }
+        return dictionary.iriOf(code.intValue());
+    }
+}
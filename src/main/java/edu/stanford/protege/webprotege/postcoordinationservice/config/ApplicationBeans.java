@@ -43,13 +43,13 @@ public class ApplicationBeans {
     }
 
     @Bean
-    public MongoCustomConversions customConversions(ObjectMapper objectMapper) {
+    public MongoCustomConversions customConversions() {
         return new MongoCustomConversions(
                 List.of(
-                        new PostcoordinationEventReadingConverter(objectMapper),
-                        new PostcoordinationEventWritingConverter(objectMapper),
-                        new PostCoordinationCustomScalesReadingConverter(objectMapper),
-                        new PostCoordinationCustomScalesWritingConverter(objectMapper)
+                        new PostcoordinationEventReadingConverter(),
+                        new PostcoordinationEventWritingConverter(),
+                        new PostCoordinationCustomScalesReadingConverter(),
+                        new PostCoordinationCustomScalesWritingConverter()
                 )
         );
     }
@@ -0,0 +1,99 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded caches behind the {@code @Cacheable} configuration reads. The configuration is loaded into Mongo from
+ * outside of this service, so entries expire after {@code webprotege.cache.configurationTtlInSeconds} to pick up
+ * changes. Only the declared caches exist, which lets the actuator publish their statistics and evict them through
+ * the caches endpoint.
+ * <p>
+ * Clearing a cache, through the endpoint or an {@code @CacheEvict}, publishes a {@link ConfigurationCacheCleared}
+ * event, so what is built from the cached configuration can be dropped with it.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String TABLE_CONFIGURATIONS = "postCoordTableConfigs";
+
+    public static final String TABLE_CONFIGURATIONS_BY_ENTITY_TYPE = "postCoordConfigByEntity";
+
+    public static final String TABLE_AXIS_LABELS = "postCoordTableAxisLabels";
+
+    public static final String AXIS_TO_GENERIC_SCALE = "postCoordAxisToGenericScale";
+
+    public static final String LINEARIZATION_DEFINITIONS = "linearizationDefinitions";
+
+    public record ConfigurationCacheCleared(String cacheName) {
+    }
+
+    @Value("${webprotege.cache.configurationTtlInSeconds:600}")
+    private long configurationTtlInSeconds;
+
+    @Value("${webprotege.cache.configurationByEntityTypeMaximumSize:1000}")
+    private long configurationByEntityTypeMaximumSize;
+
+    @Value("${webprotege.cache.linearizationDefinitionsRefreshInSeconds:300}")
+    private long linearizationDefinitionsRefreshInSeconds;
+
+    @Value("${webprotege.cache.linearizationDefinitionsTtlInSeconds:3600}")
+    private long linearizationDefinitionsTtlInSeconds;
+
+    public Duration getConfigurationTtl() {
+        return Duration.ofSeconds(configurationTtlInSeconds);
+    }
+
+    public Duration getLinearizationDefinitionsRefresh() {
+        return Duration.ofSeconds(linearizationDefinitionsRefreshInSeconds);
+    }
+
+    public Duration getLinearizationDefinitionsTtl() {
+        return Duration.ofSeconds(linearizationDefinitionsTtlInSeconds);
+    }
+
+    @Bean
+    public CacheManager cacheManager(ApplicationEventPublisher eventPublisher) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CaffeineCache(name, cache, isAllowNullValues()) {
+                    @Override
+                    public void clear() {
+                        super.clear();
+                        eventPublisher.publishEvent(new ConfigurationCacheCleared(name));
+                    }
+
+                    @Override
+                    public boolean invalidate() {
+                        boolean invalidated = super.invalidate();
+                        eventPublisher.publishEvent(new ConfigurationCacheCleared(name));
+                        return invalidated;
+                    }
+                };
+            }
+        };
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(TABLE_CONFIGURATIONS, configurationCache(1));
+        cacheManager.registerCustomCache(TABLE_AXIS_LABELS, configurationCache(1));
+        cacheManager.registerCustomCache(AXIS_TO_GENERIC_SCALE, configurationCache(1));
+        cacheManager.registerCustomCache(TABLE_CONFIGURATIONS_BY_ENTITY_TYPE, configurationCache(configurationByEntityTypeMaximumSize));
+        return cacheManager;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> configurationCache(long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(getConfigurationTtl())
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.CacheInvalidationEvent;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.CacheInvalidationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * The events queue of the service is shared by all its instances, so an event sent there reaches only one of them.
+ * Cache invalidations are broadcast through their own fanout exchange instead, where every instance binds a queue
+ * of its own that is deleted when the instance goes away.
+ */
+@Configuration
+public class CacheInvalidationConfig {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationConfig.class);
+
+    public static final String ENABLED_PROPERTY = "webprotege.cacheInvalidation.enabled";
+
+    @Value("${" + ENABLED_PROPERTY + ":true}")
+    private boolean enabled;
+
+    @Value("${webprotege.cacheInvalidation.exchange:icatx-postcoordination-cache-invalidation}")
+    private String exchange;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public FanoutExchange cacheInvalidationExchange() {
+        return new FanoutExchange(exchange, true, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public AnonymousQueue cacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public Binding cacheInvalidationBinding(FanoutExchange cacheInvalidationExchange, AnonymousQueue cacheInvalidationQueue) {
+        return BindingBuilder.bind(cacheInvalidationQueue).to(cacheInvalidationExchange);
+    }
+
+    /*
+     * A single consumer, so the events of one instance are applied in the order they were published.
+     */
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public SimpleMessageListenerContainer cacheInvalidationListenerContainer(ConnectionFactory connectionFactory,
+                                                                             AnonymousQueue cacheInvalidationQueue,
+                                                                             CacheInvalidationService cacheInvalidationService,
+                                                                             ObjectMapper objectMapper) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueues(cacheInvalidationQueue);
+        container.setConcurrentConsumers(1);
+        container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        container.setDefaultRequeueRejected(false);
+        container.setMessageListener(message -> {
+            try {
+                cacheInvalidationService.handleRemoteEvent(objectMapper.readValue(message.getBody(), CacheInvalidationEvent.class));
+            } catch (IOException e) {
+                LOGGER.error("Could not read a cache invalidation event, flushing the local caches", e);
+                cacheInvalidationService.flushLocalCaches();
+            }
+        });
+        return container;
+    }
+}
@@ -0,0 +1,24 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class EntityTypeCacheConfig {
+
+    @Value("${webprotege.entityTypeCache.maximumSize:50000}")
+    private long maximumSize;
+
+    @Value("${webprotege.entityTypeCache.ttlInSeconds:300}")
+    private long ttlInSeconds;
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Duration getTtl() {
+        return Duration.ofSeconds(ttlInSeconds);
+    }
+}
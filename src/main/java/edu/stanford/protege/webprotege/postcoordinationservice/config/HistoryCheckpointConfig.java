@@ -0,0 +1,22 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HistoryCheckpointConfig {
+
+    @Value("${webprotege.checkpoint.maxEventsSinceCheckpoint:500}")
+    private int maxEventsSinceCheckpoint;
+
+    @Value("${webprotege.checkpoint.maxBytesSinceCheckpoint:262144}")
+    private long maxBytesSinceCheckpoint;
+
+    public int getMaxEventsSinceCheckpoint() {
+        return maxEventsSinceCheckpoint;
+    }
+
+    public long getMaxBytesSinceCheckpoint() {
+        return maxBytesSinceCheckpoint;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class HistoryMembershipConfig {
+
+    @Value("${webprotege.historyMembership.enabled:false}")
+    private boolean enabled;
+
+    @Value("${webprotege.historyMembership.expectedEntitiesPerProject:100000}")
+    private long expectedEntitiesPerProject;
+
+    @Value("${webprotege.historyMembership.falsePositiveProbability:0.01}")
+    private double falsePositiveProbability;
+
+    @Value("${webprotege.historyMembership.reloadIntervalInSeconds:3600}")
+    private long reloadIntervalInSeconds;
+
+    /*
+     * Without the broadcast the filters would miss the histories written by the other instances.
+     */
+    @Value("${" + CacheInvalidationConfig.ENABLED_PROPERTY + ":true}")
+    private boolean cacheInvalidationEnabled;
+
+    public boolean isEnabled() {
+        return enabled && cacheInvalidationEnabled;
+    }
+
+    public long getExpectedEntitiesPerProject() {
+        return expectedEntitiesPerProject;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public Duration getReloadInterval() {
+        return Duration.ofSeconds(reloadIntervalInSeconds);
+    }
+}
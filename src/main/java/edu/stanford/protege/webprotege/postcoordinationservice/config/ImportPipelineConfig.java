@@ -0,0 +1,68 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ImportPipelineConfig {
+
+    @Value("${webprotege.import.batchSize:500}")
+    private int batchSize;
+
+    /*
+     * 0 means one worker per available processor.
+     */
+    @Value("${webprotege.import.parallelism:0}")
+    private int parallelism;
+
+    @Value("${webprotege.import.maxInFlightWrites:4}")
+    private int maxInFlightWrites;
+
+    /*
+     * 0 means twice the number of workers plus the writes in flight.
+     */
+    @Value("${webprotege.import.maxPendingBatches:0}")
+    private int maxPendingBatches;
+
+    @Value("${webprotege.import.maxAttempts:3}")
+    private int maxAttempts;
+
+    @Value("${webprotege.import.retryBackoffInMillis:2000}")
+    private long retryBackoffInMillis;
+
+    /*
+     * A running job that made no progress for this long belongs to an instance that died and is taken over.
+     */
+    @Value("${webprotege.import.staleJobTimeoutInSeconds:600}")
+    private long staleJobTimeoutInSeconds;
+
+    public int getBatchSize() {
+        return Math.max(1, batchSize);
+    }
+
+    public int getParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getMaxInFlightWrites() {
+        return Math.max(1, maxInFlightWrites);
+    }
+
+    public int getMaxPendingBatches() {
+        return maxPendingBatches > 0 ? maxPendingBatches : 2 * getParallelism() + getMaxInFlightWrites();
+    }
+
+    public int getMaxAttempts() {
+        return Math.max(1, maxAttempts);
+    }
+
+    public long getRetryBackoffInMillis() {
+        return retryBackoffInMillis;
+    }
+
+    public Duration getStaleJobTimeout() {
+        return Duration.ofSeconds(staleJobTimeoutInSeconds);
+    }
+}
@@ -0,0 +1,22 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OptimisticConcurrencyConfig {
+
+    @Value("${webprotege.optimisticConcurrency.maxAttempts:5}")
+    private int maxAttempts;
+
+    @Value("${webprotege.optimisticConcurrency.backoffInMillis:20}")
+    private long backoffInMillis;
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBackoffInMillis() {
+        return backoffInMillis;
+    }
+}
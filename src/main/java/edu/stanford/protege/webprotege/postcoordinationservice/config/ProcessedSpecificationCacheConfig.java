@@ -0,0 +1,38 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProcessedSpecificationCacheConfig {
+
+    @Value("${webprotege.processedSpecificationCache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webprotege.processedSpecificationCache.specificationsMaximumSizeInMegabytes:64}")
+    private long specificationsMaximumSizeInMegabytes;
+
+    @Value("${webprotege.processedSpecificationCache.customScalesMaximumSizeInMegabytes:16}")
+    private long customScalesMaximumSizeInMegabytes;
+
+    @Value("${webprotege.processedSpecificationCache.ttlInSeconds:600}")
+    private long ttlInSeconds;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSpecificationsMaximumSizeInBytes() {
+        return specificationsMaximumSizeInMegabytes * 1024 * 1024;
+    }
+
+    public long getCustomScalesMaximumSizeInBytes() {
+        return customScalesMaximumSizeInMegabytes * 1024 * 1024;
+    }
+
+    public Duration getTtl() {
+        return Duration.ofSeconds(ttlInSeconds);
+    }
+}
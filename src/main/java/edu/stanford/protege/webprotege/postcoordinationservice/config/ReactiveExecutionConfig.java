@@ -0,0 +1,129 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.*;
+import reactor.core.scheduler.*;
+
+import java.lang.management.*;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * The command handlers compose the calls to other services as Mono pipelines, so no thread waits on a reply.
+ * Mongo access and the replays are blocking, they run on a bounded scheduler so that a burst of requests
+ * queues up instead of growing the number of threads.
+ * <p>
+ * With {@code webprotege.reactive.executionMode=virtual} the blocking work runs on one virtual thread per task
+ * instead, which needs Java 21: {@code -P java21} builds for Java 21 and puts the jar on a Java 21 base image. The
+ * {@code virtual-threads} profile switches both this and the Spring managed executors.
+ * <p>
+ * The {@code postcoordination.blocking.platform.threads} gauge, tagged with the mode, reports the live platform
+ * threads of the JVM. Virtual threads are not counted, so comparing it between the two modes under the same load
+ * shows how many carrier threads the virtual mode needs against the threads of the bounded pool.
+ */
+@Configuration
+public class ReactiveExecutionConfig {
+
+    public static final String BLOCKING_SCHEDULER = "blockingScheduler";
+
+    public static final String BOUNDED_MODE = "bounded";
+
+    public static final String VIRTUAL_MODE = "virtual";
+
+    public static final String PLATFORM_THREADS_METER = "postcoordination.blocking.platform.threads";
+
+    @Value("${webprotege.reactive.executionMode:" + BOUNDED_MODE + "}")
+    private String executionMode;
+
+    @Value("${webprotege.reactive.ipcTimeoutInMillis:15000}")
+    private long ipcTimeoutInMillis;
+
+    @Value("${webprotege.reactive.blockingThreadCap:32}")
+    private int blockingThreadCap;
+
+    @Value("${webprotege.reactive.blockingQueuedTaskCap:10000}")
+    private int blockingQueuedTaskCap;
+
+    @Value("${webprotege.reactive.batchChunkSize:200}")
+    private int batchChunkSize;
+
+    @Value("${webprotege.reactive.batchConcurrency:4}")
+    private int batchConcurrency;
+
+    public String getExecutionMode() {
+        return executionMode;
+    }
+
+    public Duration getIpcTimeout() {
+        return Duration.ofMillis(ipcTimeoutInMillis);
+    }
+
+    public int getBlockingThreadCap() {
+        return blockingThreadCap;
+    }
+
+    public int getBlockingQueuedTaskCap() {
+        return blockingQueuedTaskCap;
+    }
+
+    /**
+     * Number of entities of a batch request that are read and replayed together.
+     */
+    public int getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    /**
+     * Number of chunks of one batch request that are processed at the same time.
+     */
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    @Bean(name = BLOCKING_SCHEDULER, destroyMethod = "dispose")
+    public Scheduler blockingScheduler(MeterRegistry meterRegistry) {
+        return newBlockingScheduler(executionMode, blockingThreadCap, blockingQueuedTaskCap, meterRegistry);
+    }
+
+    public static Scheduler newBlockingScheduler(String executionMode, int threadCap, int queuedTaskCap, MeterRegistry meterRegistry) {
+        Scheduler scheduler = createBlockingScheduler(executionMode, threadCap, queuedTaskCap, meterRegistry);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Gauge.builder(PLATFORM_THREADS_METER, threads, ThreadMXBean::getThreadCount)
+                .description("Live platform threads, virtual threads are not counted")
+                .tag("mode", executionMode)
+                .register(meterRegistry);
+        Gauge.builder(PLATFORM_THREADS_METER + ".peak", threads, ThreadMXBean::getPeakThreadCount)
+                .description("Peak platform threads since the start of the JVM")
+                .tag("mode", executionMode)
+                .register(meterRegistry);
+        return scheduler;
+    }
+
+    private static Scheduler createBlockingScheduler(String executionMode, int threadCap, int queuedTaskCap, MeterRegistry meterRegistry) {
+        if (VIRTUAL_MODE.equals(executionMode)) {
+            ExecutorService executor = ExecutorServiceMetrics.monitor(meterRegistry, newVirtualThreadPerTaskExecutor(), "postcoordination-virtual");
+            return Schedulers.fromExecutorService(executor, "postcoordination-virtual");
+        }
+        if (!BOUNDED_MODE.equals(executionMode)) {
+            throw new IllegalStateException("Unknown execution mode " + executionMode + ", expected " + BOUNDED_MODE + " or " + VIRTUAL_MODE);
+        }
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "postcoordination-blocking");
+    }
+
+    /*
+     * Looked up reflectively so that the default build keeps compiling with Java 17.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("The virtual execution mode needs Java 21, running on " + Runtime.version()
+                    + ". Build the image with -P java21", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -14,6 +14,9 @@ public class ReadWriteLockConfig {
     @Value("${webprotege.readWriteLock.timeoutInMillies:1000}")
     private int timeout;
 
+    @Value("${webprotege.readWriteLock.stripes:1024}")
+    private int stripes;
+
     private final TimeUnit timeUnit = TimeUnit.MILLISECONDS;
 
     public int getMaxRetries() {
@@ -24,6 +27,10 @@ public class ReadWriteLockConfig {
         return timeout;
     }
 
+    public int getStripes() {
+        return stripes;
+    }
+
     public TimeUnit getTimeUnit() {
         return timeUnit;
     }
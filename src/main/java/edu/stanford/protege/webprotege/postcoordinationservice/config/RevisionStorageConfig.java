@@ -0,0 +1,37 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RevisionStorageConfig {
+
+    @Value("${webprotege.history.migrateOnStartup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${webprotege.history.migrationBatchSize:500}")
+    private int migrationBatchSize;
+
+    @Value("${webprotege.history.compactEventEncoding:false}")
+    private boolean compactEventEncoding;
+
+    /**
+     * Whether the revisions still embedded in the history documents are moved to the revisions collections when the
+     * service starts with the collection storage.
+     */
+    public boolean isMigrateOnStartup() {
+        return migrateOnStartup;
+    }
+
+    public int getMigrationBatchSize() {
+        return migrationBatchSize;
+    }
+
+    /**
+     * Whether the specification events are written with the IRI codes of the project instead of the full IRIs, and
+     * the histories written before are re-encoded when the service starts.
+     */
+    public boolean isCompactEventEncoding() {
+        return compactEventEncoding;
+    }
+}
@@ -0,0 +1,23 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.common.Request;
+
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntitiesCustomScaleValuesRequest.CHANNEL;
+
+
+@JsonTypeName(CHANNEL)
+public record GetEntitiesCustomScaleValuesRequest(@JsonProperty("entityIRIs") List<String> entityIRIs,
+                                                  @JsonProperty("projectId") ProjectId projectId) implements Request<GetEntitiesCustomScaleValuesResponse> {
+
+    public static final String CHANNEL = "webprotege.postcoordination.GetEntitiesScaleValues";
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+}
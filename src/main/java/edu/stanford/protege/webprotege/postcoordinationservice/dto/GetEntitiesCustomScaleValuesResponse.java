@@ -0,0 +1,19 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.dto;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.Response;
+
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntitiesCustomScaleValuesRequest.CHANNEL;
+
+
+/**
+ * One {@link GetEntityCustomScaleValueResponse} per requested entity, each with the date of the last revision of the
+ * entity.
+ */
+@JsonTypeName(CHANNEL)
+public record GetEntitiesCustomScaleValuesResponse(
+        @JsonProperty("entitiesCustomScaleValues") List<GetEntityCustomScaleValueResponse> entitiesCustomScaleValues
+) implements Response {
+}
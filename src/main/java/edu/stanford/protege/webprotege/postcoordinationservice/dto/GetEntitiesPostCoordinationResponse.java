@@ -0,0 +1,14 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import edu.stanford.protege.webprotege.common.Response;
+
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntitiesPostCoordinationRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public record GetEntitiesPostCoordinationResponse(@JsonProperty("postCoordinations")
+                                                  List<GetEntityPostCoordinationResponse> postCoordinations) implements Response {
+}
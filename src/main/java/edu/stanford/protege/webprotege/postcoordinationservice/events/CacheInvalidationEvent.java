@@ -0,0 +1,31 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.events;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.stanford.protege.webprotege.common.ProjectId;
+
+import java.util.List;
+
+/**
+ * Internal message that tells the other instances of the service which of their cached entries a write made stale.
+ * Every instance numbers the events it publishes from 1 without gaps, so a receiver that sees a sequence number
+ * jump knows it missed some of them.
+ *
+ * @param nodeId id of the instance that made the write, it changes on every start.
+ */
+public record CacheInvalidationEvent(@JsonProperty("nodeId") String nodeId,
+                                     @JsonProperty("sequence") long sequence,
+                                     @JsonProperty("scope") Scope scope,
+                                     @JsonProperty("projectId") ProjectId projectId,
+                                     @JsonProperty("entityIris") List<String> entityIris) {
+
+    public enum Scope {
+        /**
+         * The specification or custom scales histories of the entities were written.
+         */
+        HISTORIES,
+        /**
+         * The entity types of the entities may have changed, e.g. because the entities were deleted.
+         */
+        ENTITY_TYPES
+    }
+}
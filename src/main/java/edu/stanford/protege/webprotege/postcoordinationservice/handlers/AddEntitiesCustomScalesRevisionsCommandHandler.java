@@ -0,0 +1,48 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The batch variant of {@link AddEntityCustomScalesRevisionCommandHandler}, the revisions of all the entities are
+ * written with one bulk write.
+ */
+@WebProtegeHandler
+public class AddEntitiesCustomScalesRevisionsCommandHandler implements CommandHandler<AddEntitiesCustomScalesRevisionsRequest, AddEntitiesCustomScalesRevisionsResponse> {
+
+    private final PostCoordinationService postCoordService;
+
+    private final Scheduler blockingScheduler;
+
+    public AddEntitiesCustomScalesRevisionsCommandHandler(PostCoordinationService postCoordService,
+                                                          @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.postCoordService = postCoordService;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @NotNull
+    @Override
+    public String getChannelName() {
+        return AddEntitiesCustomScalesRevisionsRequest.CHANNEL;
+    }
+
+    @Override
+    public Class<AddEntitiesCustomScalesRevisionsRequest> getRequestClass() {
+        return AddEntitiesCustomScalesRevisionsRequest.class;
+    }
+
+    @Override
+    public Mono<AddEntitiesCustomScalesRevisionsResponse> handleRequest(AddEntitiesCustomScalesRevisionsRequest request, ExecutionContext executionContext) {
+        return Mono.fromCallable(() -> {
+                    postCoordService.addCustomScaleRevisions(request.entitiesCustomScaleValues(), request.projectId(), executionContext.userId(), request.changeRequestId(), request.commitMessage());
+                    return new AddEntitiesCustomScalesRevisionsResponse();
+                })
+                .subscribeOn(blockingScheduler);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficCustomScalesValues;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.AddEntitiesCustomScalesRevisionsRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public record AddEntitiesCustomScalesRevisionsRequest(@JsonProperty("projectId")
+                                                      ProjectId projectId,
+                                                      @JsonProperty("entitiesCustomScaleValues")
+                                                      List<WhoficCustomScalesValues> entitiesCustomScaleValues,
+                                                      @JsonProperty("changeRequestId") @Nullable ChangeRequestId changeRequestId,
+                                                      @JsonProperty("commitMessage") @Nullable String commitMessage) implements Request<AddEntitiesCustomScalesRevisionsResponse> {
+
+    public final static String CHANNEL = "webprotege.postcoordination.AddEntitiesCustomScalesRevisions";
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+}
@@ -0,0 +1,10 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import edu.stanford.protege.webprotege.common.Response;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.AddEntitiesCustomScalesRevisionsRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public class AddEntitiesCustomScalesRevisionsResponse implements Response {
+}
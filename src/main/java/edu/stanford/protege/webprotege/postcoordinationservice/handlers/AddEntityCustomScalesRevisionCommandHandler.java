@@ -2,17 +2,24 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @WebProtegeHandler
 public class AddEntityCustomScalesRevisionCommandHandler implements CommandHandler<AddEntityCustomScalesRevisionRequest, AddEntityCustomScalesRevisionResponse> {
 
     private final PostCoordinationService postCoordService;
 
-    public AddEntityCustomScalesRevisionCommandHandler(PostCoordinationService postCoordService) {
+    private final Scheduler blockingScheduler;
+
+    public AddEntityCustomScalesRevisionCommandHandler(PostCoordinationService postCoordService,
+                                                       @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordService = postCoordService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -28,9 +35,10 @@ public class AddEntityCustomScalesRevisionCommandHandler implements CommandHandl
 
     @Override
     public Mono<AddEntityCustomScalesRevisionResponse> handleRequest(AddEntityCustomScalesRevisionRequest request, ExecutionContext executionContext) {
-
-        postCoordService.addCustomScaleRevision(request.entityCustomScaleValues(), request.projectId(), executionContext.userId(), request.changeRequestId(), request.commitMessage());
-
-        return Mono.just(new AddEntityCustomScalesRevisionResponse());
+        return Mono.fromCallable(() -> {
+                    postCoordService.addCustomScaleRevision(request.entityCustomScaleValues(), request.projectId(), executionContext.userId(), request.changeRequestId(), request.commitMessage());
+                    return new AddEntityCustomScalesRevisionResponse();
+                })
+                .subscribeOn(blockingScheduler);
     }
 }
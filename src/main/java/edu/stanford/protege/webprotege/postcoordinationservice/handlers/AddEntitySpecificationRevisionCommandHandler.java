@@ -2,17 +2,29 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.*;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
 import org.jetbrains.annotations.NotNull;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @WebProtegeHandler
 public class AddEntitySpecificationRevisionCommandHandler implements CommandHandler<AddEntitySpecificationRevisionRequest, AddEntitySpecificationRevisionResponse> {
 
     private final PostCoordinationService postCoordService;
 
-    public AddEntitySpecificationRevisionCommandHandler(PostCoordinationService postCoordService) {
+    private final EntityTypeService entityTypeService;
+
+    private final Scheduler blockingScheduler;
+
+    public AddEntitySpecificationRevisionCommandHandler(PostCoordinationService postCoordService,
+                                                        EntityTypeService entityTypeService,
+                                                        @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordService = postCoordService;
+        this.entityTypeService = entityTypeService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -28,7 +40,11 @@ public class AddEntitySpecificationRevisionCommandHandler implements CommandHand
 
     @Override
     public Mono<AddEntitySpecificationRevisionResponse> handleRequest(AddEntitySpecificationRevisionRequest request, ExecutionContext executionContext) {
-        postCoordService.addSpecificationRevision(request.entitySpecification(), executionContext.userId(), request.projectId(), request.changeRequestId(), request.commitMessage());
-        return Mono.just(new AddEntitySpecificationRevisionResponse());
+        return entityTypeService.getEntityTypes(IRI.create(request.entitySpecification().whoficEntityIri()), request.projectId(), executionContext)
+                .flatMap(entityTypes -> Mono.fromCallable(() -> {
+                            postCoordService.addSpecificationRevision(request.entitySpecification(), executionContext.userId(), request.projectId(), request.changeRequestId(), request.commitMessage(), entityTypes);
+                            return new AddEntitySpecificationRevisionResponse();
+                        })
+                        .subscribeOn(blockingScheduler));
     }
 }
@@ -0,0 +1,58 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The batch variant of {@link AddEntitySpecificationRevisionCommandHandler}. The entity types of all the entities are
+ * resolved with one lookup before the revisions are added with one bulk write.
+ */
+@WebProtegeHandler
+public class AddEntitySpecificationRevisionsCommandHandler implements CommandHandler<AddEntitySpecificationRevisionsRequest, AddEntitySpecificationRevisionsResponse> {
+
+    private final PostCoordinationService postCoordService;
+
+    private final EntityTypeService entityTypeService;
+
+    private final Scheduler blockingScheduler;
+
+    public AddEntitySpecificationRevisionsCommandHandler(PostCoordinationService postCoordService,
+                                                         EntityTypeService entityTypeService,
+                                                         @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.postCoordService = postCoordService;
+        this.entityTypeService = entityTypeService;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @NotNull
+    @Override
+    public String getChannelName() {
+        return AddEntitySpecificationRevisionsRequest.CHANNEL;
+    }
+
+    @Override
+    public Class<AddEntitySpecificationRevisionsRequest> getRequestClass() {
+        return AddEntitySpecificationRevisionsRequest.class;
+    }
+
+    @Override
+    public Mono<AddEntitySpecificationRevisionsResponse> handleRequest(AddEntitySpecificationRevisionsRequest request, ExecutionContext executionContext) {
+        var entityIris = request.entitySpecifications().stream()
+                .map(WhoficEntityPostCoordinationSpecification::whoficEntityIri)
+                .distinct()
+                .toList();
+        return entityTypeService.getEntityTypes(entityIris, request.projectId(), executionContext)
+                .flatMap(entityTypes -> Mono.fromCallable(() -> {
+                            postCoordService.addSpecificationRevisions(request.entitySpecifications(), executionContext.userId(), request.projectId(), request.changeRequestId(), request.commitMessage(), entityTypes);
+                            return new AddEntitySpecificationRevisionsResponse();
+                        })
+                        .subscribeOn(blockingScheduler));
+    }
+}
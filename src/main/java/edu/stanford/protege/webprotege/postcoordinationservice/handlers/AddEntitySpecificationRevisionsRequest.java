@@ -0,0 +1,26 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.AddEntitySpecificationRevisionsRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public record AddEntitySpecificationRevisionsRequest(@JsonProperty("projectId")
+                                                     ProjectId projectId,
+                                                     @JsonProperty("entitySpecifications")
+                                                     List<WhoficEntityPostCoordinationSpecification> entitySpecifications,
+                                                     @JsonProperty("changeRequestId") @Nullable ChangeRequestId changeRequestId,
+                                                     @JsonProperty("commitMessage") @Nullable String commitMessage) implements Request<AddEntitySpecificationRevisionsResponse> {
+
+    public final static String CHANNEL = "webprotege.postcoordination.AddEntitySpecificationRevisions";
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+}
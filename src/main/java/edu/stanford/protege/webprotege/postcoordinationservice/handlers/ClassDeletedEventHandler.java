@@ -2,10 +2,15 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.EventHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.ClassDeletedEvent;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.List;
 
@@ -14,8 +19,16 @@ public class ClassDeletedEventHandler implements EventHandler<ClassDeletedEvent>
 
     private final PostCoordinationRepository postCoordinationRepository;
 
-    public ClassDeletedEventHandler(PostCoordinationRepository postCoordinationRepository) {
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final Scheduler blockingScheduler;
+
+    public ClassDeletedEventHandler(PostCoordinationRepository postCoordinationRepository,
+                                    CacheInvalidationService cacheInvalidationService,
+                                    @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordinationRepository = postCoordinationRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -35,12 +48,21 @@ public class ClassDeletedEventHandler implements EventHandler<ClassDeletedEvent>
         return ClassDeletedEvent.class;
     }
 
+    /*
+     * The event is acknowledged when this returns, so it waits for the delete that runs on the blocking scheduler.
+     */
     @Override
     public void handleEvent(ClassDeletedEvent event) {
         List<String> deletedIris = event.deletedIris()
                 .stream()
                 .map(iri -> iri.toString())
                 .toList();
-        postCoordinationRepository.deleteHistoriesForEntityIris(event.projectId(), deletedIris);
+        Mono.fromRunnable(() -> {
+                    postCoordinationRepository.deleteHistoriesForEntityIris(event.projectId(), deletedIris);
+                    cacheInvalidationService.invalidateHistories(event.projectId(), deletedIris);
+                    cacheInvalidationService.invalidateEntityTypes(event.projectId(), deletedIris);
+                })
+                .subscribeOn(blockingScheduler)
+                .block();
     }
 }
@@ -1,12 +1,15 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.*;
 
@@ -16,17 +19,20 @@ public class CreatePostcoordinationFromParentCommandHandler implements CommandHa
     private final PostCoordinationService postCoordService;
     private final PostCoordinationRepository repo;
     private final PostCoordinationEventProcessor eventProcessor;
-    private final LinearizationService linService;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
+    private final Scheduler blockingScheduler;
 
     public CreatePostcoordinationFromParentCommandHandler(PostCoordinationService postCoordService,
                                                           PostCoordinationRepository repo,
                                                           PostCoordinationEventProcessor eventProcessor,
-                                                          LinearizationService linService) {
+                                                          PostCoordinationConfigSnapshotService configSnapshotService,
+                                                          @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
 
         this.postCoordService = postCoordService;
         this.repo = repo;
         this.eventProcessor = eventProcessor;
-        this.linService = linService;
+        this.configSnapshotService = configSnapshotService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -42,16 +48,24 @@ public class CreatePostcoordinationFromParentCommandHandler implements CommandHa
 
     @Override
     public Mono<CreatePostcoordinationFromParentResponse> handleRequest(CreatePostcoordinationFromParentRequest request, ExecutionContext executionContext) {
-        List<LinearizationDefinition> definitionList = linService.getLinearizationDefinitions();
+        return Mono.fromCallable(() -> specificationFromParent(request))
+                .subscribeOn(blockingScheduler)
+                .flatMap(Mono::justOrEmpty)
+                .flatMap(specification -> postCoordService.addSpecificationRevision(specification, executionContext.userId(), request.projectId()))
+                .thenReturn(CreatePostcoordinationFromParentResponse.create());
+    }
+
+    private Optional<WhoficEntityPostCoordinationSpecification> specificationFromParent(CreatePostcoordinationFromParentRequest request) {
+        var configSnapshot = configSnapshotService.getSnapshot();
 
         var parentWhoficHistoryOptional = repo.getExistingHistoryOrderedByRevision(request.parentEntityIri().toString(), request.projectId());
-        parentWhoficHistoryOptional.ifPresent(parentWhoficHistory -> {
+        return parentWhoficHistoryOptional.map(parentWhoficHistory -> {
             List<PostCoordinationSpecification> newSpecsList = new ArrayList<>();
 
             var parentWhoficSpec = eventProcessor.processHistory(parentWhoficHistory);
 
             parentWhoficSpec.postcoordinationSpecifications().forEach(spec -> {
-                var currDef = definitionList.stream().filter(lin -> lin.getLinearizationUri().equalsIgnoreCase(spec.getLinearizationView())).findFirst();
+                var currDef = configSnapshot.getLinearizationDefinitionIgnoreCase(spec.getLinearizationView());
                 if (currDef.isEmpty()) {
                     return;
                 }
@@ -69,13 +83,7 @@ public class CreatePostcoordinationFromParentCommandHandler implements CommandHa
                 newSpecsList.add(newSpec);
             });
 
-            postCoordService.addSpecificationRevision(
-                    WhoficEntityPostCoordinationSpecification.create(request.newEntityIri().toString(), parentWhoficSpec.entityType(), newSpecsList),
-                    executionContext.userId(),
-                    request.projectId()
-            );
+            return WhoficEntityPostCoordinationSpecification.create(request.newEntityIri().toString(), parentWhoficSpec.entityType(), newSpecsList);
         });
-
-        return Mono.just(CreatePostcoordinationFromParentResponse.create());
     }
 }
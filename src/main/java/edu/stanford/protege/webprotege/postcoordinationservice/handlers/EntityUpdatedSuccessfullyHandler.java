@@ -2,10 +2,14 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.EventHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.EntityUpdatedSuccessfullyEvent;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.RevisionCommitService;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Component
 public class EntityUpdatedSuccessfullyHandler implements EventHandler<EntityUpdatedSuccessfullyEvent> {
@@ -13,8 +17,12 @@ public class EntityUpdatedSuccessfullyHandler implements EventHandler<EntityUpda
 
     private final RevisionCommitService revisionCommitService;
 
-    public EntityUpdatedSuccessfullyHandler(RevisionCommitService revisionCommitService) {
+    private final Scheduler blockingScheduler;
+
+    public EntityUpdatedSuccessfullyHandler(RevisionCommitService revisionCommitService,
+                                            @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.revisionCommitService = revisionCommitService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -36,6 +44,9 @@ public class EntityUpdatedSuccessfullyHandler implements EventHandler<EntityUpda
 
     @Override
     public void handleEvent(EntityUpdatedSuccessfullyEvent event) {
-        revisionCommitService.commitRevision(event.changeRequestId(), event.projectId(), event.entityIri());
+        // acknowledged when this returns, so it waits for the work on the blocking scheduler
+        Mono.fromRunnable(() -> revisionCommitService.commitRevision(event.changeRequestId(), event.projectId(), event.entityIri()))
+                .subscribeOn(blockingScheduler)
+                .block();
     }
 }
@@ -2,18 +2,26 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.EventHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.EntityUpdateFailedEvent;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.RevisionCommitService;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Component
 public class EventUpdateFailedHandler implements EventHandler<EntityUpdateFailedEvent> {
 
     private final RevisionCommitService revisionCommitService;
 
-    public EventUpdateFailedHandler(RevisionCommitService revisionCommitService) {
+    private final Scheduler blockingScheduler;
+
+    public EventUpdateFailedHandler(RevisionCommitService revisionCommitService,
+                                    @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.revisionCommitService = revisionCommitService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -35,6 +43,8 @@ public class EventUpdateFailedHandler implements EventHandler<EntityUpdateFailed
 
     @Override
     public void handleEvent(EntityUpdateFailedEvent event) {
-        revisionCommitService.rollbackRevision(event.changeRequestId(), event.projectId(), event.entityIri());
+        Mono.fromRunnable(() -> revisionCommitService.rollbackRevision(event.changeRequestId(), event.projectId(), event.entityIri()))
+                .subscribeOn(blockingScheduler)
+                .block();
     }
 }
@@ -0,0 +1,64 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import reactor.core.publisher.*;
+import reactor.core.scheduler.Scheduler;
+
+
+/**
+ * The batch variant of {@link GetEntityCustomScaleValuesCommandHandler}, processed in chunks like
+ * {@link GetEntitiesPostCoordinationCommandHandler}.
+ */
+@WebProtegeHandler
+public class GetEntitiesCustomScaleValuesCommandHandler implements CommandHandler<GetEntitiesCustomScaleValuesRequest, GetEntitiesCustomScaleValuesResponse> {
+
+
+    private final PostCoordinationService postCoordService;
+
+    private final EntityTypeService entityTypeService;
+
+    private final ReactiveExecutionConfig config;
+
+    private final Scheduler blockingScheduler;
+
+    public GetEntitiesCustomScaleValuesCommandHandler(PostCoordinationService postCoordService,
+                                                      EntityTypeService entityTypeService,
+                                                      ReactiveExecutionConfig config,
+                                                      @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.postCoordService = postCoordService;
+        this.entityTypeService = entityTypeService;
+        this.config = config;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @NotNull
+    @Override
+    public String getChannelName() {
+        return GetEntitiesCustomScaleValuesRequest.CHANNEL;
+    }
+
+    @Override
+    public Class<GetEntitiesCustomScaleValuesRequest> getRequestClass() {
+        return GetEntitiesCustomScaleValuesRequest.class;
+    }
+
+    @Override
+    public Mono<GetEntitiesCustomScaleValuesResponse> handleRequest(GetEntitiesCustomScaleValuesRequest request, ExecutionContext executionContext) {
+        return Flux.fromIterable(request.entityIRIs())
+                .distinct()
+                .buffer(config.getBatchChunkSize())
+                .flatMapSequential(chunk -> entityTypeService.getEntityTypes(chunk, request.projectId(), executionContext)
+                                .flatMap(entityTypes -> Mono.fromCallable(() -> postCoordService.fetchCustomScalesHistories(chunk, request.projectId(), entityTypes))
+                                        .subscribeOn(blockingScheduler)),
+                        config.getBatchConcurrency())
+                .flatMapIterable(responses -> responses)
+                .collectList()
+                .map(GetEntitiesCustomScaleValuesResponse::new);
+    }
+}
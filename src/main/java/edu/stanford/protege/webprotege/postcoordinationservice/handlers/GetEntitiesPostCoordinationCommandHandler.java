@@ -0,0 +1,72 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntitiesPostCoordinationRequest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntitiesPostCoordinationResponse;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import reactor.core.publisher.*;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The batch variant of {@link GetEntityPostCoordinationCommandHandler}. The entities are cut into chunks of
+ * {@code webprotege.reactive.batchChunkSize}, every chunk resolves its entity types with one lookup and reads its
+ * histories with one query, and up to {@code webprotege.reactive.batchConcurrency} chunks are replayed at the same
+ * time. The specifications come back in the order of the request, one per distinct entity: an entity that is
+ * requested more than once is answered at its first position only.
+ */
+@WebProtegeHandler
+public class GetEntitiesPostCoordinationCommandHandler implements CommandHandler<GetEntitiesPostCoordinationRequest, GetEntitiesPostCoordinationResponse> {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(GetEntitiesPostCoordinationCommandHandler.class);
+
+    private final PostCoordinationService postCoordService;
+
+    private final EntityTypeService entityTypeService;
+
+    private final ReactiveExecutionConfig config;
+
+    private final Scheduler blockingScheduler;
+
+    public GetEntitiesPostCoordinationCommandHandler(PostCoordinationService postCoordService,
+                                                     EntityTypeService entityTypeService,
+                                                     ReactiveExecutionConfig config,
+                                                     @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.postCoordService = postCoordService;
+        this.entityTypeService = entityTypeService;
+        this.config = config;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @NotNull
+    @Override
+    public String getChannelName() {
+        return GetEntitiesPostCoordinationRequest.CHANNEL;
+    }
+
+    @Override
+    public Class<GetEntitiesPostCoordinationRequest> getRequestClass() {
+        return GetEntitiesPostCoordinationRequest.class;
+    }
+
+    @Override
+    public Mono<GetEntitiesPostCoordinationResponse> handleRequest(GetEntitiesPostCoordinationRequest request, ExecutionContext executionContext) {
+        return Flux.fromIterable(request.entityIRIs())
+                .distinct()
+                .buffer(config.getBatchChunkSize())
+                .flatMapSequential(chunk -> entityTypeService.getEntityTypes(chunk, request.projectId(), executionContext)
+                                .flatMap(entityTypes -> Mono.fromCallable(() -> postCoordService.fetchHistories(chunk, request.projectId(), entityTypes))
+                                        .subscribeOn(blockingScheduler)),
+                        config.getBatchConcurrency())
+                .flatMapIterable(responses -> responses)
+                .collectList()
+                .map(GetEntitiesPostCoordinationResponse::new)
+                .doOnSuccess(response -> LOGGER.info("Fetched the post-coordination of {} entities", response.postCoordinations().size()))
+                .doOnError(e -> LOGGER.error("Error fetching the post-coordination of {} entities", request.entityIRIs().size(), e));
+    }
+}
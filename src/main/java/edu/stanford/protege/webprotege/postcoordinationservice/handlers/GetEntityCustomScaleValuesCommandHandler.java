@@ -2,11 +2,15 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficCustomScalesValues;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
 import org.jetbrains.annotations.NotNull;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 
 @WebProtegeHandler
@@ -15,8 +19,16 @@ public class GetEntityCustomScaleValuesCommandHandler implements CommandHandler<
 
     private final PostCoordinationService postCoordService;
 
-    public GetEntityCustomScaleValuesCommandHandler(PostCoordinationService postCoordService) {
+    private final EntityTypeService entityTypeService;
+
+    private final Scheduler blockingScheduler;
+
+    public GetEntityCustomScaleValuesCommandHandler(PostCoordinationService postCoordService,
+                                                    EntityTypeService entityTypeService,
+                                                    @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordService = postCoordService;
+        this.entityTypeService = entityTypeService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -32,8 +44,8 @@ public class GetEntityCustomScaleValuesCommandHandler implements CommandHandler<
 
     @Override
     public Mono<GetEntityCustomScaleValueResponse> handleRequest(GetEntityCustomScaleValuesRequest request, ExecutionContext executionContext) {
-        GetEntityCustomScaleValueResponse response = postCoordService.fetchCustomScalesHistory(request.entityIRI(), request.projectId(), executionContext);
-
-        return Mono.just(response);
+        return entityTypeService.getEntityTypes(IRI.create(request.entityIRI()), request.projectId(), executionContext)
+                .flatMap(entityTypes -> Mono.fromCallable(() -> postCoordService.fetchCustomScalesHistory(request.entityIRI(), request.projectId(), entityTypes))
+                        .subscribeOn(blockingScheduler));
     }
 }
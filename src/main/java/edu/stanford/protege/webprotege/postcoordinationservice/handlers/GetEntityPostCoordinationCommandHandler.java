@@ -2,21 +2,17 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 
 import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntityPostCoordinationRequest;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetEntityPostCoordinationResponse;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeResponse;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
 import org.jetbrains.annotations.NotNull;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
-
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import reactor.core.scheduler.Scheduler;
 
 @WebProtegeHandler
 public class GetEntityPostCoordinationCommandHandler implements CommandHandler<GetEntityPostCoordinationRequest, GetEntityPostCoordinationResponse> {
@@ -25,11 +21,16 @@ public class GetEntityPostCoordinationCommandHandler implements CommandHandler<G
 
     private final PostCoordinationService postCoordService;
 
-    private final CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
+    private final EntityTypeService entityTypeService;
+
+    private final Scheduler blockingScheduler;
 
-    public GetEntityPostCoordinationCommandHandler(PostCoordinationService postCoordService, CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor) {
+    public GetEntityPostCoordinationCommandHandler(PostCoordinationService postCoordService,
+                                                   EntityTypeService entityTypeService,
+                                                   @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordService = postCoordService;
-        this.entityTypeExecutor = entityTypeExecutor;
+        this.entityTypeService = entityTypeService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -45,16 +46,10 @@ public class GetEntityPostCoordinationCommandHandler implements CommandHandler<G
 
     @Override
     public Mono<GetEntityPostCoordinationResponse> handleRequest(GetEntityPostCoordinationRequest request, ExecutionContext executionContext) {
-        try {
-            List<String> entityTypes = entityTypeExecutor.execute(new GetIcatxEntityTypeRequest(IRI.create(request.entityIRI()), request.projectId()), executionContext)
-                    .get(15, TimeUnit.SECONDS).icatxEntityTypes();
-            LOGGER.info("Fetched entity type for {} : {} ", request.entityIRI(), entityTypes);
-            GetEntityPostCoordinationResponse processedSpec = postCoordService.fetchHistory(request.entityIRI(), request.projectId(),  entityTypes);
-
-            return Mono.just(processedSpec);
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            LOGGER.error("Error fetching entity types",e);
-            return Mono.error(new MessageProcessingException("Error fetching entity types", e));
-        }
+        return entityTypeService.getEntityTypes(IRI.create(request.entityIRI()), request.projectId(), executionContext)
+                .doOnNext(entityTypes -> LOGGER.info("Fetched entity type for {} : {} ", request.entityIRI(), entityTypes))
+                .flatMap(entityTypes -> Mono.fromCallable(() -> postCoordService.fetchHistory(request.entityIRI(), request.projectId(), entityTypes))
+                        .subscribeOn(blockingScheduler))
+                .doOnError(e -> LOGGER.error("Error fetching the post-coordination of {}", request.entityIRI(), e));
     }
 }
@@ -4,17 +4,18 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 import edu.stanford.protege.webprotege.ipc.CommandHandler;
 import edu.stanford.protege.webprotege.ipc.ExecutionContext;
 import edu.stanford.protege.webprotege.ipc.WebProtegeHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationAxisConfiguration;
-import edu.stanford.protege.webprotege.postcoordinationservice.model.CompositeAxis;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationConfigSnapshot;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.PostcoordinationAxisToGenericScale;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.TableAxisLabel;
-import edu.stanford.protege.webprotege.postcoordinationservice.model.TableConfiguration;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationTableConfigRepository;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostcoordinationAxisToGenericScaleRepository;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.*;
 
@@ -22,13 +23,14 @@ import java.util.*;
 public class GetFullPostCoordinationConfigurationCommandHandler implements CommandHandler<GetFullPostCoordinationConfigurationRequest, GetFullPostCoordinationConfigurationResponse> {
 
     private final static Logger log = LoggerFactory.getLogger(GetFullPostCoordinationConfigurationCommandHandler.class);
-    private final PostCoordinationTableConfigRepository configRepository;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
 
-    private final PostcoordinationAxisToGenericScaleRepository axisToGenericScale;
+    private final Scheduler blockingScheduler;
 
-    public GetFullPostCoordinationConfigurationCommandHandler(PostCoordinationTableConfigRepository configRepository, PostcoordinationAxisToGenericScaleRepository axisToGenericScale) {
-        this.configRepository = configRepository;
-        this.axisToGenericScale = axisToGenericScale;
+    public GetFullPostCoordinationConfigurationCommandHandler(PostCoordinationConfigSnapshotService configSnapshotService,
+                                                              @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.configSnapshotService = configSnapshotService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @Override
@@ -43,30 +45,31 @@ public class GetFullPostCoordinationConfigurationCommandHandler implements Comma
 
     @Override
     public Mono<GetFullPostCoordinationConfigurationResponse> handleRequest(GetFullPostCoordinationConfigurationRequest request, ExecutionContext executionContext) {
+        // rebuilds the snapshot from Mongo when it is missing or expired
+        return Mono.fromCallable(this::getFullConfiguration)
+                .subscribeOn(blockingScheduler);
+    }
 
-        List<TableAxisLabel> axisLabelList = configRepository.getTableAxisLabels();
-        List<TableConfiguration> tableConfigurations = configRepository.getALlTableConfiguration();
-        List<PostcoordinationAxisToGenericScale> axisToGenericScales = axisToGenericScale.getPostCoordAxisToGenericScale();
+    private GetFullPostCoordinationConfigurationResponse getFullConfiguration() {
+        PostCoordinationConfigSnapshot configSnapshot = configSnapshotService.getSnapshot();
         List<PostCoordinationAxisConfiguration> response = new ArrayList<>();
-        for(TableAxisLabel axisLabel : axisLabelList) {
+        for(TableAxisLabel axisLabel : configSnapshot.getTableAxisLabels()) {
            PostCoordinationAxisConfiguration postCoordinationAxisConfiguration = new PostCoordinationAxisConfiguration();
            postCoordinationAxisConfiguration.axisIdentifier = axisLabel.getPostCoordinationAxis();
            postCoordinationAxisConfiguration.tableLabel = axisLabel.getTableLabel();
            postCoordinationAxisConfiguration.scaleLabel = axisLabel.getScaleLabel();
            postCoordinationAxisConfiguration.postCoordinationAxisSortingCode = axisLabel.getPostCoordinationAxisSortingCode();
-           populateFromAxisToGenericScale(postCoordinationAxisConfiguration, axisToGenericScales);
-           populateFromTableConfiguration(postCoordinationAxisConfiguration, tableConfigurations);
+           populateFromAxisToGenericScale(postCoordinationAxisConfiguration, configSnapshot);
+           populateFromTableConfiguration(postCoordinationAxisConfiguration, configSnapshot);
            response.add(postCoordinationAxisConfiguration);
         }
 
-        return Mono.just(new GetFullPostCoordinationConfigurationResponse(response));
+        return new GetFullPostCoordinationConfigurationResponse(response);
     }
 
 
-    private void populateFromAxisToGenericScale(PostCoordinationAxisConfiguration postCoordinationAxisConfiguration, List<PostcoordinationAxisToGenericScale> axisToGenericScales) {
-        Optional<PostcoordinationAxisToGenericScale> scale = axisToGenericScales.stream()
-                .filter(axisToGenericScale -> axisToGenericScale.getPostcoordinationAxis().equals(postCoordinationAxisConfiguration.axisIdentifier))
-                .findAny();
+    private void populateFromAxisToGenericScale(PostCoordinationAxisConfiguration postCoordinationAxisConfiguration, PostCoordinationConfigSnapshot configSnapshot) {
+        Optional<PostcoordinationAxisToGenericScale> scale = configSnapshot.getAxisToGenericScale(postCoordinationAxisConfiguration.axisIdentifier);
         if(scale.isPresent()) {
             postCoordinationAxisConfiguration.availableScalesTopClass = scale.get().getGenericPostcoordinationScaleTopClass();
             postCoordinationAxisConfiguration.allowMultivalue = scale.get().getAllowMultiValue();
@@ -76,23 +79,11 @@ public class GetFullPostCoordinationConfigurationCommandHandler implements Comma
     }
 
 
-    private void populateFromTableConfiguration(PostCoordinationAxisConfiguration postCoordinationAxisConfiguration, List<TableConfiguration> tableConfigurations) {
-        postCoordinationAxisConfiguration.availableForEntityTypes = new HashSet<>();
+    private void populateFromTableConfiguration(PostCoordinationAxisConfiguration postCoordinationAxisConfiguration, PostCoordinationConfigSnapshot configSnapshot) {
+        // copies, the sets of the snapshot are read only
+        postCoordinationAxisConfiguration.availableForEntityTypes = new HashSet<>(configSnapshot.getEntityTypesForAxis(postCoordinationAxisConfiguration.axisIdentifier));
         postCoordinationAxisConfiguration.postCoordinationSubAxes = new HashMap<>();
-        for(TableConfiguration tableConfiguration : tableConfigurations) {
-            if(tableConfiguration.getPostCoordinationAxes().contains(postCoordinationAxisConfiguration.axisIdentifier)) {
-                postCoordinationAxisConfiguration.availableForEntityTypes.add(tableConfiguration.getEntityType());
-            }
-            for(CompositeAxis compositeAxis : tableConfiguration.getCompositePostCoordinationAxes()) {
-                if(compositeAxis.getPostCoordinationAxis().equals(postCoordinationAxisConfiguration.axisIdentifier)) {
-                    Set<String> availableSubAxes = postCoordinationAxisConfiguration.postCoordinationSubAxes.get(tableConfiguration.getEntityType());
-                    if(availableSubAxes == null) {
-                        availableSubAxes = new HashSet<>();
-                    }
-                    availableSubAxes.addAll(compositeAxis.getSubAxis());
-                    postCoordinationAxisConfiguration.postCoordinationSubAxes.put(tableConfiguration.getEntityType(), availableSubAxes);
-                }
-            }
-        }
+        configSnapshot.getSubAxesByEntityType(postCoordinationAxisConfiguration.axisIdentifier)
+                .forEach((entityType, subAxes) -> postCoordinationAxisConfiguration.postCoordinationSubAxes.put(entityType, new HashSet<>(subAxes)));
     }
 }
@@ -1,20 +1,24 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 import edu.stanford.protege.webprotege.ipc.*;
-import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.*;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
-
-import java.util.List;
+import reactor.core.scheduler.Scheduler;
 
 @WebProtegeHandler
 public class GetPostCoordinationAxisToGenericScaleCommandHandler implements CommandHandler<GetPostcoordinationAxisToGenericScaleRequest, GetPostcoordinationAxisToGenericScaleResponse> {
 
     private final PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository;
 
-    public GetPostCoordinationAxisToGenericScaleCommandHandler(PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository) {
+    private final Scheduler blockingScheduler;
+
+    public GetPostCoordinationAxisToGenericScaleCommandHandler(PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository,
+                                                               @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.axisToGenericScaleRepository = axisToGenericScaleRepository;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -30,8 +34,7 @@ public class GetPostCoordinationAxisToGenericScaleCommandHandler implements Comm
 
     @Override
     public Mono<GetPostcoordinationAxisToGenericScaleResponse> handleRequest(GetPostcoordinationAxisToGenericScaleRequest request, ExecutionContext executionContext) {
-        List<PostcoordinationAxisToGenericScale> postcoordinationAxisToGenericScales = axisToGenericScaleRepository.getPostCoordAxisToGenericScale();
-
-        return Mono.just(GetPostcoordinationAxisToGenericScaleResponse.create(postcoordinationAxisToGenericScales));
+        return Mono.fromCallable(() -> GetPostcoordinationAxisToGenericScaleResponse.create(axisToGenericScaleRepository.getPostCoordAxisToGenericScale()))
+                .subscribeOn(blockingScheduler);
     }
 }
@@ -0,0 +1,40 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.ImportJobService;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+@WebProtegeHandler
+public class GetPostCoordinationImportProgressCommandHandler implements CommandHandler<GetPostCoordinationImportProgressRequest, GetPostCoordinationImportProgressResponse> {
+
+    private final ImportJobService importJobService;
+
+    private final Scheduler blockingScheduler;
+
+    public GetPostCoordinationImportProgressCommandHandler(ImportJobService importJobService,
+                                                           @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.importJobService = importJobService;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @NotNull
+    @Override
+    public String getChannelName() {
+        return GetPostCoordinationImportProgressRequest.CHANNEL;
+    }
+
+    @Override
+    public Class<GetPostCoordinationImportProgressRequest> getRequestClass() {
+        return GetPostCoordinationImportProgressRequest.class;
+    }
+
+    @Override
+    public Mono<GetPostCoordinationImportProgressResponse> handleRequest(GetPostCoordinationImportProgressRequest request, ExecutionContext executionContext) {
+        return Mono.fromCallable(() -> new GetPostCoordinationImportProgressResponse(importJobService.getImportJobs(request.projectId())))
+                .subscribeOn(blockingScheduler);
+    }
+}
@@ -0,0 +1,16 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.GetPostCoordinationImportProgressRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public record GetPostCoordinationImportProgressRequest(@JsonProperty("projectId") ProjectId projectId) implements Request<GetPostCoordinationImportProgressResponse> {
+    public final static String CHANNEL = "webprotege.postcoordination.GetImportProgress";
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+}
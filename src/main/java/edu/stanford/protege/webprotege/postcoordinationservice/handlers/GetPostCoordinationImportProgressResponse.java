@@ -0,0 +1,13 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.Response;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.ImportJob;
+
+import java.util.List;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.GetPostCoordinationImportProgressRequest.CHANNEL;
+
+@JsonTypeName(CHANNEL)
+public record GetPostCoordinationImportProgressResponse(@JsonProperty("importJobs") List<ImportJob> importJobs) implements Response {
+}
@@ -3,9 +3,12 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 import edu.stanford.protege.webprotege.ipc.CommandHandler;
 import edu.stanford.protege.webprotege.ipc.ExecutionContext;
 import edu.stanford.protege.webprotege.ipc.WebProtegeHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import static edu.stanford.protege.webprotege.postcoordinationservice.handlers.UploadFirstCustomScalesValuesRequest.CHANNEL;
 
@@ -15,8 +18,12 @@ public class UploadFirstCustomScalesValuesHandler implements CommandHandler<Uplo
 
     private final PostCoordinationService postCoordinationService;
 
-    public UploadFirstCustomScalesValuesHandler(PostCoordinationService postCoordinationService) {
+    private final Scheduler blockingScheduler;
+
+    public UploadFirstCustomScalesValuesHandler(PostCoordinationService postCoordinationService,
+                                                @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordinationService = postCoordinationService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -32,7 +39,10 @@ public class UploadFirstCustomScalesValuesHandler implements CommandHandler<Uplo
 
     @Override
     public Mono<UploadFirstCustomScalesValuesResponse> handleRequest(UploadFirstCustomScalesValuesRequest request, ExecutionContext executionContext) {
-        postCoordinationService.crateFirstCustomScalesValuesImport(request.documentId().id(), request.projectId(), executionContext.userId());
-        return Mono.just(new UploadFirstCustomScalesValuesResponse());
+        return Mono.fromCallable(() -> {
+                    postCoordinationService.crateFirstCustomScalesValuesImport(request.documentId().id(), request.projectId(), executionContext.userId());
+                    return new UploadFirstCustomScalesValuesResponse();
+                })
+                .subscribeOn(blockingScheduler);
     }
 }
@@ -3,11 +3,14 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 import edu.stanford.protege.webprotege.ipc.CommandHandler;
 import edu.stanford.protege.webprotege.ipc.ExecutionContext;
 import edu.stanford.protege.webprotege.ipc.WebProtegeHandler;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationService;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 
 @WebProtegeHandler
@@ -17,8 +20,12 @@ public class UploadPostCoordinationCommandHandler implements CommandHandler<Uplo
 
     private final PostCoordinationService postCoordinationService;
 
-    public UploadPostCoordinationCommandHandler(PostCoordinationService postCoordinationService) {
+    private final Scheduler blockingScheduler;
+
+    public UploadPostCoordinationCommandHandler(PostCoordinationService postCoordinationService,
+                                                @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.postCoordinationService = postCoordinationService;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -34,13 +41,14 @@ public class UploadPostCoordinationCommandHandler implements CommandHandler<Uplo
 
     @Override
     public Mono<UploadPostCoordinationResponse> handleRequest(UploadPostCoordinationRequest request, ExecutionContext executionContext) {
-        try {
-            postCoordinationService.createFirstSpecificationImport(request.getDocumentId().id(), request.getProjectId(), executionContext.userId());
-            return Mono.just(new UploadPostCoordinationResponse());
-        } catch (Exception e) {
-            LOGGER.error("Error uploading postcoordinations", e);
-            throw new RuntimeException("Error uploading postcoordinations", e);
-        }
-
+        return Mono.fromCallable(() -> {
+                    postCoordinationService.createFirstSpecificationImport(request.getDocumentId().id(), request.getProjectId(), executionContext.userId());
+                    return new UploadPostCoordinationResponse();
+                })
+                .subscribeOn(blockingScheduler)
+                .onErrorMap(e -> {
+                    LOGGER.error("Error uploading postcoordinations", e);
+                    return new RuntimeException("Error uploading postcoordinations", e);
+                });
     }
 }
@@ -1,28 +1,26 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 
 import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.CheckNonExistentIrisAction;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.CheckNonExistentIrisResult;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeResponse;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.ValidateAxisBelongsToHierarchyAction;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.ValidateAxisBelongsToHierarchyResult;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationConfigSnapshot;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.PostcoordinationAxisToGenericScale;
-import edu.stanford.protege.webprotege.postcoordinationservice.model.TableConfiguration;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationTableConfigRepository;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostcoordinationAxisToGenericScaleRepository;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.EntityTypeService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import org.jetbrains.annotations.NotNull;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @WebProtegeHandler
@@ -30,22 +28,25 @@ public class ValidateEntityUpdateCommandHandler implements CommandHandler<Valida
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ValidateEntityUpdateCommandHandler.class);
 
-    private final CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
-    private final PostCoordinationTableConfigRepository configRepository;
+    private final EntityTypeService entityTypeService;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
     private final CommandExecutor<CheckNonExistentIrisAction, CheckNonExistentIrisResult> checkNonExistentIrisExecutor;
     private final CommandExecutor<ValidateAxisBelongsToHierarchyAction, ValidateAxisBelongsToHierarchyResult> validateAxisBelongsToHierarchyExecutor;
-    private final PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository;
+    private final ReactiveExecutionConfig reactiveConfig;
+    private final Scheduler blockingScheduler;
 
-    public ValidateEntityUpdateCommandHandler(CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor,
-                                             PostCoordinationTableConfigRepository configRepository,
+    public ValidateEntityUpdateCommandHandler(EntityTypeService entityTypeService,
+                                             PostCoordinationConfigSnapshotService configSnapshotService,
                                              CommandExecutor<CheckNonExistentIrisAction, CheckNonExistentIrisResult> checkNonExistentIrisExecutor,
                                              CommandExecutor<ValidateAxisBelongsToHierarchyAction, ValidateAxisBelongsToHierarchyResult> validateAxisBelongsToHierarchyExecutor,
-                                             PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository) {
-        this.entityTypeExecutor = entityTypeExecutor;
-        this.configRepository = configRepository;
+                                             ReactiveExecutionConfig reactiveConfig,
+                                             @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.entityTypeService = entityTypeService;
+        this.configSnapshotService = configSnapshotService;
         this.checkNonExistentIrisExecutor = checkNonExistentIrisExecutor;
         this.validateAxisBelongsToHierarchyExecutor = validateAxisBelongsToHierarchyExecutor;
-        this.axisToGenericScaleRepository = axisToGenericScaleRepository;
+        this.reactiveConfig = reactiveConfig;
+        this.blockingScheduler = blockingScheduler;
     }
 
     @NotNull
@@ -61,72 +62,62 @@ public class ValidateEntityUpdateCommandHandler implements CommandHandler<Valida
 
     @Override
     public Mono<ValidateEntityUpdateResponse> handleRequest(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
-        List<String> errorMessages = new ArrayList<>();
-        errorMessages.addAll(validatePostcoordinationAxisByEntityType(request, executionContext));
-        errorMessages.addAll(validateScaleValuesExist(request, executionContext));
-        errorMessages.addAll(validateCustomScalesAgainstSpecifications(request));
-        errorMessages.addAll(validateScaleValuesBelongToAxisHierarchy(request, executionContext));
-        return Mono.just(new ValidateEntityUpdateResponse(errorMessages));
+        // The checks that call other services run concurrently, the messages keep the order of the checks
+        return Mono.zip(validatePostcoordinationAxisByEntityType(request, executionContext),
+                        validateScaleValuesExist(request, executionContext),
+                        validateScaleValuesBelongToAxisHierarchy(request, executionContext))
+                .map(results -> {
+                    List<String> errorMessages = new ArrayList<>();
+                    errorMessages.addAll(results.getT1());
+                    errorMessages.addAll(results.getT2());
+                    errorMessages.addAll(validateCustomScalesAgainstSpecifications(request));
+                    errorMessages.addAll(results.getT3());
+                    return new ValidateEntityUpdateResponse(errorMessages);
+                });
     }
 
-    private List<String> validatePostcoordinationAxisByEntityType(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
+    private Mono<List<String>> validatePostcoordinationAxisByEntityType(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
+        // Get entityIri (same value in both attributes)
+        String entityIri = request.entityCustomScaleValues().whoficEntityIri();
+
+        // Verify that entityIri is the same in both attributes
+        if (!entityIri.equals(request.entitySpecification().whoficEntityIri())) {
+            return Mono.just(List.of("Entity IRI mismatch: entityCustomScaleValues.whoficEntityIri (" +
+                    entityIri + ") differs from entitySpecification.whoficEntityIri (" +
+                    request.entitySpecification().whoficEntityIri() + ")"));
+        }
+
+        // Fetch entityType for entityIri
+        return entityTypeService.getEntityTypes(IRI.create(entityIri), request.projectId(), executionContext)
+                .doOnNext(entityTypes -> LOGGER.info("Fetched entity types for {} : {}", entityIri, entityTypes))
+                .publishOn(blockingScheduler)
+                .map(entityTypes -> validateAxesAllowedForEntityTypes(request, entityTypes))
+                .onErrorResume(MessageProcessingException.class, e -> {
+                    LOGGER.error("Error fetching entity types", e);
+                    return Mono.just(List.of("Error fetching entity types: " + causeMessage(e)));
+                });
+    }
+
+    private List<String> validateAxesAllowedForEntityTypes(ValidateEntityUpdateRequest request, List<String> entityTypes) {
         List<String> errorMessages = new ArrayList<>();
 
-        try {
-            // Get entityIri (same value in both attributes)
-            String entityIri = request.entityCustomScaleValues().whoficEntityIri();
-            
-            // Verify that entityIri is the same in both attributes
-            if (!entityIri.equals(request.entitySpecification().whoficEntityIri())) {
-                errorMessages.add("Entity IRI mismatch: entityCustomScaleValues.whoficEntityIri (" + 
-                    entityIri + ") differs from entitySpecification.whoficEntityIri (" + 
-                    request.entitySpecification().whoficEntityIri() + ")");
-                return errorMessages;
-            }
+        // All allowed axes for the found entityTypes (including sub-axes from composite axes)
+        Set<String> allowedAxes = configSnapshotService.getSnapshot().getAxesWithSubAxes(entityTypes);
 
-            // Fetch entityType for entityIri
-            List<String> entityTypes = entityTypeExecutor.execute(
-                    new GetIcatxEntityTypeRequest(IRI.create(entityIri), request.projectId()), 
-                    executionContext)
-                    .get(15, TimeUnit.SECONDS).icatxEntityTypes();
-
-            LOGGER.info("Fetched entity types for {} : {}", entityIri, entityTypes);
-
-            // Get table configurations for the found entityTypes
-            List<TableConfiguration> configurations = configRepository.getTableConfigurationByEntityType(entityTypes);
-
-            // Extract all allowed axes for this entityType (including sub-axes from composite axes)
-            Set<String> allowedAxes = configurations.stream()
-                    .filter(config -> entityTypes.contains(config.getEntityType()))
-                    .flatMap(config -> {
-                        List<String> axes = new ArrayList<>(List.copyOf(config.getPostCoordinationAxes()));
-                        axes.addAll(config.getCompositePostCoordinationAxes()
-                                .stream()
-                                .flatMap(c -> c.getSubAxis().stream())
-                                .toList());
-                        return axes.stream();
-                    })
-                    .collect(Collectors.toSet());
-
-            // Validate axes from entitySpecification
-            for (PostCoordinationSpecification spec : request.entitySpecification().postcoordinationSpecifications()) {
-                validateAxes(spec.getAllowedAxes(), "allowedAxes", allowedAxes, errorMessages);
-                validateAxes(spec.getDefaultAxes(), "defaultAxes", allowedAxes, errorMessages);
-                validateAxes(spec.getNotAllowedAxes(), "notAllowedAxes", allowedAxes, errorMessages);
-                validateAxes(spec.getRequiredAxes(), "requiredAxes", allowedAxes, errorMessages);
-            }
+        // Validate axes from entitySpecification
+        for (PostCoordinationSpecification spec : request.entitySpecification().postcoordinationSpecifications()) {
+            validateAxes(spec.getAllowedAxes(), "allowedAxes", allowedAxes, errorMessages);
+            validateAxes(spec.getDefaultAxes(), "defaultAxes", allowedAxes, errorMessages);
+            validateAxes(spec.getNotAllowedAxes(), "notAllowedAxes", allowedAxes, errorMessages);
+            validateAxes(spec.getRequiredAxes(), "requiredAxes", allowedAxes, errorMessages);
+        }
 
-            // Validate axes from entityCustomScaleValues
-            for (PostCoordinationScaleCustomization customization : request.entityCustomScaleValues().scaleCustomizations()) {
-                String axis = customization.getPostcoordinationAxis();
-                if (axis != null && !allowedAxes.contains(axis)) {
-                    errorMessages.add("Axis '" + axis + "' from entityCustomScaleValues is not allowed for entityType(s): " + entityTypes);
-                }
+        // Validate axes from entityCustomScaleValues
+        for (PostCoordinationScaleCustomization customization : request.entityCustomScaleValues().scaleCustomizations()) {
+            String axis = customization.getPostcoordinationAxis();
+            if (axis != null && !allowedAxes.contains(axis)) {
+                errorMessages.add("Axis '" + axis + "' from entityCustomScaleValues is not allowed for entityType(s): " + entityTypes);
             }
-
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            LOGGER.error("Error fetching entity types", e);
-            errorMessages.add("Error fetching entity types: " + e.getMessage());
         }
 
         return errorMessages;
@@ -142,39 +133,30 @@ public class ValidateEntityUpdateCommandHandler implements CommandHandler<Valida
         }
     }
 
-    private List<String> validateScaleValuesExist(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
-        List<String> errorMessages = new ArrayList<>();
-
-        try {
-            // Extract all IRIs from postcoordinationScaleValues
-            Set<IRI> scaleValueIris = request.entityCustomScaleValues().scaleCustomizations().stream()
-                    .flatMap(customization -> customization.getPostcoordinationScaleValues().stream())
-                    .filter(iriString -> iriString != null && !iriString.isEmpty())
-                    .map(IRI::create)
-                    .collect(Collectors.toSet());
-
-            if (scaleValueIris.isEmpty()) {
-                return errorMessages;
-            }
-
-            // Check which IRIs do not exist in the project
-            CheckNonExistentIrisResult result = checkNonExistentIrisExecutor.execute(
-                    new CheckNonExistentIrisAction(request.projectId(), scaleValueIris),
-                    executionContext
-            ).get(15, TimeUnit.SECONDS);
-
-            if (!result.nonExistentIris().isEmpty()) {
-                for (IRI nonExistentIri : result.nonExistentIris()) {
-                    errorMessages.add("Scale value IRI '" + nonExistentIri + "' does not exist in project");
-                }
-            }
+    private Mono<List<String>> validateScaleValuesExist(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
+        // Extract all IRIs from postcoordinationScaleValues
+        Set<IRI> scaleValueIris = request.entityCustomScaleValues().scaleCustomizations().stream()
+                .flatMap(customization -> customization.getPostcoordinationScaleValues().stream())
+                .filter(iriString -> iriString != null && !iriString.isEmpty())
+                .map(IRI::create)
+                .collect(Collectors.toSet());
 
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            LOGGER.error("Error validating scale values existence", e);
-            errorMessages.add("Error validating scale values existence: " + e.getMessage());
+        if (scaleValueIris.isEmpty()) {
+            return Mono.just(List.of());
         }
 
-        return errorMessages;
+        // Check which IRIs do not exist in the project
+        return Mono.fromFuture(() -> checkNonExistentIrisExecutor.execute(
+                        new CheckNonExistentIrisAction(request.projectId(), scaleValueIris),
+                        executionContext))
+                .timeout(reactiveConfig.getIpcTimeout())
+                .map(result -> result.nonExistentIris().stream()
+                        .map(nonExistentIri -> "Scale value IRI '" + nonExistentIri + "' does not exist in project")
+                        .toList())
+                .onErrorResume(e -> {
+                    LOGGER.error("Error validating scale values existence", e);
+                    return Mono.just(List.of("Error validating scale values existence: " + e.getMessage()));
+                });
     }
 
     private List<String> validateCustomScalesAgainstSpecifications(ValidateEntityUpdateRequest request) {
@@ -205,82 +187,86 @@ public class ValidateEntityUpdateCommandHandler implements CommandHandler<Valida
         return errorMessages;
     }
 
-    private List<String> validateScaleValuesBelongToAxisHierarchy(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
-        List<String> errorMessages = new ArrayList<>();
+    private Mono<List<String>> validateScaleValuesBelongToAxisHierarchy(ValidateEntityUpdateRequest request, ExecutionContext executionContext) {
+        // Get the axis -> top class mapping from configuration
+        return Mono.fromCallable(configSnapshotService::getSnapshot)
+                .subscribeOn(blockingScheduler)
+                .flatMap(configSnapshot -> validateScaleValuesBelongToAxisHierarchy(request, executionContext, configSnapshot));
+    }
 
-        try {
-            // Get the axis -> top class mapping from configuration
-            List<PostcoordinationAxisToGenericScale> axisToGenericScales = axisToGenericScaleRepository.getPostCoordAxisToGenericScale();
-            Map<String, String> axisToTopClassMap = axisToGenericScales.stream()
-                    .collect(Collectors.toMap(
-                            PostcoordinationAxisToGenericScale::getPostcoordinationAxis,
-                            PostcoordinationAxisToGenericScale::getGenericPostcoordinationScaleTopClass
-                    ));
-
-            // Build the hierarchyRootsToEntities map
-            // Key = top class IRI for axis, Value = list of scale values for that axis
-            Map<IRI, List<IRI>> hierarchyRootsToEntities = new HashMap<>();
-
-            for (PostCoordinationScaleCustomization customization : request.entityCustomScaleValues().scaleCustomizations()) {
-                String axis = customization.getPostcoordinationAxis();
-                if (axis == null) {
-                    continue;
-                }
+    private Mono<List<String>> validateScaleValuesBelongToAxisHierarchy(ValidateEntityUpdateRequest request,
+                                                                       ExecutionContext executionContext,
+                                                                       PostCoordinationConfigSnapshot configSnapshot) {
+        // Build the hierarchyRootsToEntities map
+        // Key = top class IRI for axis, Value = list of scale values for that axis
+        Map<IRI, List<IRI>> hierarchyRootsToEntities = new HashMap<>();
 
-                String topClassIri = axisToTopClassMap.get(axis);
-                if (topClassIri == null) {
-                    LOGGER.warn("No top class found for axis: {}", axis);
-                    continue;
-                }
-
-                IRI topClassIRI = IRI.create(topClassIri);
-                
-                // Convert scale values from String to IRI
-                List<IRI> scaleValueIris = customization.getPostcoordinationScaleValues().stream()
-                        .filter(iriString -> iriString != null && !iriString.isEmpty())
-                        .map(IRI::create)
-                        .collect(Collectors.toList());
-
-                if (!scaleValueIris.isEmpty()) {
-                    // Group scale values by top class (axis)
-                    hierarchyRootsToEntities.computeIfAbsent(topClassIRI, k -> new ArrayList<>())
-                            .addAll(scaleValueIris);
-                }
+        for (PostCoordinationScaleCustomization customization : request.entityCustomScaleValues().scaleCustomizations()) {
+            String axis = customization.getPostcoordinationAxis();
+            if (axis == null) {
+                continue;
             }
 
-            // If we don't have scale values, don't continue
-            if (hierarchyRootsToEntities.isEmpty()) {
-                return errorMessages;
+            String topClassIri = configSnapshot.getAxisToGenericScale(axis)
+                    .map(PostcoordinationAxisToGenericScale::getGenericPostcoordinationScaleTopClass)
+                    .orElse(null);
+            if (topClassIri == null) {
+                LOGGER.warn("No top class found for axis: {}", axis);
+                continue;
             }
 
-            // Send the request to the backend for validation
-            ValidateAxisBelongsToHierarchyResult result = validateAxisBelongsToHierarchyExecutor.execute(
-                    new ValidateAxisBelongsToHierarchyAction(request.projectId(), hierarchyRootsToEntities),
-                    executionContext
-            ).get(15, TimeUnit.SECONDS);
-
-            // Process the response and add errors for invalid entities
-            for (Map.Entry<IRI, List<IRI>> entry : result.invalidEntitiesByRoot().entrySet()) {
-                IRI topClassIRI = entry.getKey();
-                List<IRI> invalidEntities = entry.getValue();
-
-                // Find the axis corresponding to this top class
-                String axis = axisToGenericScales.stream()
-                        .filter(scale -> scale.getGenericPostcoordinationScaleTopClass().equals(topClassIRI.toString()))
-                        .map(PostcoordinationAxisToGenericScale::getPostcoordinationAxis)
-                        .findFirst()
-                        .orElse("Unknown");
-
-                for (IRI invalidEntity : invalidEntities) {
-                    errorMessages.add("Scale value IRI '" + invalidEntity + "' does not belong to axis '" + axis + "' hierarchy (top class: " + topClassIRI + ")");
-                }
+            IRI topClassIRI = IRI.create(topClassIri);
+
+            // Convert scale values from String to IRI
+            List<IRI> scaleValueIris = customization.getPostcoordinationScaleValues().stream()
+                    .filter(iriString -> iriString != null && !iriString.isEmpty())
+                    .map(IRI::create)
+                    .collect(Collectors.toList());
+
+            if (!scaleValueIris.isEmpty()) {
+                // Group scale values by top class (axis)
+                hierarchyRootsToEntities.computeIfAbsent(topClassIRI, k -> new ArrayList<>())
+                        .addAll(scaleValueIris);
             }
+        }
+
+        // If we don't have scale values, don't continue
+        if (hierarchyRootsToEntities.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        // Send the request to the backend for validation
+        return Mono.fromFuture(() -> validateAxisBelongsToHierarchyExecutor.execute(
+                        new ValidateAxisBelongsToHierarchyAction(request.projectId(), hierarchyRootsToEntities),
+                        executionContext))
+                .timeout(reactiveConfig.getIpcTimeout())
+                .map(result -> toHierarchyErrorMessages(result, configSnapshot))
+                .onErrorResume(e -> {
+                    LOGGER.error("Error validating scale values belong to axis hierarchy", e);
+                    return Mono.just(List.of("Error validating scale values belong to axis hierarchy: " + e.getMessage()));
+                });
+    }
+
+    private List<String> toHierarchyErrorMessages(ValidateAxisBelongsToHierarchyResult result, PostCoordinationConfigSnapshot configSnapshot) {
+        List<String> errorMessages = new ArrayList<>();
+
+        // Process the response and add errors for invalid entities
+        for (Map.Entry<IRI, List<IRI>> entry : result.invalidEntitiesByRoot().entrySet()) {
+            IRI topClassIRI = entry.getKey();
+            List<IRI> invalidEntities = entry.getValue();
+
+            // Find the axis corresponding to this top class
+            String axis = configSnapshot.getAxisForTopClass(topClassIRI.toString()).orElse("Unknown");
 
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            LOGGER.error("Error validating scale values belong to axis hierarchy", e);
-            errorMessages.add("Error validating scale values belong to axis hierarchy: " + e.getMessage());
+            for (IRI invalidEntity : invalidEntities) {
+                errorMessages.add("Scale value IRI '" + invalidEntity + "' does not belong to axis '" + axis + "' hierarchy (top class: " + topClassIRI + ")");
+            }
         }
 
         return errorMessages;
     }
+
+    private static String causeMessage(Throwable e) {
+        return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
 }
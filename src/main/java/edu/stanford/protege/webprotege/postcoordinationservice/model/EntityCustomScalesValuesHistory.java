@@ -2,8 +2,7 @@ package edu.stanford.protege.webprotege.postcoordinationservice.model;
 
 
 import com.fasterxml.jackson.annotation.*;
-import org.springframework.data.mongodb.core.index.CompoundIndex;
-import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.annotation.PersistenceCreator;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.*;
 
@@ -11,11 +10,11 @@ import java.util.List;
 
 import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.POSTCOORDINATION_CUSTOM_SCALES_COLLECTION;
 
+/**
+ * One history per entity and project, like {@link EntityPostCoordinationHistory} and with the same unique index.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Document(collection = POSTCOORDINATION_CUSTOM_SCALES_COLLECTION)
-@CompoundIndexes({
-        @CompoundIndex(name = "entity_iri_project_idx", def = "{'" + EntityCustomScalesValuesHistory.WHOFIC_ENTITY_IRI + "': 1, '" + EntityCustomScalesValuesHistory.PROJECT_ID + "': 1}")
-})
 public class EntityCustomScalesValuesHistory {
 
     public static final String POSTCOORDINATION_CUSTOM_SCALES_COLLECTION = "EntityPostCoordinationCustomScales";
@@ -23,6 +22,8 @@ public class EntityCustomScalesValuesHistory {
     public static final String WHOFIC_ENTITY_IRI = "whoficEntityIri";
     public static final String PROJECT_ID = "projectId";
     public static final String CUSTOM_SCALE_REVISIONS = "postCoordinationCustomScalesRevisions";
+    public static final String CUSTOM_SCALES_CHECKPOINT = "customScalesCheckpoint";
+    public static final String VERSION = "version";
     @Field(WHOFIC_ENTITY_IRI)
     @Indexed(name = "entityIriScales_idx")
     private final String whoficEntityIri;
@@ -34,13 +35,40 @@ public class EntityCustomScalesValuesHistory {
     @Field(CUSTOM_SCALE_REVISIONS)
     private final List<PostCoordinationCustomScalesRevision> postCoordinationCustomScalesRevisions;
 
+    @Field(CUSTOM_SCALES_CHECKPOINT)
+    private final PostCoordinationCustomScalesCheckpoint customScalesCheckpoint;
+
+    /*
+     * Incremented by every write that changes the revisions, see EntityPostCoordinationHistory.
+     */
+    @Field(VERSION)
+    private final long version;
+
+    public EntityCustomScalesValuesHistory(String whoficEntityIri,
+                                           String projectId,
+                                           List<PostCoordinationCustomScalesRevision> postCoordinationCustomScalesRevisions) {
+        this(whoficEntityIri, projectId, postCoordinationCustomScalesRevisions, null);
+    }
+
+    public EntityCustomScalesValuesHistory(String whoficEntityIri,
+                                           String projectId,
+                                           List<PostCoordinationCustomScalesRevision> postCoordinationCustomScalesRevisions,
+                                           PostCoordinationCustomScalesCheckpoint customScalesCheckpoint) {
+        this(whoficEntityIri, projectId, postCoordinationCustomScalesRevisions, customScalesCheckpoint, null);
+    }
+
     @JsonCreator
+    @PersistenceCreator
     public EntityCustomScalesValuesHistory(@JsonProperty(WHOFIC_ENTITY_IRI) String whoficEntityIri,
                                            @JsonProperty(PROJECT_ID) String projectId,
-                                           @JsonProperty(CUSTOM_SCALE_REVISIONS) List<PostCoordinationCustomScalesRevision> postCoordinationCustomScalesRevisions) {
+                                           @JsonProperty(CUSTOM_SCALE_REVISIONS) List<PostCoordinationCustomScalesRevision> postCoordinationCustomScalesRevisions,
+                                           @JsonProperty(CUSTOM_SCALES_CHECKPOINT) PostCoordinationCustomScalesCheckpoint customScalesCheckpoint,
+                                           @JsonProperty(VERSION) Long version) {
         this.whoficEntityIri = whoficEntityIri;
         this.projectId = projectId;
         this.postCoordinationCustomScalesRevisions = postCoordinationCustomScalesRevisions;
+        this.customScalesCheckpoint = customScalesCheckpoint;
+        this.version = version != null ? version : 0L;
     }
 
     public static EntityCustomScalesValuesHistory create(String whoficEntityIri,
@@ -63,4 +91,15 @@ public class EntityCustomScalesValuesHistory {
     public List<PostCoordinationCustomScalesRevision> getPostCoordinationCustomScalesRevisions() {
         return postCoordinationCustomScalesRevisions;
     }
+
+    @JsonProperty(CUSTOM_SCALES_CHECKPOINT)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public PostCoordinationCustomScalesCheckpoint getCustomScalesCheckpoint() {
+        return customScalesCheckpoint;
+    }
+
+    @JsonProperty(VERSION)
+    public long getVersion() {
+        return version;
+    }
 }
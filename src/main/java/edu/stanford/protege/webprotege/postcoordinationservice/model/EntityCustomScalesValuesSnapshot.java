@@ -0,0 +1,145 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.*;
+
+import java.util.*;
+
+/**
+ * Materialized current custom scale values of an {@link EntityCustomScalesValuesHistory}, together with the
+ * timestamp of its newest revision. Every writer of the custom scales history keeps it up to date, so reads are a point lookup.
+ * It is up to date while its history is at the version it was built from, like {@link EntityPostCoordinationSnapshot}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document(collection = EntityCustomScalesValuesSnapshot.CUSTOM_SCALES_SNAPSHOT_COLLECTION)
+@CompoundIndexes({
+        @CompoundIndex(name = "scales_snapshot_entity_iri_project_idx", def = "{'" + EntityCustomScalesValuesSnapshot.WHOFIC_ENTITY_IRI + "': 1, '" + EntityCustomScalesValuesSnapshot.PROJECT_ID + "': 1}", unique = true)
+})
+public class EntityCustomScalesValuesSnapshot {
+
+    public static final String CUSTOM_SCALES_SNAPSHOT_COLLECTION = "EntityPostCoordinationCustomScalesSnapshot";
+
+    public static final String WHOFIC_ENTITY_IRI = "whoficEntityIri";
+    public static final String PROJECT_ID = "projectId";
+    public static final String REVISION_COUNT = "revisionCount";
+    public static final String LAST_REVISION_TIMESTAMP = "lastRevisionTimestamp";
+    public static final String SCALE_CUSTOMIZATIONS = "scaleCustomizations";
+    public static final String HISTORY_VERSION = "historyVersion";
+
+    @Field(WHOFIC_ENTITY_IRI)
+    private final String whoficEntityIri;
+
+    @Field(PROJECT_ID)
+    private final String projectId;
+
+    @Field(REVISION_COUNT)
+    private final int revisionCount;
+
+    @Field(LAST_REVISION_TIMESTAMP)
+    private final Long lastRevisionTimestamp;
+
+    @Field(SCALE_CUSTOMIZATIONS)
+    private final List<PostCoordinationScaleCustomization> scaleCustomizations;
+
+    @Field(HISTORY_VERSION)
+    private final long historyVersion;
+
+    @JsonCreator
+    public EntityCustomScalesValuesSnapshot(@JsonProperty(WHOFIC_ENTITY_IRI) String whoficEntityIri,
+                                            @JsonProperty(PROJECT_ID) String projectId,
+                                            @JsonProperty(REVISION_COUNT) int revisionCount,
+                                            @JsonProperty(LAST_REVISION_TIMESTAMP) Long lastRevisionTimestamp,
+                                            @JsonProperty(SCALE_CUSTOMIZATIONS) List<PostCoordinationScaleCustomization> scaleCustomizations,
+                                            @JsonProperty(HISTORY_VERSION) Long historyVersion) {
+        this.whoficEntityIri = whoficEntityIri;
+        this.projectId = projectId;
+        this.revisionCount = revisionCount;
+        this.lastRevisionTimestamp = lastRevisionTimestamp;
+        this.scaleCustomizations = Objects.requireNonNullElseGet(scaleCustomizations, ArrayList::new);
+        this.historyVersion = historyVersion != null ? historyVersion : 0L;
+    }
+
+    public static EntityCustomScalesValuesSnapshot create(EntityCustomScalesValuesHistory history,
+                                                          WhoficCustomScalesValues foldedValues) {
+        List<PostCoordinationCustomScalesRevision> revisions = history.getPostCoordinationCustomScalesRevisions();
+        Long lastRevisionTimestamp = revisions.stream()
+                .map(PostCoordinationCustomScalesRevision::timestamp)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .orElse(null);
+        return new EntityCustomScalesValuesSnapshot(history.getWhoficEntityIri(),
+                history.getProjectId(),
+                revisions.size(),
+                lastRevisionTimestamp,
+                foldedValues.scaleCustomizations(),
+                history.getVersion());
+    }
+
+    public WhoficCustomScalesValues toCustomScalesValues() {
+        return new WhoficCustomScalesValues(whoficEntityIri, scaleCustomizations);
+    }
+
+    /**
+     * The same check {@code findUpToDateCustomScalesSnapshot} runs, for a history that was already read.
+     */
+    public boolean isUpToDate(EntityCustomScalesValuesHistory history) {
+        return history.getVersion() == historyVersion;
+    }
+
+    @JsonProperty(WHOFIC_ENTITY_IRI)
+    public String getWhoficEntityIri() {
+        return whoficEntityIri;
+    }
+
+    @JsonProperty(PROJECT_ID)
+    public String getProjectId() {
+        return projectId;
+    }
+
+    @JsonProperty(REVISION_COUNT)
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    @JsonProperty(LAST_REVISION_TIMESTAMP)
+    public Long getLastRevisionTimestamp() {
+        return lastRevisionTimestamp;
+    }
+
+    @JsonProperty(SCALE_CUSTOMIZATIONS)
+    public List<PostCoordinationScaleCustomization> getScaleCustomizations() {
+        return scaleCustomizations;
+    }
+
+    @JsonProperty(HISTORY_VERSION)
+    public long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EntityCustomScalesValuesSnapshot that = (EntityCustomScalesValuesSnapshot) o;
+        return Objects.equals(whoficEntityIri, that.whoficEntityIri) && Objects.equals(projectId, that.projectId) && revisionCount == that.revisionCount && Objects.equals(lastRevisionTimestamp, that.lastRevisionTimestamp) && historyVersion == that.historyVersion;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(whoficEntityIri, projectId, revisionCount, lastRevisionTimestamp, historyVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCustomScalesValuesSnapshot{" +
+                "whoficEntityIri='" + whoficEntityIri + '\'' +
+                ", projectId='" + projectId + '\'' +
+                ", revisionCount=" + revisionCount +
+                ", lastRevisionTimestamp=" + lastRevisionTimestamp +
+                ", historyVersion=" + historyVersion +
+                '}';
+    }
+}
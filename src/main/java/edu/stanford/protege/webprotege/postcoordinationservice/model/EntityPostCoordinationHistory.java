@@ -1,18 +1,19 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.model;
 
 import com.fasterxml.jackson.annotation.*;
-import org.springframework.data.mongodb.core.index.CompoundIndex;
-import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.annotation.PersistenceCreator;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.*;
 
 import java.util.*;
 
+/**
+ * One history per entity and project. The unique index on both is not declared here but created by
+ * {@link edu.stanford.protege.webprotege.postcoordinationservice.repositories.HistoryIndexCreator} once the duplicates
+ * that concurrent inserts could leave behind are merged.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Document(collection = EntityPostCoordinationHistory.POSTCOORDINATION_HISTORY_COLLECTION)
-@CompoundIndexes({
-        @CompoundIndex(name = "entity_iri_project_idx", def = "{'" + EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI + "': 1, '" + EntityPostCoordinationHistory.PROJECT_ID + "': 1}")
-})
 public class EntityPostCoordinationHistory {
 
 
@@ -21,6 +22,8 @@ public class EntityPostCoordinationHistory {
     public static final String WHOFIC_ENTITY_IRI = "whoficEntityIri";
     public static final String PROJECT_ID = "projectId";
     public static final String SPEC_REVISIONS = "postCoordinationRevisions";
+    public static final String SPEC_CHECKPOINT = "specificationCheckpoint";
+    public static final String VERSION = "version";
 
 
     @Field(WHOFIC_ENTITY_IRI)
@@ -35,14 +38,43 @@ public class EntityPostCoordinationHistory {
     @Field(SPEC_REVISIONS)
     private final List<PostCoordinationSpecificationRevision> postCoordinationRevisions;
 
+    @Field(SPEC_CHECKPOINT)
+    private final PostCoordinationSpecificationCheckpoint specificationCheckpoint;
+
+    /*
+     * Incremented by every write that changes the revisions. Writers make their update conditional on the version
+     * they read, so that concurrent writers of the same entity, possibly in different replicas, can't both diff
+     * against the same old state.
+     */
+    @Field(VERSION)
+    private final long version;
+
+
+    public EntityPostCoordinationHistory(String whoficEntityIri,
+                                         String projectId,
+                                         List<PostCoordinationSpecificationRevision> postCoordinationRevisions) {
+        this(whoficEntityIri, projectId, postCoordinationRevisions, null);
+    }
+
+    public EntityPostCoordinationHistory(String whoficEntityIri,
+                                         String projectId,
+                                         List<PostCoordinationSpecificationRevision> postCoordinationRevisions,
+                                         PostCoordinationSpecificationCheckpoint specificationCheckpoint) {
+        this(whoficEntityIri, projectId, postCoordinationRevisions, specificationCheckpoint, null);
+    }
 
     @JsonCreator
+    @PersistenceCreator
     public EntityPostCoordinationHistory(@JsonProperty(WHOFIC_ENTITY_IRI) String whoficEntityIri,
                                          @JsonProperty(PROJECT_ID) String projectId,
-                                         @JsonProperty(SPEC_REVISIONS) List<PostCoordinationSpecificationRevision> postCoordinationRevisions) {
+                                         @JsonProperty(SPEC_REVISIONS) List<PostCoordinationSpecificationRevision> postCoordinationRevisions,
+                                         @JsonProperty(SPEC_CHECKPOINT) PostCoordinationSpecificationCheckpoint specificationCheckpoint,
+                                         @JsonProperty(VERSION) Long version) {
         this.whoficEntityIri = whoficEntityIri;
         this.projectId = projectId;
         this.postCoordinationRevisions = postCoordinationRevisions;
+        this.specificationCheckpoint = specificationCheckpoint;
+        this.version = version != null ? version : 0L;
     }
 
     public static EntityPostCoordinationHistory create(String whoficEntityIri,
@@ -66,6 +98,17 @@ public class EntityPostCoordinationHistory {
         return postCoordinationRevisions;
     }
 
+    @JsonProperty(SPEC_CHECKPOINT)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public PostCoordinationSpecificationCheckpoint getSpecificationCheckpoint() {
+        return specificationCheckpoint;
+    }
+
+    @JsonProperty(VERSION)
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
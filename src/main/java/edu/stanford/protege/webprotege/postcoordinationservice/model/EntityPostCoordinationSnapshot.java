@@ -0,0 +1,155 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.*;
+
+import java.util.*;
+
+/**
+ * Materialized current state of an {@link EntityPostCoordinationHistory}. It holds the result of folding
+ * all the stored revisions of the history, without the synthetic default revision, so it stays valid when
+ * the linearization definitions or the table configurations change.
+ * The snapshot is up to date while its history is still at the version it was built from, every change of the
+ * revisions increments it. The version also keeps a slow writer from replacing a snapshot built from a newer one.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document(collection = EntityPostCoordinationSnapshot.POSTCOORDINATION_SNAPSHOT_COLLECTION)
+@CompoundIndexes({
+        @CompoundIndex(name = "snapshot_entity_iri_project_idx", def = "{'" + EntityPostCoordinationSnapshot.WHOFIC_ENTITY_IRI + "': 1, '" + EntityPostCoordinationSnapshot.PROJECT_ID + "': 1}", unique = true)
+})
+public class EntityPostCoordinationSnapshot {
+
+    public static final String POSTCOORDINATION_SNAPSHOT_COLLECTION = "EntityPostCoordinationSnapshot";
+
+    public static final String WHOFIC_ENTITY_IRI = "whoficEntityIri";
+    public static final String PROJECT_ID = "projectId";
+    public static final String REVISION_COUNT = "revisionCount";
+    public static final String LAST_REVISION_TIMESTAMP = "lastRevisionTimestamp";
+    public static final String SPECIFICATIONS = "postcoordinationSpecifications";
+    public static final String HISTORY_VERSION = "historyVersion";
+
+    private static final UserId SNAPSHOT_USER = UserId.valueOf("snapshot");
+
+    @Field(WHOFIC_ENTITY_IRI)
+    private final String whoficEntityIri;
+
+    @Field(PROJECT_ID)
+    private final String projectId;
+
+    @Field(REVISION_COUNT)
+    private final int revisionCount;
+
+    @Field(LAST_REVISION_TIMESTAMP)
+    private final Long lastRevisionTimestamp;
+
+    @Field(SPECIFICATIONS)
+    private final List<PostCoordinationSpecification> postcoordinationSpecifications;
+
+    @Field(HISTORY_VERSION)
+    private final long historyVersion;
+
+    @JsonCreator
+    public EntityPostCoordinationSnapshot(@JsonProperty(WHOFIC_ENTITY_IRI) String whoficEntityIri,
+                                          @JsonProperty(PROJECT_ID) String projectId,
+                                          @JsonProperty(REVISION_COUNT) int revisionCount,
+                                          @JsonProperty(LAST_REVISION_TIMESTAMP) Long lastRevisionTimestamp,
+                                          @JsonProperty(SPECIFICATIONS) List<PostCoordinationSpecification> postcoordinationSpecifications,
+                                          @JsonProperty(HISTORY_VERSION) Long historyVersion) {
+        this.whoficEntityIri = whoficEntityIri;
+        this.projectId = projectId;
+        this.revisionCount = revisionCount;
+        this.lastRevisionTimestamp = lastRevisionTimestamp;
+        this.postcoordinationSpecifications = Objects.requireNonNullElseGet(postcoordinationSpecifications, ArrayList::new);
+        this.historyVersion = historyVersion != null ? historyVersion : 0L;
+    }
+
+    public static EntityPostCoordinationSnapshot create(EntityPostCoordinationHistory history,
+                                                        WhoficEntityPostCoordinationSpecification foldedSpecification) {
+        List<PostCoordinationSpecificationRevision> revisions = history.getPostCoordinationRevisions();
+        Long lastRevisionTimestamp = revisions.stream()
+                .map(PostCoordinationSpecificationRevision::timestamp)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .orElse(null);
+        return new EntityPostCoordinationSnapshot(history.getWhoficEntityIri(),
+                history.getProjectId(),
+                revisions.size(),
+                lastRevisionTimestamp,
+                foldedSpecification.postcoordinationSpecifications(),
+                history.getVersion());
+    }
+
+    /**
+     * Converts the snapshot back into a single revision. Replaying it on top of the default initial revision
+     * gives the same specification as replaying the whole history, because every axis event moves the axis
+     * out of all the lists before adding it to its own list.
+     */
+    public PostCoordinationSpecificationRevision toRevision() {
+        return PostCoordinationSpecificationRevision.createFromFoldedSpecifications(SNAPSHOT_USER, lastRevisionTimestamp, postcoordinationSpecifications);
+    }
+
+    /**
+     * The same check {@code findUpToDateSpecificationSnapshot} runs, for a history that was already read.
+     */
+    public boolean isUpToDate(EntityPostCoordinationHistory history) {
+        return history.getVersion() == historyVersion;
+    }
+
+    @JsonProperty(WHOFIC_ENTITY_IRI)
+    public String getWhoficEntityIri() {
+        return whoficEntityIri;
+    }
+
+    @JsonProperty(PROJECT_ID)
+    public String getProjectId() {
+        return projectId;
+    }
+
+    @JsonProperty(REVISION_COUNT)
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    @JsonProperty(LAST_REVISION_TIMESTAMP)
+    public Long getLastRevisionTimestamp() {
+        return lastRevisionTimestamp;
+    }
+
+    @JsonProperty(SPECIFICATIONS)
+    public List<PostCoordinationSpecification> getPostcoordinationSpecifications() {
+        return postcoordinationSpecifications;
+    }
+
+    @JsonProperty(HISTORY_VERSION)
+    public long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EntityPostCoordinationSnapshot that = (EntityPostCoordinationSnapshot) o;
+        return revisionCount == that.revisionCount && historyVersion == that.historyVersion && Objects.equals(whoficEntityIri, that.whoficEntityIri) && Objects.equals(projectId, that.projectId) && Objects.equals(lastRevisionTimestamp, that.lastRevisionTimestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(whoficEntityIri, projectId, revisionCount, lastRevisionTimestamp, historyVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityPostCoordinationSnapshot{" +
+                "whoficEntityIri='" + whoficEntityIri + '\'' +
+                ", projectId='" + projectId + '\'' +
+                ", revisionCount=" + revisionCount +
+                ", lastRevisionTimestamp=" + lastRevisionTimestamp +
+                ", historyVersion=" + historyVersion +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import java.util.List;
+
+/**
+ * A checkpoint stores the folded state of the first {@link #revisionCount()} revisions of a history,
+ * the newest of them having {@link #timestamp()}. Replay can start from the checkpoint and only apply the tail.
+ */
+public interface HistoryCheckpoint {
+
+    int revisionCount();
+
+    Long timestamp();
+
+    /**
+     * Checks the checkpoint against the timestamps of the stored revisions, sorted ascending.
+     * A checkpoint is no longer valid once a revision it covers has been pulled out of the history,
+     * because the covered prefix of the history does not end at the checkpoint timestamp anymore.
+     *
+     * @return the number of leading revisions covered by the checkpoint, or -1 if the checkpoint does not match the history.
+     */
+    default int coveredRevisionCount(List<Long> sortedRevisionTimestamps) {
+        int count = revisionCount();
+        if (count <= 0 || count > sortedRevisionTimestamps.size() || timestamp() == null) {
+            return -1;
+        }
+        if (!timestamp().equals(sortedRevisionTimestamps.get(count - 1))) {
+            return -1;
+        }
+        Long nextTimestamp = count < sortedRevisionTimestamps.size() ? sortedRevisionTimestamps.get(count) : null;
+        if (nextTimestamp != null && nextTimestamp <= timestamp()) {
+            return -1;
+        }
+        return count;
+    }
+}
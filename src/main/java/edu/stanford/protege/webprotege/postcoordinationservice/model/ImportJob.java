@@ -0,0 +1,187 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.*;
+
+import java.util.Objects;
+
+/**
+ * Progress of a first import of a document into a project. The first {@link #getCommittedRecords()} records of the
+ * document were written in {@link #getCommittedBatches()} batches, so an import that failed or whose service
+ * instance died resumes after them instead of starting over.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document(collection = ImportJob.IMPORT_JOBS_COLLECTION)
+public class ImportJob {
+
+    public static final String IMPORT_JOBS_COLLECTION = "PostCoordinationImportJobs";
+
+    public static final String SPECIFICATIONS_IMPORT = "specifications";
+    public static final String CUSTOM_SCALES_IMPORT = "customScales";
+
+    public static final String ID = "_id";
+    public static final String PROJECT_ID = "projectId";
+    public static final String DOCUMENT_LOCATION = "documentLocation";
+    public static final String IMPORT_TYPE = "importType";
+    public static final String STATUS = "status";
+    public static final String COMMITTED_BATCHES = "committedBatches";
+    public static final String COMMITTED_RECORDS = "committedRecords";
+    public static final String ATTEMPTS = "attempts";
+    public static final String STARTED_AT = "startedAt";
+    public static final String UPDATED_AT = "updatedAt";
+    public static final String LAST_ERROR = "lastError";
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    private final String id;
+
+    @Indexed
+    @Field(PROJECT_ID)
+    private final String projectId;
+
+    @Field(DOCUMENT_LOCATION)
+    private final String documentLocation;
+
+    @Field(IMPORT_TYPE)
+    private final String importType;
+
+    @Field(STATUS)
+    private final Status status;
+
+    @Field(COMMITTED_BATCHES)
+    private final long committedBatches;
+
+    @Field(COMMITTED_RECORDS)
+    private final long committedRecords;
+
+    @Field(ATTEMPTS)
+    private final int attempts;
+
+    @Field(STARTED_AT)
+    private final long startedAt;
+
+    @Field(UPDATED_AT)
+    private final long updatedAt;
+
+    @Field(LAST_ERROR)
+    private final String lastError;
+
+    @JsonCreator
+    public ImportJob(@JsonProperty("id") String id,
+                     @JsonProperty(PROJECT_ID) String projectId,
+                     @JsonProperty(DOCUMENT_LOCATION) String documentLocation,
+                     @JsonProperty(IMPORT_TYPE) String importType,
+                     @JsonProperty(STATUS) Status status,
+                     @JsonProperty(COMMITTED_BATCHES) long committedBatches,
+                     @JsonProperty(COMMITTED_RECORDS) long committedRecords,
+                     @JsonProperty(ATTEMPTS) int attempts,
+                     @JsonProperty(STARTED_AT) long startedAt,
+                     @JsonProperty(UPDATED_AT) long updatedAt,
+                     @JsonProperty(LAST_ERROR) String lastError) {
+        this.id = id;
+        this.projectId = projectId;
+        this.documentLocation = documentLocation;
+        this.importType = importType;
+        this.status = status;
+        this.committedBatches = committedBatches;
+        this.committedRecords = committedRecords;
+        this.attempts = attempts;
+        this.startedAt = startedAt;
+        this.updatedAt = updatedAt;
+        this.lastError = lastError;
+    }
+
+    public static ImportJob create(String projectId, String documentLocation, String importType) {
+        long now = System.currentTimeMillis();
+        return new ImportJob(idFor(projectId, documentLocation, importType), projectId, documentLocation, importType,
+                Status.PENDING, 0, 0, 0, now, now, null);
+    }
+
+    public static String idFor(String projectId, String documentLocation, String importType) {
+        return projectId + ":" + importType + ":" + documentLocation;
+    }
+
+    @JsonProperty("id")
+    public String getId() {
+        return id;
+    }
+
+    @JsonProperty(PROJECT_ID)
+    public String getProjectId() {
+        return projectId;
+    }
+
+    @JsonProperty(DOCUMENT_LOCATION)
+    public String getDocumentLocation() {
+        return documentLocation;
+    }
+
+    @JsonProperty(IMPORT_TYPE)
+    public String getImportType() {
+        return importType;
+    }
+
+    @JsonProperty(STATUS)
+    public Status getStatus() {
+        return status;
+    }
+
+    @JsonProperty(COMMITTED_BATCHES)
+    public long getCommittedBatches() {
+        return committedBatches;
+    }
+
+    @JsonProperty(COMMITTED_RECORDS)
+    public long getCommittedRecords() {
+        return committedRecords;
+    }
+
+    @JsonProperty(ATTEMPTS)
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @JsonProperty(STARTED_AT)
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    @JsonProperty(UPDATED_AT)
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @JsonProperty(LAST_ERROR)
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportJob importJob = (ImportJob) o;
+        return committedBatches == importJob.committedBatches && committedRecords == importJob.committedRecords && attempts == importJob.attempts && Objects.equals(id, importJob.id) && status == importJob.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, committedBatches, committedRecords, attempts);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportJob{" +
+                "id='" + id + '\'' +
+                ", status=" + status +
+                ", committedBatches=" + committedBatches +
+                ", committedRecords=" + committedRecords +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,287 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.PostCoordinationSpecificationEvent;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.*;
+
+/**
+ * Immutable view of the post-coordination configuration, the table configurations, the axis labels, the axis to
+ * generic scale mapping and the linearization definitions, with the lookups the request paths need already indexed.
+ * A new snapshot with a higher version replaces the old one when the configuration changes. Readers keep using the
+ * instance they got, so one request always sees one consistent configuration.
+ */
+public class PostCoordinationConfigSnapshot {
+
+    private final long version;
+
+    private final Instant createdAt;
+
+    private final List<TableConfiguration> tableConfigurations;
+
+    private final List<TableAxisLabel> tableAxisLabels;
+
+    private final List<PostcoordinationAxisToGenericScale> axisToGenericScales;
+
+    private final List<LinearizationDefinition> linearizationDefinitions;
+
+    private final Set<String> allAxes;
+
+    private final Map<String, Set<String>> axesByEntityType;
+
+    private final Map<String, Set<String>> axesWithSubAxesByEntityType;
+
+    private final Map<String, Set<String>> entityTypesByAxis;
+
+    private final Map<String, Map<String, Set<String>>> subAxesByEntityTypeByAxis;
+
+    private final Map<String, PostcoordinationAxisToGenericScale> axisToGenericScaleByAxis;
+
+    private final Map<String, String> axisByTopClass;
+
+    private final Map<String, LinearizationDefinition> linearizationByUri;
+
+    private final Map<String, LinearizationDefinition> linearizationByLowerCaseUri;
+
+    private final Map<List<String>, Map<String, Integer>> axisOrderByEntityTypes = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, PostCoordinationSpecificationRevision> defaultRevisionByEntityTypes = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, List<PostCoordinationSpecification>> defaultSpecificationsByEntityTypes = new ConcurrentHashMap<>();
+
+    public PostCoordinationConfigSnapshot(long version,
+                                          List<TableConfiguration> tableConfigurations,
+                                          List<TableAxisLabel> tableAxisLabels,
+                                          List<PostcoordinationAxisToGenericScale> axisToGenericScales,
+                                          List<LinearizationDefinition> linearizationDefinitions) {
+        this.version = version;
+        this.createdAt = Instant.now();
+        this.tableConfigurations = List.copyOf(tableConfigurations);
+        this.tableAxisLabels = List.copyOf(tableAxisLabels);
+        this.axisToGenericScales = List.copyOf(axisToGenericScales);
+        this.linearizationDefinitions = List.copyOf(linearizationDefinitions);
+
+        this.allAxes = Collections.unmodifiableSet(this.tableConfigurations.stream()
+                .flatMap(config -> config.getPostCoordinationAxes().stream())
+                .collect(Collectors.toSet()));
+
+        Map<String, Set<String>> axes = new HashMap<>();
+        Map<String, Set<String>> axesWithSubAxes = new HashMap<>();
+        Map<String, Set<String>> entityTypes = new HashMap<>();
+        Map<String, Map<String, Set<String>>> subAxes = new HashMap<>();
+        for (TableConfiguration config : this.tableConfigurations) {
+            String entityType = config.getEntityType();
+            axes.computeIfAbsent(entityType, k -> new HashSet<>()).addAll(config.getPostCoordinationAxes());
+            axesWithSubAxes.computeIfAbsent(entityType, k -> new HashSet<>()).addAll(config.getPostCoordinationAxes());
+            config.getPostCoordinationAxes()
+                    .forEach(axis -> entityTypes.computeIfAbsent(axis, k -> new HashSet<>()).add(entityType));
+            for (CompositeAxis compositeAxis : config.getCompositePostCoordinationAxes()) {
+                axesWithSubAxes.get(entityType).addAll(compositeAxis.getSubAxis());
+                subAxes.computeIfAbsent(compositeAxis.getPostCoordinationAxis(), k -> new HashMap<>())
+                        .computeIfAbsent(entityType, k -> new HashSet<>())
+                        .addAll(compositeAxis.getSubAxis());
+            }
+        }
+        this.axesByEntityType = immutableCopy(axes);
+        this.axesWithSubAxesByEntityType = immutableCopy(axesWithSubAxes);
+        this.entityTypesByAxis = immutableCopy(entityTypes);
+        Map<String, Map<String, Set<String>>> subAxesCopy = new HashMap<>();
+        subAxes.forEach((axis, subAxesByEntityType) -> subAxesCopy.put(axis, immutableCopy(subAxesByEntityType)));
+        this.subAxesByEntityTypeByAxis = Collections.unmodifiableMap(subAxesCopy);
+
+        Map<String, PostcoordinationAxisToGenericScale> scales = new HashMap<>();
+        Map<String, String> topClasses = new HashMap<>();
+        for (PostcoordinationAxisToGenericScale scale : this.axisToGenericScales) {
+            scales.putIfAbsent(scale.getPostcoordinationAxis(), scale);
+            topClasses.putIfAbsent(scale.getGenericPostcoordinationScaleTopClass(), scale.getPostcoordinationAxis());
+        }
+        this.axisToGenericScaleByAxis = Collections.unmodifiableMap(scales);
+        this.axisByTopClass = Collections.unmodifiableMap(topClasses);
+
+        Map<String, LinearizationDefinition> byUri = new HashMap<>();
+        Map<String, LinearizationDefinition> byLowerCaseUri = new HashMap<>();
+        for (LinearizationDefinition definition : this.linearizationDefinitions) {
+            byUri.putIfAbsent(definition.getLinearizationUri(), definition);
+            if (definition.getLinearizationUri() != null) {
+                byLowerCaseUri.putIfAbsent(definition.getLinearizationUri().toLowerCase(Locale.ROOT), definition);
+            }
+        }
+        this.linearizationByUri = Collections.unmodifiableMap(byUri);
+        this.linearizationByLowerCaseUri = Collections.unmodifiableMap(byLowerCaseUri);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<TableConfiguration> getTableConfigurations() {
+        return tableConfigurations;
+    }
+
+    public List<TableConfiguration> getTableConfigurations(Collection<String> entityTypes) {
+        return tableConfigurations.stream()
+                .filter(config -> entityTypes.contains(config.getEntityType()))
+                .toList();
+    }
+
+    public List<TableAxisLabel> getTableAxisLabels() {
+        return tableAxisLabels;
+    }
+
+    public List<PostcoordinationAxisToGenericScale> getAxisToGenericScales() {
+        return axisToGenericScales;
+    }
+
+    public List<LinearizationDefinition> getLinearizationDefinitions() {
+        return linearizationDefinitions;
+    }
+
+    /**
+     * The axes of all the table configurations, without the sub-axes of the composite axes.
+     */
+    public Set<String> getAllAxes() {
+        return allAxes;
+    }
+
+    /**
+     * The axes configured for any of the entity types, without the sub-axes of the composite axes.
+     */
+    public Set<String> getAxes(Collection<String> entityTypes) {
+        return union(axesByEntityType, entityTypes);
+    }
+
+    /**
+     * The axes configured for any of the entity types, together with the sub-axes that replace their composite axes.
+     */
+    public Set<String> getAxesWithSubAxes(Collection<String> entityTypes) {
+        return union(axesWithSubAxesByEntityType, entityTypes);
+    }
+
+    public Set<String> getEntityTypesForAxis(String axis) {
+        return entityTypesByAxis.getOrDefault(axis, Set.of());
+    }
+
+    /**
+     * Sub-axes that replace the composite axis, keyed by the entity type they are configured for.
+     */
+    public Map<String, Set<String>> getSubAxesByEntityType(String compositeAxis) {
+        return subAxesByEntityTypeByAxis.getOrDefault(compositeAxis, Map.of());
+    }
+
+    public Optional<PostcoordinationAxisToGenericScale> getAxisToGenericScale(String axis) {
+        return Optional.ofNullable(axisToGenericScaleByAxis.get(axis));
+    }
+
+    public Optional<String> getAxisForTopClass(String topClassIri) {
+        return Optional.ofNullable(axisByTopClass.get(topClassIri));
+    }
+
+    public Optional<LinearizationDefinition> getLinearizationDefinition(String linearizationUri) {
+        return Optional.ofNullable(linearizationByUri.get(linearizationUri));
+    }
+
+    public Optional<LinearizationDefinition> getLinearizationDefinitionIgnoreCase(String linearizationUri) {
+        if (linearizationUri == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(linearizationByLowerCaseUri.get(linearizationUri.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Position of every axis in the table of an entity with these types, where a composite axis is replaced by its
+     * sub-axes. It is computed once per set of entity types.
+     */
+    public Map<String, Integer> getAxisOrder(List<String> entityTypes) {
+        return axisOrderByEntityTypes.computeIfAbsent(List.copyOf(entityTypes), this::computeAxisOrder);
+    }
+
+    /**
+     * The revision every entity with these types starts from, see
+     * {@link PostCoordinationSpecificationRevision#createDefaultInitialRevision}. It only depends on the set of types,
+     * so it is created once per set and shared.
+     */
+    public PostCoordinationSpecificationRevision getDefaultInitialRevision(List<String> entityTypes) {
+        return defaultRevisionByEntityTypes.computeIfAbsent(sorted(entityTypes),
+                types -> PostCoordinationSpecificationRevision.createDefaultInitialRevision(types, linearizationDefinitions, tableConfigurations));
+    }
+
+    /**
+     * The specifications folded from the default initial revision of an entity with these types. The specifications
+     * are shared, a caller that applies events to them has to copy them first.
+     */
+    public List<PostCoordinationSpecification> getDefaultSpecifications(List<String> entityTypes) {
+        return defaultSpecificationsByEntityTypes.computeIfAbsent(sorted(entityTypes), this::foldDefaultInitialRevision);
+    }
+
+    /*
+     * Same fold as the event processor: the views are matched ignoring the case, and a view without a name always
+     * starts a new specification.
+     */
+    private List<PostCoordinationSpecification> foldDefaultInitialRevision(List<String> entityTypes) {
+        Map<String, PostCoordinationSpecification> specificationsByView = new HashMap<>();
+        List<PostCoordinationSpecification> specifications = new ArrayList<>();
+        for (PostCoordinationViewEvent viewEvent : getDefaultInitialRevision(entityTypes).postCoordinationEvents()) {
+            String view = viewEvent.linearizationView();
+            PostCoordinationSpecification specification = view != null ? specificationsByView.get(view.toLowerCase(Locale.ROOT)) : null;
+            if (specification == null) {
+                specification = new PostCoordinationSpecification(view, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+                specifications.add(specification);
+                if (view != null) {
+                    specificationsByView.put(view.toLowerCase(Locale.ROOT), specification);
+                }
+            }
+            for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                event.applyEvent(specification);
+            }
+        }
+        return Collections.unmodifiableList(specifications);
+    }
+
+    private static List<String> sorted(List<String> entityTypes) {
+        return entityTypes.stream().sorted().toList();
+    }
+
+    private Map<String, Integer> computeAxisOrder(List<String> entityTypes) {
+        List<TableConfiguration> configurations = getTableConfigurations(entityTypes);
+        List<String> orderedAxisList = configurations.stream()
+                .flatMap(c -> c.getPostCoordinationAxes().stream()).distinct()
+                .collect(Collectors.toList());
+
+        configurations.stream()
+                .flatMap(c -> c.getCompositePostCoordinationAxes().stream())
+                .forEach(compositeAxis -> {
+                    int indexForCurrAxis = orderedAxisList.indexOf(compositeAxis.getPostCoordinationAxis());
+                    if (indexForCurrAxis != -1) {
+                        orderedAxisList.addAll(indexForCurrAxis + 1, compositeAxis.getSubAxis());
+                        orderedAxisList.remove(indexForCurrAxis);
+                    }
+                });
+
+        return IntStream.range(0, orderedAxisList.size())
+                .boxed()
+                .collect(Collectors.toUnmodifiableMap(orderedAxisList::get, index -> index));
+    }
+
+    private static Set<String> union(Map<String, Set<String>> setsByEntityType, Collection<String> entityTypes) {
+        if (entityTypes.size() == 1) {
+            return setsByEntityType.getOrDefault(entityTypes.iterator().next(), Set.of());
+        }
+        Set<String> union = new HashSet<>();
+        entityTypes.forEach(entityType -> union.addAll(setsByEntityType.getOrDefault(entityType, Set.of())));
+        return union;
+    }
+
+    private static Map<String, Set<String>> immutableCopy(Map<String, Set<String>> map) {
+        Map<String, Set<String>> copy = new HashMap<>();
+        map.forEach((key, values) -> copy.put(key, Collections.unmodifiableSet(new HashSet<>(values))));
+        return Collections.unmodifiableMap(copy);
+    }
+}
@@ -0,0 +1,18 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
+
+import java.util.*;
+
+public record PostCoordinationCustomScalesCheckpoint(@JsonProperty("revisionCount") int revisionCount,
+                                                     @JsonProperty("timestamp") Long timestamp,
+                                                     @JsonProperty("scaleCustomizations") List<PostCoordinationScaleCustomization> scaleCustomizations) implements HistoryCheckpoint {
+
+    @JsonCreator
+    public static PostCoordinationCustomScalesCheckpoint create(@JsonProperty("revisionCount") int revisionCount,
+                                                                @JsonProperty("timestamp") Long timestamp,
+                                                                @JsonProperty("scaleCustomizations") List<PostCoordinationScaleCustomization> scaleCustomizations) {
+        return new PostCoordinationCustomScalesCheckpoint(revisionCount, timestamp, Objects.requireNonNullElseGet(scaleCustomizations, ArrayList::new));
+    }
+}
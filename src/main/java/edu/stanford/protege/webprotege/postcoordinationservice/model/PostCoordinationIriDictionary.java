@@ -0,0 +1,44 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.*;
+
+import java.util.List;
+
+/**
+ * The axis and linearization IRIs of a project that have a code in the compact event encoding. The code of an IRI is
+ * its position in {@link #getIris()}. IRIs are only ever appended, so a code keeps its IRI for good.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document(collection = PostCoordinationIriDictionary.IRI_DICTIONARY_COLLECTION)
+public class PostCoordinationIriDictionary {
+
+    public static final String IRI_DICTIONARY_COLLECTION = "PostCoordinationIriDictionary";
+
+    public static final String PROJECT_ID = "_id";
+    public static final String IRIS = "iris";
+
+    @Id
+    private final String projectId;
+
+    @Field(IRIS)
+    private final List<String> iris;
+
+    @JsonCreator
+    public PostCoordinationIriDictionary(@JsonProperty("projectId") String projectId,
+                                         @JsonProperty(IRIS) List<String> iris) {
+        this.projectId = projectId;
+        this.iris = iris != null ? List.copyOf(iris) : List.of();
+    }
+
+    @JsonProperty("projectId")
+    public String getProjectId() {
+        return projectId;
+    }
+
+    @JsonProperty(IRIS)
+    public List<String> getIris() {
+        return iris;
+    }
+}
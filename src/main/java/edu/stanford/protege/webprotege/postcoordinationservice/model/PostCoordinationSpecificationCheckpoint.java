@@ -0,0 +1,18 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import com.fasterxml.jackson.annotation.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+
+import java.util.*;
+
+public record PostCoordinationSpecificationCheckpoint(@JsonProperty("revisionCount") int revisionCount,
+                                                      @JsonProperty("timestamp") Long timestamp,
+                                                      @JsonProperty("postcoordinationSpecifications") List<PostCoordinationSpecification> postcoordinationSpecifications) implements HistoryCheckpoint {
+
+    @JsonCreator
+    public static PostCoordinationSpecificationCheckpoint create(@JsonProperty("revisionCount") int revisionCount,
+                                                                 @JsonProperty("timestamp") Long timestamp,
+                                                                 @JsonProperty("postcoordinationSpecifications") List<PostCoordinationSpecification> postcoordinationSpecifications) {
+        return new PostCoordinationSpecificationCheckpoint(revisionCount, timestamp, Objects.requireNonNullElseGet(postcoordinationSpecifications, ArrayList::new));
+    }
+}
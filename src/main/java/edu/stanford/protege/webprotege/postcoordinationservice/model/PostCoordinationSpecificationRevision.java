@@ -4,6 +4,7 @@ package edu.stanford.protege.webprotege.postcoordinationservice.model;
 import com.google.common.base.Objects;
 import edu.stanford.protege.webprotege.common.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.mongodb.core.index.*;
@@ -59,6 +60,30 @@ public record PostCoordinationSpecificationRevision(UserId userId,
         );
     }
 
+    /**
+     * Creates a revision that, replayed on any state, moves every axis of the given folded specifications into its list.
+     * The order of the axes inside each list is preserved.
+     */
+    public static PostCoordinationSpecificationRevision createFromFoldedSpecifications(UserId userId,
+                                                                                      Long timestamp,
+                                                                                      List<PostCoordinationSpecification> foldedSpecifications) {
+        Set<PostCoordinationViewEvent> viewEvents = new HashSet<>();
+        for (PostCoordinationSpecification specification : foldedSpecifications) {
+            String view = specification.getLinearizationView();
+            List<PostCoordinationSpecificationEvent> events = new ArrayList<>();
+            specification.getAllowedAxes().forEach(axis -> events.add(new AddToAllowedAxisEvent(axis, view)));
+            specification.getDefaultAxes().forEach(axis -> events.add(new AddToDefaultAxisEvent(axis, view)));
+            specification.getRequiredAxes().forEach(axis -> events.add(new AddToRequiredAxisEvent(axis, view)));
+            specification.getNotAllowedAxes().forEach(axis -> events.add(new AddToNotAllowedAxisEvent(axis, view)));
+            viewEvents.add(new PostCoordinationViewEvent(view, events));
+        }
+        return new PostCoordinationSpecificationRevision(userId,
+                timestamp != null ? timestamp : 0L,
+                viewEvents,
+                CommitStatus.COMMITTED,
+                null);
+    }
+
     @Override
     public int compareTo(@NotNull PostCoordinationSpecificationRevision o) {
         return Long.compare(this.timestamp, o.timestamp);
@@ -0,0 +1,48 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Uploaded documents can be stored gzip or zstd compressed. The compression is detected from the magic bytes at the
+ * start of the object rather than from the extension, so a renamed or extension-less upload is still read.
+ */
+final class DocumentCompression {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+
+    private DocumentCompression() {
+    }
+
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        buffered.mark(ZSTD_MAGIC.length);
+        byte[] header = buffered.readNBytes(ZSTD_MAGIC.length);
+        buffered.reset();
+        if (startsWith(header, GZIP_MAGIC)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        if (startsWith(header, ZSTD_MAGIC)) {
+            return new BufferedInputStream(new ZstdInputStream(buffered), BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    private static boolean startsWith(byte[] header, byte[] magic) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,460 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.codecs.PostCoordinationCodecProvider;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.IriDictionaryService;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+
+/**
+ * Keeps the revisions in the arrays of the history documents, the layout the service always had.
+ * <p>
+ * The specification histories are read and written with the codecs of their project, see
+ * {@link IriDictionaryService}, so the IRIs of new revisions are registered in the dictionary of the project before
+ * the revisions are written.
+ * <p>
+ * The inserts of new histories are upserts on the entity, backed by the unique index of {@link HistoryIndexCreator}.
+ * When two writers insert the same history at once both upserts can miss, the index then fails the second one, which
+ * is reported like an upsert that found the history.
+ */
+@Repository
+@ConditionalOnProperty(name = RevisionStore.STORAGE_PROPERTY, havingValue = "embedded", matchIfMissing = true)
+public class EmbeddedRevisionStore implements RevisionStore {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(EmbeddedRevisionStore.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final IriDictionaryService iriDictionaryService;
+
+    public EmbeddedRevisionStore(MongoTemplate mongoTemplate, IriDictionaryService iriDictionaryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.iriDictionaryService = iriDictionaryService;
+    }
+
+    @Override
+    public Optional<EntityPostCoordinationHistory> findSpecificationHistory(String entityIri, String projectId) {
+        return Optional.ofNullable(
+                collection(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, projectId).find(entityQuery(entityIri, projectId).getQueryObject()).first()
+        );
+    }
+
+    @Override
+    public List<EntityPostCoordinationHistory> findSpecificationHistories(String projectId, Collection<String> entityIris) {
+        return collection(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, projectId)
+                .find(entitiesQuery(projectId, entityIris).getQueryObject())
+                .into(new ArrayList<>());
+    }
+
+    @Override
+    public boolean addSpecificationRevision(String entityIri, String projectId, PostCoordinationSpecificationRevision revision, long expectedVersion) {
+        iriDictionaryService.register(projectId, List.of(revision));
+        Update update = new Update();
+        update.push(SPEC_REVISIONS, revision);
+        update.inc(EntityPostCoordinationHistory.VERSION, 1);
+        return updateIfVersion(entityIri, projectId, expectedVersion, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
+    }
+
+    @Override
+    public boolean insertSpecificationHistoryIfAbsent(EntityPostCoordinationHistory history) {
+        iriDictionaryService.register(history.getProjectId(), history.getPostCoordinationRevisions());
+        Update update = new Update()
+                .setOnInsert(SPEC_REVISIONS, history.getPostCoordinationRevisions())
+                .setOnInsert(EntityPostCoordinationHistory.VERSION, history.getVersion());
+
+        try {
+            return collection(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, history.getProjectId())
+                    .updateOne(entityFilter(history.getWhoficEntityIri(), history.getProjectId()), update.getUpdateObject(), new UpdateOptions().upsert(true))
+                    .getUpsertedId() != null;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Long> findSpecificationVersions(String projectId, Collection<String> entityIris) {
+        return findVersions(POSTCOORDINATION_HISTORY_COLLECTION, projectId, entityIris);
+    }
+
+    @Override
+    public Set<String> addSpecificationRevisions(String projectId,
+                                                 List<PendingRevision<PostCoordinationSpecificationRevision>> revisions,
+                                                 List<EntityPostCoordinationHistory> newHistories) {
+        if (revisions.isEmpty() && newHistories.isEmpty()) {
+            return Set.of();
+        }
+        List<PostCoordinationSpecificationRevision> written = new ArrayList<>();
+        revisions.forEach(pending -> written.add(pending.revision()));
+        newHistories.forEach(history -> written.addAll(history.getPostCoordinationRevisions()));
+        iriDictionaryService.register(projectId, written);
+        Set<String> conflicts = appendRevisions(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, SPEC_REVISIONS,
+                projectId, revisions, newHistories, EntityPostCoordinationHistory::getWhoficEntityIri);
+        LOGGER.debug("Wrote {} of {} specification revisions and new histories", revisions.size() + newHistories.size() - conflicts.size(),
+                revisions.size() + newHistories.size());
+        return conflicts;
+    }
+
+    @Override
+    public Set<String> importSpecificationHistories(List<EntityPostCoordinationHistory> histories) {
+        if (histories.isEmpty()) {
+            return Set.of();
+        }
+        return notUpserted(histories, 0, upsertSpecificationHistories(histories), EntityPostCoordinationHistory::getWhoficEntityIri);
+    }
+
+    /*
+     * The history is only inserted when the entity has none, so a batch that is written again on resume is a no-op.
+     * The result tells which of the histories were inserted. The histories of one import belong to one project.
+     */
+    private BulkWriteResult upsertSpecificationHistories(List<EntityPostCoordinationHistory> histories) {
+        if (histories.isEmpty()) {
+            return BulkWriteResult.unacknowledged();
+        }
+        String projectId = histories.get(0).getProjectId();
+        iriDictionaryService.register(projectId, histories.stream()
+                .flatMap(history -> history.getPostCoordinationRevisions().stream())
+                .toList());
+        List<UpdateOneModel<EntityPostCoordinationHistory>> documents = new ArrayList<>(histories.size());
+        for (EntityPostCoordinationHistory history : histories) {
+            documents.add(new UpdateOneModel<>(
+                    entityFilter(history.getWhoficEntityIri(), history.getProjectId()),
+                    new Document("$setOnInsert", history),
+                    new UpdateOptions().upsert(true)
+            ));
+        }
+        var result = bulkUpsert(collection(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, projectId), documents);
+        LOGGER.debug("Upserted {} of {} specification histories", result.getUpserts().size(), histories.size());
+        return result;
+    }
+
+    @Override
+    public void deleteSpecificationRevisions(String entityIri, String projectId, String changeRequestId) {
+        Update update = new Update().pull(SPEC_REVISIONS, new Document("changeRequestId", changeRequestId))
+                .inc(EntityPostCoordinationHistory.VERSION, 1);
+
+        var updateResult = mongoTemplate.updateFirst(entityQuery(entityIri, projectId), update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
+        LOGGER.info("Removed specification revision for " + entityIri + " with result : " + updateResult);
+    }
+
+    @Override
+    public void commitSpecificationRevisions(String entityIri, String projectId, String changeRequestId) {
+        Query query = new Query(Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).is(entityIri)
+                .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId)
+                .and(SPEC_REVISIONS)
+                .elemMatch(uncommittedRevision(changeRequestId))
+        );
+        Update update = new Update().set(SPEC_REVISIONS + ".$.commitStatus", CommitStatus.COMMITTED.name());
+
+        mongoTemplate.updateFirst(query, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
+    }
+
+    @Override
+    public long deleteSpecificationHistories(String projectId, Collection<String> entityIris) {
+        return mongoTemplate.remove(entitiesQuery(projectId, entityIris), EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION).getDeletedCount();
+    }
+
+    @Override
+    public List<HistoryKey> findVerboseSpecificationHistories(int limit) {
+        List<HistoryKey> keys = new ArrayList<>();
+        mongoTemplate.getCollection(POSTCOORDINATION_HISTORY_COLLECTION)
+                .find(Filters.exists(SPEC_REVISIONS + ".postCoordinationEvents.linearizationView"))
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, EntityPostCoordinationHistory.PROJECT_ID))
+                .limit(limit)
+                .forEach(document -> keys.add(new HistoryKey(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI), document.getString(EntityPostCoordinationHistory.PROJECT_ID))));
+        return keys;
+    }
+
+    /*
+     * The revisions are decoded and written again as they are, only the encoding changes, so the version stays.
+     */
+    @Override
+    public boolean compactSpecificationHistory(String entityIri, String projectId) {
+        return findSpecificationHistory(entityIri, projectId)
+                .filter(history -> !history.getPostCoordinationRevisions().isEmpty())
+                .map(history -> {
+                    iriDictionaryService.register(projectId, history.getPostCoordinationRevisions());
+                    Update update = new Update().set(SPEC_REVISIONS, history.getPostCoordinationRevisions());
+                    return updateIfVersion(entityIri, projectId, history.getVersion(), update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
+                })
+                .orElse(true);
+    }
+
+    @Override
+    public Optional<EntityCustomScalesValuesHistory> findCustomScalesHistory(String entityIri, String projectId) {
+        return Optional.ofNullable(
+                collection(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, EntityCustomScalesValuesHistory.class).find(entityQuery(entityIri, projectId).getQueryObject()).first()
+        );
+    }
+
+    @Override
+    public List<EntityCustomScalesValuesHistory> findCustomScalesHistories(String projectId, Collection<String> entityIris) {
+        return collection(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, EntityCustomScalesValuesHistory.class)
+                .find(entitiesQuery(projectId, entityIris).getQueryObject())
+                .into(new ArrayList<>());
+    }
+
+    @Override
+    public boolean addCustomScalesRevision(String entityIri, String projectId, PostCoordinationCustomScalesRevision revision, long expectedVersion) {
+        Update update = new Update();
+        update.push(CUSTOM_SCALE_REVISIONS, revision);
+        update.inc(EntityCustomScalesValuesHistory.VERSION, 1);
+        return updateIfVersion(entityIri, projectId, expectedVersion, update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
+    }
+
+    @Override
+    public boolean insertCustomScalesHistoryIfAbsent(EntityCustomScalesValuesHistory history) {
+        Update update = new Update()
+                .setOnInsert(CUSTOM_SCALE_REVISIONS, history.getPostCoordinationCustomScalesRevisions())
+                .setOnInsert(EntityCustomScalesValuesHistory.VERSION, history.getVersion());
+
+        try {
+            return mongoTemplate.upsert(entityQuery(history.getWhoficEntityIri(), history.getProjectId()), update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION).getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, Long> findCustomScalesVersions(String projectId, Collection<String> entityIris) {
+        return findVersions(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, projectId, entityIris);
+    }
+
+    @Override
+    public Set<String> addCustomScalesRevisions(String projectId,
+                                                List<PendingRevision<PostCoordinationCustomScalesRevision>> revisions,
+                                                List<EntityCustomScalesValuesHistory> newHistories) {
+        if (revisions.isEmpty() && newHistories.isEmpty()) {
+            return Set.of();
+        }
+        return appendRevisions(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, EntityCustomScalesValuesHistory.class, CUSTOM_SCALE_REVISIONS,
+                projectId, revisions, newHistories, EntityCustomScalesValuesHistory::getWhoficEntityIri);
+    }
+
+    /*
+     * Replacing by entity makes a batch that is written again on resume a no-op.
+     */
+    @Override
+    public void importCustomScalesHistories(List<EntityCustomScalesValuesHistory> histories) {
+        List<ReplaceOneModel<EntityCustomScalesValuesHistory>> documents = new ArrayList<>(histories.size());
+        for (EntityCustomScalesValuesHistory history : histories) {
+            documents.add(new ReplaceOneModel<>(
+                    entityFilter(history.getWhoficEntityIri(), history.getProjectId()),
+                    history,
+                    new ReplaceOptions().upsert(true)
+            ));
+        }
+        bulkWriteUnordered(documents, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
+    }
+
+    @Override
+    public void deleteCustomScalesRevisions(String entityIri, String projectId, String changeRequestId) {
+        Update update = new Update().pull(CUSTOM_SCALE_REVISIONS, new Document("changeRequestId", changeRequestId))
+                .inc(EntityCustomScalesValuesHistory.VERSION, 1);
+
+        var updateResult = mongoTemplate.updateFirst(entityQuery(entityIri, projectId), update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
+        LOGGER.info("Removed custom scales revision for " + entityIri + " with result : " + updateResult);
+    }
+
+    @Override
+    public void commitCustomScalesRevisions(String entityIri, String projectId, String changeRequestId) {
+        Query query = new Query(Criteria.where(EntityCustomScalesValuesHistory.WHOFIC_ENTITY_IRI).is(entityIri)
+                .and(EntityCustomScalesValuesHistory.PROJECT_ID).is(projectId)
+                .and(CUSTOM_SCALE_REVISIONS)
+                .elemMatch(uncommittedRevision(changeRequestId))
+        );
+        Update update = new Update().set(CUSTOM_SCALE_REVISIONS + ".$.commitStatus", CommitStatus.COMMITTED.name());
+
+        mongoTemplate.updateFirst(query, update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
+    }
+
+    @Override
+    public long deleteCustomScalesHistories(String projectId, Collection<String> entityIris) {
+        return mongoTemplate.remove(entitiesQuery(projectId, entityIris), EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION).getDeletedCount();
+    }
+
+    /**
+     * Runs the update only if the history is still at the expected version. The values of the update are written with
+     * the codecs of the project.
+     */
+    <T> boolean updateIfVersion(String entityIri, String projectId, long expectedVersion, Update update, Class<T> historyClass, String collectionName) {
+        return collection(collectionName, historyClass, projectId)
+                .updateOne(versionQuery(entityIri, projectId, expectedVersion).getQueryObject(), update.getUpdateObject())
+                .getMatchedCount() > 0;
+    }
+
+    /*
+     * Every revision is pushed by an update that checks the version and every new history is upserted, all of them in
+     * one unordered bulk write, the updates first. The upserts filter on a new _id as well, so they never match: they
+     * insert the history or are failed by the unique index when the entity has one, and the matched count is the one
+     * of the updates. When some updates did not match the histories are read again: the ones past the expected
+     * version that have the revision got it, the others are returned. The revision is matched as the whole document it
+     * was pushed as, not by its timestamp, which another writer's revision can share.
+     */
+    private <H, T> Set<String> appendRevisions(String collectionName, Class<H> historyClass, String revisionsField, String projectId,
+                                               List<PendingRevision<T>> revisions, List<H> newHistories, Function<H, String> entityIri) {
+        List<UpdateOneModel<H>> writes = new ArrayList<>(revisions.size() + newHistories.size());
+        revisions.forEach(pending -> writes.add(new UpdateOneModel<>(versionQuery(pending.entityIri(), projectId, pending.expectedVersion()).getQueryObject(),
+                new Update().push(revisionsField, pending.revision()).inc(EntityPostCoordinationHistory.VERSION, 1).getUpdateObject())));
+        newHistories.forEach(history -> writes.add(new UpdateOneModel<>(
+                entityFilter(entityIri.apply(history), projectId).append("_id", new ObjectId()),
+                new Document("$setOnInsert", history),
+                new UpdateOptions().upsert(true))));
+        var result = bulkUpsert(collection(collectionName, historyClass, projectId), writes);
+        Set<String> conflicts = notUpserted(newHistories, revisions.size(), result, entityIri);
+        if (result.getMatchedCount() == revisions.size()) {
+            return conflicts;
+        }
+        Set<String> unmatched = revisions.stream().map(PendingRevision::entityIri).collect(Collectors.toCollection(HashSet::new));
+        List<Bson> appended = revisions.stream()
+                .map(pending -> Filters.and(Filters.eq(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, pending.entityIri()),
+                        Filters.gt(EntityPostCoordinationHistory.VERSION, pending.expectedVersion()),
+                        Filters.eq(revisionsField, pending.revision())))
+                .toList();
+        collection(collectionName, Document.class, projectId)
+                .find(Filters.and(Filters.eq(EntityPostCoordinationHistory.PROJECT_ID, projectId), Filters.or(appended)))
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI))
+                .forEach(document -> unmatched.remove(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI)));
+        conflicts.addAll(unmatched);
+        return conflicts;
+    }
+
+    /**
+     * The version of every history of the entities, with one query that only reads the versions.
+     */
+    Map<String, Long> findVersions(String collectionName, String projectId, Collection<String> entityIris) {
+        Map<String, Long> versions = new HashMap<>();
+        mongoTemplate.getCollection(collectionName)
+                .find(entitiesQuery(projectId, entityIris).getQueryObject())
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, EntityPostCoordinationHistory.VERSION))
+                .forEach(document -> {
+                    Number version = document.get(EntityPostCoordinationHistory.VERSION, Number.class);
+                    versions.put(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI), version != null ? version.longValue() : 0L);
+                });
+        return versions;
+    }
+
+    /**
+     * The entities of the histories whose upsert found a history instead of inserting one. The upserts of the
+     * histories are the operations of the bulk write from {@code firstIndex} on.
+     */
+    static <T> Set<String> notUpserted(List<T> histories, int firstIndex, BulkWriteResult result, Function<T, String> entityIri) {
+        Set<Integer> upserted = new HashSet<>();
+        result.getUpserts().forEach(upsert -> upserted.add(upsert.getIndex()));
+        Set<String> existing = new HashSet<>();
+        for (int i = 0; i < histories.size(); i++) {
+            if (!upserted.contains(firstIndex + i)) {
+                existing.add(entityIri.apply(histories.get(i)));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Unordered bulk write of upserts that insert new histories. The upserts the unique index rejected are left out
+     * of the upserts of the result, like the ones that found a history.
+     */
+    static <T> BulkWriteResult bulkUpsert(MongoCollection<T> collection, List<? extends WriteModel<T>> upserts) {
+        try {
+            return collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            if (!onlyDuplicateKeys(e)) {
+                throw e;
+            }
+            LOGGER.debug("{} histories of {} were inserted concurrently", e.getWriteErrors().size(), collection.getNamespace());
+            return e.getWriteResult();
+        }
+    }
+
+    static boolean onlyDuplicateKeys(MongoBulkWriteException e) {
+        return e.getWriteConcernError() == null && e.getWriteErrors().stream()
+                .allMatch(error -> error.getCategory() == ErrorCategory.DUPLICATE_KEY);
+    }
+
+    <T> BulkWriteResult bulkWriteUnordered(List<? extends WriteModel<T>> documents, Class<T> documentClass, String collectionName) {
+        if (documents.isEmpty()) {
+            return BulkWriteResult.unacknowledged();
+        }
+        var result = collection(collectionName, documentClass)
+                .bulkWrite(documents, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Unordered bulk write to collection: {}. Inserted: {}, Upserted: {}, Modified: {}",
+                collectionName, result.getInsertedCount(), result.getUpserts().size(), result.getModifiedCount());
+        return result;
+    }
+
+    /*
+     * The histories are decoded straight from BSON by the codecs instead of going through the Spring Data mapping.
+     */
+    <T> MongoCollection<T> collection(String collectionName, Class<T> documentClass) {
+        return mongoTemplate.getCollection(collectionName)
+                .withDocumentClass(documentClass)
+                .withCodecRegistry(PostCoordinationCodecProvider.codecRegistry());
+    }
+
+    <T> MongoCollection<T> collection(String collectionName, Class<T> documentClass, String projectId) {
+        return mongoTemplate.getCollection(collectionName)
+                .withDocumentClass(documentClass)
+                .withCodecRegistry(iriDictionaryService.codecRegistry(projectId));
+    }
+
+    static Query entityQuery(String entityIri, String projectId) {
+        return new Query(Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).is(entityIri)
+                .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId));
+    }
+
+    static Document entityFilter(String entityIri, String projectId) {
+        return new Document(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, entityIri)
+                .append(EntityPostCoordinationHistory.PROJECT_ID, projectId);
+    }
+
+    static Query entitiesQuery(String projectId, Collection<String> entityIris) {
+        return new Query(Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).in(entityIris)
+                .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId));
+    }
+
+    static Query versionQuery(String entityIri, String projectId, long expectedVersion) {
+        Query query = new Query();
+        query.addCriteria(Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).is(entityIri)
+                .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId)
+                .andOperator(versionIs(EntityPostCoordinationHistory.VERSION, expectedVersion)));
+        return query;
+    }
+
+    static Criteria uncommittedRevision(String changeRequestId) {
+        return Criteria.where("changeRequestId").is(changeRequestId)
+                .and("commitStatus").is(CommitStatus.UNCOMMITTED.name());
+    }
+
+    /*
+     * Histories written before the version field existed don't have it, they are at version 0.
+     */
+    private static Criteria versionIs(String versionField, long expectedVersion) {
+        if (expectedVersion == 0) {
+            return new Criteria().orOperator(Criteria.where(versionField).is(0L), Criteria.where(versionField).exists(false));
+        }
+        return Criteria.where(versionField).is(expectedVersion);
+    }
+}
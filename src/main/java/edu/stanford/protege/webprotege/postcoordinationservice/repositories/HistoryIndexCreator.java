@@ -0,0 +1,138 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.CUSTOM_SCALES_CHECKPOINT;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.CUSTOM_SCALE_REVISIONS;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.POSTCOORDINATION_CUSTOM_SCALES_COLLECTION;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+
+/**
+ * Creates the unique index on the entity and project of the history collections. Before it existed two replicas
+ * that inserted the first history of an entity at the same time could both succeed, so the duplicates are merged
+ * first: the history with the highest version is kept and gets the embedded revisions of the others that it does not
+ * have, the others are deleted.
+ * <p>
+ * A history can be inserted twice between the merge and the index build, the build then fails and is tried again.
+ */
+@Component
+public class HistoryIndexCreator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HistoryIndexCreator.class);
+
+    public static final String ENTITY_IRI_PROJECT_INDEX = "entity_iri_project_idx";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String ID = "_id";
+
+    private static final String TIMESTAMP = "timestamp";
+
+    private final MongoTemplate mongoTemplate;
+
+    public HistoryIndexCreator(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        createUniqueIndex(POSTCOORDINATION_HISTORY_COLLECTION, SPEC_REVISIONS, SPEC_CHECKPOINT);
+        createUniqueIndex(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, CUSTOM_SCALE_REVISIONS, CUSTOM_SCALES_CHECKPOINT);
+    }
+
+    void createUniqueIndex(String collectionName, String revisionsField, String checkpointField) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(collectionName);
+        for (int attempt = 1; ; attempt++) {
+            long merged = mergeDuplicates(collectionName, revisionsField, checkpointField);
+            if (merged > 0) {
+                LOGGER.warn("Merged {} duplicate histories of {}", merged, collectionName);
+            }
+            try {
+                // an index of the same name without the unique option can't be changed, only replaced
+                indexOperations.getIndexInfo().stream()
+                        .filter(index -> index.getName().equals(ENTITY_IRI_PROJECT_INDEX) && !index.isUnique())
+                        .findFirst()
+                        .ifPresent(index -> indexOperations.dropIndex(ENTITY_IRI_PROJECT_INDEX));
+                indexOperations.ensureIndex(new Index()
+                        .on(WHOFIC_ENTITY_IRI, Sort.Direction.ASC)
+                        .on(PROJECT_ID, Sort.Direction.ASC)
+                        .unique()
+                        .named(ENTITY_IRI_PROJECT_INDEX));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.info("Histories of {} were duplicated while the unique index was built, attempt {}/{}", collectionName, attempt, MAX_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of history documents that were merged into another one and deleted.
+     */
+    long mergeDuplicates(String collectionName, String revisionsField, String checkpointField) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        List<Document> groups = collection.aggregate(List.of(
+                        Aggregates.group(new Document(WHOFIC_ENTITY_IRI, "$" + WHOFIC_ENTITY_IRI).append(PROJECT_ID, "$" + PROJECT_ID),
+                                Accumulators.push("ids", "$" + ID),
+                                Accumulators.sum("count", 1)),
+                        Aggregates.match(Filters.gt("count", 1))))
+                .allowDiskUse(true)
+                .into(new ArrayList<>());
+        long merged = 0;
+        for (Document group : groups) {
+            List<Document> histories = collection.find(Filters.in(ID, group.getList("ids", Object.class))).into(new ArrayList<>());
+            if (histories.size() < 2) {
+                continue;
+            }
+            histories.sort(Comparator.comparingLong((Document history) -> version(history))
+                    .thenComparingInt(history -> revisions(history, revisionsField).size())
+                    .reversed());
+            Document kept = histories.get(0);
+            Set<Object> timestamps = new HashSet<>();
+            revisions(kept, revisionsField).forEach(revision -> timestamps.add(revision.get(TIMESTAMP)));
+            List<Document> missingRevisions = new ArrayList<>();
+            List<Object> duplicateIds = new ArrayList<>();
+            for (Document duplicate : histories.subList(1, histories.size())) {
+                duplicateIds.add(duplicate.get(ID));
+                revisions(duplicate, revisionsField).stream()
+                        .filter(revision -> timestamps.add(revision.get(TIMESTAMP)))
+                        .forEach(missingRevisions::add);
+            }
+            if (!missingRevisions.isEmpty()) {
+                // the checkpoint does not cover the revisions that are added, the next write folds a new one
+                collection.updateOne(Filters.eq(ID, kept.get(ID)), Updates.combine(
+                        Updates.pushEach(revisionsField, missingRevisions),
+                        Updates.inc(VERSION, 1),
+                        Updates.unset(checkpointField)));
+            }
+            merged += collection.deleteMany(Filters.in(ID, duplicateIds)).getDeletedCount();
+        }
+        return merged;
+    }
+
+    private static long version(Document history) {
+        Number version = history.get(VERSION, Number.class);
+        return version != null ? version.longValue() : 0L;
+    }
+
+    private static List<Document> revisions(Document history, String revisionsField) {
+        List<Document> revisions = history.getList(revisionsField, Document.class);
+        return revisions != null ? revisions : List.of();
+    }
+}
@@ -0,0 +1,84 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.model.ImportJob;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.ImportJob.*;
+
+@Repository
+public class ImportJobRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ImportJobRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<ImportJob> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, ImportJob.class, IMPORT_JOBS_COLLECTION));
+    }
+
+    public List<ImportJob> findByProjectId(String projectId) {
+        return mongoTemplate.find(new Query(Criteria.where(PROJECT_ID).is(projectId)), ImportJob.class, IMPORT_JOBS_COLLECTION);
+    }
+
+    public void insertIfAbsent(ImportJob job) {
+        Update update = new Update()
+                .setOnInsert(PROJECT_ID, job.getProjectId())
+                .setOnInsert(DOCUMENT_LOCATION, job.getDocumentLocation())
+                .setOnInsert(IMPORT_TYPE, job.getImportType())
+                .setOnInsert(STATUS, job.getStatus())
+                .setOnInsert(COMMITTED_BATCHES, job.getCommittedBatches())
+                .setOnInsert(COMMITTED_RECORDS, job.getCommittedRecords())
+                .setOnInsert(ATTEMPTS, job.getAttempts())
+                .setOnInsert(STARTED_AT, job.getStartedAt())
+                .setOnInsert(UPDATED_AT, job.getUpdatedAt());
+        mongoTemplate.upsert(byId(job.getId()), update, ImportJob.class, IMPORT_JOBS_COLLECTION);
+    }
+
+    /**
+     * Marks the job as running if nobody else is running it. A running job that was not updated since
+     * {@code staleBefore} belongs to an instance that died and can be taken over.
+     *
+     * @return the claimed job, or empty when it is completed or running somewhere else.
+     */
+    public Optional<ImportJob> claim(String id, long staleBefore) {
+        Query query = new Query(Criteria.where(ID).is(id)
+                .orOperator(Criteria.where(STATUS).in(Status.PENDING, Status.FAILED),
+                        Criteria.where(STATUS).is(Status.RUNNING).and(UPDATED_AT).lt(staleBefore)));
+        Update update = new Update()
+                .set(STATUS, Status.RUNNING)
+                .set(UPDATED_AT, System.currentTimeMillis())
+                .inc(ATTEMPTS, 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ImportJob.class, IMPORT_JOBS_COLLECTION));
+    }
+
+    /**
+     * Moves the committed position forward. Batches can be reported out of order by concurrent writers, so the
+     * position never goes back.
+     */
+    public void updateProgress(String id, long committedBatches, long committedRecords) {
+        Update update = new Update()
+                .max(COMMITTED_BATCHES, committedBatches)
+                .max(COMMITTED_RECORDS, committedRecords)
+                .set(UPDATED_AT, System.currentTimeMillis());
+        mongoTemplate.updateFirst(byId(id), update, ImportJob.class, IMPORT_JOBS_COLLECTION);
+    }
+
+    public void updateStatus(String id, Status status, String lastError) {
+        Update update = new Update()
+                .set(STATUS, status)
+                .set(LAST_ERROR, lastError)
+                .set(UPDATED_AT, System.currentTimeMillis());
+        mongoTemplate.updateFirst(byId(id), update, ImportJob.class, IMPORT_JOBS_COLLECTION);
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where(ID).is(id));
+    }
+}
@@ -0,0 +1,45 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationIriDictionary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.*;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationIriDictionary.*;
+
+@Repository
+public class IriDictionaryRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    public IriDictionaryRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @return the IRIs of the project in the order of their codes.
+     */
+    public List<String> findIris(String projectId) {
+        return Optional.ofNullable(mongoTemplate.findById(projectId, PostCoordinationIriDictionary.class, IRI_DICTIONARY_COLLECTION))
+                .map(PostCoordinationIriDictionary::getIris)
+                .orElse(List.of());
+    }
+
+    /**
+     * Appends the IRIs the project does not have yet. Concurrent writers can append the same IRIs, every IRI is only
+     * appended once.
+     */
+    public void addIris(String projectId, Collection<String> iris) {
+        for (String iri : iris) {
+            Query query = new Query(Criteria.where(PROJECT_ID).is(projectId).and(IRIS).ne(iri));
+            try {
+                mongoTemplate.upsert(query, new Update().push(IRIS, iri), PostCoordinationIriDictionary.class, IRI_DICTIONARY_COLLECTION);
+            } catch (DuplicateKeyException e) {
+                // the dictionary already has the IRI, the upsert tried to create a second dictionary for the project
+            }
+        }
+    }
+}
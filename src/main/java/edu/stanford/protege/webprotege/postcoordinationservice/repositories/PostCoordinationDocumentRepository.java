@@ -1,19 +1,15 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficCustomScalesValues;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.function.Consumer;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -25,6 +21,8 @@ public class PostCoordinationDocumentRepository {
 
     private final ObjectMapper objectMapper;
 
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
     public PostCoordinationDocumentRepository(MinioPostCoordinationDocumentLoader documentLoader, ObjectMapper objectMapper) {
         this.documentLoader = documentLoader;
         this.objectMapper = objectMapper;
@@ -38,10 +36,14 @@ public class PostCoordinationDocumentRepository {
         return fetchDataStream(location, "postcoordinationScaleCustomization", WhoficCustomScalesValues.class);
     }
 
+    /*
+     * Positions a parser on the expected array and binds its elements straight to the target type with a
+     * MappingIterator, without going through a JsonNode tree for every element.
+     */
     private <T> Stream<T> fetchDataStream(String location, String expectedArrayName, Class<T> targetType) {
+        InputStream inputStream = documentLoader.fetchPostCoordinationDocument(location);
         try {
-            JsonFactory jsonFactory = new JsonFactory();
-            JsonParser jsonParser = jsonFactory.createParser(documentLoader.fetchPostCoordinationDocument(location));
+            JsonParser jsonParser = objectMapper.getFactory().createParser(DocumentCompression.decompress(inputStream));
 
             if (jsonParser.nextToken() == JsonToken.START_ARRAY) {
                 throw new IllegalStateException("Unexpected array");
@@ -54,27 +56,37 @@ public class PostCoordinationDocumentRepository {
             }
 
             jsonParser.nextToken();
+            if (jsonParser.nextToken() == JsonToken.END_ARRAY) {
+                jsonParser.close();
+                inputStream.close();
+                return Stream.empty();
+            }
 
-            return StreamSupport.stream(
-                    new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
-                        @Override
-                        public boolean tryAdvance(Consumer<? super T> action) {
-                            try {
-                                if (jsonParser.nextToken() == JsonToken.END_ARRAY) {
-                                    return false;
-                                }
-                                JsonNode node = objectMapper.readTree(jsonParser);
-                                T element = objectMapper.treeToValue(node, targetType);
-                                action.accept(element);
-                                return true;
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e);
-                            }
+            // the iterator starts at the first element and stops at the end of its array
+            MappingIterator<T> iterator = readers.computeIfAbsent(targetType, objectMapper::readerFor).readValues(jsonParser);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> {
+                        try {
+                            iterator.close();
+                            inputStream.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
                         }
-                    }, false);
+                    });
 
         } catch (IOException e) {
+            closeQuietly(inputStream);
             throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            closeQuietly(inputStream);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
         }
     }
 
@@ -1,26 +1,35 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
 
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.WriteModel;
-import com.mongodb.client.result.UpdateResult;
 import edu.stanford.protege.webprotege.common.ChangeRequestId;
 import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.codecs.PostCoordinationCodecProvider;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.services.ReadWriteLockService;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.PROJECT_ID;
 import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.WHOFIC_ENTITY_IRI;
 import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.*;
 import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationSnapshot.POSTCOORDINATION_SNAPSHOT_COLLECTION;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesSnapshot.CUSTOM_SCALES_SNAPSHOT_COLLECTION;
 
 @Repository
 public class PostCoordinationRepository {
@@ -29,11 +38,13 @@ public class PostCoordinationRepository {
 
     private final MongoTemplate mongoTemplate;
     private final ReadWriteLockService readWriteLock;
+    private final RevisionStore revisionStore;
 
 
-    public PostCoordinationRepository(MongoTemplate mongoTemplate, ReadWriteLockService readWriteLock) {
+    public PostCoordinationRepository(MongoTemplate mongoTemplate, ReadWriteLockService readWriteLock, RevisionStore revisionStore) {
         this.mongoTemplate = mongoTemplate;
         this.readWriteLock = readWriteLock;
+        this.revisionStore = revisionStore;
     }
 
     public void bulkWriteDocuments(List<? extends WriteModel<Document>> listOfWriteModelDocument, String collectionName) {
@@ -78,48 +89,169 @@ public class PostCoordinationRepository {
         }
     }
 
-    public void addSpecificationRevision(String whoficEntityIri, ProjectId projectId, PostCoordinationSpecificationRevision specificationRevision) {
-        Query query = new Query();
-        query.addCriteria(Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).is(whoficEntityIri)
-                .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId.id()));
+    /**
+     * Unordered bulk write for the first imports. It is not retried and does not take the global write lock: the
+     * imports only insert the histories of entities that don't have one yet, every document is written atomically,
+     * and readers keep being served while the import runs.
+     * <p>
+     * The write models can hold the model classes themselves, they are encoded by the
+     * {@link PostCoordinationCodecProvider} codecs.
+     */
+    public <T> void bulkWriteUnordered(List<? extends WriteModel<T>> listOfWriteModelDocument, Class<T> documentClass, String collectionName) {
+        if (listOfWriteModelDocument.isEmpty()) {
+            return;
+        }
+        var result = collection(collectionName, documentClass)
+                .bulkWrite(listOfWriteModelDocument, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Unordered bulk write to collection: {}. Inserted: {}, Modified: {}",
+                collectionName, result.getInsertedCount(), result.getModifiedCount());
+    }
 
-        Update update = new Update();
-        update.push(SPEC_REVISIONS, specificationRevision);
+    /*
+     * The documents are encoded straight to BSON by the codecs instead of going through the Spring Data mapping.
+     */
+    private <T> MongoCollection<T> collection(String collectionName, Class<T> documentClass) {
+        return mongoTemplate.getCollection(collectionName)
+                .withDocumentClass(documentClass)
+                .withCodecRegistry(PostCoordinationCodecProvider.codecRegistry());
+    }
 
-        readWriteLock.executeWriteLock(() -> {
-            UpdateResult result = mongoTemplate.updateFirst(query, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
-            if (result.getMatchedCount() == 0) {
-                throw new IllegalArgumentException(POSTCOORDINATION_HISTORY_COLLECTION + " not found for the given " +
-                        WHOFIC_ENTITY_IRI + ":" + whoficEntityIri + " and " + PROJECT_ID +
-                        ":" + projectId + ".");
-            }
-        });
+    /**
+     * Imports the histories of the entities that don't have one yet. Like {@link #bulkWriteUnordered} it does not take
+     * the global write lock.
+     */
+    public void importSpecificationHistories(List<EntityPostCoordinationHistory> histories) {
+        revisionStore.importSpecificationHistories(histories);
     }
 
-    public EntityPostCoordinationHistory saveNewSpecificationHistory(EntityPostCoordinationHistory specificationHistory) {
-        return readWriteLock.executeWriteLock(() -> mongoTemplate.save(specificationHistory, POSTCOORDINATION_HISTORY_COLLECTION));
+    /**
+     * Imports the custom scales histories, replacing the ones the entities already have.
+     */
+    public void importCustomScalesHistories(List<EntityCustomScalesValuesHistory> histories) {
+        revisionStore.importCustomScalesHistories(histories);
     }
 
-    public void addCustomScalesRevision(String whoficEntityIri, ProjectId projectId, PostCoordinationCustomScalesRevision customScalesRevision) {
-        Query query = new Query();
-        query.addCriteria(Criteria.where(WHOFIC_ENTITY_IRI).is(whoficEntityIri)
-                .and(PROJECT_ID).is(projectId.id()));
+    /**
+     * Adds the revision only if the history is still at the expected version. The version check is the whole
+     * concurrency control, no lock is taken.
+     *
+     * @return false when the history was changed since it was read, or no longer exists.
+     */
+    public boolean addSpecificationRevision(String whoficEntityIri, ProjectId projectId, PostCoordinationSpecificationRevision specificationRevision, long expectedVersion) {
+        return revisionStore.addSpecificationRevision(whoficEntityIri, projectId.id(), specificationRevision, expectedVersion);
+    }
 
-        Update update = new Update();
-        update.push(CUSTOM_SCALE_REVISIONS, customScalesRevision);
+    /**
+     * Inserts the history unless the entity already has one, the unique index of the histories settles concurrent
+     * inserts.
+     *
+     * @return false when another writer created the history first.
+     */
+    public boolean insertSpecificationHistoryIfAbsent(EntityPostCoordinationHistory specificationHistory) {
+        return revisionStore.insertSpecificationHistoryIfAbsent(specificationHistory);
+    }
 
-        readWriteLock.executeWriteLock(() -> {
-            UpdateResult result = mongoTemplate.updateFirst(query, update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
-            if (result.getMatchedCount() == 0) {
-                throw new IllegalArgumentException(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION + " not found for the given " +
-                        WHOFIC_ENTITY_IRI + ":" + whoficEntityIri + " and " + PROJECT_ID +
-                        ":" + projectId + ".");
+    /**
+     * Appends the revisions and inserts the new histories of many entities with one bulk write where the storage
+     * allows it. The versions are read first so that the histories already known to have changed are left out of the
+     * writes. The writes check the versions again and the entities they did not write are returned as well.
+     *
+     * @return the entities that were left out because their history was changed since it was read, or was created
+     * by another writer.
+     */
+    public Set<String> addSpecificationRevisions(ProjectId projectId,
+                                                 List<RevisionStore.PendingRevision<PostCoordinationSpecificationRevision>> revisions,
+                                                 List<EntityPostCoordinationHistory> newHistories) {
+        Set<String> entityIris = new HashSet<>();
+        revisions.forEach(pending -> entityIris.add(pending.entityIri()));
+        newHistories.forEach(history -> entityIris.add(history.getWhoficEntityIri()));
+        Map<String, Long> versions = revisionStore.findSpecificationVersions(projectId.id(), entityIris);
+
+        Set<String> conflicts = new HashSet<>();
+        List<RevisionStore.PendingRevision<PostCoordinationSpecificationRevision>> unchangedRevisions = new ArrayList<>();
+        for (RevisionStore.PendingRevision<PostCoordinationSpecificationRevision> pending : revisions) {
+            Long version = versions.get(pending.entityIri());
+            if (version != null && version == pending.expectedVersion()) {
+                unchangedRevisions.add(pending);
+            } else {
+                conflicts.add(pending.entityIri());
             }
-        });
+        }
+        List<EntityPostCoordinationHistory> absentHistories = new ArrayList<>();
+        for (EntityPostCoordinationHistory history : newHistories) {
+            if (versions.containsKey(history.getWhoficEntityIri())) {
+                conflicts.add(history.getWhoficEntityIri());
+            } else {
+                absentHistories.add(history);
+            }
+        }
+        conflicts.addAll(revisionStore.addSpecificationRevisions(projectId.id(), unchangedRevisions, absentHistories));
+        return conflicts;
+    }
+
+    /**
+     * Adds the revision only if the history is still at the expected version.
+     *
+     * @return false when the history was changed since it was read, or no longer exists.
+     */
+    public boolean addCustomScalesRevision(String whoficEntityIri, ProjectId projectId, PostCoordinationCustomScalesRevision customScalesRevision, long expectedVersion) {
+        return revisionStore.addCustomScalesRevision(whoficEntityIri, projectId.id(), customScalesRevision, expectedVersion);
     }
 
-    public EntityCustomScalesValuesHistory saveNewCustomScalesHistory(EntityCustomScalesValuesHistory entityScaleValueHistory) {
-        return readWriteLock.executeWriteLock(() -> mongoTemplate.save(entityScaleValueHistory, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION));
+    /**
+     * The custom scales variant of {@link #addSpecificationRevisions}.
+     *
+     * @return the entities that were left out because their history was changed since it was read, or was created
+     * by another writer.
+     */
+    public Set<String> addCustomScalesRevisions(ProjectId projectId,
+                                                List<RevisionStore.PendingRevision<PostCoordinationCustomScalesRevision>> revisions,
+                                                List<EntityCustomScalesValuesHistory> newHistories) {
+        Set<String> entityIris = new HashSet<>();
+        revisions.forEach(pending -> entityIris.add(pending.entityIri()));
+        newHistories.forEach(history -> entityIris.add(history.getWhoficEntityIri()));
+        Map<String, Long> versions = revisionStore.findCustomScalesVersions(projectId.id(), entityIris);
+
+        Set<String> conflicts = new HashSet<>();
+        List<RevisionStore.PendingRevision<PostCoordinationCustomScalesRevision>> unchangedRevisions = new ArrayList<>();
+        for (RevisionStore.PendingRevision<PostCoordinationCustomScalesRevision> pending : revisions) {
+            Long version = versions.get(pending.entityIri());
+            if (version != null && version == pending.expectedVersion()) {
+                unchangedRevisions.add(pending);
+            } else {
+                conflicts.add(pending.entityIri());
+            }
+        }
+        List<EntityCustomScalesValuesHistory> absentHistories = new ArrayList<>();
+        for (EntityCustomScalesValuesHistory history : newHistories) {
+            if (versions.containsKey(history.getWhoficEntityIri())) {
+                conflicts.add(history.getWhoficEntityIri());
+            } else {
+                absentHistories.add(history);
+            }
+        }
+        conflicts.addAll(revisionStore.addCustomScalesRevisions(projectId.id(), unchangedRevisions, absentHistories));
+        return conflicts;
+    }
+
+    /**
+     * Inserts the history unless the entity already has one.
+     *
+     * @return false when another writer created the history first.
+     */
+    public boolean insertCustomScalesHistoryIfAbsent(EntityCustomScalesValuesHistory entityScaleValueHistory) {
+        return revisionStore.insertCustomScalesHistoryIfAbsent(entityScaleValueHistory);
+    }
+
+    /*
+     * Matches the snapshot of the entity unless it was built from a newer version of the history. When it was, the
+     * upsert runs into the unique index and the older snapshot is dropped.
+     */
+    private static Query snapshotNotNewerThan(String entityIri, String projectId, long historyVersion) {
+        return new Query(Criteria.where(EntityPostCoordinationSnapshot.WHOFIC_ENTITY_IRI).is(entityIri)
+                .and(EntityPostCoordinationSnapshot.PROJECT_ID).is(projectId)
+                .orOperator(Criteria.where(EntityPostCoordinationSnapshot.HISTORY_VERSION).lte(historyVersion),
+                        Criteria.where(EntityPostCoordinationSnapshot.HISTORY_VERSION).exists(false)));
     }
 
 
@@ -164,14 +296,7 @@ public class PostCoordinationRepository {
     }
 
     public Optional<EntityPostCoordinationHistory> findHistoryByEntityIriAndProjectId(String entityIri, ProjectId projectId) {
-
-        Query query = new Query();
-        query.addCriteria(
-                Criteria.where(WHOFIC_ENTITY_IRI).is(entityIri)
-                        .and(PROJECT_ID).is(projectId.value())
-        );
-
-        return readWriteLock.executeReadLock(() -> Optional.ofNullable(mongoTemplate.findOne(query, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION)));
+        return readWriteLock.executeReadLock(projectId, entityIri, () -> revisionStore.findSpecificationHistory(entityIri, projectId.value()));
     }
 
     public Optional<EntityPostCoordinationHistory> getExistingHistoryOrderedByRevision(String entityIri, ProjectId projectId) {
@@ -181,116 +306,255 @@ public class PostCoordinationRepository {
                             .stream()
                             .sorted(Comparator.comparingLong(PostCoordinationSpecificationRevision::timestamp))
                             .collect(Collectors.toList());
-                    return new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions);
+                    return new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions, history.getSpecificationCheckpoint(), history.getVersion());
                 });
     }
 
-    public Optional<EntityCustomScalesValuesHistory> getExistingCustomScaleHistoryOrderedByRevision(String entityIri, ProjectId projectId) {
-        Query query = new Query();
-        query.addCriteria(
-                Criteria.where(WHOFIC_ENTITY_IRI).is(entityIri)
-                        .and(PROJECT_ID).is(projectId.value())
-        );
+    /**
+     * Reads the histories of many entities with one query. Every history is read atomically, but unlike the single
+     * read no entity lock is taken, so the histories can be from slightly different points in time.
+     *
+     * @return the histories by entity IRI, without the entities that have none.
+     */
+    public Map<String, EntityPostCoordinationHistory> getExistingHistoriesOrderedByRevision(ProjectId projectId, Collection<String> entityIris) {
+        if (entityIris.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, EntityPostCoordinationHistory> histories = new HashMap<>();
+        for (EntityPostCoordinationHistory history : revisionStore.findSpecificationHistories(projectId.value(), entityIris)) {
+            List<PostCoordinationSpecificationRevision> sortedRevisions = history.getPostCoordinationRevisions()
+                    .stream()
+                    .sorted(Comparator.comparingLong(PostCoordinationSpecificationRevision::timestamp))
+                    .collect(Collectors.toList());
+            histories.put(history.getWhoficEntityIri(), new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions, history.getSpecificationCheckpoint(), history.getVersion()));
+        }
+        return histories;
+    }
 
-        return readWriteLock.executeReadLock(() ->
-                Optional.ofNullable(mongoTemplate.findOne(query, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION))
+    public Optional<EntityCustomScalesValuesHistory> getExistingCustomScaleHistoryOrderedByRevision(String entityIri, ProjectId projectId) {
+        return readWriteLock.executeReadLock(projectId, entityIri, () ->
+                revisionStore.findCustomScalesHistory(entityIri, projectId.value())
         ).map(history -> {
                     List<PostCoordinationCustomScalesRevision> sortedRevisions = history.getPostCoordinationCustomScalesRevisions()
                             .stream()
                             .sorted(Comparator.comparingLong(PostCoordinationCustomScalesRevision::timestamp))
                             .collect(Collectors.toList());
-                    return new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions);
+                    return new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions, history.getCustomScalesCheckpoint(), history.getVersion());
                 }
         );
 
     }
 
-    public void deleteHistoriesForEntityIris(ProjectId projectId, Collection<String> entityIris) {
-        if (entityIris == null || entityIris.isEmpty()) {
-            return;
+    /**
+     * Reads the custom scales histories of many entities with one query, without taking the entity locks, see
+     * {@link #getExistingHistoriesOrderedByRevision}.
+     */
+    public Map<String, EntityCustomScalesValuesHistory> getExistingCustomScaleHistoriesOrderedByRevision(ProjectId projectId, Collection<String> entityIris) {
+        if (entityIris.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, EntityCustomScalesValuesHistory> histories = new HashMap<>();
+        for (EntityCustomScalesValuesHistory history : revisionStore.findCustomScalesHistories(projectId.value(), entityIris)) {
+            List<PostCoordinationCustomScalesRevision> sortedRevisions = history.getPostCoordinationCustomScalesRevisions()
+                    .stream()
+                    .sorted(Comparator.comparingLong(PostCoordinationCustomScalesRevision::timestamp))
+                    .collect(Collectors.toList());
+            histories.put(history.getWhoficEntityIri(), new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), sortedRevisions, history.getCustomScalesCheckpoint(), history.getVersion()));
+        }
+        return histories;
+    }
+
+    /**
+     * Passes the IRI of every entity of the project that has a specification or a custom scales history to the
+     * consumer, an entity with both histories is passed twice. Only the IRIs are read from the history documents.
+     */
+    public void forEachEntityIriWithHistory(ProjectId projectId, Consumer<String> consumer) {
+        for (String collectionName : List.of(POSTCOORDINATION_HISTORY_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION)) {
+            mongoTemplate.getCollection(collectionName)
+                    .find(Filters.eq(PROJECT_ID, projectId.value()))
+                    .projection(Projections.fields(Projections.include(WHOFIC_ENTITY_IRI), Projections.excludeId()))
+                    .forEach(document -> consumer.accept(document.getString(WHOFIC_ENTITY_IRI)));
+        }
+    }
+
+    public Set<ProjectId> findProjectIdsWithHistories() {
+        Set<ProjectId> projectIds = new HashSet<>();
+        for (String collectionName : List.of(POSTCOORDINATION_HISTORY_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION)) {
+            mongoTemplate.getCollection(collectionName)
+                    .distinct(PROJECT_ID, String.class)
+                    .forEach(projectId -> projectIds.add(ProjectId.valueOf(projectId)));
         }
+        return projectIds;
+    }
 
+    public void saveSpecificationCheckpoint(String entityIri, ProjectId projectId, PostCoordinationSpecificationCheckpoint checkpoint) {
         Query query = new Query();
         query.addCriteria(
-                Criteria.where(WHOFIC_ENTITY_IRI).in(entityIris)
-                        .and(PROJECT_ID).is(projectId.value())
+                Criteria.where(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).is(entityIri)
+                        .and(EntityPostCoordinationHistory.PROJECT_ID).is(projectId.value())
         );
+        Update update = checkpoint != null ? new Update().set(SPEC_CHECKPOINT, checkpoint) : new Update().unset(SPEC_CHECKPOINT);
 
-        readWriteLock.executeWriteLock(() -> {
-            var specDeleteResult = mongoTemplate.remove(query, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
-            var customScalesDeleteResult = mongoTemplate.remove(query, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
-
-            LOGGER.info("Deleted histories for projectId {} and entity iris count {}. Spec deleted: {}, Custom scales deleted: {}",
-                    projectId.value(), entityIris.size(), specDeleteResult.getDeletedCount(), customScalesDeleteResult.getDeletedCount());
+        readWriteLock.executeWriteLock(projectId, entityIri, () -> {
+            mongoTemplate.updateFirst(query, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
         });
     }
 
-    public void deletePostCoordinationCustomScalesRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
-
+    public void saveCustomScalesCheckpoint(String entityIri, ProjectId projectId, PostCoordinationCustomScalesCheckpoint checkpoint) {
         Query query = new Query();
         query.addCriteria(
                 Criteria.where(WHOFIC_ENTITY_IRI).is(entityIri)
                         .and(PROJECT_ID).is(projectId.value())
         );
-        Update update = new Update().pull("postCoordinationCustomScalesRevisions",
-                new Document("changeRequestId", changeRequestId.id()));
+        Update update = checkpoint != null ? new Update().set(CUSTOM_SCALES_CHECKPOINT, checkpoint) : new Update().unset(CUSTOM_SCALES_CHECKPOINT);
 
-        readWriteLock.executeWriteLock(() -> {
-                UpdateResult updateResult = mongoTemplate.updateFirst(query, update, EntityCustomScalesValuesHistory.class, CUSTOM_SCALE_REVISIONS);
-                LOGGER.info("Removed custom scales revision for " + entityIri + " with result : " + updateResult);
+        readWriteLock.executeWriteLock(projectId, entityIri, () -> {
+            mongoTemplate.updateFirst(query, update, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
+        });
+    }
+
+    public void saveSpecificationSnapshot(EntityPostCoordinationSnapshot snapshot) {
+        Query query = snapshotNotNewerThan(snapshot.getWhoficEntityIri(), snapshot.getProjectId(), snapshot.getHistoryVersion());
+
+        readWriteLock.executeWriteLock(ProjectId.valueOf(snapshot.getProjectId()), snapshot.getWhoficEntityIri(), () -> {
+            try {
+                mongoTemplate.findAndReplace(query, snapshot, FindAndReplaceOptions.options().upsert(), POSTCOORDINATION_SNAPSHOT_COLLECTION);
+            } catch (DuplicateKeyException e) {
+                LOGGER.debug("Specification snapshot for {} was already built from a newer history version than {}", snapshot.getWhoficEntityIri(), snapshot.getHistoryVersion());
             }
+        });
+    }
+
+    /**
+     * Returns the specification snapshot only if its history is still at the version the snapshot was built from. Only
+     * the version of the history is read.
+     */
+    public Optional<EntityPostCoordinationSnapshot> findUpToDateSpecificationSnapshot(String entityIri, ProjectId projectId) {
+        Query query = new Query();
+        query.addCriteria(
+                Criteria.where(EntityPostCoordinationSnapshot.WHOFIC_ENTITY_IRI).is(entityIri)
+                        .and(EntityPostCoordinationSnapshot.PROJECT_ID).is(projectId.value())
         );
+
+        return readWriteLock.executeReadLock(projectId, entityIri, () -> {
+            EntityPostCoordinationSnapshot snapshot = mongoTemplate.findOne(query, EntityPostCoordinationSnapshot.class, POSTCOORDINATION_SNAPSHOT_COLLECTION);
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            Long historyVersion = revisionStore.findSpecificationVersions(projectId.value(), List.of(entityIri)).get(entityIri);
+            boolean upToDate = historyVersion != null && historyVersion == snapshot.getHistoryVersion();
+            return upToDate ? Optional.of(snapshot) : Optional.<EntityPostCoordinationSnapshot>empty();
+        });
     }
 
-    public void deletePostCoordinationSpecificationRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
+    /**
+     * Reads the specification snapshots of many entities with one query. Whether a snapshot still matches its
+     * history is left to the caller, see {@link EntityPostCoordinationSnapshot#isUpToDate}.
+     */
+    public Map<String, EntityPostCoordinationSnapshot> findSpecificationSnapshots(ProjectId projectId, Collection<String> entityIris) {
+        if (entityIris.isEmpty()) {
+            return Map.of();
+        }
+        Query query = new Query(Criteria.where(EntityPostCoordinationSnapshot.WHOFIC_ENTITY_IRI).in(entityIris)
+                .and(EntityPostCoordinationSnapshot.PROJECT_ID).is(projectId.value()));
+        return mongoTemplate.find(query, EntityPostCoordinationSnapshot.class, POSTCOORDINATION_SNAPSHOT_COLLECTION)
+                .stream()
+                .collect(Collectors.toMap(EntityPostCoordinationSnapshot::getWhoficEntityIri, snapshot -> snapshot, (first, second) -> first));
+    }
 
+    public void saveCustomScalesSnapshot(EntityCustomScalesValuesSnapshot snapshot) {
+        Query query = snapshotNotNewerThan(snapshot.getWhoficEntityIri(), snapshot.getProjectId(), snapshot.getHistoryVersion());
+
+        readWriteLock.executeWriteLock(ProjectId.valueOf(snapshot.getProjectId()), snapshot.getWhoficEntityIri(), () -> {
+            try {
+                mongoTemplate.findAndReplace(query, snapshot, FindAndReplaceOptions.options().upsert(), CUSTOM_SCALES_SNAPSHOT_COLLECTION);
+            } catch (DuplicateKeyException e) {
+                LOGGER.debug("Custom scales snapshot for {} was already built from a newer history version than {}", snapshot.getWhoficEntityIri(), snapshot.getHistoryVersion());
+            }
+        });
+    }
+
+    /**
+     * Returns the custom scales snapshot only if it still matches its history, see {@link #findUpToDateSpecificationSnapshot}.
+     */
+    public Optional<EntityCustomScalesValuesSnapshot> findUpToDateCustomScalesSnapshot(String entityIri, ProjectId projectId) {
         Query query = new Query();
         query.addCriteria(
-                Criteria.where(WHOFIC_ENTITY_IRI).is(entityIri)
-                        .and(PROJECT_ID).is(projectId.value())
+                Criteria.where(EntityCustomScalesValuesSnapshot.WHOFIC_ENTITY_IRI).is(entityIri)
+                        .and(EntityCustomScalesValuesSnapshot.PROJECT_ID).is(projectId.value())
         );
-        Update update = new Update().pull("postCoordinationRevisions",
-                new Document("changeRequestId", changeRequestId.id()));
 
-        readWriteLock.executeWriteLock(() -> {
-                UpdateResult updateResult = mongoTemplate.updateFirst(query, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
-                LOGGER.info("Removed custom scales revision for " + entityIri + " with result : " + updateResult);
+        return readWriteLock.executeReadLock(projectId, entityIri, () -> {
+            EntityCustomScalesValuesSnapshot snapshot = mongoTemplate.findOne(query, EntityCustomScalesValuesSnapshot.class, CUSTOM_SCALES_SNAPSHOT_COLLECTION);
+            if (snapshot == null) {
+                return Optional.empty();
             }
-        );
+            Long historyVersion = revisionStore.findCustomScalesVersions(projectId.value(), List.of(entityIri)).get(entityIri);
+            boolean upToDate = historyVersion != null && historyVersion == snapshot.getHistoryVersion();
+            return upToDate ? Optional.of(snapshot) : Optional.<EntityCustomScalesValuesSnapshot>empty();
+        });
     }
 
-    public void commitPostCoordinationSpecificationRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
-        Query query = new Query(Criteria.where(WHOFIC_ENTITY_IRI)
-                .is(entityIri)
-                .and(PROJECT_ID).is(projectId.id())
-                .and("postCoordinationRevisions")
-                .elemMatch(
-                        Criteria.where("changeRequestId").is(changeRequestId.id())
-                                .and("commitStatus").is(CommitStatus.UNCOMMITTED.name())
-                )
+    /**
+     * Reads the custom scales snapshots of many entities with one query. Whether a snapshot still matches its
+     * history is left to the caller, see {@link EntityCustomScalesValuesSnapshot#isUpToDate}.
+     */
+    public Map<String, EntityCustomScalesValuesSnapshot> findCustomScalesSnapshots(ProjectId projectId, Collection<String> entityIris) {
+        if (entityIris.isEmpty()) {
+            return Map.of();
+        }
+        Query query = new Query(Criteria.where(EntityCustomScalesValuesSnapshot.WHOFIC_ENTITY_IRI).in(entityIris)
+                .and(EntityCustomScalesValuesSnapshot.PROJECT_ID).is(projectId.value()));
+        return mongoTemplate.find(query, EntityCustomScalesValuesSnapshot.class, CUSTOM_SCALES_SNAPSHOT_COLLECTION)
+                .stream()
+                .collect(Collectors.toMap(EntityCustomScalesValuesSnapshot::getWhoficEntityIri, snapshot -> snapshot, (first, second) -> first));
+    }
+
+    public void deleteHistoriesForEntityIris(ProjectId projectId, Collection<String> entityIris) {
+        if (entityIris == null || entityIris.isEmpty()) {
+            return;
+        }
+
+        Query query = new Query();
+        query.addCriteria(
+                Criteria.where(WHOFIC_ENTITY_IRI).in(entityIris)
+                        .and(PROJECT_ID).is(projectId.value())
         );
-        Update update = new Update().set("postCoordinationRevisions.$.commitStatus", CommitStatus.COMMITTED.name());
 
-        readWriteLock.executeReadLock(() ->
-                Optional.of(mongoTemplate.updateFirst(query, update, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION))
+        readWriteLock.executeWriteLock(() -> {
+            long specDeleted = revisionStore.deleteSpecificationHistories(projectId.value(), entityIris);
+            long customScalesDeleted = revisionStore.deleteCustomScalesHistories(projectId.value(), entityIris);
+            mongoTemplate.remove(query, EntityPostCoordinationSnapshot.class, POSTCOORDINATION_SNAPSHOT_COLLECTION);
+            mongoTemplate.remove(query, EntityCustomScalesValuesSnapshot.class, CUSTOM_SCALES_SNAPSHOT_COLLECTION);
+
+            LOGGER.info("Deleted histories for projectId {} and entity iris count {}. Spec deleted: {}, Custom scales deleted: {}",
+                    projectId.value(), entityIris.size(), specDeleted, customScalesDeleted);
+        });
+    }
+
+    public void deletePostCoordinationCustomScalesRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
+        readWriteLock.executeWriteLock(projectId, entityIri, () ->
+                revisionStore.deleteCustomScalesRevisions(entityIri, projectId.value(), changeRequestId.id())
         );
     }
 
-    public void commitPostCoordinationCustomScalesRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
-        Query query = new Query(Criteria.where(WHOFIC_ENTITY_IRI)
-                .is(entityIri)
-                .and(PROJECT_ID).is(projectId.id())
-                .and("postCoordinationCustomScalesRevisions")
-                .elemMatch(
-                        Criteria.where("changeRequestId").is(changeRequestId.id())
-                                .and("commitStatus").is(CommitStatus.UNCOMMITTED.name())
-                )
+    public void deletePostCoordinationSpecificationRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
+        readWriteLock.executeWriteLock(projectId, entityIri, () ->
+                revisionStore.deleteSpecificationRevisions(entityIri, projectId.value(), changeRequestId.id())
         );
+    }
 
-        Update update = new Update().set("postCoordinationCustomScalesRevisions.$.commitStatus", CommitStatus.COMMITTED.name());
+    public void commitPostCoordinationSpecificationRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
+        readWriteLock.executeReadLock(projectId, entityIri, () -> {
+            revisionStore.commitSpecificationRevisions(entityIri, projectId.id(), changeRequestId.id());
+            return null;
+        });
+    }
 
-        readWriteLock.executeReadLock(() ->
-                Optional.of(mongoTemplate.updateFirst(query, update, EntityCustomScalesValuesHistory.class, CUSTOM_SCALE_REVISIONS))
-        );
+    public void commitPostCoordinationCustomScalesRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
+        readWriteLock.executeReadLock(projectId, entityIri, () -> {
+            revisionStore.commitCustomScalesRevisions(entityIri, projectId.id(), changeRequestId.id());
+            return null;
+        });
     }
 }
@@ -3,7 +3,7 @@ package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.TableAxisLabel;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.TableConfiguration;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.*;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+import static edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig.*;
+
 
 @Repository
 public class PostCoordinationTableConfigRepository {
@@ -27,21 +29,29 @@ public class PostCoordinationTableConfigRepository {
     }
 
 
-    @Cacheable("postCoordTableConfigs")
+    @Cacheable(TABLE_CONFIGURATIONS)
     public List<TableConfiguration> getALlTableConfiguration(){
         return mongoTemplate.findAll(TableConfiguration.class);
     }
 
 
-    @Cacheable("postCoordConfigByEntity")
+    @Cacheable(TABLE_CONFIGURATIONS_BY_ENTITY_TYPE)
     public List<TableConfiguration> getTableConfigurationByEntityType(List<String> entityTypes) {
         Query query = Query.query(Criteria.where(ENTITY_TYPE_KEY).in(entityTypes));
 
         return mongoTemplate.find(query, TableConfiguration.class);
     }
 
+    @Cacheable(TABLE_AXIS_LABELS)
     public List<TableAxisLabel> getTableAxisLabels() {
         return mongoTemplate.findAll(TableAxisLabel.class);
     }
 
+    /**
+     * Drops the cached configuration after it was changed in the database.
+     */
+    @CacheEvict(cacheNames = {TABLE_CONFIGURATIONS, TABLE_CONFIGURATIONS_BY_ENTITY_TYPE, TABLE_AXIS_LABELS}, allEntries = true)
+    public void evictCachedConfiguration() {
+    }
+
 }
@@ -1,12 +1,14 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
 
 import edu.stanford.protege.webprotege.postcoordinationservice.model.PostcoordinationAxisToGenericScale;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.*;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+import static edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig.AXIS_TO_GENERIC_SCALE;
+
 
 @Repository
 public class PostcoordinationAxisToGenericScaleRepository {
@@ -19,9 +21,13 @@ public class PostcoordinationAxisToGenericScaleRepository {
         this.mongoTemplate = mongoTemplate;
     }
 
-    @Cacheable("postCoordAxisToGenericScale")
+    @Cacheable(AXIS_TO_GENERIC_SCALE)
     public List<PostcoordinationAxisToGenericScale> getPostCoordAxisToGenericScale() {
         return mongoTemplate.findAll(PostcoordinationAxisToGenericScale.class);
     }
 
+    @CacheEvict(cacheNames = AXIS_TO_GENERIC_SCALE, allEntries = true)
+    public void evictCachedConfiguration() {
+    }
+
 }
@@ -0,0 +1,719 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.mongodb.*;
+import com.mongodb.bulk.*;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.IriDictionaryService;
+import org.bson.*;
+import org.bson.codecs.*;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.*;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+
+/**
+ * Stores every revision as a document of its own, indexed by project, entity and timestamp and by change request.
+ * The history document keeps the version, which is still the token of the conditional writes, and the checkpoint.
+ * <p>
+ * Histories that were written with the embedded storage are read as they are: their embedded revisions are read
+ * together with the ones in the revisions collection, so the service can switch storage before the
+ * {@link #migrateSpecificationHistory migration} has moved them.
+ * <p>
+ * A new revision is inserted with the version it gives the history, which a unique index lets only one writer
+ * have, and then the version of the history is incremented. Readers ignore the revisions above the version of the
+ * history, so a revision is seen once its version is. A writer that finds the version it wants already taken
+ * increments the version for the writer that took it, which may have stopped between its two writes, and then
+ * reports a conflict. A rollback takes the next version with a marker, so no revision is added against the
+ * revisions it removes. The version of a marker is only incremented by its rollback, once the revisions are removed;
+ * the writers that find it report a conflict and retry until then. Only a marker older than
+ * {@link #ABANDONED_MARKER_MILLIS} is taken to be left by a rollback that stopped, and is incremented for it.
+ * <p>
+ * A new history is inserted after its revisions, which are inserted with the _id the history gets. Only the revisions
+ * with the _id of their history, or with none, are read with it, so the revisions of a history that another writer
+ * inserted first, or that was not inserted because its writer stopped, are never read.
+ */
+@Repository
+@ConditionalOnProperty(name = RevisionStore.STORAGE_PROPERTY, havingValue = "collection")
+public class RevisionCollectionStore implements RevisionStore {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RevisionCollectionStore.class);
+
+    public static final String SPECIFICATION_REVISIONS_COLLECTION = "EntityPostCoordinationRevisions";
+
+    public static final String CUSTOM_SCALES_REVISIONS_COLLECTION = "EntityPostCoordinationCustomScalesRevisions";
+
+    public static final String TIMESTAMP = "timestamp";
+
+    public static final String CHANGE_REQUEST_ID = "changeRequestId";
+
+    public static final String COMMIT_STATUS = "commitStatus";
+
+    public static final String HISTORY_VERSION = "historyVersion";
+
+    public static final String VERSION_MARKER = "versionMarker";
+
+    public static final String HISTORY_ID = "historyId";
+
+    private static final String ID = "_id";
+
+    static final long ABANDONED_MARKER_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private static final long MARKER_POLL_MILLIS = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final IriDictionaryService iriDictionaryService;
+
+    private final EmbeddedRevisionStore historyStore;
+
+    public RevisionCollectionStore(MongoTemplate mongoTemplate, IriDictionaryService iriDictionaryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.iriDictionaryService = iriDictionaryService;
+        this.historyStore = new EmbeddedRevisionStore(mongoTemplate, iriDictionaryService);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        for (String collectionName : List.of(SPECIFICATION_REVISIONS_COLLECTION, CUSTOM_SCALES_REVISIONS_COLLECTION)) {
+            var indexOperations = mongoTemplate.indexOps(collectionName);
+            indexOperations.ensureIndex(new Index()
+                    .on(EntityPostCoordinationHistory.PROJECT_ID, Sort.Direction.ASC)
+                    .on(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, Sort.Direction.ASC)
+                    .on(TIMESTAMP, Sort.Direction.ASC)
+                    .named("revisions_project_entity_timestamp_idx"));
+            indexOperations.ensureIndex(new Index()
+                    .on(CHANGE_REQUEST_ID, Sort.Direction.ASC)
+                    .sparse()
+                    .named("revisions_change_request_idx"));
+            // revisions inserted with a new history, imported or migrated don't take a version
+            indexOperations.ensureIndex(new Index()
+                    .on(EntityPostCoordinationHistory.PROJECT_ID, Sort.Direction.ASC)
+                    .on(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, Sort.Direction.ASC)
+                    .on(HISTORY_VERSION, Sort.Direction.ASC)
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where(HISTORY_VERSION).exists(true)))
+                    .named("revisions_project_entity_version_idx"));
+        }
+    }
+
+    @Override
+    public Optional<EntityPostCoordinationHistory> findSpecificationHistory(String entityIri, String projectId) {
+        return findHistories(POSTCOORDINATION_HISTORY_COLLECTION, EntityPostCoordinationHistory.class, projectId, EmbeddedRevisionStore.entityFilter(entityIri, projectId))
+                .stream()
+                .findFirst()
+                .map(stored -> withRevisions(stored.history(), findRevisions(SPECIFICATION_REVISIONS_COLLECTION, PostCoordinationSpecificationRevision.class, entityIri, projectId, stored)));
+    }
+
+    /*
+     * One query for the histories and one for the revisions of all the entities.
+     */
+    @Override
+    public List<EntityPostCoordinationHistory> findSpecificationHistories(String projectId, Collection<String> entityIris) {
+        List<StoredHistory<EntityPostCoordinationHistory>> histories = findHistories(POSTCOORDINATION_HISTORY_COLLECTION,
+                EntityPostCoordinationHistory.class, projectId, EmbeddedRevisionStore.entitiesQuery(projectId, entityIris).getQueryObject());
+        if (histories.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, List<PostCoordinationSpecificationRevision>> revisionsByEntity = findRevisionsByEntity(SPECIFICATION_REVISIONS_COLLECTION,
+                PostCoordinationSpecificationRevision.class, projectId, histories);
+        return histories.stream()
+                .map(stored -> withRevisions(stored.history(), revisionsByEntity.getOrDefault(stored.entityIri(), new ArrayList<>())))
+                .toList();
+    }
+
+    @Override
+    public boolean addSpecificationRevision(String entityIri, String projectId, PostCoordinationSpecificationRevision revision, long expectedVersion) {
+        iriDictionaryService.register(projectId, List.of(revision));
+        return addRevisions(SPECIFICATION_REVISIONS_COLLECTION, POSTCOORDINATION_HISTORY_COLLECTION, projectId,
+                List.of(claim(entityIri, expectedVersion, revisionDocument(entityIri, projectId, revision, PostCoordinationSpecificationRevision.class))), List.of())
+                .isEmpty();
+    }
+
+    @Override
+    public boolean insertSpecificationHistoryIfAbsent(EntityPostCoordinationHistory history) {
+        iriDictionaryService.register(history.getProjectId(), history.getPostCoordinationRevisions());
+        return addRevisions(SPECIFICATION_REVISIONS_COLLECTION, POSTCOORDINATION_HISTORY_COLLECTION, history.getProjectId(), List.of(), List.of(newHistory(history)))
+                .isEmpty();
+    }
+
+    @Override
+    public Map<String, Long> findSpecificationVersions(String projectId, Collection<String> entityIris) {
+        return historyStore.findSpecificationVersions(projectId, entityIris);
+    }
+
+    @Override
+    public Set<String> addSpecificationRevisions(String projectId,
+                                                 List<PendingRevision<PostCoordinationSpecificationRevision>> revisions,
+                                                 List<EntityPostCoordinationHistory> newHistories) {
+        List<PostCoordinationSpecificationRevision> written = new ArrayList<>();
+        revisions.forEach(pending -> written.add(pending.revision()));
+        newHistories.forEach(history -> written.addAll(history.getPostCoordinationRevisions()));
+        iriDictionaryService.register(projectId, written);
+        return addRevisions(SPECIFICATION_REVISIONS_COLLECTION, POSTCOORDINATION_HISTORY_COLLECTION, projectId, revisions.stream()
+                        .map(pending -> claim(pending.entityIri(), pending.expectedVersion(),
+                                revisionDocument(pending.entityIri(), projectId, pending.revision(), PostCoordinationSpecificationRevision.class)))
+                        .toList(),
+                newHistories.stream().map(this::newHistory).toList());
+    }
+
+    /*
+     * A batch that is written again on resume inserts the histories that are still missing, the revisions of the
+     * others are deleted again.
+     */
+    @Override
+    public Set<String> importSpecificationHistories(List<EntityPostCoordinationHistory> histories) {
+        if (histories.isEmpty()) {
+            return Set.of();
+        }
+        iriDictionaryService.register(histories.get(0).getProjectId(), histories.stream()
+                .flatMap(history -> history.getPostCoordinationRevisions().stream())
+                .toList());
+        return addRevisions(SPECIFICATION_REVISIONS_COLLECTION, POSTCOORDINATION_HISTORY_COLLECTION, histories.get(0).getProjectId(),
+                List.of(), histories.stream().map(this::newHistory).toList());
+    }
+
+    @Override
+    public void deleteSpecificationRevisions(String entityIri, String projectId, String changeRequestId) {
+        deleteRevisions(SPECIFICATION_REVISIONS_COLLECTION, POSTCOORDINATION_HISTORY_COLLECTION, SPEC_REVISIONS, entityIri, projectId, changeRequestId);
+    }
+
+    @Override
+    public void commitSpecificationRevisions(String entityIri, String projectId, String changeRequestId) {
+        historyStore.commitSpecificationRevisions(entityIri, projectId, changeRequestId);
+        commitRevisions(SPECIFICATION_REVISIONS_COLLECTION, entityIri, projectId, changeRequestId);
+    }
+
+    @Override
+    public long deleteSpecificationHistories(String projectId, Collection<String> entityIris) {
+        revisions(SPECIFICATION_REVISIONS_COLLECTION).deleteMany(revisionsFilter(projectId, entityIris));
+        return historyStore.deleteSpecificationHistories(projectId, entityIris);
+    }
+
+    /*
+     * The embedded revisions come first, they are re-encoded where they are.
+     */
+    @Override
+    public List<HistoryKey> findVerboseSpecificationHistories(int limit) {
+        List<HistoryKey> keys = historyStore.findVerboseSpecificationHistories(limit);
+        if (keys.size() >= limit) {
+            return keys;
+        }
+        Set<HistoryKey> distinctKeys = new LinkedHashSet<>(keys);
+        revisions(SPECIFICATION_REVISIONS_COLLECTION)
+                .find(Filters.exists("postCoordinationEvents.linearizationView"))
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, EntityPostCoordinationHistory.PROJECT_ID))
+                .limit(limit - keys.size())
+                .forEach(document -> distinctKeys.add(new HistoryKey(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).getValue(),
+                        document.getString(EntityPostCoordinationHistory.PROJECT_ID).getValue())));
+        return new ArrayList<>(distinctKeys);
+    }
+
+    /*
+     * Every stored revision is replaced by its re-encoded copy, under the write lock of the entity nothing else
+     * changes them meanwhile.
+     */
+    @Override
+    public boolean compactSpecificationHistory(String entityIri, String projectId) {
+        if (!historyStore.compactSpecificationHistory(entityIri, projectId)) {
+            return false;
+        }
+        var codec = iriDictionaryService.codecRegistry(projectId).get(PostCoordinationSpecificationRevision.class);
+        List<BsonDocument> documents = revisions(SPECIFICATION_REVISIONS_COLLECTION)
+                .find(Filters.and(revisionsFilter(entityIri, projectId), Filters.exists("postCoordinationEvents.linearizationView")))
+                .into(new ArrayList<>());
+        List<PostCoordinationSpecificationRevision> revisions = documents.stream()
+                .map(document -> codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build()))
+                .toList();
+        iriDictionaryService.register(projectId, revisions);
+        for (int i = 0; i < documents.size(); i++) {
+            BsonDocument compacted = revisionDocument(entityIri, projectId, revisions.get(i), PostCoordinationSpecificationRevision.class);
+            for (String field : List.of(HISTORY_VERSION, HISTORY_ID)) {
+                if (documents.get(i).containsKey(field)) {
+                    compacted.put(field, documents.get(i).get(field));
+                }
+            }
+            revisions(SPECIFICATION_REVISIONS_COLLECTION).replaceOne(Filters.eq(ID, documents.get(i).get(ID)), compacted);
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<EntityCustomScalesValuesHistory> findCustomScalesHistory(String entityIri, String projectId) {
+        return findHistories(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, EntityCustomScalesValuesHistory.class, projectId, EmbeddedRevisionStore.entityFilter(entityIri, projectId))
+                .stream()
+                .findFirst()
+                .map(stored -> withRevisions(stored.history(), findRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, PostCoordinationCustomScalesRevision.class, entityIri, projectId, stored)));
+    }
+
+    @Override
+    public List<EntityCustomScalesValuesHistory> findCustomScalesHistories(String projectId, Collection<String> entityIris) {
+        List<StoredHistory<EntityCustomScalesValuesHistory>> histories = findHistories(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION,
+                EntityCustomScalesValuesHistory.class, projectId, EmbeddedRevisionStore.entitiesQuery(projectId, entityIris).getQueryObject());
+        if (histories.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, List<PostCoordinationCustomScalesRevision>> revisionsByEntity = findRevisionsByEntity(CUSTOM_SCALES_REVISIONS_COLLECTION,
+                PostCoordinationCustomScalesRevision.class, projectId, histories);
+        return histories.stream()
+                .map(stored -> withRevisions(stored.history(), revisionsByEntity.getOrDefault(stored.entityIri(), new ArrayList<>())))
+                .toList();
+    }
+
+    @Override
+    public boolean addCustomScalesRevision(String entityIri, String projectId, PostCoordinationCustomScalesRevision revision, long expectedVersion) {
+        return addRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, projectId,
+                List.of(claim(entityIri, expectedVersion, revisionDocument(entityIri, projectId, revision, PostCoordinationCustomScalesRevision.class))), List.of())
+                .isEmpty();
+    }
+
+    @Override
+    public boolean insertCustomScalesHistoryIfAbsent(EntityCustomScalesValuesHistory history) {
+        return addRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, history.getProjectId(), List.of(), List.of(newHistory(history)))
+                .isEmpty();
+    }
+
+    @Override
+    public Map<String, Long> findCustomScalesVersions(String projectId, Collection<String> entityIris) {
+        return historyStore.findCustomScalesVersions(projectId, entityIris);
+    }
+
+    @Override
+    public Set<String> addCustomScalesRevisions(String projectId,
+                                                List<PendingRevision<PostCoordinationCustomScalesRevision>> revisions,
+                                                List<EntityCustomScalesValuesHistory> newHistories) {
+        return addRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, projectId, revisions.stream()
+                        .map(pending -> claim(pending.entityIri(), pending.expectedVersion(),
+                                revisionDocument(pending.entityIri(), projectId, pending.revision(), PostCoordinationCustomScalesRevision.class)))
+                        .toList(),
+                newHistories.stream().map(this::newHistory).toList());
+    }
+
+    /*
+     * The revisions of the entities are replaced together with their histories, as with the embedded storage.
+     */
+    @Override
+    public void importCustomScalesHistories(List<EntityCustomScalesValuesHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        historyStore.importCustomScalesHistories(histories.stream().map(RevisionCollectionStore::withoutRevisions).toList());
+        Map<String, List<EntityCustomScalesValuesHistory>> historiesByProject = histories.stream()
+                .collect(Collectors.groupingBy(EntityCustomScalesValuesHistory::getProjectId));
+        historiesByProject.forEach((projectId, projectHistories) -> revisions(CUSTOM_SCALES_REVISIONS_COLLECTION)
+                .deleteMany(revisionsFilter(projectId, projectHistories.stream().map(EntityCustomScalesValuesHistory::getWhoficEntityIri).toList())));
+        List<BsonDocument> documents = new ArrayList<>();
+        for (EntityCustomScalesValuesHistory history : histories) {
+            history.getPostCoordinationCustomScalesRevisions().forEach(revision ->
+                    documents.add(revisionDocument(history.getWhoficEntityIri(), history.getProjectId(), revision, PostCoordinationCustomScalesRevision.class)));
+        }
+        insertUnordered(CUSTOM_SCALES_REVISIONS_COLLECTION, documents);
+    }
+
+    @Override
+    public void deleteCustomScalesRevisions(String entityIri, String projectId, String changeRequestId) {
+        deleteRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, CUSTOM_SCALE_REVISIONS, entityIri, projectId, changeRequestId);
+    }
+
+    @Override
+    public void commitCustomScalesRevisions(String entityIri, String projectId, String changeRequestId) {
+        historyStore.commitCustomScalesRevisions(entityIri, projectId, changeRequestId);
+        commitRevisions(CUSTOM_SCALES_REVISIONS_COLLECTION, entityIri, projectId, changeRequestId);
+    }
+
+    @Override
+    public long deleteCustomScalesHistories(String projectId, Collection<String> entityIris) {
+        revisions(CUSTOM_SCALES_REVISIONS_COLLECTION).deleteMany(revisionsFilter(projectId, entityIris));
+        return historyStore.deleteCustomScalesHistories(projectId, entityIris);
+    }
+
+    /**
+     * Histories that still have embedded specification revisions.
+     */
+    public List<HistoryKey> findEmbeddedSpecificationHistories(int limit) {
+        return findEmbeddedHistories(POSTCOORDINATION_HISTORY_COLLECTION, SPEC_REVISIONS, limit);
+    }
+
+    public List<HistoryKey> findEmbeddedCustomScalesHistories(int limit) {
+        return findEmbeddedHistories(POSTCOORDINATION_CUSTOM_SCALES_COLLECTION, CUSTOM_SCALE_REVISIONS, limit);
+    }
+
+    /**
+     * Moves the embedded revisions of the history to the revisions collection. The caller holds the write lock of the
+     * entity. The embedded revisions are only removed if the version did not change meanwhile, otherwise the copies
+     * are deleted again and the history is left as it was.
+     *
+     * @return false when the history was changed while its revisions were moved.
+     */
+    public boolean migrateSpecificationHistory(String entityIri, String projectId) {
+        return historyStore.findSpecificationHistory(entityIri, projectId)
+                .map(history -> {
+                    iriDictionaryService.register(projectId, history.getPostCoordinationRevisions());
+                    return migrate(entityIri, projectId, history.getVersion(),
+                            history.getPostCoordinationRevisions().stream()
+                                    .map(revision -> revisionDocument(entityIri, projectId, revision, PostCoordinationSpecificationRevision.class))
+                                    .toList(),
+                            SPECIFICATION_REVISIONS_COLLECTION, SPEC_REVISIONS, EntityPostCoordinationHistory.class, POSTCOORDINATION_HISTORY_COLLECTION);
+                })
+                .orElse(true);
+    }
+
+    public boolean migrateCustomScalesHistory(String entityIri, String projectId) {
+        return historyStore.findCustomScalesHistory(entityIri, projectId)
+                .map(history -> migrate(entityIri, projectId, history.getVersion(),
+                        history.getPostCoordinationCustomScalesRevisions().stream()
+                                .map(revision -> revisionDocument(entityIri, projectId, revision, PostCoordinationCustomScalesRevision.class))
+                                .toList(),
+                        CUSTOM_SCALES_REVISIONS_COLLECTION, CUSTOM_SCALE_REVISIONS, EntityCustomScalesValuesHistory.class, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION))
+                .orElse(true);
+    }
+
+    private boolean migrate(String entityIri, String projectId, long version, List<BsonDocument> documents,
+                            String revisionsCollection, String revisionsField, Class<?> historyClass, String historyCollection) {
+        if (documents.isEmpty()) {
+            return true;
+        }
+        documents.forEach(document -> document.put(ID, new BsonObjectId()));
+        revisions(revisionsCollection).insertMany(documents);
+        if (historyStore.updateIfVersion(entityIri, projectId, version, new Update().unset(revisionsField), historyClass, historyCollection)) {
+            return true;
+        }
+        LOGGER.info("The history of {} changed while its revisions were moved to {}, it is left embedded", entityIri, revisionsCollection);
+        revisions(revisionsCollection).deleteMany(Filters.in(ID, documents.stream().map(document -> document.get(ID)).toList()));
+        return false;
+    }
+
+    /*
+     * The revisions, those of the new histories included, are inserted with one bulk write, and the versions are
+     * incremented and the new histories upserted with a second one. The upserts never match, see NewHistory, so the
+     * matched count is the one of the increments. The versions that did not match are read again: a history at a
+     * higher version was incremented by a writer that found the revision, the revisions of the others are deleted and
+     * their entities returned, with the entities whose history was not inserted.
+     */
+    private Set<String> addRevisions(String revisionsCollection, String historyCollection, String projectId, List<Claim> claims, List<NewHistory> newHistories) {
+        List<BsonDocument> documents = new ArrayList<>();
+        claims.forEach(claim -> documents.add(claim.document()));
+        newHistories.forEach(history -> documents.addAll(history.revisions()));
+        Set<Integer> taken = new HashSet<>();
+        try {
+            if (!documents.isEmpty()) {
+                revisions(revisionsCollection).insertMany(documents, new InsertManyOptions().ordered(false));
+            }
+        } catch (MongoBulkWriteException e) {
+            if (!EmbeddedRevisionStore.onlyDuplicateKeys(e)) {
+                throw e;
+            }
+            e.getWriteErrors().forEach(error -> taken.add(error.getIndex()));
+        }
+        Set<String> conflicts = new HashSet<>();
+        List<Claim> claimed = new ArrayList<>();
+        List<Claim> takenClaims = new ArrayList<>();
+        for (int i = 0; i < claims.size(); i++) {
+            (taken.contains(i) ? takenClaims : claimed).add(claims.get(i));
+        }
+        if (!takenClaims.isEmpty()) {
+            LOGGER.info("{} of {} revisions of {} found their version taken", takenClaims.size(), claims.size(), revisionsCollection);
+            Set<String> rolledBack = heldByRollback(revisionsCollection, projectId, takenClaims);
+            List<Claim> stranded = takenClaims.stream()
+                    .filter(claim -> !rolledBack.contains(claim.entityIri()))
+                    .toList();
+            if (!stranded.isEmpty()) {
+                incrementVersions(historyCollection, projectId, stranded);
+            }
+            takenClaims.forEach(claim -> conflicts.add(claim.entityIri()));
+        }
+        List<WriteModel<BsonDocument>> writes = new ArrayList<>(claimed.size() + newHistories.size());
+        claimed.forEach(claim -> writes.add(increment(projectId, claim)));
+        newHistories.forEach(history -> writes.add(history.upsert()));
+        if (writes.isEmpty()) {
+            return conflicts;
+        }
+        var result = EmbeddedRevisionStore.bulkUpsert(historyStore.collection(historyCollection, BsonDocument.class), writes);
+        Set<String> existing = EmbeddedRevisionStore.notUpserted(newHistories, claimed.size(), result, NewHistory::entityIri);
+        if (!existing.isEmpty()) {
+            revisions(revisionsCollection).deleteMany(Filters.in(HISTORY_ID, newHistories.stream()
+                    .filter(history -> existing.contains(history.entityIri()))
+                    .map(history -> history.document().get(ID))
+                    .toList()));
+            conflicts.addAll(existing);
+        }
+        if (result.getMatchedCount() < claimed.size()) {
+            Map<String, Long> versions = historyStore.findVersions(historyCollection, projectId, claimed.stream().map(Claim::entityIri).toList());
+            List<Claim> unapplied = claimed.stream()
+                    .filter(claim -> versions.getOrDefault(claim.entityIri(), -1L) <= claim.expectedVersion())
+                    .toList();
+            if (!unapplied.isEmpty()) {
+                revisions(revisionsCollection).deleteMany(Filters.in(ID, unapplied.stream().map(claim -> claim.document().get(ID)).toList()));
+                unapplied.forEach(claim -> conflicts.add(claim.entityIri()));
+            }
+        }
+        return conflicts;
+    }
+
+    private BulkWriteResult incrementVersions(String historyCollection, String projectId, List<Claim> claims) {
+        return historyStore.collection(historyCollection, BsonDocument.class).bulkWrite(claims.stream()
+                        .map(claim -> increment(projectId, claim))
+                        .toList(),
+                new BulkWriteOptions().ordered(false));
+    }
+
+    private static UpdateOneModel<BsonDocument> increment(String projectId, Claim claim) {
+        return new UpdateOneModel<>(EmbeddedRevisionStore.versionQuery(claim.entityIri(), projectId, claim.expectedVersion()).getQueryObject(),
+                Updates.inc(EntityPostCoordinationHistory.VERSION, 1));
+    }
+
+    /*
+     * The marker takes the next version before anything is removed and the version is incremented once the revisions
+     * are gone, a writer that read the history before or during the rollback then fails on that version.
+     */
+    private void deleteRevisions(String revisionsCollection, String historyCollection, String revisionsField,
+                                 String entityIri, String projectId, String changeRequestId) {
+        Claim marker = null;
+        while (marker == null) {
+            Long version = historyStore.findVersions(historyCollection, projectId, List.of(entityIri)).get(entityIri);
+            if (version == null) {
+                break;
+            }
+            Claim candidate = claim(entityIri, version, new BsonDocument(EntityPostCoordinationHistory.PROJECT_ID, new BsonString(projectId))
+                    .append(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, new BsonString(entityIri))
+                    .append(VERSION_MARKER, BsonBoolean.TRUE)
+                    .append(TIMESTAMP, new BsonInt64(System.currentTimeMillis())));
+            try {
+                revisions(revisionsCollection).insertOne(candidate.document());
+                marker = candidate;
+            } catch (MongoWriteException e) {
+                if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                if (heldByRollback(revisionsCollection, projectId, List.of(candidate)).isEmpty()) {
+                    incrementVersions(historyCollection, projectId, List.of(candidate));
+                } else {
+                    waitForRollback(entityIri);
+                }
+            }
+        }
+        var updateResult = mongoTemplate.getCollection(historyCollection).updateOne(EmbeddedRevisionStore.entityFilter(entityIri, projectId),
+                Updates.pull(revisionsField, new Document(CHANGE_REQUEST_ID, changeRequestId)));
+        revisions(revisionsCollection).deleteMany(Filters.and(revisionsFilter(entityIri, projectId), Filters.eq(CHANGE_REQUEST_ID, changeRequestId)));
+        if (marker != null) {
+            incrementVersions(historyCollection, projectId, List.of(marker));
+        }
+        LOGGER.info("Removed the revisions of {} for {} with result : {}", changeRequestId, entityIri, updateResult);
+    }
+
+    /*
+     * The entities of the claims whose version is taken by the marker of a running rollback. The claims of one batch
+     * are for distinct entities.
+     */
+    private Set<String> heldByRollback(String revisionsCollection, String projectId, List<Claim> claims) {
+        Set<String> entityIris = new HashSet<>();
+        revisions(revisionsCollection)
+                .find(Filters.and(Filters.eq(EntityPostCoordinationHistory.PROJECT_ID, projectId),
+                        Filters.or(claims.stream()
+                                .map(claim -> Filters.and(Filters.eq(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, claim.entityIri()),
+                                        Filters.eq(HISTORY_VERSION, claim.expectedVersion() + 1)))
+                                .toList()),
+                        Filters.eq(VERSION_MARKER, true),
+                        Filters.gt(TIMESTAMP, System.currentTimeMillis() - ABANDONED_MARKER_MILLIS)))
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI))
+                .forEach(document -> entityIris.add(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).getValue()));
+        return entityIris;
+    }
+
+    private static void waitForRollback(String entityIri) {
+        try {
+            Thread.sleep(MARKER_POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rollback of " + entityIri, e);
+        }
+    }
+
+    private List<HistoryKey> findEmbeddedHistories(String historyCollection, String revisionsField, int limit) {
+        List<HistoryKey> keys = new ArrayList<>();
+        mongoTemplate.getCollection(historyCollection)
+                .find(Filters.exists(revisionsField + ".0"))
+                .projection(Projections.include(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, EntityPostCoordinationHistory.PROJECT_ID))
+                .limit(limit)
+                .forEach(document -> keys.add(new HistoryKey(document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI), document.getString(EntityPostCoordinationHistory.PROJECT_ID))));
+        return keys;
+    }
+
+    /*
+     * The histories are read as documents for their _id, which the revisions inserted with them carry.
+     */
+    private <H> List<StoredHistory<H>> findHistories(String historyCollection, Class<H> historyClass, String projectId, Bson filter) {
+        Codec<H> codec = iriDictionaryService.codecRegistry(projectId).get(historyClass);
+        List<StoredHistory<H>> histories = new ArrayList<>();
+        historyStore.collection(historyCollection, BsonDocument.class).find(filter).forEach(document -> histories.add(new StoredHistory<>(
+                codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build()),
+                document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).getValue(),
+                document.get(ID),
+                document.containsKey(EntityPostCoordinationHistory.VERSION) ? document.getNumber(EntityPostCoordinationHistory.VERSION).longValue() : 0L)));
+        return histories;
+    }
+
+    private <T> List<T> findRevisions(String collectionName, Class<T> revisionClass, String entityIri, String projectId, StoredHistory<?> history) {
+        return historyStore.collection(collectionName, revisionClass, projectId)
+                .find(Filters.and(revisionsFilter(entityIri, projectId), visibleAt(history.version()),
+                        Filters.or(Filters.exists(HISTORY_ID, false), Filters.eq(HISTORY_ID, history.id()))))
+                .sort(Sorts.ascending(TIMESTAMP))
+                .into(new ArrayList<>());
+    }
+
+    /*
+     * Sorted like the revisions index, so the server does not have to sort them. The versions and _ids of the
+     * histories differ, the revisions that are not theirs are left out here.
+     */
+    private <T> Map<String, List<T>> findRevisionsByEntity(String collectionName, Class<T> revisionClass, String projectId, List<? extends StoredHistory<?>> histories) {
+        Map<String, StoredHistory<?>> historiesByEntity = histories.stream()
+                .collect(Collectors.toMap(StoredHistory::entityIri, history -> history));
+        Codec<T> codec = iriDictionaryService.codecRegistry(projectId).get(revisionClass);
+        Map<String, List<T>> revisionsByEntity = new HashMap<>();
+        revisions(collectionName)
+                .find(Filters.and(revisionsFilter(projectId, historiesByEntity.keySet()), Filters.exists(VERSION_MARKER, false)))
+                .sort(Sorts.ascending(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, TIMESTAMP))
+                .forEach(document -> {
+                    String entityIri = document.getString(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI).getValue();
+                    StoredHistory<?> history = historiesByEntity.get(entityIri);
+                    if (document.containsKey(HISTORY_VERSION) && document.getNumber(HISTORY_VERSION).longValue() > history.version()) {
+                        return;
+                    }
+                    if (document.containsKey(HISTORY_ID) && !document.get(HISTORY_ID).equals(history.id())) {
+                        return;
+                    }
+                    revisionsByEntity.computeIfAbsent(entityIri, key -> new ArrayList<>())
+                            .add(codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build()));
+                });
+        return revisionsByEntity;
+    }
+
+    private NewHistory newHistory(EntityPostCoordinationHistory history) {
+        return newHistory(history.getWhoficEntityIri(), history.getProjectId(), withoutRevisions(history), EntityPostCoordinationHistory.class,
+                history.getPostCoordinationRevisions(), PostCoordinationSpecificationRevision.class);
+    }
+
+    private NewHistory newHistory(EntityCustomScalesValuesHistory history) {
+        return newHistory(history.getWhoficEntityIri(), history.getProjectId(), withoutRevisions(history), EntityCustomScalesValuesHistory.class,
+                history.getPostCoordinationCustomScalesRevisions(), PostCoordinationCustomScalesRevision.class);
+    }
+
+    private <H, T> NewHistory newHistory(String entityIri, String projectId, H history, Class<H> historyClass, List<T> revisions, Class<T> revisionClass) {
+        BsonObjectId historyId = new BsonObjectId();
+        BsonDocument document = new BsonDocument(ID, historyId);
+        document.putAll(BsonDocumentWrapper.asBsonDocument(history, iriDictionaryService.codecRegistry(projectId)));
+        return new NewHistory(entityIri, projectId, document, revisions.stream()
+                .map(revision -> revisionDocument(entityIri, projectId, revision, revisionClass).append(HISTORY_ID, historyId))
+                .toList());
+    }
+
+    private void insertUnordered(String collectionName, List<BsonDocument> documents) {
+        if (!documents.isEmpty()) {
+            revisions(collectionName).insertMany(documents, new InsertManyOptions().ordered(false));
+        }
+    }
+
+    private void commitRevisions(String collectionName, String entityIri, String projectId, String changeRequestId) {
+        revisions(collectionName).updateMany(
+                Filters.and(revisionsFilter(entityIri, projectId),
+                        Filters.eq(CHANGE_REQUEST_ID, changeRequestId),
+                        Filters.eq(COMMIT_STATUS, CommitStatus.UNCOMMITTED.name())),
+                Updates.set(COMMIT_STATUS, CommitStatus.COMMITTED.name()));
+    }
+
+    private MongoCollection<BsonDocument> revisions(String collectionName) {
+        return historyStore.collection(collectionName, BsonDocument.class);
+    }
+
+    private <T> BsonDocument revisionDocument(String entityIri, String projectId, T revision, Class<T> revisionClass) {
+        BsonDocument document = new BsonDocument(EntityPostCoordinationHistory.PROJECT_ID, new BsonString(projectId))
+                .append(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, new BsonString(entityIri));
+        document.putAll(BsonDocumentWrapper.asBsonDocument(revision, iriDictionaryService.codecRegistry(projectId)));
+        return document;
+    }
+
+    /*
+     * A revision above the version of the history is still being added, or was left by a writer that stopped before
+     * it incremented the version.
+     */
+    private static Bson visibleAt(long version) {
+        return Filters.and(Filters.exists(VERSION_MARKER, false),
+                Filters.or(Filters.exists(HISTORY_VERSION, false), Filters.lte(HISTORY_VERSION, version)));
+    }
+
+    /*
+     * The document takes the version the history gets with it.
+     */
+    private static Claim claim(String entityIri, long expectedVersion, BsonDocument document) {
+        document.put(ID, new BsonObjectId());
+        document.put(HISTORY_VERSION, new BsonInt64(expectedVersion + 1));
+        return new Claim(entityIri, expectedVersion, document);
+    }
+
+    private static Bson revisionsFilter(String entityIri, String projectId) {
+        return Filters.and(Filters.eq(EntityPostCoordinationHistory.PROJECT_ID, projectId), Filters.eq(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, entityIri));
+    }
+
+    private static Bson revisionsFilter(String projectId, Collection<String> entityIris) {
+        return Filters.and(Filters.eq(EntityPostCoordinationHistory.PROJECT_ID, projectId), Filters.in(EntityPostCoordinationHistory.WHOFIC_ENTITY_IRI, entityIris));
+    }
+
+    private static <T> List<T> concat(List<T> embedded, List<T> stored) {
+        if (embedded == null || embedded.isEmpty()) {
+            return stored;
+        }
+        return Stream.concat(embedded.stream(), stored.stream()).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static EntityPostCoordinationHistory withRevisions(EntityPostCoordinationHistory history, List<PostCoordinationSpecificationRevision> stored) {
+        return new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(),
+                concat(history.getPostCoordinationRevisions(), stored), history.getSpecificationCheckpoint(), history.getVersion());
+    }
+
+    private static EntityCustomScalesValuesHistory withRevisions(EntityCustomScalesValuesHistory history, List<PostCoordinationCustomScalesRevision> stored) {
+        return new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(),
+                concat(history.getPostCoordinationCustomScalesRevisions(), stored), history.getCustomScalesCheckpoint(), history.getVersion());
+    }
+
+    private static EntityPostCoordinationHistory withoutRevisions(EntityPostCoordinationHistory history) {
+        return new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), List.of(), history.getSpecificationCheckpoint(), history.getVersion());
+    }
+
+    private static EntityCustomScalesValuesHistory withoutRevisions(EntityCustomScalesValuesHistory history) {
+        return new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), List.of(), history.getCustomScalesCheckpoint(), history.getVersion());
+    }
+
+    private record Claim(String entityIri, long expectedVersion, BsonDocument document) {
+    }
+
+    private record StoredHistory<H>(H history, String entityIri, BsonValue id, long version) {
+    }
+
+    /**
+     * A history to insert, with its _id, and its revisions. The upsert filters on the _id as well, so it never matches:
+     * it inserts the history, or is failed by the unique index of {@link HistoryIndexCreator} when the entity has one.
+     */
+    private record NewHistory(String entityIri, String projectId, BsonDocument document, List<BsonDocument> revisions) {
+
+        UpdateOneModel<BsonDocument> upsert() {
+            return new UpdateOneModel<>(EmbeddedRevisionStore.entityFilter(entityIri, projectId).append(ID, document.get(ID)),
+                    new BsonDocument("$setOnInsert", document), new UpdateOptions().upsert(true));
+        }
+    }
+}
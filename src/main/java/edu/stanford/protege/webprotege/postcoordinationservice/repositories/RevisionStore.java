@@ -0,0 +1,116 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+
+import java.util.*;
+
+/**
+ * Where the revisions of the specification and custom scales histories are stored. With the embedded storage the
+ * revisions are an array of the history document, with the collection storage every revision is a document of its
+ * own and the history document only keeps the version and the checkpoint.
+ * <p>
+ * Implementations only run the database operations. The revision writes are guarded by their version conditions and
+ * the unique index on the entity, not by locks.
+ */
+public interface RevisionStore {
+
+    String STORAGE_PROPERTY = "webprotege.history.revisionStorage";
+
+    record HistoryKey(String entityIri, String projectId) {
+    }
+
+    /**
+     * A revision to append to the history of an entity that was read at {@code expectedVersion}.
+     */
+    record PendingRevision<T>(String entityIri, T revision, long expectedVersion) {
+    }
+
+    Optional<EntityPostCoordinationHistory> findSpecificationHistory(String entityIri, String projectId);
+
+    /**
+     * Reads the histories of many entities of the project at once. Entities without a history are left out.
+     */
+    List<EntityPostCoordinationHistory> findSpecificationHistories(String projectId, Collection<String> entityIris);
+
+    /**
+     * @return false when the history was changed since it was read, or no longer exists.
+     */
+    boolean addSpecificationRevision(String entityIri, String projectId, PostCoordinationSpecificationRevision revision, long expectedVersion);
+
+    /**
+     * @return false when another writer created the history first.
+     */
+    boolean insertSpecificationHistoryIfAbsent(EntityPostCoordinationHistory history);
+
+    /**
+     * The versions of the specification histories of the entities, for the entities that have one.
+     */
+    Map<String, Long> findSpecificationVersions(String projectId, Collection<String> entityIris);
+
+    /**
+     * Appends the revisions and inserts the new histories of distinct entities with as few writes as the storage
+     * allows. Like {@link #addSpecificationRevision} a revision is only appended if its history is still at the
+     * expected version, and like {@link #insertSpecificationHistoryIfAbsent} a new history is only inserted if the
+     * entity has none yet.
+     *
+     * @return the entities whose revision was not appended or whose history was not inserted. Their histories may
+     * have been changed or created since they were read, they have to be read and written again.
+     */
+    Set<String> addSpecificationRevisions(String projectId,
+                                          List<PendingRevision<PostCoordinationSpecificationRevision>> revisions,
+                                          List<EntityPostCoordinationHistory> newHistories);
+
+    /**
+     * Inserts the histories of the entities that don't have one yet, see the first specification import.
+     *
+     * @return the entities that already had a history, it was left as it was.
+     */
+    Set<String> importSpecificationHistories(List<EntityPostCoordinationHistory> histories);
+
+    void deleteSpecificationRevisions(String entityIri, String projectId, String changeRequestId);
+
+    void commitSpecificationRevisions(String entityIri, String projectId, String changeRequestId);
+
+    long deleteSpecificationHistories(String projectId, Collection<String> entityIris);
+
+    /**
+     * Histories with specification revisions that are not in the compact encoding yet.
+     */
+    List<HistoryKey> findVerboseSpecificationHistories(int limit);
+
+    /**
+     * Writes the specification revisions of the history again in the encoding of the project. The caller holds the
+     * write lock of the entity.
+     *
+     * @return false when the history was changed while it was re-encoded.
+     */
+    boolean compactSpecificationHistory(String entityIri, String projectId);
+
+    Optional<EntityCustomScalesValuesHistory> findCustomScalesHistory(String entityIri, String projectId);
+
+    List<EntityCustomScalesValuesHistory> findCustomScalesHistories(String projectId, Collection<String> entityIris);
+
+    boolean addCustomScalesRevision(String entityIri, String projectId, PostCoordinationCustomScalesRevision revision, long expectedVersion);
+
+    boolean insertCustomScalesHistoryIfAbsent(EntityCustomScalesValuesHistory history);
+
+    Map<String, Long> findCustomScalesVersions(String projectId, Collection<String> entityIris);
+
+    /**
+     * The custom scales variant of {@link #addSpecificationRevisions}.
+     */
+    Set<String> addCustomScalesRevisions(String projectId,
+                                  List<PendingRevision<PostCoordinationCustomScalesRevision>> revisions,
+                                  List<EntityCustomScalesValuesHistory> newHistories);
+
+    /**
+     * Replaces the histories of the entities, see the first custom scales import.
+     */
+    void importCustomScalesHistories(List<EntityCustomScalesValuesHistory> histories);
+
+    void deleteCustomScalesRevisions(String entityIri, String projectId, String changeRequestId);
+
+    void commitCustomScalesRevisions(String entityIri, String projectId, String changeRequestId);
+
+    long deleteCustomScalesHistories(String projectId, Collection<String> entityIris);
+}
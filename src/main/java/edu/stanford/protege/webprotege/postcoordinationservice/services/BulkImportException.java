@@ -0,0 +1,15 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+/**
+ * Thrown when a stage of a bulk import failed. The batches that were already written stay in the database.
+ */
+public class BulkImportException extends RuntimeException {
+
+    public BulkImportException(String message) {
+        super(message);
+    }
+
+    public BulkImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,109 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ImportPipelineConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.Stream;
+
+/**
+ * Runs a bulk import in three stages. The calling thread reads the source and cuts it into batches, a pool of
+ * workers maps every batch to what has to be written, and a smaller pool of writers keeps a bounded number of
+ * writes in flight. At most {@link ImportPipelineConfig#getMaxPendingBatches()} batches are read but not yet
+ * written, so the reader waits when the database is the bottleneck instead of buffering the whole document.
+ * <p>
+ * The first failure stops the reader, the batches already submitted are allowed to finish, and the failure is
+ * rethrown as a {@link BulkImportException}.
+ */
+@Service
+public class BulkImportPipeline {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BulkImportPipeline.class);
+
+    private final ImportPipelineConfig config;
+
+    public BulkImportPipeline(ImportPipelineConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Called once a batch was written. Batches are numbered from 0 in the order they were read, but concurrent
+     * writers can report them out of order.
+     */
+    @FunctionalInterface
+    public interface BatchListener {
+        void batchWritten(long batchIndex, int batchSize);
+    }
+
+    /**
+     * @return the number of source elements that were imported.
+     */
+    public <T, R> long run(String importName, Stream<T> source, Function<List<T>, R> mapper, Consumer<R> writer) {
+        return run(importName, source, mapper, writer, (batchIndex, batchSize) -> {
+        });
+    }
+
+    public <T, R> long run(String importName, Stream<T> source, Function<List<T>, R> mapper, Consumer<R> writer, BatchListener listener) {
+        int maxPendingBatches = config.getMaxPendingBatches();
+        Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong imported = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(config.getParallelism(), threadFactory(importName + "-worker"));
+        ExecutorService writers = Executors.newFixedThreadPool(config.getMaxInFlightWrites(), threadFactory(importName + "-writer"));
+        long start = System.currentTimeMillis();
+        long batches = 0;
+        try (source) {
+            Iterator<T> iterator = source.iterator();
+            while (iterator.hasNext() && failure.get() == null) {
+                List<T> batch = new ArrayList<>(config.getBatchSize());
+                while (iterator.hasNext() && batch.size() < config.getBatchSize()) {
+                    batch.add(iterator.next());
+                }
+                pendingBatches.acquire();
+                long batchIndex = batches++;
+                CompletableFuture.supplyAsync(() -> mapper.apply(batch), workers)
+                        .thenAcceptAsync(writer, writers)
+                        .thenRun(() -> listener.batchWritten(batchIndex, batch.size()))
+                        .whenComplete((result, e) -> {
+                            if (e == null) {
+                                imported.addAndGet(batch.size());
+                            } else {
+                                failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                            }
+                            pendingBatches.release();
+                        });
+            }
+            // wait for the batches still in the pipeline
+            pendingBatches.acquire(maxPendingBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkImportException("Interrupted while running the " + importName + " import", e);
+        } catch (RuntimeException e) {
+            // the source could not be read, let the submitted batches finish before reporting it
+            failure.compareAndSet(null, e);
+            pendingBatches.acquireUninterruptibly(maxPendingBatches);
+        } finally {
+            workers.shutdownNow();
+            writers.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new BulkImportException("The " + importName + " import failed after " + imported.get() + " elements", failure.get());
+        }
+        LOGGER.info("Imported {} elements of the {} import in {} batches in {} ms", imported.get(), importName, batches, System.currentTimeMillis() - start);
+        return imported.get();
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheInvalidationConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.CacheInvalidationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invalidates the cached entries made stale by a write, on this instance right away and on the other instances of
+ * the service through a {@link CacheInvalidationEvent} broadcast over RabbitMQ.
+ * <p>
+ * A receiver keeps the last sequence number it applied for every instance it heard from. When the next event of an
+ * instance does not follow it, some events were lost, e.g. while the connection of the receiver was down, and the
+ * receiver flushes its caches instead of evicting the keys of the event. Every flush is counted in the
+ * {@value #FLUSH_COUNTER} counter.
+ * <p>
+ * The events are numbered and sent by a single publisher thread, so a writer only queues its event and does not wait
+ * for the broker, and the events still leave in sequence order.
+ */
+@Service
+public class CacheInvalidationService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    public static final String FLUSH_COUNTER = "postcoordination.cacheinvalidation.flushes";
+
+    private static final int MAX_QUEUED_EVENTS = 10_000;
+
+    private final ProcessedSpecificationCache processedCache;
+
+    private final EntityTypeService entityTypeService;
+
+    private final HistoryMembershipService historyMembership;
+
+    private final CacheInvalidationConfig config;
+
+    private final ObjectMapper objectMapper;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final ExecutorService publisher;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Long> lastSequenceByNode = new ConcurrentHashMap<>();
+
+    private final Counter flushCounter;
+
+    public CacheInvalidationService(ProcessedSpecificationCache processedCache,
+                                    EntityTypeService entityTypeService,
+                                    HistoryMembershipService historyMembership,
+                                    CacheInvalidationConfig config,
+                                    ConnectionFactory connectionFactory,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry) {
+        this.processedCache = processedCache;
+        this.entityTypeService = entityTypeService;
+        this.historyMembership = historyMembership;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.rabbitTemplate = config.isEnabled() ? new RabbitTemplate(connectionFactory) : null;
+        this.publisher = config.isEnabled() ? newPublisher() : null;
+        this.flushCounter = Counter.builder(FLUSH_COUNTER)
+                .description("Flushes of the local caches after cache invalidation events were missed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called once the specification or custom scales histories of the entities were written.
+     */
+    public void invalidateHistories(ProjectId projectId, Collection<String> entityIris) {
+        historyMembership.add(projectId, entityIris);
+        processedCache.invalidate(projectId, entityIris);
+        publish(CacheInvalidationEvent.Scope.HISTORIES, projectId, entityIris);
+    }
+
+    public void invalidateHistories(ProjectId projectId, String entityIri) {
+        invalidateHistories(projectId, List.of(entityIri));
+    }
+
+    public void invalidateEntityTypes(ProjectId projectId, Collection<String> entityIris) {
+        entityTypeService.invalidate(projectId, entityIris);
+        publish(CacheInvalidationEvent.Scope.ENTITY_TYPES, projectId, entityIris);
+    }
+
+    /**
+     * Applies an event received from the broadcast. The events this instance published itself are ignored, they
+     * were already applied when they were published.
+     */
+    public void handleRemoteEvent(CacheInvalidationEvent event) {
+        if (nodeId.equals(event.nodeId())) {
+            return;
+        }
+        Long lastSequence = lastSequenceByNode.put(event.nodeId(), event.sequence());
+        if (lastSequence != null && event.sequence() != lastSequence + 1) {
+            LOGGER.warn("Missed the cache invalidation events {} to {} of node {}, flushing the local caches",
+                    lastSequence + 1, event.sequence() - 1, event.nodeId());
+            flushLocalCaches();
+            return;
+        }
+        switch (event.scope()) {
+            case HISTORIES -> {
+                historyMembership.add(event.projectId(), event.entityIris());
+                processedCache.invalidate(event.projectId(), event.entityIris());
+            }
+            case ENTITY_TYPES -> entityTypeService.invalidate(event.projectId(), event.entityIris());
+        }
+    }
+
+    public void flushLocalCaches() {
+        flushCounter.increment();
+        historyMembership.invalidateAll();
+        processedCache.invalidateAll();
+        entityTypeService.invalidateAll();
+    }
+
+    /*
+     * The entities are copied by the caller, the event is numbered when the publisher thread gets to it.
+     */
+    private void publish(CacheInvalidationEvent.Scope scope, ProjectId projectId, Collection<String> entityIris) {
+        if (publisher == null || entityIris.isEmpty()) {
+            return;
+        }
+        List<String> eventEntityIris = List.copyOf(entityIris);
+        publisher.execute(() -> send(new CacheInvalidationEvent(nodeId, sequence.incrementAndGet(), scope, projectId, eventEntityIris)));
+    }
+
+    /*
+     * The sequence number is taken even when the event can't be sent, so the other instances see the gap with the
+     * next event that gets through.
+     */
+    private void send(CacheInvalidationEvent event) {
+        try {
+            var properties = MessagePropertiesBuilder.newInstance()
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+            rabbitTemplate.send(config.getExchange(), "", new Message(objectMapper.writeValueAsBytes(event), properties));
+        } catch (AmqpException | JsonProcessingException e) {
+            LOGGER.error("Could not publish the cache invalidation event {} for project {}", event.sequence(), event.projectId(), e);
+        }
+    }
+
+    /*
+     * When the broker is too slow for the queue, the event is dropped and its sequence number skipped, so the
+     * other instances flush their caches once the next event reaches them.
+     */
+    private ExecutorService newPublisher() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_EVENTS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-invalidation-publisher");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    sequence.incrementAndGet();
+                    LOGGER.error("Cache invalidation queue is full, dropped an event");
+                });
+    }
+}
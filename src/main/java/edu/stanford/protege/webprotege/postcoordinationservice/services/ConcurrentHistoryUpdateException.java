@@ -0,0 +1,15 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+/**
+ * Thrown when a history kept being changed by other writers and the conditional update could not be applied.
+ */
+public class ConcurrentHistoryUpdateException extends RuntimeException {
+
+    public ConcurrentHistoryUpdateException(String message) {
+        super(message);
+    }
+
+    public ConcurrentHistoryUpdateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drops what is built from the cached configuration when one of the configuration caches is cleared, by the
+ * evictions of the repositories or through the caches endpoint of the actuator after the configuration collections
+ * were changed outside of this service. The configuration snapshot and the linearization definitions are then
+ * loaded again together with the configuration.
+ */
+@Service
+public class ConfigurationCacheService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationCacheService.class);
+
+    private final LinearizationService linearizationService;
+
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
+
+    public ConfigurationCacheService(LinearizationService linearizationService,
+                                     PostCoordinationConfigSnapshotService configSnapshotService) {
+        this.linearizationService = linearizationService;
+        this.configSnapshotService = configSnapshotService;
+    }
+
+    @EventListener
+    public void onConfigurationCacheCleared(CacheConfig.ConfigurationCacheCleared event) {
+        linearizationService.invalidate();
+        configSnapshotService.invalidate();
+        LOGGER.info("The cache {} was cleared, dropped the configuration snapshot and the linearization definitions", event.cacheName());
+    }
+}
@@ -0,0 +1,142 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.github.benmanes.caffeine.cache.*;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeResponse;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the ICAT-X entity types of an entity. The types are asked for on almost every path, so they are kept
+ * in a bounded cache per project and entity for {@code webprotege.entityTypeCache.ttlInSeconds}. Concurrent
+ * lookups of the same entity share one request. A failed lookup is not cached.
+ * <p>
+ * The cache hits and misses are published as the {@value #CACHE_NAME} cache metrics and the duration of the
+ * requests that were sent as the {@value #LOOKUP_TIMER} timer.
+ */
+@Service
+public class EntityTypeService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(EntityTypeService.class);
+
+    public static final String CACHE_NAME = "entityTypes";
+
+    public static final String LOOKUP_TIMER = "postcoordination.entitytypes.lookup";
+
+    private final CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
+
+    private final ReactiveExecutionConfig config;
+
+    private final AsyncCache<EntityTypeKey, List<String>> cache;
+
+    private final Timer lookupTimer;
+
+    public EntityTypeService(CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor,
+                             ReactiveExecutionConfig config,
+                             EntityTypeCacheConfig cacheConfig,
+                             MeterRegistry meterRegistry) {
+        this.entityTypeExecutor = entityTypeExecutor;
+        this.config = config;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaximumSize())
+                .expireAfterWrite(cacheConfig.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.lookupTimer = Timer.builder(LOOKUP_TIMER)
+                .description("Duration of the entity type requests that were not answered from the cache")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * The request is only sent on subscription. No thread is held while waiting for the reply.
+     */
+    public Mono<List<String>> getEntityTypes(IRI entityIri, ProjectId projectId, ExecutionContext executionContext) {
+        // the future is shared with the other callers waiting for the same entity, so cancelling one must not cancel it
+        return Mono.fromFuture(() -> cache.get(new EntityTypeKey(projectId, entityIri.toString()),
+                                (key, executor) -> requestEntityTypes(entityIri, projectId, executionContext)), true)
+                .onErrorMap(CompletionException.class, e -> e.getCause() != null ? e.getCause() : e)
+                .onErrorMap(e -> !(e instanceof MessageProcessingException), e -> new MessageProcessingException("Error fetching entity types", e));
+    }
+
+    /**
+     * Resolves the types of many entities of one project. The entities that are not cached are requested
+     * concurrently, and the cache entries of all of them are created at once so that a concurrent lookup of one of
+     * these entities waits for the same request.
+     *
+     * @return the types by entity IRI.
+     */
+    public Mono<Map<String, List<String>>> getEntityTypes(Collection<String> entityIris, ProjectId projectId, ExecutionContext executionContext) {
+        List<EntityTypeKey> keys = entityIris.stream()
+                .distinct()
+                .map(entityIri -> new EntityTypeKey(projectId, entityIri))
+                .toList();
+        return Mono.fromFuture(() -> cache.getAll(keys, (missingKeys, executor) -> requestEntityTypes(missingKeys, executionContext)), true)
+                .map(typesByKey -> {
+                    Map<String, List<String>> typesByIri = new HashMap<>();
+                    typesByKey.forEach((key, entityTypes) -> typesByIri.put(key.entityIri(), entityTypes));
+                    return typesByIri;
+                })
+                .onErrorMap(CompletionException.class, e -> e.getCause() != null ? e.getCause() : e)
+                .onErrorMap(e -> !(e instanceof MessageProcessingException), e -> new MessageProcessingException("Error fetching entity types", e));
+    }
+
+    /**
+     * Blocking variant for the callers that are already running on the blocking scheduler, or outside of a handler.
+     */
+    public List<String> fetchEntityTypes(String entityIri, ProjectId projectId, ExecutionContext executionContext) {
+        return getEntityTypes(IRI.create(entityIri), projectId, executionContext).block();
+    }
+
+    public void invalidate(ProjectId projectId, Collection<String> entityIris) {
+        cache.synchronous().invalidateAll(entityIris.stream()
+                .map(entityIri -> new EntityTypeKey(projectId, entityIri))
+                .toList());
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private CompletableFuture<Map<EntityTypeKey, List<String>>> requestEntityTypes(Set<? extends EntityTypeKey> keys, ExecutionContext executionContext) {
+        Map<EntityTypeKey, CompletableFuture<List<String>>> requests = new HashMap<>();
+        keys.forEach(key -> requests.put(key, requestEntityTypes(IRI.create(key.entityIri()), key.projectId(), executionContext)));
+        return CompletableFuture.allOf(requests.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<EntityTypeKey, List<String>> typesByKey = new HashMap<>();
+                    requests.forEach((key, request) -> typesByKey.put(key, request.join()));
+                    return typesByKey;
+                });
+    }
+
+    private CompletableFuture<List<String>> requestEntityTypes(IRI entityIri, ProjectId projectId, ExecutionContext executionContext) {
+        Timer.Sample sample = Timer.start();
+        return entityTypeExecutor.execute(new GetIcatxEntityTypeRequest(entityIri, projectId), executionContext)
+                .orTimeout(config.getIpcTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(GetIcatxEntityTypeResponse::icatxEntityTypes)
+                .whenComplete((entityTypes, error) -> {
+                    sample.stop(lookupTimer);
+                    LOGGER.debug("Fetched entity types for {} : {}", entityIri, entityTypes);
+                });
+    }
+
+    private record EntityTypeKey(ProjectId projectId, String entityIri) {
+    }
+}
@@ -0,0 +1,89 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.RevisionStore;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.RevisionStore.HistoryKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.*;
+
+/**
+ * Re-encodes the specification revisions that were written before the compact encoding was turned on, one entity at
+ * a time under its write lock, while the service keeps serving requests. Both encodings are always read, so the
+ * migration can be stopped and restarted at any point.
+ */
+@Service
+@ConditionalOnProperty(name = "webprotege.history.compactEventEncoding", havingValue = "true")
+public class EventEncodingMigrationService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(EventEncodingMigrationService.class);
+
+    private final RevisionStore revisionStore;
+
+    private final ReadWriteLockService readWriteLock;
+
+    private final RevisionStorageConfig config;
+
+    private final Scheduler blockingScheduler;
+
+    public EventEncodingMigrationService(RevisionStore revisionStore,
+                                         ReadWriteLockService readWriteLock,
+                                         RevisionStorageConfig config,
+                                         @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.revisionStore = revisionStore;
+        this.readWriteLock = readWriteLock;
+        this.config = config;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        blockingScheduler.schedule(() -> {
+            try {
+                migrate();
+            } catch (RuntimeException e) {
+                LOGGER.error("Re-encoding the specification revisions failed, it is resumed on the next start", e);
+            }
+        });
+    }
+
+    /**
+     * @return the number of histories that were re-encoded.
+     */
+    public long migrate() {
+        long migrated = 0;
+        long start = System.currentTimeMillis();
+        Set<HistoryKey> seen = new HashSet<>();
+        List<HistoryKey> batch = revisionStore.findVerboseSpecificationHistories(config.getMigrationBatchSize());
+        while (!batch.isEmpty()) {
+            boolean progress = false;
+            for (HistoryKey key : batch) {
+                if (!seen.add(key)) {
+                    continue;
+                }
+                progress = true;
+                boolean compacted = readWriteLock.executeWriteLock(ProjectId.valueOf(key.projectId()), key.entityIri(),
+                        () -> revisionStore.compactSpecificationHistory(key.entityIri(), key.projectId()));
+                if (compacted) {
+                    migrated++;
+                }
+            }
+            if (!progress) {
+                // what is left could not be re-encoded, for instance revisions with an unknown event type
+                LOGGER.warn("Could not re-encode the revisions of {} specification histories", batch.size());
+                break;
+            }
+            batch = revisionStore.findVerboseSpecificationHistories(config.getMigrationBatchSize());
+        }
+        LOGGER.info("Re-encoded the revisions of {} specification histories in {} ms", migrated, System.currentTimeMillis() - start);
+        return migrated;
+    }
+}
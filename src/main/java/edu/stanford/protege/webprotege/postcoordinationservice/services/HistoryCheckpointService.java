@@ -0,0 +1,127 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.HistoryCheckpointConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Decides when a history gets a new checkpoint and writes it. A checkpoint is written once the revisions
+ * after the previous checkpoint hold more events, or more estimated bytes, than configured. This keeps replay
+ * cost bounded no matter how old the entity is.
+ */
+@Service
+public class HistoryCheckpointService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HistoryCheckpointService.class);
+
+    /*
+     * Rough per event overhead of the BSON encoding: type discriminator, field names and document framing.
+     */
+    private static final int EVENT_OVERHEAD_IN_BYTES = 64;
+
+    private final PostCoordinationRepository repository;
+
+    private final PostCoordinationEventProcessor eventProcessor;
+
+    private final HistoryCheckpointConfig config;
+
+    public HistoryCheckpointService(PostCoordinationRepository repository,
+                                    PostCoordinationEventProcessor eventProcessor,
+                                    HistoryCheckpointConfig config) {
+        this.repository = repository;
+        this.eventProcessor = eventProcessor;
+        this.config = config;
+    }
+
+    /**
+     * @param storedHistory the history as it is persisted, revisions sorted by timestamp, including the newest revision.
+     */
+    public void checkpointSpecificationHistoryIfNeeded(EntityPostCoordinationHistory storedHistory) {
+        List<PostCoordinationSpecificationRevision> revisions = storedHistory.getPostCoordinationRevisions();
+        int firstTailRevision = coveredRevisions(storedHistory.getSpecificationCheckpoint(), revisions.stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+
+        int events = 0;
+        long bytes = 0;
+        for (PostCoordinationSpecificationRevision revision : revisions.subList(firstTailRevision, revisions.size())) {
+            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
+                for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                    events++;
+                    bytes += EVENT_OVERHEAD_IN_BYTES + length(event.getPostCoordinationAxis()) + length(viewEvent.linearizationView());
+                }
+            }
+        }
+        if (isCheckpointDue(events, bytes)) {
+            var checkpoint = eventProcessor.createSpecificationCheckpoint(storedHistory);
+            repository.saveSpecificationCheckpoint(storedHistory.getWhoficEntityIri(), ProjectId.valueOf(storedHistory.getProjectId()), checkpoint);
+            LOGGER.info("Created specification checkpoint for {} covering {} revisions", storedHistory.getWhoficEntityIri(), checkpoint.revisionCount());
+        }
+    }
+
+    /**
+     * @param storedHistory the history as it is persisted, revisions sorted by timestamp, including the newest revision.
+     */
+    public void checkpointCustomScalesHistoryIfNeeded(EntityCustomScalesValuesHistory storedHistory) {
+        List<PostCoordinationCustomScalesRevision> revisions = storedHistory.getPostCoordinationCustomScalesRevisions();
+        int firstTailRevision = coveredRevisions(storedHistory.getCustomScalesCheckpoint(), revisions.stream().map(PostCoordinationCustomScalesRevision::timestamp).toList());
+
+        int events = 0;
+        long bytes = 0;
+        for (PostCoordinationCustomScalesRevision revision : revisions.subList(firstTailRevision, revisions.size())) {
+            if (revision.postCoordinationEvents() == null) {
+                continue;
+            }
+            for (PostCoordinationCustomScalesValueEvent event : revision.postCoordinationEvents()) {
+                events++;
+                bytes += EVENT_OVERHEAD_IN_BYTES + length(event.getPostCoordinationAxis()) + length(event.getPostCoordinationScaleValue());
+            }
+        }
+        if (isCheckpointDue(events, bytes)) {
+            var checkpoint = eventProcessor.createCustomScalesCheckpoint(storedHistory);
+            repository.saveCustomScalesCheckpoint(storedHistory.getWhoficEntityIri(), ProjectId.valueOf(storedHistory.getProjectId()), checkpoint);
+            LOGGER.info("Created custom scales checkpoint for {} covering {} revisions", storedHistory.getWhoficEntityIri(), checkpoint.revisionCount());
+        }
+    }
+
+    /**
+     * Removes the checkpoints that no longer match their history, which happens when a revision they cover is pulled out.
+     * Replay already ignores such checkpoints, this only drops them so that the next write can create a fresh one.
+     */
+    public void removeInvalidCheckpoints(String entityIri, ProjectId projectId) {
+        repository.getExistingHistoryOrderedByRevision(entityIri, projectId)
+                .filter(history -> history.getSpecificationCheckpoint() != null)
+                .filter(history -> history.getSpecificationCheckpoint().coveredRevisionCount(history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList()) < 0)
+                .ifPresent(history -> {
+                    LOGGER.info("Removing invalid specification checkpoint for {}", entityIri);
+                    repository.saveSpecificationCheckpoint(entityIri, projectId, null);
+                });
+        repository.getExistingCustomScaleHistoryOrderedByRevision(entityIri, projectId)
+                .filter(history -> history.getCustomScalesCheckpoint() != null)
+                .filter(history -> history.getCustomScalesCheckpoint().coveredRevisionCount(history.getPostCoordinationCustomScalesRevisions().stream().map(PostCoordinationCustomScalesRevision::timestamp).toList()) < 0)
+                .ifPresent(history -> {
+                    LOGGER.info("Removing invalid custom scales checkpoint for {}", entityIri);
+                    repository.saveCustomScalesCheckpoint(entityIri, projectId, null);
+                });
+    }
+
+    private boolean isCheckpointDue(int eventsSinceCheckpoint, long bytesSinceCheckpoint) {
+        return eventsSinceCheckpoint >= config.getMaxEventsSinceCheckpoint() || bytesSinceCheckpoint >= config.getMaxBytesSinceCheckpoint();
+    }
+
+    private static int coveredRevisions(HistoryCheckpoint checkpoint, List<Long> sortedRevisionTimestamps) {
+        if (checkpoint == null) {
+            return 0;
+        }
+        return Math.max(checkpoint.coveredRevisionCount(sortedRevisionTimestamps), 0);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,215 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Knows, per project, which entities may have a specification or a custom scales history, so that the reads of the
+ * many entities that were never edited don't have to look for one in the database.
+ * <p>
+ * The IRIs of the entities with a history are kept in a Bloom filter per project, loaded in the background when the
+ * service starts or when the project is first read. A filter never forgets an entity, it can only answer that an
+ * entity may have a history when it has none: entities whose histories were deleted stay in it, and so do up to
+ * {@code webprotege.historyMembership.falsePositiveProbability} of the others. Until the filter of a project is
+ * loaded every entity may have a history.
+ * <p>
+ * Every write of a history adds its entities through the {@link CacheInvalidationService}, on this instance and on
+ * the others, before the processed values are invalidated. A filter that holds more entities than it was sized for
+ * is loaded again with twice the size. Every filter is also loaded again once it is older than
+ * {@code webprotege.historyMembership.reloadIntervalInSeconds}, so an entity that a lost broadcast left out of it is
+ * found again after that time. The filters are only used while the broadcast is enabled, without it the writes of the
+ * other instances would never reach them. The lookups are counted in the {@value #LOOKUP_COUNTER} counter, tagged with
+ * whether the database was skipped.
+ * <p>
+ * The filters don't give read-your-writes across instances: the first history of an entity written by another
+ * instance is missed here until its broadcast event arrives, which is asynchronous, and a client that writes through
+ * one instance and reads through this one can still be told that the entity has no history. Nothing tells this
+ * instance that a broadcast is still on its way, so the filters are disabled by default and should only be enabled
+ * where the clients of an entity are routed to one instance or can live with that window.
+ */
+@Service
+public class HistoryMembershipService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HistoryMembershipService.class);
+
+    public static final String LOOKUP_COUNTER = "postcoordination.historymembership.lookups";
+
+    private final PostCoordinationRepository repository;
+
+    private final HistoryMembershipConfig config;
+
+    private final Scheduler blockingScheduler;
+
+    private final Map<ProjectId, ProjectMembership> memberships = new ConcurrentHashMap<>();
+
+    private final Counter skippedLookups;
+
+    private final Counter storeLookups;
+
+    private static final class ProjectMembership {
+
+        private final long capacity;
+
+        private final BloomFilter<String> filter;
+
+        private volatile boolean loaded;
+
+        private volatile long loadedAtNanos;
+
+        private ProjectMembership(long capacity, double falsePositiveProbability) {
+            this.capacity = capacity;
+            this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), capacity, falsePositiveProbability);
+        }
+
+        private boolean isSaturated() {
+            return filter.approximateElementCount() > capacity;
+        }
+
+        private boolean isExpired(Duration reloadInterval) {
+            return loaded && System.nanoTime() - loadedAtNanos >= reloadInterval.toNanos();
+        }
+    }
+
+    public HistoryMembershipService(PostCoordinationRepository repository,
+                                    HistoryMembershipConfig config,
+                                    @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler,
+                                    MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.config = config;
+        this.blockingScheduler = blockingScheduler;
+        this.skippedLookups = Counter.builder(LOOKUP_COUNTER)
+                .description("History lookups answered by the membership filter")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+        this.storeLookups = Counter.builder(LOOKUP_COUNTER)
+                .description("History lookups answered by the membership filter")
+                .tag("outcome", "store")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        blockingScheduler.schedule(() -> {
+            try {
+                repository.findProjectIdsWithHistories().forEach(this::membership);
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not list the projects with histories, their filters are loaded when they are first read", e);
+            }
+        });
+    }
+
+    /**
+     * @return false when the entity has neither a specification nor a custom scales history for sure.
+     */
+    public boolean mightHaveHistory(ProjectId projectId, String entityIri) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        ProjectMembership membership = membership(projectId);
+        if (membership.loaded && !membership.filter.mightContain(entityIri)) {
+            skippedLookups.increment();
+            return false;
+        }
+        storeLookups.increment();
+        return true;
+    }
+
+    /**
+     * Called once a history of the entities was written, before the processed values are invalidated.
+     */
+    public void add(ProjectId projectId, Collection<String> entityIris) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        ProjectMembership membership = memberships.get(projectId);
+        if (membership == null) {
+            // the write is already stored, the filter reads it when it is loaded
+            return;
+        }
+        entityIris.forEach(membership.filter::put);
+        if (membership.loaded && membership.isSaturated()) {
+            reload(projectId, membership);
+        }
+    }
+
+    /**
+     * Drops every filter, used when this instance can't tell which entities were written. The filters are loaded
+     * again when the projects are read.
+     */
+    public void invalidateAll() {
+        memberships.clear();
+    }
+
+    private ProjectMembership membership(ProjectId projectId) {
+        ProjectMembership membership = memberships.get(projectId);
+        if (membership == null) {
+            return register(projectId, null, config.getExpectedEntitiesPerProject());
+        }
+        if (membership.isExpired(config.getReloadInterval())) {
+            return register(projectId, membership, membership.capacity);
+        }
+        return membership;
+    }
+
+    private void reload(ProjectId projectId, ProjectMembership saturated) {
+        register(projectId, saturated, 2 * saturated.filter.approximateElementCount());
+    }
+
+    /*
+     * The filter is registered before it is loaded, so every write that completes after the load started is added
+     * to it, and every write that completed before is read by the load.
+     */
+    private ProjectMembership register(ProjectId projectId, ProjectMembership previous, long capacity) {
+        ProjectMembership created = new ProjectMembership(capacity, config.getFalsePositiveProbability());
+        boolean registered = previous == null
+                ? memberships.putIfAbsent(projectId, created) == null
+                : memberships.replace(projectId, previous, created);
+        if (!registered) {
+            return memberships.getOrDefault(projectId, created);
+        }
+        blockingScheduler.schedule(() -> load(projectId, created));
+        return created;
+    }
+
+    private void load(ProjectId projectId, ProjectMembership membership) {
+        long start = System.currentTimeMillis();
+        AtomicLong count = new AtomicLong();
+        try {
+            repository.forEachEntityIriWithHistory(projectId, entityIri -> {
+                membership.filter.put(entityIri);
+                count.incrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not load the entities with a history of project {}, the filter is loaded again on the next read", projectId, e);
+            memberships.remove(projectId, membership);
+            return;
+        }
+        membership.loadedAtNanos = System.nanoTime();
+        membership.loaded = true;
+        LOGGER.info("Loaded {} histories of project {} into the membership filter in {} ms", count.get(), projectId, System.currentTimeMillis() - start);
+        if (membership.isSaturated()) {
+            reload(projectId, membership);
+        }
+    }
+}
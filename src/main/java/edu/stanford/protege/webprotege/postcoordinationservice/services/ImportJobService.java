@@ -0,0 +1,133 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ImportPipelineConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.ImportJob;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.ImportJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.Stream;
+
+/**
+ * Runs the first imports as resumable jobs. The job record stores how many records of the document are written,
+ * counting only the batches that were written without a gap before them. A failed attempt is retried from that
+ * position, and an import that is requested again after its instance died continues from it as well. The batches
+ * written after a gap are written a second time, so the writers must be idempotent.
+ */
+@Service
+public class ImportJobService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final ImportJobRepository importJobRepository;
+
+    private final BulkImportPipeline importPipeline;
+
+    private final ImportPipelineConfig config;
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            BulkImportPipeline importPipeline,
+                            ImportPipelineConfig config) {
+        this.importJobRepository = importJobRepository;
+        this.importPipeline = importPipeline;
+        this.config = config;
+    }
+
+    /**
+     * @param source opens the document and skips the given number of records.
+     */
+    public <T, R> void runImport(String importType,
+                                 String documentLocation,
+                                 ProjectId projectId,
+                                 Function<Long, Stream<T>> source,
+                                 Function<List<T>, R> mapper,
+                                 Consumer<R> writer) {
+        ImportJob job = ImportJob.create(projectId.id(), documentLocation, importType);
+        importJobRepository.insertIfAbsent(job);
+        long staleBefore = System.currentTimeMillis() - config.getStaleJobTimeout().toMillis();
+        Optional<ImportJob> claimed = importJobRepository.claim(job.getId(), staleBefore);
+        if (claimed.isEmpty()) {
+            ImportJob existing = importJobRepository.findById(job.getId()).orElseThrow();
+            if (existing.getStatus() == ImportJob.Status.COMPLETED) {
+                LOGGER.info("The {} import of {} into project {} is already completed", importType, documentLocation, projectId.id());
+                return;
+            }
+            throw new BulkImportException("The " + importType + " import of " + documentLocation + " into project " + projectId.id() + " is already running");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            ImportJob current = importJobRepository.findById(job.getId()).orElseThrow();
+            try {
+                if (current.getCommittedRecords() > 0) {
+                    LOGGER.info("Resuming the {} import of {} after {} records", importType, documentLocation, current.getCommittedRecords());
+                }
+                importPipeline.run(importType, source.apply(current.getCommittedRecords()), mapper, writer, new ProgressTracker(current));
+                importJobRepository.updateStatus(job.getId(), ImportJob.Status.COMPLETED, null);
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Error in the {} import of {} (attempt {}/{}): {}", importType, documentLocation, attempt, config.getMaxAttempts(), e.getMessage(), e);
+                if (attempt >= config.getMaxAttempts()) {
+                    importJobRepository.updateStatus(job.getId(), ImportJob.Status.FAILED, e.getMessage());
+                    throw new BulkImportException("The " + importType + " import of " + documentLocation + " failed after " + attempt + " attempts", e);
+                }
+                backoff(job.getId(), attempt);
+            }
+        }
+    }
+
+    public List<ImportJob> getImportJobs(ProjectId projectId) {
+        return importJobRepository.findByProjectId(projectId.id());
+    }
+
+    private void backoff(String jobId, int attempt) {
+        try {
+            Thread.sleep(config.getRetryBackoffInMillis() << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            importJobRepository.updateStatus(jobId, ImportJob.Status.FAILED, "Interrupted");
+            throw new BulkImportException("Interrupted while waiting to retry the import", e);
+        }
+    }
+
+    /*
+     * Keeps the position of the first batch that is not written yet and stores it whenever it moves.
+     */
+    private class ProgressTracker implements BulkImportPipeline.BatchListener {
+
+        private final String jobId;
+
+        private final long committedBatches;
+
+        private final long committedRecords;
+
+        private final Map<Long, Integer> writtenAfterGap = new HashMap<>();
+
+        private long nextBatch;
+
+        private long recordsWritten;
+
+        private ProgressTracker(ImportJob job) {
+            this.jobId = job.getId();
+            this.committedBatches = job.getCommittedBatches();
+            this.committedRecords = job.getCommittedRecords();
+        }
+
+        @Override
+        public synchronized void batchWritten(long batchIndex, int batchSize) {
+            writtenAfterGap.put(batchIndex, batchSize);
+            long previous = nextBatch;
+            Integer size;
+            while ((size = writtenAfterGap.remove(nextBatch)) != null) {
+                recordsWritten += size;
+                nextBatch++;
+            }
+            if (nextBatch != previous) {
+                importJobRepository.updateProgress(jobId, committedBatches + nextBatch, committedRecords + recordsWritten);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.codecs.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.RevisionStorageConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.PostCoordinationSpecificationEvent;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.IriDictionaryRepository;
+import org.bson.BsonInvalidOperationException;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link IriDictionary} of every project and the codec registry that reads and writes the specification
+ * revisions of the project with it. A dictionary is only loaded when the first compact event of its project is read
+ * or written, so nothing is loaded while the compact encoding is off and no compact history was written.
+ */
+@Service
+public class IriDictionaryService {
+
+    private final IriDictionaryRepository repository;
+
+    private final RevisionStorageConfig config;
+
+    private final Map<String, ProjectCodecs> codecsByProject = new ConcurrentHashMap<>();
+
+    public IriDictionaryService(IriDictionaryRepository repository, RevisionStorageConfig config) {
+        this.repository = repository;
+        this.config = config;
+    }
+
+    public boolean isCompactEncoding() {
+        return config.isCompactEventEncoding();
+    }
+
+    public CodecRegistry codecRegistry(String projectId) {
+        return codecs(projectId).registry();
+    }
+
+    /**
+     * Gives a code to the IRIs of the revisions that don't have one yet, so the revisions can be written compact.
+     * Does nothing when the compact encoding is off.
+     */
+    public void register(String projectId, Collection<PostCoordinationSpecificationRevision> revisions) {
+        if (!isCompactEncoding() || revisions == null || revisions.isEmpty()) {
+            return;
+        }
+        Set<String> iris = new LinkedHashSet<>();
+        for (PostCoordinationSpecificationRevision revision : revisions) {
+            if (revision.postCoordinationEvents() == null) {
+                continue;
+            }
+            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
+                addIfPresent(iris, viewEvent.linearizationView());
+                if (viewEvent.axisEvents() != null) {
+                    for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                        addIfPresent(iris, event.getPostCoordinationAxis());
+                        addIfPresent(iris, event.getLinearizationView());
+                    }
+                }
+            }
+        }
+        codecs(projectId).dictionary().addMissing(iris);
+    }
+
+    private ProjectCodecs codecs(String projectId) {
+        return codecsByProject.computeIfAbsent(projectId, id -> {
+            ProjectIriDictionary dictionary = new ProjectIriDictionary(id);
+            return new ProjectCodecs(dictionary, PostCoordinationCodecProvider.codecRegistry(dictionary, isCompactEncoding()));
+        });
+    }
+
+    private static void addIfPresent(Set<String> iris, String iri) {
+        if (iri != null) {
+            iris.add(iri);
+        }
+    }
+
+    private record ProjectCodecs(ProjectIriDictionary dictionary, CodecRegistry registry) {
+    }
+
+    private record Codes(List<String> iris, Map<String, Integer> codeByIri) {
+
+        static Codes of(List<String> iris) {
+            Map<String, Integer> codeByIri = new HashMap<>();
+            for (int code = 0; code < iris.size(); code++) {
+                codeByIri.putIfAbsent(iris.get(code), code);
+            }
+            return new Codes(List.copyOf(iris), codeByIri);
+        }
+    }
+
+    private class ProjectIriDictionary implements IriDictionary {
+
+        private final String projectId;
+
+        private volatile Codes codes;
+
+        private ProjectIriDictionary(String projectId) {
+            this.projectId = projectId;
+        }
+
+        @Override
+        public int codeOf(String iri) {
+            return codes().codeByIri().getOrDefault(iri, -1);
+        }
+
+        /*
+         * Another instance of the service can have given the code, the dictionary is read again before giving up.
+         */
+        @Override
+        public String iriOf(int code) {
+            Codes current = codes();
+            if (code >= current.iris().size()) {
+                current = reload();
+            }
+            if (code < 0 || code >= current.iris().size()) {
+                throw new BsonInvalidOperationException("The IRI dictionary of project " + projectId + " has no code " + code);
+            }
+            return current.iris().get(code);
+        }
+
+        void addMissing(Set<String> iris) {
+            Map<String, Integer> codeByIri = codes().codeByIri();
+            List<String> missing = iris.stream().filter(iri -> !codeByIri.containsKey(iri)).toList();
+            if (!missing.isEmpty()) {
+                repository.addIris(projectId, missing);
+                reload();
+            }
+        }
+
+        private Codes codes() {
+            Codes current = codes;
+            return current != null ? current : reload();
+        }
+
+        private synchronized Codes reload() {
+            codes = Codes.of(repository.findIris(projectId));
+            return codes;
+        }
+    }
+}
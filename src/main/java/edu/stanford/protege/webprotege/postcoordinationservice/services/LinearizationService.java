@@ -1,30 +1,57 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.services;
 
 
+import com.github.benmanes.caffeine.cache.*;
 import edu.stanford.protege.webprotege.ipc.CommandExecutor;
 import edu.stanford.protege.webprotege.ipc.ExecutionContext;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinitionRequest;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinitionResponse;
-import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * The definitions are refreshed in the background once they are older than
+ * {@code webprotege.cache.linearizationDefinitionsRefreshInSeconds}, so readers keep getting the cached list
+ * while the new one is fetched. A failed refresh keeps the old list until it expires.
+ */
 @Service
 public class LinearizationService {
 
+    private static final String DEFINITIONS_KEY = "definitions";
 
     private final CommandExecutor<LinearizationDefinitionRequest, LinearizationDefinitionResponse> commandExecutor;
 
-    public LinearizationService(CommandExecutor<LinearizationDefinitionRequest, LinearizationDefinitionResponse> commandExecutor) {
+    private final LoadingCache<String, List<LinearizationDefinition>> definitionsCache;
+
+    public LinearizationService(CommandExecutor<LinearizationDefinitionRequest, LinearizationDefinitionResponse> commandExecutor,
+                                CacheConfig cacheConfig,
+                                MeterRegistry meterRegistry) {
         this.commandExecutor = commandExecutor;
+        this.definitionsCache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(cacheConfig.getLinearizationDefinitionsRefresh())
+                .expireAfterWrite(cacheConfig.getLinearizationDefinitionsTtl())
+                .recordStats()
+                .build(key -> fetchLinearizationDefinitions());
+        CaffeineCacheMetrics.monitor(meterRegistry, definitionsCache, CacheConfig.LINEARIZATION_DEFINITIONS);
     }
 
 
-    @Cacheable("linearizationDefinitions")
     public List<LinearizationDefinition> getLinearizationDefinitions() {
+        return definitionsCache.get(DEFINITIONS_KEY);
+    }
+
+    public void invalidate() {
+        definitionsCache.invalidateAll();
+    }
+
+    private List<LinearizationDefinition> fetchLinearizationDefinitions() {
         try {
             return commandExecutor.execute(new LinearizationDefinitionRequest(), new ExecutionContext()).get(15, TimeUnit.SECONDS).definitionList();
         } catch (Exception e) {
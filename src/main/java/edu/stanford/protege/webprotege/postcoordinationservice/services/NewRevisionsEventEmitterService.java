@@ -7,9 +7,9 @@ import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
 import java.util.List;
 
 public interface NewRevisionsEventEmitterService {
-    void emitNewRevisionsEventForScaleHistory(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories, ChangeRequestId changeRequestId);
+    void emitNewRevisionsEventForScaleHistory(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories, ChangeRequestId changeRequestId, String commitMessage);
 
-    void emitNewRevisionsEventForSpecHistory(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories, ChangeRequestId changeRequestId);
+    void emitNewRevisionsEventForSpecHistory(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories, ChangeRequestId changeRequestId, String commitMessage);
 
     void emitNewRevisionsEvent(ProjectId projectId, String whoficEntityIri, PostCoordinationCustomScalesRevision entityCustomScaleRevision, ChangeRequestId changeRequestId, String commitMessage);
 
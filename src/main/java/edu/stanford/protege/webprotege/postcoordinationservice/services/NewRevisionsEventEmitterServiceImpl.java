@@ -21,15 +21,15 @@ public class NewRevisionsEventEmitterServiceImpl implements NewRevisionsEventEmi
     }
 
     @Override
-    public void emitNewRevisionsEventForScaleHistory(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories, ChangeRequestId changeRequestId) {
-        Set<ProjectChangeForEntity> changeList = projectChangesManager.getProjectChangesForCustomScaleHistories(projectId, entityCustomScaleHistories);
+    public void emitNewRevisionsEventForScaleHistory(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories, ChangeRequestId changeRequestId, String commitMessage) {
+        Set<ProjectChangeForEntity> changeList = projectChangesManager.getProjectChangesForCustomScaleHistories(projectId, entityCustomScaleHistories, commitMessage);
         NewRevisionsEvent revisionsEvent = NewRevisionsEvent.create(EventId.generate(), projectId, changeList, changeRequestId);
         eventDispatcher.dispatchEvent(revisionsEvent);
     }
 
     @Override
-    public void emitNewRevisionsEventForSpecHistory(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories, ChangeRequestId changeRequestId) {
-        Set<ProjectChangeForEntity> changeList = projectChangesManager.getProjectChangesForSpecHistories(projectId, entitySpecHistories);
+    public void emitNewRevisionsEventForSpecHistory(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories, ChangeRequestId changeRequestId, String commitMessage) {
+        Set<ProjectChangeForEntity> changeList = projectChangesManager.getProjectChangesForSpecHistories(projectId, entitySpecHistories, commitMessage);
         NewRevisionsEvent revisionsEvent = NewRevisionsEvent.create(EventId.generate(), projectId, changeList, changeRequestId);
         eventDispatcher.dispatchEvent(revisionsEvent);
     }
@@ -0,0 +1,80 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.OptimisticConcurrencyConfig;
+import io.micrometer.core.instrument.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a read, diff and conditional write cycle until the write is accepted. An attempt returns false when its
+ * conditional update did not match, because another writer changed the history after it was read. The attempt is
+ * then repeated against the new state.
+ * <p>
+ * Every attempt is counted in the {@value #WRITE_ATTEMPTS_METRIC} counter, tagged with the history and the outcome,
+ * so the conflict rate is conflict / (success + conflict).
+ */
+@Service
+public class OptimisticWriteService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(OptimisticWriteService.class);
+
+    public static final String WRITE_ATTEMPTS_METRIC = "postcoordination.history.write.attempts";
+
+    public static final String SPECIFICATION_HISTORY = "specification";
+
+    public static final String CUSTOM_SCALES_HISTORY = "customScales";
+
+    private final OptimisticConcurrencyConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticWriteService(OptimisticConcurrencyConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void executeWithRetries(String historyName, String entityIri, BooleanSupplier attempt) {
+        for (int attemptNumber = 1; attemptNumber <= config.getMaxAttempts(); attemptNumber++) {
+            if (attempt.getAsBoolean()) {
+                count(historyName, "success");
+                return;
+            }
+            count(historyName, "conflict");
+            LOGGER.info("Concurrent change of the {} history of {}, attempt {}/{}", historyName, entityIri, attemptNumber, config.getMaxAttempts());
+            if (attemptNumber < config.getMaxAttempts()) {
+                backoff(historyName, attemptNumber);
+            }
+        }
+        count(historyName, "exhausted");
+        throw new ConcurrentHistoryUpdateException("Could not update the " + historyName + " history of " + entityIri + " after " + config.getMaxAttempts() + " attempts");
+    }
+
+    private void count(String historyName, String outcome) {
+        Counter.builder(WRITE_ATTEMPTS_METRIC)
+                .description("Conditional writes of the post-coordination histories by outcome")
+                .tag("history", historyName)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /*
+     * Random jitter so that two writers that collided don't collide again on the next attempt.
+     */
+    private void backoff(String historyName, int attemptNumber) {
+        long maxWait = config.getBackoffInMillis() * attemptNumber;
+        if (maxWait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxWait + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentHistoryUpdateException("Interrupted while waiting to retry the update of the " + historyName + " history", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationConfigSnapshot;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.*;
+
+/**
+ * Holds the current {@link PostCoordinationConfigSnapshot}. The snapshot is rebuilt once it is older than the
+ * configuration caches, or right away after {@link #invalidate()}. One thread rebuilds it while the others keep
+ * reading the previous snapshot, and the new one is published with a single reference swap.
+ */
+@Service
+public class PostCoordinationConfigSnapshotService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(PostCoordinationConfigSnapshotService.class);
+
+    private final PostCoordinationTableConfigRepository tableConfigRepository;
+
+    private final PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository;
+
+    private final LinearizationService linearizationService;
+
+    private final CacheConfig cacheConfig;
+
+    private final AtomicReference<PostCoordinationConfigSnapshot> current = new AtomicReference<>();
+
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private long lastVersion;
+
+    public PostCoordinationConfigSnapshotService(PostCoordinationTableConfigRepository tableConfigRepository,
+                                                 PostcoordinationAxisToGenericScaleRepository axisToGenericScaleRepository,
+                                                 LinearizationService linearizationService,
+                                                 CacheConfig cacheConfig) {
+        this.tableConfigRepository = tableConfigRepository;
+        this.axisToGenericScaleRepository = axisToGenericScaleRepository;
+        this.linearizationService = linearizationService;
+        this.cacheConfig = cacheConfig;
+    }
+
+    public PostCoordinationConfigSnapshot getSnapshot() {
+        PostCoordinationConfigSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return rebuild(null);
+        }
+        if (isExpired(snapshot) && rebuildLock.tryLock()) {
+            try {
+                return rebuild(snapshot);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not rebuild the post-coordination configuration snapshot, keeping version {}", snapshot.getVersion(), e);
+                return snapshot;
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops the current snapshot. The next reader builds a new one.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    private PostCoordinationConfigSnapshot rebuild(PostCoordinationConfigSnapshot expected) {
+        rebuildLock.lock();
+        try {
+            PostCoordinationConfigSnapshot snapshot = current.get();
+            if (snapshot != expected) {
+                // another thread already replaced it
+                return snapshot != null ? snapshot : build();
+            }
+            return build();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private PostCoordinationConfigSnapshot build() {
+        var snapshot = new PostCoordinationConfigSnapshot(++lastVersion,
+                tableConfigRepository.getALlTableConfiguration(),
+                tableConfigRepository.getTableAxisLabels(),
+                axisToGenericScaleRepository.getPostCoordAxisToGenericScale(),
+                linearizationService.getLinearizationDefinitions());
+        current.set(snapshot);
+        LOGGER.info("Built version {} of the post-coordination configuration snapshot", snapshot.getVersion());
+        return snapshot;
+    }
+
+    private boolean isExpired(PostCoordinationConfigSnapshot snapshot) {
+        return snapshot.getCreatedAt().plus(cacheConfig.getConfigurationTtl()).isBefore(Instant.now());
+    }
+}
@@ -1,5 +1,6 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.services;
 
+import edu.stanford.protege.webprotege.common.UserId;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
@@ -12,28 +13,88 @@ import java.util.stream.Collectors;
 @Service
 public class PostCoordinationEventProcessor {
 
+    private static final UserId CHECKPOINT_USER = UserId.valueOf("checkpoint");
 
-    private PostCoordinationSpecification findSpecificationWithLinearizationView(String linearizationView, HashSet<PostCoordinationSpecification> postCoordinationSpecification) {
-        return postCoordinationSpecification.stream().filter(spec -> spec.getLinearizationView() != null && spec.getLinearizationView().equalsIgnoreCase(linearizationView))
-                .findFirst()
-                .orElse(new PostCoordinationSpecification(linearizationView, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
-
+    public WhoficCustomScalesValues processCustomScaleHistory(EntityCustomScalesValuesHistory entityCustomScalesValuesHistory) {
+        WhoficCustomScalesValues response = foldCustomScaleHistory(entityCustomScalesValuesHistory);
+        List<PostCoordinationScaleCustomization> nonEmptyCustomizations = response.scaleCustomizations().stream()
+                .filter(scale -> !scale.getPostcoordinationScaleValues().isEmpty())
+                .toList();
+        return new WhoficCustomScalesValues(entityCustomScalesValuesHistory.getWhoficEntityIri(), nonEmptyCustomizations);
     }
+    /*
+     * Starts from the checkpoint when it is still valid and applies only the revisions after it. The checkpoint values are
+     * copied, because applying the events mutates the customizations.
+     */
+    private WhoficCustomScalesValues foldCustomScaleHistory(EntityCustomScalesValuesHistory history) {
+        List<PostCoordinationCustomScalesRevision> revisions = history.getPostCoordinationCustomScalesRevisions();
+        List<PostCoordinationScaleCustomization> initialCustomizations = new ArrayList<>();
+        int firstRevisionToApply = 0;
+        PostCoordinationCustomScalesCheckpoint checkpoint = history.getCustomScalesCheckpoint();
+        if (checkpoint != null) {
+            int coveredRevisions = checkpoint.coveredRevisionCount(revisions.stream().map(PostCoordinationCustomScalesRevision::timestamp).toList());
+            if (coveredRevisions >= 0) {
+                checkpoint.scaleCustomizations().forEach(customization ->
+                        initialCustomizations.add(new PostCoordinationScaleCustomization(new ArrayList<>(customization.getPostcoordinationScaleValues()), customization.getPostcoordinationAxis())));
+                firstRevisionToApply = coveredRevisions;
+            }
+        }
 
-    public WhoficCustomScalesValues processCustomScaleHistory(EntityCustomScalesValuesHistory entityCustomScalesValuesHistory) {
-        WhoficCustomScalesValues response = new WhoficCustomScalesValues(entityCustomScalesValuesHistory.getWhoficEntityIri(), new ArrayList<>());
-        for (PostCoordinationCustomScalesRevision revision : entityCustomScalesValuesHistory.getPostCoordinationCustomScalesRevisions()) {
+        WhoficCustomScalesValues response = new WhoficCustomScalesValues(history.getWhoficEntityIri(), initialCustomizations);
+        for (PostCoordinationCustomScalesRevision revision : revisions.subList(firstRevisionToApply, revisions.size())) {
             if(revision.postCoordinationEvents() != null) {
                 for (PostCoordinationCustomScalesValueEvent event : revision.postCoordinationEvents()) {
                     event.applyEvent(response);
                 }
             }
         }
-        List<PostCoordinationScaleCustomization> nonEmptyCustomizations = response.scaleCustomizations().stream()
-                .filter(scale -> !scale.getPostcoordinationScaleValues().isEmpty())
-                .toList();
-        return new WhoficCustomScalesValues(entityCustomScalesValuesHistory.getWhoficEntityIri(), nonEmptyCustomizations);
+        return response;
+    }
+
+    /**
+     * Folds the whole custom scales history, revisions sorted by timestamp, into a checkpoint. Empty customizations
+     * are kept so that replaying a tail on top of the checkpoint behaves like a full replay.
+     */
+    public PostCoordinationCustomScalesCheckpoint createCustomScalesCheckpoint(@Nonnull EntityCustomScalesValuesHistory history) {
+        List<PostCoordinationCustomScalesRevision> revisions = history.getPostCoordinationCustomScalesRevisions();
+        Long lastTimestamp = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1).timestamp();
+        return PostCoordinationCustomScalesCheckpoint.create(revisions.size(), lastTimestamp, foldCustomScaleHistory(history).scaleCustomizations());
     }
+
+    /**
+     * Returns the revisions that need to be replayed for the given history, revisions sorted by timestamp.
+     * If the history has a valid checkpoint, this is a single revision that rebuilds the checkpoint state followed by the
+     * revisions added after the checkpoint. Otherwise it is the full list of revisions.
+     */
+    public List<PostCoordinationSpecificationRevision> revisionsFromNewestCheckpoint(@Nonnull EntityPostCoordinationHistory history) {
+        List<PostCoordinationSpecificationRevision> revisions = history.getPostCoordinationRevisions();
+        PostCoordinationSpecificationCheckpoint checkpoint = history.getSpecificationCheckpoint();
+        if (checkpoint == null) {
+            return revisions;
+        }
+        int coveredRevisions = checkpoint.coveredRevisionCount(revisions.stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        if (coveredRevisions < 0) {
+            return revisions;
+        }
+        List<PostCoordinationSpecificationRevision> response = new ArrayList<>(revisions.size() - coveredRevisions + 1);
+        response.add(PostCoordinationSpecificationRevision.createFromFoldedSpecifications(CHECKPOINT_USER, checkpoint.timestamp(), checkpoint.postcoordinationSpecifications()));
+        response.addAll(revisions.subList(coveredRevisions, revisions.size()));
+        return response;
+    }
+
+    /**
+     * Folds the stored revisions of the history, starting from its newest valid checkpoint. The default initial revision is not applied.
+     */
+    public WhoficEntityPostCoordinationSpecification processStoredHistory(@Nonnull EntityPostCoordinationHistory history) {
+        return processHistory(new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), revisionsFromNewestCheckpoint(history)));
+    }
+
+    public PostCoordinationSpecificationCheckpoint createSpecificationCheckpoint(@Nonnull EntityPostCoordinationHistory history) {
+        List<PostCoordinationSpecificationRevision> revisions = history.getPostCoordinationRevisions();
+        Long lastTimestamp = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1).timestamp();
+        return PostCoordinationSpecificationCheckpoint.create(revisions.size(), lastTimestamp, processStoredHistory(history).postcoordinationSpecifications());
+    }
+
     public WhoficEntityPostCoordinationSpecification processHistory(@Nonnull EntityPostCoordinationHistory postCoordinationHistory,
                                                                     List<String> entityTypes,
                                                                     List<TableConfiguration> configurations ) {
@@ -42,37 +103,32 @@ public class PostCoordinationEventProcessor {
                 .flatMap(config -> config.getPostCoordinationAxes().stream())
                 .collect(Collectors.toSet());
 
-        var postCoordinationSpecification = new HashSet<PostCoordinationSpecification>();
+        var replay = new SpecificationReplay(List.of());
         for (PostCoordinationSpecificationRevision revision : postCoordinationHistory.getPostCoordinationRevisions()) {
-            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
-                PostCoordinationSpecification specification = findSpecificationWithLinearizationView(viewEvent.linearizationView(), postCoordinationSpecification);
-                for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
-                    if(postCoordinationAxis.contains(event.getPostCoordinationAxis())) {
-                        event.applyEvent(specification);
-                    }
-                }
-                postCoordinationSpecification.add(specification);
-            }
+            replay.apply(revision.postCoordinationEvents(), postCoordinationAxis::contains);
         }
 
-        return new WhoficEntityPostCoordinationSpecification(postCoordinationHistory.getWhoficEntityIri(), entityTypes.get(0), postCoordinationSpecification.stream().toList());
+        return new WhoficEntityPostCoordinationSpecification(postCoordinationHistory.getWhoficEntityIri(), entityTypes.get(0), replay.result());
     }
 
 
     public WhoficEntityPostCoordinationSpecification processHistory(@Nonnull EntityPostCoordinationHistory postCoordinationHistory) {
+        return processHistory(postCoordinationHistory, List.of());
+    }
 
-        var postCoordinationSpecification = new HashSet<PostCoordinationSpecification>();
+    /**
+     * Folds the revisions of the history on top of copies of the given specifications, which gives the same result as
+     * replaying first the revisions they were folded from, e.g. the default initial revision of
+     * {@link PostCoordinationConfigSnapshot#getDefaultSpecifications}. The given specifications are not modified.
+     */
+    public WhoficEntityPostCoordinationSpecification processHistory(@Nonnull EntityPostCoordinationHistory postCoordinationHistory,
+                                                                    @Nonnull List<PostCoordinationSpecification> initialSpecifications) {
+        var replay = new SpecificationReplay(initialSpecifications);
         for (PostCoordinationSpecificationRevision revision : postCoordinationHistory.getPostCoordinationRevisions()) {
-            for (PostCoordinationViewEvent viewEvent : revision.postCoordinationEvents()) {
-                PostCoordinationSpecification specification = findSpecificationWithLinearizationView(viewEvent.linearizationView(), postCoordinationSpecification);
-                for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
-                    event.applyEvent(specification);
-                }
-                postCoordinationSpecification.add(specification);
-            }
+            replay.apply(revision.postCoordinationEvents(), null);
         }
 
-        return new WhoficEntityPostCoordinationSpecification(postCoordinationHistory.getWhoficEntityIri(), "ICD", postCoordinationSpecification.stream().toList());
+        return new WhoficEntityPostCoordinationSpecification(postCoordinationHistory.getWhoficEntityIri(), "ICD", replay.result());
     }
 
 }
@@ -1,11 +1,10 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.client.model.*;
 import edu.stanford.protege.webprotege.common.*;
 import edu.stanford.protege.webprotege.ipc.*;
 import edu.stanford.protege.webprotege.ipc.util.CorrelationMDCUtil;
-import edu.stanford.protege.webprotege.postcoordinationservice.StreamUtils;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.PostCoordinationCustomScalesValueEvent;
 import edu.stanford.protege.webprotege.postcoordinationservice.mappers.SpecificationToEventsMapper;
@@ -15,217 +14,324 @@ import org.bson.Document;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.POSTCOORDINATION_CUSTOM_SCALES_COLLECTION;
-import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.POSTCOORDINATION_HISTORY_COLLECTION;
-import static org.apache.commons.lang3.ObjectUtils.isNotEmpty;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesSnapshot.CUSTOM_SCALES_SNAPSHOT_COLLECTION;
 
 @Service
 public class PostCoordinationService {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(PostCoordinationService.class);
     private final PostCoordinationRepository repository;
-    private final PostCoordinationTableConfigRepository configRepository;
-    private final LinearizationService linearizationService;
-    private final ReadWriteLockService readWriteLock;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
     private final PostCoordinationDocumentRepository documentRepository;
-    private final ObjectMapper objectMapper;
     private final NewRevisionsEventEmitterService newRevisionsEventEmitter;
 
     private final PostCoordinationEventProcessor eventProcessor;
 
-    private final CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
+    private final EntityTypeService entityTypeService;
 
+    private final PostCoordinationSnapshotService snapshotService;
+
+    private final HistoryCheckpointService checkpointService;
+
+    private final OptimisticWriteService optimisticWriteService;
+
+    private final ImportJobService importJobService;
+
+    private final ProcessedSpecificationCache processedCache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final HistoryMembershipService historyMembership;
+
+    private final Scheduler blockingScheduler;
 
     public PostCoordinationService(PostCoordinationRepository repository,
-                                   PostCoordinationTableConfigRepository configRepository,
-                                   LinearizationService linearizationService,
-                                   ReadWriteLockService readWriteLock,
+                                   PostCoordinationConfigSnapshotService configSnapshotService,
                                    PostCoordinationDocumentRepository documentRepository,
-                                   ObjectMapper objectMapper,
-                                   NewRevisionsEventEmitterService newRevisionsEventEmitter, PostCoordinationEventProcessor eventProcessor, CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor) {
+                                   NewRevisionsEventEmitterService newRevisionsEventEmitter, PostCoordinationEventProcessor eventProcessor, EntityTypeService entityTypeService,
+                                   PostCoordinationSnapshotService snapshotService,
+                                   HistoryCheckpointService checkpointService,
+                                   OptimisticWriteService optimisticWriteService,
+                                   ImportJobService importJobService,
+                                   ProcessedSpecificationCache processedCache,
+                                   CacheInvalidationService cacheInvalidationService,
+                                   HistoryMembershipService historyMembership,
+                                   @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
         this.repository = repository;
-        this.configRepository = configRepository;
-        this.linearizationService = linearizationService;
-        this.readWriteLock = readWriteLock;
+        this.configSnapshotService = configSnapshotService;
         this.documentRepository = documentRepository;
-        this.objectMapper = objectMapper;
         this.newRevisionsEventEmitter = newRevisionsEventEmitter;
         this.eventProcessor = eventProcessor;
-        this.entityTypeExecutor = entityTypeExecutor;
+        this.entityTypeService = entityTypeService;
+        this.snapshotService = snapshotService;
+        this.checkpointService = checkpointService;
+        this.optimisticWriteService = optimisticWriteService;
+        this.importJobService = importJobService;
+        this.processedCache = processedCache;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.historyMembership = historyMembership;
+        this.blockingScheduler = blockingScheduler;
     }
 
 
+    /**
+     * Imports the specifications of a new project as a resumable {@link ImportJobService} job: the document is parsed
+     * on the calling thread while the workers map the specifications to their first revision. The histories are
+     * encoded by the revision store on the writer thread, which registers their IRIs and links the revisions to their
+     * history as it writes them.
+     */
     public void createFirstSpecificationImport(String documentLocation, ProjectId projectId, UserId userId) {
-        var stream = documentRepository.fetchPostCoordinationSpecifications(documentLocation);
-        Set<String> availableAxes = configRepository.getALlTableConfiguration().stream()
-                .flatMap(c -> c.getPostCoordinationAxes().stream())
-                .collect(Collectors.toSet());
-        readWriteLock.executeWriteLock(() -> {
-            stream.collect(StreamUtils.batchCollector(500, createBatchProcessorForSavingPaginatedHistories(projectId, userId, availableAxes)));
-        });
+        Set<String> availableAxes = configSnapshotService.getSnapshot().getAllAxes();
+        importJobService.runImport(ImportJob.SPECIFICATIONS_IMPORT, documentLocation, projectId,
+                committedRecords -> documentRepository.fetchPostCoordinationSpecifications(documentLocation).skip(committedRecords),
+                page -> toFirstImportDocuments(page, projectId, userId, availableAxes),
+                histories -> {
+                    repository.importSpecificationHistories(histories);
+                    cacheInvalidationService.invalidateHistories(projectId, histories.stream().map(EntityPostCoordinationHistory::getWhoficEntityIri).toList());
+                });
     }
 
 
     public void crateFirstCustomScalesValuesImport(String documentLocation, ProjectId projectId, UserId userId) {
-        int maxRetries = 3;
-        int retryCount = 0;
-        
-        while (retryCount < maxRetries) {
-            try {
-                LOGGER.info("Attempting to fetch custom scales from location: {}", documentLocation);
-                var stream = documentRepository.fetchCustomScalesValues(documentLocation);
-                stream.collect(StreamUtils.batchCollector(500, createBatchProcessorForSavingPaginatedCustomScales(projectId, userId)));
-                LOGGER.info("Successfully processed custom scales from location: {}", documentLocation);
-                return; // Success, exit the retry loop
-            } catch (Exception e) {
-                retryCount++;
-                LOGGER.error("Error while processing custom scales (attempt {}/{}): {}", retryCount, maxRetries, e.getMessage(), e);
-                
-                if (retryCount >= maxRetries) {
-                    LOGGER.error("Failed to process custom scales after {} attempts", maxRetries);
-                    throw new RuntimeException("Error while processing custom scales after " + maxRetries + " attempts", e);
-                }
-                
-                // Wait before retrying (exponential backoff)
-                try {
-                    long waitTime = (long) Math.pow(2, retryCount) * 1000; // 2s, 4s, 8s
-                    LOGGER.info("Waiting {} ms before retry", waitTime);
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted while waiting for retry", ie);
-                }
-            }
+        importJobService.runImport(ImportJob.CUSTOM_SCALES_IMPORT, documentLocation, projectId,
+                committedRecords -> documentRepository.fetchCustomScalesValues(documentLocation).skip(committedRecords),
+                page -> toFirstImportCustomScalesDocuments(page, projectId, userId),
+                documents -> {
+                    repository.importCustomScalesHistories(documents.histories());
+                    repository.bulkWriteUnordered(documents.snapshots(), EntityCustomScalesValuesSnapshot.class, CUSTOM_SCALES_SNAPSHOT_COLLECTION);
+                    cacheInvalidationService.invalidateHistories(projectId, documents.histories().stream().map(EntityCustomScalesValuesHistory::getWhoficEntityIri).toList());
+                });
+    }
+
+    private record CustomScalesImportDocuments(List<EntityCustomScalesValuesHistory> histories,
+                                               List<ReplaceOneModel<EntityCustomScalesValuesSnapshot>> snapshots) {
+    }
+
+    /*
+     * Replacing by entity makes a batch that is written again on resume a no-op.
+     */
+    private CustomScalesImportDocuments toFirstImportCustomScalesDocuments(List<WhoficCustomScalesValues> page, ProjectId projectId, UserId userId) {
+        List<EntityCustomScalesValuesHistory> histories = new ArrayList<>(page.size());
+        List<ReplaceOneModel<EntityCustomScalesValuesSnapshot>> snapshots = new ArrayList<>(page.size());
+        for (WhoficCustomScalesValues specification : page) {
+            Set<PostCoordinationCustomScalesValueEvent> events = SpecificationToEventsMapper.convertToFirstImportEvents(specification);
+            PostCoordinationCustomScalesRevision revision = PostCoordinationCustomScalesRevision.create(userId, events);
+            EntityCustomScalesValuesHistory history = new EntityCustomScalesValuesHistory(specification.whoficEntityIri(), projectId.id(), List.of(revision));
+            histories.add(history);
+            EntityCustomScalesValuesSnapshot snapshot = snapshotService.createCustomScalesSnapshot(history);
+            snapshots.add(new ReplaceOneModel<>(
+                    new Document(EntityCustomScalesValuesSnapshot.WHOFIC_ENTITY_IRI, snapshot.getWhoficEntityIri())
+                            .append(EntityCustomScalesValuesSnapshot.PROJECT_ID, snapshot.getProjectId()),
+                    snapshot,
+                    new ReplaceOptions().upsert(true)
+            ));
         }
+        return new CustomScalesImportDocuments(histories, snapshots);
     }
 
-    private Consumer<List<WhoficCustomScalesValues>> createBatchProcessorForSavingPaginatedCustomScales(ProjectId projectId,
-                                                                                                        UserId userId) {
-        return page -> {
-            try {
-                if (isNotEmpty(page)) {
-                    Set<EntityCustomScalesValuesHistory> histories = new HashSet<>();
-                    for (WhoficCustomScalesValues specification : page) {
-                        Set<PostCoordinationCustomScalesValueEvent> events = SpecificationToEventsMapper.convertToFirstImportEvents(specification);
-                        PostCoordinationCustomScalesRevision revision = PostCoordinationCustomScalesRevision.create(userId, events);
-                        EntityCustomScalesValuesHistory history = new EntityCustomScalesValuesHistory(specification.whoficEntityIri(), projectId.id(), List.of(revision));
-                        histories.add(history);
-                    }
-                    var documents = histories.stream()
-                            .map(history -> {
-                                Document doc = objectMapper.convertValue(history, Document.class);
-                                return new ReplaceOneModel<>(
-                                        new Document(EntityCustomScalesValuesHistory.WHOFIC_ENTITY_IRI, history.getWhoficEntityIri())
-                                                .append(EntityCustomScalesValuesHistory.PROJECT_ID, history.getProjectId()),
-                                        doc,
-                                        new ReplaceOptions().upsert(true)
-                                );
-                            })
-                            .toList();
-
-                    repository.bulkWriteDocuments(documents, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION);
-                }
-            } catch (Exception e) {
-                LOGGER.error("Error while processing page", e);
+    /*
+     * The history is only inserted when the entity has none, so a batch that is written again on resume is a no-op.
+     */
+    private List<EntityPostCoordinationHistory> toFirstImportDocuments(List<WhoficEntityPostCoordinationSpecification> page, ProjectId projectId, UserId userId, Set<String> availableAxes) {
+        List<EntityPostCoordinationHistory> documents = new ArrayList<>(page.size());
+        for (WhoficEntityPostCoordinationSpecification specification : page) {
+            Set<PostCoordinationViewEvent> events = specification.postcoordinationSpecifications().stream()
+                    .map(spec ->
+                            new PostCoordinationViewEvent(spec.getLinearizationView(), SpecificationToEventsMapper.convertFromSpecification(spec, availableAxes))
+                    )
+                    .filter(spec -> !spec.axisEvents().isEmpty())
+                    .collect(Collectors.toSet());
+            if (!events.isEmpty()) {
+                PostCoordinationSpecificationRevision revision = PostCoordinationSpecificationRevision.create(userId, events);
+                documents.add(new EntityPostCoordinationHistory(specification.whoficEntityIri(), projectId.id(), List.of(revision)));
             }
-        };
+        }
+        return documents;
     }
 
 
-    private Consumer<List<WhoficEntityPostCoordinationSpecification>> createBatchProcessorForSavingPaginatedHistories(ProjectId projectId, UserId userId, Set<String> availableAxes) {
-        return page -> {
-            if (isNotEmpty(page)) {
-                Set<EntityPostCoordinationHistory> histories = new HashSet<>();
-                for (WhoficEntityPostCoordinationSpecification specification : page) {
-                    Set<PostCoordinationViewEvent> events = specification.postcoordinationSpecifications().stream()
-                            .map(spec ->
-                                    new PostCoordinationViewEvent(spec.getLinearizationView(), SpecificationToEventsMapper.convertFromSpecification(spec, availableAxes))
-                            )
-                            .filter(spec -> !spec.axisEvents().isEmpty())
-                            .collect(Collectors.toSet());
-                    PostCoordinationSpecificationRevision revision = PostCoordinationSpecificationRevision.create(userId, events);
-                    EntityPostCoordinationHistory history = new EntityPostCoordinationHistory(specification.whoficEntityIri(), projectId.id(), List.of(revision));
-                    if (!events.isEmpty()) {
-                        histories.add(history);
-                    }
-                }
-                if (!histories.isEmpty()) {
-                    saveMultipleEntityPostCoordinationHistories(histories);
+    public Mono<Void> addSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification, UserId userId, ProjectId projectId) {
+        return addSpecificationRevision(newSpecification, userId, projectId, null, null);
+    }
+
+    /**
+     * Looks up the entity types without holding a thread while the reply is awaited, then writes the revision on the
+     * blocking scheduler. Nothing happens until the result is subscribed to.
+     */
+    public Mono<Void> addSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification, UserId userId, ProjectId projectId, ChangeRequestId changeRequestId, String commitMessage) {
+        ExecutionContext executionContext = new ExecutionContext(userId, "", CorrelationMDCUtil.getCorrelationId());
+        return entityTypeService.getEntityTypes(IRI.create(newSpecification.whoficEntityIri()), projectId, executionContext)
+                .flatMap(entityTypes -> Mono.<Void>fromRunnable(() -> addSpecificationRevision(newSpecification, userId, projectId, changeRequestId, commitMessage, entityTypes))
+                        .subscribeOn(blockingScheduler));
+    }
+
+    /**
+     * @param entityTypes the entity types of the entity, fetched by the caller so that it can do it without blocking.
+     */
+    public void addSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification, UserId userId, ProjectId projectId, ChangeRequestId changeRequestId, String commitMessage, List<String> entityTypes) {
+        optimisticWriteService.executeWithRetries(OptimisticWriteService.SPECIFICATION_HISTORY, newSpecification.whoficEntityIri(),
+                () -> tryAddSpecificationRevision(newSpecification, userId, projectId, changeRequestId, commitMessage, entityTypes));
+    }
+
+    /*
+       Reads the history, diffs against it and writes the revision on the condition that the history did not change
+       in the meantime. Returns false when it did, so that the whole cycle is repeated on the new state.
+     */
+    private boolean tryAddSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification,
+                                                UserId userId,
+                                                ProjectId projectId,
+                                                ChangeRequestId changeRequestId,
+                                                String commitMessage,
+                                                List<String> entityTypes) {
+        var existingHistoryOptional = this.repository.getExistingHistoryOrderedByRevision(newSpecification.whoficEntityIri(), projectId);
+        if (existingHistoryOptional.isPresent()) {
+            var history = existingHistoryOptional.get();
+            List<PostCoordinationSpecificationRevision> storedRevisions = new ArrayList<>(history.getPostCoordinationRevisions());
+            Set<PostCoordinationViewEvent> specEvents = createEventsFromHistory(history, newSpecification, entityTypes);
+
+            if (!specEvents.isEmpty()) {
+                var newRevision = PostCoordinationSpecificationRevision.create(userId, specEvents, changeRequestId);
+                if (!repository.addSpecificationRevision(newSpecification.whoficEntityIri(), projectId, newRevision, history.getVersion())) {
+                    return false;
                 }
+                cacheInvalidationService.invalidateHistories(projectId, newSpecification.whoficEntityIri());
+                storedRevisions.add(newRevision);
+                var updatedHistory = new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), storedRevisions, history.getSpecificationCheckpoint(), history.getVersion() + 1);
+                snapshotService.updateSpecificationSnapshot(updatedHistory);
+                checkpointService.checkpointSpecificationHistoryIfNeeded(updatedHistory);
+                newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newSpecification.whoficEntityIri(), newRevision, changeRequestId, commitMessage);
+            }
+            return true;
+        }
 
+        EntityPostCoordinationHistory history = createNewSpecificationHistory(newSpecification, projectId, userId, changeRequestId, entityTypes);
+        if(history != null) {
+            if (!repository.insertSpecificationHistoryIfAbsent(history)) {
+                return false;
+            }
+            cacheInvalidationService.invalidateHistories(projectId, history.getWhoficEntityIri());
+            snapshotService.updateSpecificationSnapshot(history);
+            if (!newSpecification.postcoordinationSpecifications().isEmpty()) {
+                history.getPostCoordinationRevisions()
+                        .stream()
+                        .findFirst()
+                        .ifPresent(revision -> newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, history.getWhoficEntityIri(), revision, changeRequestId, commitMessage));
             }
-        };
+        }
+        return true;
     }
 
-    private void saveMultipleEntityPostCoordinationHistories(Set<EntityPostCoordinationHistory> historiesToBeSaved) {
-        var documents = historiesToBeSaved.stream()
-                .map(history -> new InsertOneModel<>(objectMapper.convertValue(history, Document.class)))
-                .toList();
-
-        repository.bulkWriteDocuments(documents, POSTCOORDINATION_HISTORY_COLLECTION);
+    /*
+       The events that take the stored history to the new specification.
+     */
+    private Set<PostCoordinationViewEvent> createEventsFromHistory(EntityPostCoordinationHistory history,
+                                                                   WhoficEntityPostCoordinationSpecification newSpecification,
+                                                                   List<String> entityTypes) {
+        var revisionsToReplay = new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), eventProcessor.revisionsFromNewestCheckpoint(history));
+        WhoficEntityPostCoordinationSpecification oldSpec;
+        if(history.getPostCoordinationRevisions().stream().noneMatch(rev -> rev.userId().id().equals("initialRevision"))){
+            oldSpec = eventProcessor.processHistory(revisionsToReplay, configSnapshotService.getSnapshot().getDefaultSpecifications(entityTypes));
+        } else {
+            oldSpec = eventProcessor.processHistory(revisionsToReplay);
+        }
+        return SpecificationToEventsMapper.createEventsFromDiff(oldSpec, newSpecification);
     }
 
+    /*
+       The outcome of the diff of one entity of a batch: the new revision of an existing history, or a new history
+       when the revision is null.
+     */
+    private record SpecificationChange(EntityPostCoordinationHistory history, PostCoordinationSpecificationRevision newRevision) {
 
-    public void addSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification, UserId userId, ProjectId projectId) {
-        addSpecificationRevision(newSpecification, userId, projectId, null, null);
+        boolean isNewHistory() {
+            return newRevision == null;
+        }
     }
 
-    public void addSpecificationRevision(WhoficEntityPostCoordinationSpecification newSpecification, UserId userId, ProjectId projectId, ChangeRequestId changeRequestId, String commitMessage) {
-
-        readWriteLock.executeWriteLock(() -> {
-                    var existingHistoryOptional = this.repository.getExistingHistoryOrderedByRevision(newSpecification.whoficEntityIri(), projectId);
-                    existingHistoryOptional.ifPresentOrElse(history -> {
-                                if(history.getPostCoordinationRevisions().stream().noneMatch(rev -> rev.userId().id().equals("initialRevision"))){
-                                    List<LinearizationDefinition> definitionList = linearizationService.getLinearizationDefinitions();
-                                    List<TableConfiguration> configurations = configRepository.getALlTableConfiguration();
-                                    List<String> entityTypes;
-                                    try {
-                                        entityTypes = entityTypeExecutor.execute(new GetIcatxEntityTypeRequest(IRI.create(newSpecification.whoficEntityIri()), projectId), new ExecutionContext(userId, "", CorrelationMDCUtil.getCorrelationId()))
-                                                .get(15, TimeUnit.SECONDS).icatxEntityTypes();
-                                    } catch (TimeoutException | InterruptedException | ExecutionException e) {
-                                        throw new MessageProcessingException("Error fetching entity types", e);
-                                    }
-
-                                    history.getPostCoordinationRevisions().add(0, PostCoordinationSpecificationRevision.createDefaultInitialRevision(
-                                            entityTypes,
-                                            definitionList,
-                                            configurations));
-
-                                }
-                                WhoficEntityPostCoordinationSpecification oldSpec = eventProcessor.processHistory(history);
-                                Set<PostCoordinationViewEvent> specEvents = SpecificationToEventsMapper.createEventsFromDiff(oldSpec, newSpecification);
-
-                                if (!specEvents.isEmpty()) {
-                                    var newRevision = PostCoordinationSpecificationRevision.create(userId, specEvents, changeRequestId);
-                                    repository.addSpecificationRevision(newSpecification.whoficEntityIri(), projectId, newRevision);
-                                    newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newSpecification.whoficEntityIri(), newRevision, changeRequestId, commitMessage);
-                                }
-                            }, () -> {
-                                EntityPostCoordinationHistory history = createNewSpecificationHistory(newSpecification, projectId, userId, changeRequestId);
-                                if(history != null) {
-                                    var savedHistory = repository.saveNewSpecificationHistory(history);
-                                    if (!newSpecification.postcoordinationSpecifications().isEmpty()) {
-                                        savedHistory.getPostCoordinationRevisions()
-                                                .stream()
-                                                .findFirst()
-                                                .ifPresent(revision -> newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, savedHistory.getWhoficEntityIri(), revision, changeRequestId, commitMessage));
-                                    }
-                                }
-
-                            }
-                    );
+    /**
+     * Adds the specifications of many entities. The histories are read with one query, the diffs are computed in
+     * parallel and all the new revisions are written with one bulk write. An entity whose history was changed by
+     * another writer in the meantime is added again on its own, with the usual retries. The revisions written by the
+     * bulk write are announced with one new revisions event.
+     *
+     * @param entityTypesByIri the entity types of the entities, fetched by the caller so that it can do it without blocking.
+     */
+    public void addSpecificationRevisions(List<WhoficEntityPostCoordinationSpecification> newSpecifications,
+                                          UserId userId,
+                                          ProjectId projectId,
+                                          ChangeRequestId changeRequestId,
+                                          String commitMessage,
+                                          Map<String, List<String>> entityTypesByIri) {
+        Map<String, WhoficEntityPostCoordinationSpecification> specificationsByIri = new LinkedHashMap<>();
+        newSpecifications.forEach(specification -> specificationsByIri.put(specification.whoficEntityIri(), specification));
+        Map<String, EntityPostCoordinationHistory> histories = repository.getExistingHistoriesOrderedByRevision(projectId, specificationsByIri.keySet());
+
+        List<SpecificationChange> changes = specificationsByIri.values().parallelStream()
+                .map(specification -> {
+                    List<String> entityTypes = entityTypesByIri.getOrDefault(specification.whoficEntityIri(), List.of());
+                    var history = histories.get(specification.whoficEntityIri());
+                    if (history == null) {
+                        var newHistory = createNewSpecificationHistory(specification, projectId, userId, changeRequestId, entityTypes);
+                        return newHistory != null ? new SpecificationChange(newHistory, null) : null;
+                    }
+                    Set<PostCoordinationViewEvent> specEvents = createEventsFromHistory(history, specification, entityTypes);
+                    return specEvents.isEmpty() ? null : new SpecificationChange(history, PostCoordinationSpecificationRevision.create(userId, specEvents, changeRequestId));
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        Set<String> conflicts = repository.addSpecificationRevisions(projectId,
+                changes.stream()
+                        .filter(change -> !change.isNewHistory())
+                        .map(change -> new RevisionStore.PendingRevision<>(change.history().getWhoficEntityIri(), change.newRevision(), change.history().getVersion()))
+                        .toList(),
+                changes.stream()
+                        .filter(SpecificationChange::isNewHistory)
+                        .map(SpecificationChange::history)
+                        .toList());
+        cacheInvalidationService.invalidateHistories(projectId, changes.stream()
+                .map(change -> change.history().getWhoficEntityIri())
+                .filter(entityIri -> !conflicts.contains(entityIri))
+                .toList());
+
+        List<EntityPostCoordinationHistory> newRevisions = new ArrayList<>();
+        for (SpecificationChange change : changes) {
+            var history = change.history();
+            if (conflicts.contains(history.getWhoficEntityIri())) {
+                continue;
+            }
+            if (change.isNewHistory()) {
+                snapshotService.updateSpecificationSnapshot(history);
+                if (!specificationsByIri.get(history.getWhoficEntityIri()).postcoordinationSpecifications().isEmpty()) {
+                    newRevisions.add(history);
                 }
-        );
+            } else {
+                List<PostCoordinationSpecificationRevision> storedRevisions = new ArrayList<>(history.getPostCoordinationRevisions());
+                storedRevisions.add(change.newRevision());
+                var updatedHistory = new EntityPostCoordinationHistory(history.getWhoficEntityIri(), history.getProjectId(), storedRevisions, history.getSpecificationCheckpoint(), history.getVersion() + 1);
+                snapshotService.updateSpecificationSnapshot(updatedHistory);
+                checkpointService.checkpointSpecificationHistoryIfNeeded(updatedHistory);
+                newRevisions.add(EntityPostCoordinationHistory.create(history.getWhoficEntityIri(), history.getProjectId(), List.of(change.newRevision())));
+            }
+        }
+        if (!newRevisions.isEmpty()) {
+            newRevisionsEventEmitter.emitNewRevisionsEventForSpecHistory(projectId, newRevisions, changeRequestId, commitMessage);
+        }
+
+        if (!conflicts.isEmpty()) {
+            LOGGER.info("{} of {} specifications were changed concurrently, adding them one by one", conflicts.size(), specificationsByIri.size());
+        }
+        conflicts.forEach(entityIri -> addSpecificationRevision(specificationsByIri.get(entityIri), userId, projectId, changeRequestId, commitMessage,
+                entityTypesByIri.getOrDefault(entityIri, List.of())));
     }
 
     public void addCustomScaleRevision(WhoficCustomScalesValues newScales,
@@ -239,35 +345,138 @@ public class PostCoordinationService {
                                        UserId userId,
                                        ChangeRequestId changeRequestId,
                                        String commitMessage) {
-        readWriteLock.executeWriteLock(() -> {
-                    var existingScaleHistoryOptional = this.repository.getExistingCustomScaleHistoryOrderedByRevision(newScales.whoficEntityIri(), projectId);
-                    existingScaleHistoryOptional.ifPresentOrElse(history -> {
-
-                                WhoficCustomScalesValues oldSpec = eventProcessor.processCustomScaleHistory(history);
-
-                                Set<PostCoordinationCustomScalesValueEvent> events = SpecificationToEventsMapper.createScaleEventsFromDiff(oldSpec, newScales);
-
-
-                                if (!events.isEmpty()) {
-                                    var newRevision = PostCoordinationCustomScalesRevision.create(userId, events, changeRequestId);
-                                    repository.addCustomScalesRevision(newScales.whoficEntityIri(), projectId, newRevision);
-                                    newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newScales.whoficEntityIri(), newRevision, changeRequestId, commitMessage);
-                                }
-                            }, () -> {
-                                var newHistory = createNewEntityCustomScalesHistory(newScales, projectId, userId, changeRequestId);
-                                var savedHistory = repository.saveNewCustomScalesHistory(newHistory);
-                                savedHistory.getPostCoordinationCustomScalesRevisions()
-                                        .stream()
-                                        .findFirst()
-                                        .ifPresent(revision -> {
-                                            if (!revision.postCoordinationEvents().isEmpty()) {
-                                                newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newScales.whoficEntityIri(), revision, changeRequestId, commitMessage);
-                                            }
-                                        });
-                            }
-                    );
+        optimisticWriteService.executeWithRetries(OptimisticWriteService.CUSTOM_SCALES_HISTORY, newScales.whoficEntityIri(),
+                () -> tryAddCustomScaleRevision(newScales, projectId, userId, changeRequestId, commitMessage));
+    }
+
+    private boolean tryAddCustomScaleRevision(WhoficCustomScalesValues newScales,
+                                              ProjectId projectId,
+                                              UserId userId,
+                                              ChangeRequestId changeRequestId,
+                                              String commitMessage) {
+        var existingScaleHistoryOptional = this.repository.getExistingCustomScaleHistoryOrderedByRevision(newScales.whoficEntityIri(), projectId);
+        if (existingScaleHistoryOptional.isPresent()) {
+            var history = existingScaleHistoryOptional.get();
+
+            WhoficCustomScalesValues oldSpec = eventProcessor.processCustomScaleHistory(history);
+
+            Set<PostCoordinationCustomScalesValueEvent> events = SpecificationToEventsMapper.createScaleEventsFromDiff(oldSpec, newScales);
+
+
+            if (!events.isEmpty()) {
+                var newRevision = PostCoordinationCustomScalesRevision.create(userId, events, changeRequestId);
+                if (!repository.addCustomScalesRevision(newScales.whoficEntityIri(), projectId, newRevision, history.getVersion())) {
+                    return false;
                 }
-        );
+                cacheInvalidationService.invalidateHistories(projectId, newScales.whoficEntityIri());
+                List<PostCoordinationCustomScalesRevision> storedRevisions = new ArrayList<>(history.getPostCoordinationCustomScalesRevisions());
+                storedRevisions.add(newRevision);
+                var updatedHistory = new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), storedRevisions, history.getCustomScalesCheckpoint(), history.getVersion() + 1);
+                snapshotService.updateCustomScalesSnapshot(updatedHistory);
+                checkpointService.checkpointCustomScalesHistoryIfNeeded(updatedHistory);
+                newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newScales.whoficEntityIri(), newRevision, changeRequestId, commitMessage);
+            }
+            return true;
+        }
+
+        var newHistory = createNewEntityCustomScalesHistory(newScales, projectId, userId, changeRequestId);
+        if (!repository.insertCustomScalesHistoryIfAbsent(newHistory)) {
+            return false;
+        }
+        cacheInvalidationService.invalidateHistories(projectId, newHistory.getWhoficEntityIri());
+        snapshotService.updateCustomScalesSnapshot(newHistory);
+        newHistory.getPostCoordinationCustomScalesRevisions()
+                .stream()
+                .findFirst()
+                .ifPresent(revision -> {
+                    if (!revision.postCoordinationEvents().isEmpty()) {
+                        newRevisionsEventEmitter.emitNewRevisionsEvent(projectId, newScales.whoficEntityIri(), revision, changeRequestId, commitMessage);
+                    }
+                });
+        return true;
+    }
+
+    /*
+       The custom scales counterpart of SpecificationChange.
+     */
+    private record CustomScalesChange(EntityCustomScalesValuesHistory history, PostCoordinationCustomScalesRevision newRevision) {
+
+        boolean isNewHistory() {
+            return newRevision == null;
+        }
+    }
+
+    /**
+     * Adds the custom scales of many entities, the same way {@link #addSpecificationRevisions} adds specifications:
+     * one query for the histories, the diffs in parallel, one bulk write for the revisions and the new histories and
+     * one new revisions event.
+     */
+    public void addCustomScaleRevisions(List<WhoficCustomScalesValues> newScales,
+                                        ProjectId projectId,
+                                        UserId userId,
+                                        ChangeRequestId changeRequestId,
+                                        String commitMessage) {
+        Map<String, WhoficCustomScalesValues> scalesByIri = new LinkedHashMap<>();
+        newScales.forEach(scales -> scalesByIri.put(scales.whoficEntityIri(), scales));
+        Map<String, EntityCustomScalesValuesHistory> histories = repository.getExistingCustomScaleHistoriesOrderedByRevision(projectId, scalesByIri.keySet());
+
+        List<CustomScalesChange> changes = scalesByIri.values().parallelStream()
+                .map(scales -> {
+                    var history = histories.get(scales.whoficEntityIri());
+                    if (history == null) {
+                        return new CustomScalesChange(createNewEntityCustomScalesHistory(scales, projectId, userId, changeRequestId), null);
+                    }
+                    WhoficCustomScalesValues oldSpec = eventProcessor.processCustomScaleHistory(history);
+                    Set<PostCoordinationCustomScalesValueEvent> events = SpecificationToEventsMapper.createScaleEventsFromDiff(oldSpec, scales);
+                    return events.isEmpty() ? null : new CustomScalesChange(history, PostCoordinationCustomScalesRevision.create(userId, events, changeRequestId));
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        Set<String> conflicts = repository.addCustomScalesRevisions(projectId,
+                changes.stream()
+                        .filter(change -> !change.isNewHistory())
+                        .map(change -> new RevisionStore.PendingRevision<>(change.history().getWhoficEntityIri(), change.newRevision(), change.history().getVersion()))
+                        .toList(),
+                changes.stream()
+                        .filter(CustomScalesChange::isNewHistory)
+                        .map(CustomScalesChange::history)
+                        .toList());
+        cacheInvalidationService.invalidateHistories(projectId, changes.stream()
+                .map(change -> change.history().getWhoficEntityIri())
+                .filter(entityIri -> !conflicts.contains(entityIri))
+                .toList());
+
+        List<EntityCustomScalesValuesHistory> newRevisions = new ArrayList<>();
+        for (CustomScalesChange change : changes) {
+            var history = change.history();
+            if (conflicts.contains(history.getWhoficEntityIri())) {
+                continue;
+            }
+            if (change.isNewHistory()) {
+                snapshotService.updateCustomScalesSnapshot(history);
+                history.getPostCoordinationCustomScalesRevisions()
+                        .stream()
+                        .findFirst()
+                        .filter(revision -> !revision.postCoordinationEvents().isEmpty())
+                        .ifPresent(revision -> newRevisions.add(history));
+            } else {
+                List<PostCoordinationCustomScalesRevision> storedRevisions = new ArrayList<>(history.getPostCoordinationCustomScalesRevisions());
+                storedRevisions.add(change.newRevision());
+                var updatedHistory = new EntityCustomScalesValuesHistory(history.getWhoficEntityIri(), history.getProjectId(), storedRevisions, history.getCustomScalesCheckpoint(), history.getVersion() + 1);
+                snapshotService.updateCustomScalesSnapshot(updatedHistory);
+                checkpointService.checkpointCustomScalesHistoryIfNeeded(updatedHistory);
+                newRevisions.add(EntityCustomScalesValuesHistory.create(history.getWhoficEntityIri(), history.getProjectId(), List.of(change.newRevision())));
+            }
+        }
+        if (!newRevisions.isEmpty()) {
+            newRevisionsEventEmitter.emitNewRevisionsEventForScaleHistory(projectId, newRevisions, changeRequestId, commitMessage);
+        }
+
+        if (!conflicts.isEmpty()) {
+            LOGGER.info("{} of {} custom scales were changed concurrently, adding them one by one", conflicts.size(), scalesByIri.size());
+        }
+        conflicts.forEach(entityIri -> addCustomScaleRevision(scalesByIri.get(entityIri), projectId, userId, changeRequestId, commitMessage));
     }
 
     private EntityCustomScalesValuesHistory createNewEntityCustomScalesHistory(WhoficCustomScalesValues newScales,
@@ -283,21 +492,10 @@ public class PostCoordinationService {
     private EntityPostCoordinationHistory createNewSpecificationHistory(WhoficEntityPostCoordinationSpecification newSpec,
                                                                         ProjectId projectId,
                                                                         UserId userId,
-                                                                        ChangeRequestId changeRequestId) {
-        List<LinearizationDefinition> definitionList = linearizationService.getLinearizationDefinitions();
-        List<TableConfiguration> configurations = configRepository.getALlTableConfiguration();
-        List<String> entityTypes;
-        try {
-            entityTypes = entityTypeExecutor.execute(new GetIcatxEntityTypeRequest(IRI.create(newSpec.whoficEntityIri()), projectId), new ExecutionContext(userId, "", CorrelationMDCUtil.getCorrelationId()))
-                    .get(15, TimeUnit.SECONDS).icatxEntityTypes();
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            throw new MessageProcessingException("Error fetching entity types", e);
-        }
-        var defaultRevision = PostCoordinationSpecificationRevision.createDefaultInitialRevision(entityTypes,
-                definitionList,
-                configurations);
-
-        WhoficEntityPostCoordinationSpecification defaultSpec = eventProcessor.processHistory(new EntityPostCoordinationHistory(newSpec.whoficEntityIri(), projectId.id(), Arrays.asList(defaultRevision)));
+                                                                        ChangeRequestId changeRequestId,
+                                                                        List<String> entityTypes) {
+        WhoficEntityPostCoordinationSpecification defaultSpec = eventProcessor.processHistory(new EntityPostCoordinationHistory(newSpec.whoficEntityIri(), projectId.id(), List.of()),
+                configSnapshotService.getSnapshot().getDefaultSpecifications(entityTypes));
         Set<PostCoordinationViewEvent> specEvents = SpecificationToEventsMapper.createEventsFromDiff(defaultSpec, newSpec);
         if(specEvents.isEmpty()) {
             return null;
@@ -306,66 +504,169 @@ public class PostCoordinationService {
         return EntityPostCoordinationHistory.create(newSpec.whoficEntityIri(), projectId.id(), List.of(newRevision));
     }
 
-    public GetEntityCustomScaleValueResponse fetchCustomScalesHistory(String entityIri, ProjectId projectId, ExecutionContext executionContext) {
-        List<TableConfiguration> configurations = configRepository.getALlTableConfiguration();
-
-        try {
-            List<String> entityTypes = entityTypeExecutor.execute(new GetIcatxEntityTypeRequest(IRI.create(entityIri), projectId), executionContext)
-                    .get(15, TimeUnit.SECONDS).icatxEntityTypes();
-            return this.repository.getExistingCustomScaleHistoryOrderedByRevision(entityIri, projectId)
-                    .map(history -> {
-                        Date lastRevisionDate = null;
-                        if (!history.getPostCoordinationCustomScalesRevisions().isEmpty()) {
-                            long lastRevisionTimestamp = history.getPostCoordinationCustomScalesRevisions().get(history.getPostCoordinationCustomScalesRevisions().size() - 1).timestamp();
-                            lastRevisionDate = Date.from(Instant.ofEpochMilli(lastRevisionTimestamp));
-                        }
-                        WhoficCustomScalesValues scales = eventProcessor.processCustomScaleHistory(history);
-                        Set<String> postCoordinationAxis = configurations.stream()
-                                .filter(config -> entityTypes.contains(config.getEntityType()))
-                                .flatMap(config -> {
-                                        List<String> axes = new ArrayList<>(List.copyOf(config.getPostCoordinationAxes()));
-                                        axes.addAll(config.getCompositePostCoordinationAxes()
-                                                .stream().flatMap(c -> c.getSubAxis().stream()).toList());
-
-                                        return axes.stream();
-                                        }
-                                        )
-                                .collect(Collectors.toSet());
-                        return new GetEntityCustomScaleValueResponse(lastRevisionDate, filterExtraAxis(scales, postCoordinationAxis));
-                    })
-                    .orElseGet(() -> new GetEntityCustomScaleValueResponse(null, new WhoficCustomScalesValues(entityIri, Collections.emptyList())));
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            LOGGER.error("Error fetching entity types", e);
-            throw new MessageProcessingException("Error fetching entity types", e);
+    public GetEntityCustomScaleValueResponse fetchCustomScalesHistory(String entityIri, ProjectId projectId, List<String> entityTypes) {
+        Set<String> postCoordinationAxis = configSnapshotService.getSnapshot().getAxesWithSubAxes(entityTypes);
+
+        var cached = processedCache.getCustomScales(projectId, entityIri);
+        if (cached.isPresent()) {
+            return customScalesResponse(postCoordinationAxis, cached.get());
+        }
+        long stamp = processedCache.stamp(projectId, entityIri);
+        var processedCustomScales = processedCustomScales(entityIri, !historyMembership.mightHaveHistory(projectId, entityIri)
+                ? Optional.empty()
+                : snapshotService.findCustomScalesSnapshot(entityIri, projectId)
+                .or(() -> this.repository.getExistingCustomScaleHistoryOrderedByRevision(entityIri, projectId)
+                        .map(history -> {
+                            LOGGER.debug("Custom scales snapshot for {} is missing or stale, replaying the history", entityIri);
+                            return snapshotService.updateCustomScalesSnapshot(history);
+                        })));
+        processedCache.putCustomScales(projectId, entityIri, processedCustomScales, stamp);
+        return customScalesResponse(postCoordinationAxis, processedCustomScales);
+    }
+
+    /**
+     * The custom scales of many entities of one project, in the order of {@code entityIris}. The histories and the
+     * snapshots of the entities that are not cached are read with one query each, and the histories without an up to
+     * date snapshot are replayed. The entities that have no history for sure are not looked up. The allowed axes are
+     * computed once per set of entity types.
+     */
+    public List<GetEntityCustomScaleValueResponse> fetchCustomScalesHistories(List<String> entityIris, ProjectId projectId, Map<String, List<String>> entityTypesByIri) {
+        var configSnapshot = configSnapshotService.getSnapshot();
+        Map<String, ProcessedSpecificationCache.ProcessedCustomScales> processed = new HashMap<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (String entityIri : entityIris) {
+            processedCache.getCustomScales(projectId, entityIri)
+                    .ifPresentOrElse(cached -> processed.put(entityIri, cached),
+                            () -> stamps.put(entityIri, processedCache.stamp(projectId, entityIri)));
         }
+        if (!stamps.isEmpty()) {
+            List<String> withPossibleHistory = stamps.keySet().stream().filter(entityIri -> historyMembership.mightHaveHistory(projectId, entityIri)).toList();
+            Map<String, EntityCustomScalesValuesHistory> histories = withPossibleHistory.isEmpty() ? Map.of() : repository.getExistingCustomScaleHistoriesOrderedByRevision(projectId, withPossibleHistory);
+            Map<String, EntityCustomScalesValuesSnapshot> snapshots = histories.isEmpty() ? Map.of() : snapshotService.findCustomScalesSnapshots(projectId, histories);
+            stamps.forEach((entityIri, stamp) -> {
+                Optional<EntityCustomScalesValuesSnapshot> snapshot = Optional.ofNullable(snapshots.get(entityIri))
+                        .or(() -> Optional.ofNullable(histories.get(entityIri))
+                                .map(history -> {
+                                    LOGGER.debug("Custom scales snapshot for {} is missing or stale, replaying the history", entityIri);
+                                    return snapshotService.updateCustomScalesSnapshot(history);
+                                }));
+                var processedCustomScales = processedCustomScales(entityIri, snapshot);
+                processedCache.putCustomScales(projectId, entityIri, processedCustomScales, stamp);
+                processed.put(entityIri, processedCustomScales);
+            });
+        }
+
+        Map<List<String>, Set<String>> axesByEntityTypes = new HashMap<>();
+        List<GetEntityCustomScaleValueResponse> responses = new ArrayList<>(entityIris.size());
+        for (String entityIri : entityIris) {
+            Set<String> postCoordinationAxis = axesByEntityTypes.computeIfAbsent(entityTypesByIri.getOrDefault(entityIri, List.of()), configSnapshot::getAxesWithSubAxes);
+            responses.add(customScalesResponse(postCoordinationAxis, processed.get(entityIri)));
+        }
+        return responses;
+    }
+
+    private ProcessedSpecificationCache.ProcessedCustomScales processedCustomScales(String entityIri, Optional<EntityCustomScalesValuesSnapshot> snapshot) {
+        return snapshot
+                .map(existingSnapshot -> new ProcessedSpecificationCache.ProcessedCustomScales(existingSnapshot.getLastRevisionTimestamp(), existingSnapshot.toCustomScalesValues()))
+                .orElseGet(() -> new ProcessedSpecificationCache.ProcessedCustomScales(null, new WhoficCustomScalesValues(entityIri, Collections.emptyList())));
+    }
+
+    private GetEntityCustomScaleValueResponse customScalesResponse(Set<String> postCoordinationAxis, ProcessedSpecificationCache.ProcessedCustomScales processedCustomScales) {
+        Long lastRevisionTimestamp = processedCustomScales.lastRevisionTimestamp();
+        Date lastRevisionDate = lastRevisionTimestamp != null ? Date.from(Instant.ofEpochMilli(lastRevisionTimestamp)) : null;
+        return new GetEntityCustomScaleValueResponse(lastRevisionDate, filterExtraAxis(processedCustomScales.customScales(), postCoordinationAxis));
     }
 
     public GetEntityPostCoordinationResponse fetchHistory(String entityIri, ProjectId projectId, List<String> entityTypes) {
-        List<LinearizationDefinition> definitionList = linearizationService.getLinearizationDefinitions();
-        List<TableConfiguration> configurations = configRepository.getALlTableConfiguration();
-        Set<String> postCoordinationAxis = configurations.stream()
-                .filter(config -> entityTypes.contains(config.getEntityType()))
-                .flatMap(config -> config.getPostCoordinationAxes().stream())
-                .collect(Collectors.toSet());
-
-        return this.repository.getExistingHistoryOrderedByRevision(entityIri, projectId)
-                .map(history -> {
-                            history.getPostCoordinationRevisions().add(0, PostCoordinationSpecificationRevision.createDefaultInitialRevision(
-                                    entityTypes,
-                                    definitionList,
-                                    configurations));
+        var configSnapshot = configSnapshotService.getSnapshot();
+
+        var cached = processedCache.getSpecification(projectId, entityIri, entityTypes, configSnapshot.getVersion());
+        if (cached.isPresent()) {
+            return new GetEntityPostCoordinationResponse(entityIri, cached.get());
+        }
+        long stamp = processedCache.stamp(projectId, entityIri);
+        var response = historyMembership.mightHaveHistory(projectId, entityIri)
+                ? responseFromStore(entityIri, projectId, entityTypes, configSnapshot)
+                : responseFromHistory(entityIri, projectId, entityTypes, configSnapshot, Optional.empty());
+        processedCache.putSpecification(projectId, entityIri, entityTypes, configSnapshot.getVersion(), response.postCoordinationSpecification(), stamp);
+        return response;
+    }
 
-                            return new GetEntityPostCoordinationResponse(entityIri, filterExtraSpecifications(postCoordinationAxis, eventProcessor.processHistory(history)));
+    /**
+     * The specifications of many entities of one project, in the order of {@code entityIris}. The histories and the
+     * snapshots of the entities that are not cached and may have a history are read with one query each, then every
+     * entity is answered like {@link #fetchHistory} would. An entity listed twice is answered twice.
+     *
+     * @param entityTypesByIri the types of every entity, an entity without types gets no default revision.
+     */
+    public List<GetEntityPostCoordinationResponse> fetchHistories(List<String> entityIris, ProjectId projectId, Map<String, List<String>> entityTypesByIri) {
+        var configSnapshot = configSnapshotService.getSnapshot();
+        Map<String, GetEntityPostCoordinationResponse> cachedResponses = new HashMap<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (String entityIri : entityIris) {
+            processedCache.getSpecification(projectId, entityIri, entityTypesByIri.getOrDefault(entityIri, List.of()), configSnapshot.getVersion())
+                    .ifPresentOrElse(cached -> cachedResponses.put(entityIri, new GetEntityPostCoordinationResponse(entityIri, cached)),
+                            () -> stamps.put(entityIri, processedCache.stamp(projectId, entityIri)));
+        }
+        List<String> withPossibleHistory = stamps.keySet().stream().filter(entityIri -> historyMembership.mightHaveHistory(projectId, entityIri)).toList();
+        Map<String, EntityPostCoordinationHistory> histories = withPossibleHistory.isEmpty() ? Map.of() : repository.getExistingHistoriesOrderedByRevision(projectId, withPossibleHistory);
+        Map<String, EntityPostCoordinationSnapshot> snapshots = histories.isEmpty() ? Map.of() : snapshotService.findSpecificationSnapshots(projectId, histories);
+
+        List<GetEntityPostCoordinationResponse> responses = new ArrayList<>(entityIris.size());
+        for (String entityIri : entityIris) {
+            var cachedResponse = cachedResponses.get(entityIri);
+            if (cachedResponse != null) {
+                responses.add(cachedResponse);
+                continue;
+            }
+            List<String> entityTypes = entityTypesByIri.getOrDefault(entityIri, List.of());
+            EntityPostCoordinationSnapshot snapshot = snapshots.get(entityIri);
+            var response = snapshot != null
+                    ? responseFromSnapshot(entityIri, projectId, entityTypes, configSnapshot, snapshot)
+                    : responseFromHistory(entityIri, projectId, entityTypes, configSnapshot, Optional.ofNullable(histories.get(entityIri)));
+            processedCache.putSpecification(projectId, entityIri, entityTypes, configSnapshot.getVersion(), response.postCoordinationSpecification(), stamps.get(entityIri));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private GetEntityPostCoordinationResponse responseFromStore(String entityIri, ProjectId projectId, List<String> entityTypes,
+                                                                PostCoordinationConfigSnapshot configSnapshot) {
+        var snapshot = snapshotService.findSpecificationSnapshot(entityIri, projectId);
+        return snapshot.isPresent()
+                ? responseFromSnapshot(entityIri, projectId, entityTypes, configSnapshot, snapshot.get())
+                : responseFromHistory(entityIri, projectId, entityTypes, configSnapshot, this.repository.getExistingHistoryOrderedByRevision(entityIri, projectId));
+    }
+
+    private GetEntityPostCoordinationResponse responseFromSnapshot(String entityIri, ProjectId projectId, List<String> entityTypes,
+                                                                   PostCoordinationConfigSnapshot configSnapshot,
+                                                                   EntityPostCoordinationSnapshot snapshot) {
+        Set<String> postCoordinationAxis = configSnapshot.getAxes(entityTypes);
+        var history = new EntityPostCoordinationHistory(entityIri, projectId.id(), List.of(snapshot.toRevision()));
+        return new GetEntityPostCoordinationResponse(entityIri, filterExtraSpecifications(postCoordinationAxis,
+                eventProcessor.processHistory(history, configSnapshot.getDefaultSpecifications(entityTypes))));
+    }
+
+    private GetEntityPostCoordinationResponse responseFromHistory(String entityIri, ProjectId projectId, List<String> entityTypes,
+                                                                  PostCoordinationConfigSnapshot configSnapshot,
+                                                                  Optional<EntityPostCoordinationHistory> existingHistory) {
+        List<PostCoordinationSpecification> defaultSpecifications = configSnapshot.getDefaultSpecifications(entityTypes);
+        Set<String> postCoordinationAxis = configSnapshot.getAxes(entityTypes);
+
+        return existingHistory
+                .map(history -> {
+                            LOGGER.debug("Specification snapshot for {} is missing or stale, replaying the history", entityIri);
+                            snapshotService.updateSpecificationSnapshot(history);
+                            var replayedHistory = new EntityPostCoordinationHistory(entityIri, projectId.id(), eventProcessor.revisionsFromNewestCheckpoint(history));
+                            return new GetEntityPostCoordinationResponse(entityIri, filterExtraSpecifications(postCoordinationAxis, eventProcessor.processHistory(replayedHistory, defaultSpecifications)));
                         }
                 )
                 .orElseGet(() -> {
-                    var specs = Arrays.asList(PostCoordinationSpecificationRevision.createDefaultInitialRevision(entityTypes, definitionList, configurations));
-                    var history = new EntityPostCoordinationHistory(entityIri, projectId.id(), specs);
-                    return new GetEntityPostCoordinationResponse(entityIri, filterExtraSpecifications(postCoordinationAxis, eventProcessor.processHistory(history)));
+                    var history = new EntityPostCoordinationHistory(entityIri, projectId.id(), List.of());
+                    return new GetEntityPostCoordinationResponse(entityIri, filterExtraSpecifications(postCoordinationAxis, eventProcessor.processHistory(history, defaultSpecifications)));
                 });
     }
 
-
     private WhoficCustomScalesValues filterExtraAxis(WhoficCustomScalesValues rawCustomScales, Set<String> allowedPostCoordAxis) {
         List<PostCoordinationScaleCustomization> filteredScales = rawCustomScales.scaleCustomizations().stream().filter(rawCustomization ->
                 allowedPostCoordAxis.contains(rawCustomization.getPostcoordinationAxis())
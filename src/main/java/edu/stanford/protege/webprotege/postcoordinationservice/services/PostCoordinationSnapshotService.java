@@ -0,0 +1,92 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Keeps the materialized {@link EntityPostCoordinationSnapshot} and {@link EntityCustomScalesValuesSnapshot}
+ * in line with the stored histories. The specification snapshot is the fold of the stored revisions only.
+ * The default initial revision is applied when reading.
+ */
+@Service
+public class PostCoordinationSnapshotService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(PostCoordinationSnapshotService.class);
+
+    private final PostCoordinationRepository repository;
+
+    private final PostCoordinationEventProcessor eventProcessor;
+
+    public PostCoordinationSnapshotService(PostCoordinationRepository repository,
+                                           PostCoordinationEventProcessor eventProcessor) {
+        this.repository = repository;
+        this.eventProcessor = eventProcessor;
+    }
+
+    public Optional<EntityPostCoordinationSnapshot> findSpecificationSnapshot(String entityIri, ProjectId projectId) {
+        return repository.findUpToDateSpecificationSnapshot(entityIri, projectId);
+    }
+
+    /**
+     * The snapshots of the histories that still match them, by entity IRI.
+     */
+    public Map<String, EntityPostCoordinationSnapshot> findSpecificationSnapshots(ProjectId projectId, Map<String, EntityPostCoordinationHistory> historiesByIri) {
+        Map<String, EntityPostCoordinationSnapshot> snapshots = new HashMap<>(repository.findSpecificationSnapshots(projectId, historiesByIri.keySet()));
+        snapshots.entrySet().removeIf(entry -> !entry.getValue().isUpToDate(historiesByIri.get(entry.getKey())));
+        return snapshots;
+    }
+
+    /**
+     * @param storedHistory the history exactly as it is persisted, without the synthetic default revision.
+     */
+    public EntityPostCoordinationSnapshot updateSpecificationSnapshot(EntityPostCoordinationHistory storedHistory) {
+        var snapshot = EntityPostCoordinationSnapshot.create(storedHistory, eventProcessor.processStoredHistory(storedHistory));
+        repository.saveSpecificationSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Rebuilds the snapshot from the persisted history. It is used after the history was changed without
+     * going through the revision write path, for example when a revision is rolled back.
+     */
+    public void refreshSpecificationSnapshot(String entityIri, ProjectId projectId) {
+        repository.getExistingHistoryOrderedByRevision(entityIri, projectId)
+                .ifPresentOrElse(this::updateSpecificationSnapshot,
+                        () -> LOGGER.debug("No specification history for {} in project {}, snapshot not refreshed", entityIri, projectId));
+    }
+
+    public Optional<EntityCustomScalesValuesSnapshot> findCustomScalesSnapshot(String entityIri, ProjectId projectId) {
+        return repository.findUpToDateCustomScalesSnapshot(entityIri, projectId);
+    }
+
+    /**
+     * The snapshots of the histories that still match them, by entity IRI.
+     */
+    public Map<String, EntityCustomScalesValuesSnapshot> findCustomScalesSnapshots(ProjectId projectId, Map<String, EntityCustomScalesValuesHistory> historiesByIri) {
+        Map<String, EntityCustomScalesValuesSnapshot> snapshots = new HashMap<>(repository.findCustomScalesSnapshots(projectId, historiesByIri.keySet()));
+        snapshots.entrySet().removeIf(entry -> !entry.getValue().isUpToDate(historiesByIri.get(entry.getKey())));
+        return snapshots;
+    }
+
+    public EntityCustomScalesValuesSnapshot createCustomScalesSnapshot(EntityCustomScalesValuesHistory storedHistory) {
+        return EntityCustomScalesValuesSnapshot.create(storedHistory, eventProcessor.processCustomScaleHistory(storedHistory));
+    }
+
+    public EntityCustomScalesValuesSnapshot updateCustomScalesSnapshot(EntityCustomScalesValuesHistory storedHistory) {
+        var snapshot = createCustomScalesSnapshot(storedHistory);
+        repository.saveCustomScalesSnapshot(snapshot);
+        return snapshot;
+    }
+
+    public void refreshCustomScalesSnapshot(String entityIri, ProjectId projectId) {
+        repository.getExistingCustomScaleHistoryOrderedByRevision(entityIri, projectId)
+                .ifPresentOrElse(this::updateCustomScalesSnapshot,
+                        () -> LOGGER.debug("No custom scales history for {} in project {}, snapshot not refreshed", entityIri, projectId));
+    }
+}
@@ -0,0 +1,237 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.github.benmanes.caffeine.cache.*;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ProcessedSpecificationCacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationScaleCustomization;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficCustomScalesValues;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the replayed specifications and custom scales of the entities that were read recently, by project and entity.
+ * Both caches are bounded by an estimate of the memory their entries take. The entries also expire after the configured
+ * time, so a value that a missed invalidation left behind is not served for longer than that.
+ * <p>
+ * Every write of a history invalidates the entities it changed before it returns. A reader that missed the cache
+ * takes a {@link #stamp} before it reads the store and hands it back with the value it built. The value is dropped
+ * when an invalidation of the entity happened in between, so a value read before a write can't be cached after it.
+ * The writes of the other instances only invalidate the entries here once their broadcast arrives, until then the
+ * value from before the write is served.
+ * <p>
+ * The hits, misses and evictions are published as the {@value #SPECIFICATIONS_CACHE_NAME} and
+ * {@value #CUSTOM_SCALES_CACHE_NAME} cache metrics, and the estimated size in bytes as the {@value #SIZE_GAUGE} gauge.
+ */
+@Service
+public class ProcessedSpecificationCache {
+
+    public static final String SPECIFICATIONS_CACHE_NAME = "processedSpecifications";
+
+    public static final String CUSTOM_SCALES_CACHE_NAME = "processedCustomScales";
+
+    public static final String SIZE_GAUGE = "postcoordination.processedcache.size.bytes";
+
+    private static final int STAMP_STRIPES = 1024;
+
+    private static final int OBJECT_OVERHEAD = 16;
+
+    private static final int REFERENCE_SIZE = 8;
+
+    record CacheKey(String projectId, String entityIri) {
+    }
+
+    /*
+     * The specification is filtered by the axes of the entity types, and the default revision depends on them and
+     * on the configuration, so an entry is only used for the same types and configuration version.
+     */
+    private record SpecificationEntry(List<String> entityTypes,
+                                      long configVersion,
+                                      WhoficEntityPostCoordinationSpecification specification) {
+    }
+
+    /**
+     * The custom scales of an entity before they are filtered by the axes of its entity types.
+     *
+     * @param lastRevisionTimestamp null when the entity has no custom scales history.
+     */
+    public record ProcessedCustomScales(Long lastRevisionTimestamp, WhoficCustomScalesValues customScales) {
+    }
+
+    private final boolean enabled;
+
+    private final Cache<CacheKey, SpecificationEntry> specifications;
+
+    private final Cache<CacheKey, ProcessedCustomScales> customScales;
+
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    public ProcessedSpecificationCache(ProcessedSpecificationCacheConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.specifications = Caffeine.newBuilder()
+                .maximumWeight(config.getSpecificationsMaximumSizeInBytes())
+                .weigher((CacheKey key, SpecificationEntry entry) -> sizeOf(key) + sizeOf(entry))
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.customScales = Caffeine.newBuilder()
+                .maximumWeight(config.getCustomScalesMaximumSizeInBytes())
+                .weigher((CacheKey key, ProcessedCustomScales entry) -> sizeOf(key) + sizeOf(entry.customScales()))
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, specifications, SPECIFICATIONS_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, customScales, CUSTOM_SCALES_CACHE_NAME);
+        Gauge.builder(SIZE_GAUGE, specifications, ProcessedSpecificationCache::weightedSize)
+                .description("Estimated memory taken by the cached entries")
+                .tag("cache", SPECIFICATIONS_CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(SIZE_GAUGE, customScales, ProcessedSpecificationCache::weightedSize)
+                .description("Estimated memory taken by the cached entries")
+                .tag("cache", CUSTOM_SCALES_CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Taken by a reader before it reads the history of the entity from the store.
+     */
+    public long stamp(ProjectId projectId, String entityIri) {
+        return stamps.get(stripe(new CacheKey(projectId.id(), entityIri)));
+    }
+
+    public Optional<WhoficEntityPostCoordinationSpecification> getSpecification(ProjectId projectId, String entityIri, List<String> entityTypes, long configVersion) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(specifications.getIfPresent(new CacheKey(projectId.id(), entityIri)))
+                .filter(entry -> entry.configVersion() == configVersion && entry.entityTypes().equals(entityTypes))
+                .map(SpecificationEntry::specification);
+    }
+
+    public void putSpecification(ProjectId projectId, String entityIri, List<String> entityTypes, long configVersion,
+                                 WhoficEntityPostCoordinationSpecification specification, long stamp) {
+        if (enabled) {
+            putIfNotInvalidated(specifications, new CacheKey(projectId.id(), entityIri), new SpecificationEntry(List.copyOf(entityTypes), configVersion, specification), stamp);
+        }
+    }
+
+    public Optional<ProcessedCustomScales> getCustomScales(ProjectId projectId, String entityIri) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(customScales.getIfPresent(new CacheKey(projectId.id(), entityIri)));
+    }
+
+    public void putCustomScales(ProjectId projectId, String entityIri, ProcessedCustomScales processedCustomScales, long stamp) {
+        if (enabled) {
+            putIfNotInvalidated(customScales, new CacheKey(projectId.id(), entityIri), processedCustomScales, stamp);
+        }
+    }
+
+    /**
+     * Drops the specifications and the custom scales of the entities. Called once their histories were written.
+     */
+    public void invalidate(ProjectId projectId, Collection<String> entityIris) {
+        for (String entityIri : entityIris) {
+            invalidate(new CacheKey(projectId.id(), entityIri));
+        }
+    }
+
+    public void invalidate(ProjectId projectId, String entityIri) {
+        invalidate(new CacheKey(projectId.id(), entityIri));
+    }
+
+    /**
+     * Drops every entry, used when this instance can't tell which entities were written.
+     */
+    public void invalidateAll() {
+        for (int stripe = 0; stripe < STAMP_STRIPES; stripe++) {
+            stamps.incrementAndGet(stripe);
+        }
+        specifications.invalidateAll();
+        customScales.invalidateAll();
+    }
+
+    /*
+     * The stamp is moved before the entry is dropped: a reader that put its value after the entry was dropped then
+     * sees the new stamp and drops the value again.
+     */
+    private void invalidate(CacheKey key) {
+        stamps.incrementAndGet(stripe(key));
+        specifications.invalidate(key);
+        customScales.invalidate(key);
+    }
+
+    private <V> void putIfNotInvalidated(Cache<CacheKey, V> cache, CacheKey key, V value, long stamp) {
+        int stripe = stripe(key);
+        if (stamps.get(stripe) != stamp) {
+            return;
+        }
+        cache.put(key, value);
+        if (stamps.get(stripe) != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    private static int stripe(CacheKey key) {
+        return Math.floorMod(key.hashCode(), STAMP_STRIPES);
+    }
+
+    private static long weightedSize(Cache<?, ?> cache) {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    /*
+     * Rough estimates of the retained size, good enough to bound the caches. The strings are counted as compact
+     * strings and as if they were not shared with other entries.
+     */
+    private static int sizeOf(CacheKey key) {
+        return OBJECT_OVERHEAD + 2 * REFERENCE_SIZE + sizeOf(key.projectId()) + sizeOf(key.entityIri());
+    }
+
+    private static int sizeOf(SpecificationEntry entry) {
+        WhoficEntityPostCoordinationSpecification specification = entry.specification();
+        int size = OBJECT_OVERHEAD + 3 * REFERENCE_SIZE + sizeOf(entry.entityTypes())
+                + OBJECT_OVERHEAD + 3 * REFERENCE_SIZE + sizeOf(specification.whoficEntityIri()) + sizeOf(specification.entityType());
+        for (PostCoordinationSpecification postCoordinationSpecification : specification.postcoordinationSpecifications()) {
+            size += REFERENCE_SIZE + OBJECT_OVERHEAD + 5 * REFERENCE_SIZE
+                    + sizeOf(postCoordinationSpecification.getLinearizationView())
+                    + sizeOf(postCoordinationSpecification.getAllowedAxes())
+                    + sizeOf(postCoordinationSpecification.getDefaultAxes())
+                    + sizeOf(postCoordinationSpecification.getNotAllowedAxes())
+                    + sizeOf(postCoordinationSpecification.getRequiredAxes());
+        }
+        return size;
+    }
+
+    private static int sizeOf(WhoficCustomScalesValues scales) {
+        int size = 2 * OBJECT_OVERHEAD + 4 * REFERENCE_SIZE + sizeOf(scales.whoficEntityIri());
+        for (PostCoordinationScaleCustomization customization : scales.scaleCustomizations()) {
+            size += REFERENCE_SIZE + OBJECT_OVERHEAD + 2 * REFERENCE_SIZE
+                    + sizeOf(customization.getPostcoordinationAxis())
+                    + sizeOf(customization.getPostcoordinationScaleValues());
+        }
+        return size;
+    }
+
+    private static int sizeOf(List<String> values) {
+        int size = OBJECT_OVERHEAD + REFERENCE_SIZE;
+        for (String value : values) {
+            size += REFERENCE_SIZE + sizeOf(value);
+        }
+        return size;
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : 2 * OBJECT_OVERHEAD + value.length();
+    }
+}
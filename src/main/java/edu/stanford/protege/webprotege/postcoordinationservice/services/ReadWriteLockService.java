@@ -1,11 +1,33 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.services;
 
+import edu.stanford.protege.webprotege.common.ProjectId;
+
 import java.util.concurrent.Callable;
 
+/**
+ * Implementations wait on {@link java.util.concurrent.locks.Lock}s and never on monitors, so a virtual thread
+ * that waits for a lock, or does I/O while holding one, does not pin its carrier thread.
+ */
 public interface ReadWriteLockService {
     <T> T executeReadLock(Callable<T> readOperation);
 
     <T> T executeWriteLock(Callable<T> writeOperation);
 
     void executeWriteLock(Runnable writeOperation);
+
+    /**
+     * Runs the operation while holding the read lock of a single entity. Implementations that do not
+     * lock per entity fall back to the service wide read lock.
+     */
+    default <T> T executeReadLock(ProjectId projectId, String entityIri, Callable<T> readOperation) {
+        return executeReadLock(readOperation);
+    }
+
+    default <T> T executeWriteLock(ProjectId projectId, String entityIri, Callable<T> writeOperation) {
+        return executeWriteLock(writeOperation);
+    }
+
+    default void executeWriteLock(ProjectId projectId, String entityIri, Runnable writeOperation) {
+        executeWriteLock(writeOperation);
+    }
 }
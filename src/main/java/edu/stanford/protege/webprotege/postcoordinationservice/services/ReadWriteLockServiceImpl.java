@@ -1,12 +1,14 @@
 package edu.stanford.protege.webprotege.postcoordinationservice.services;
 
 import edu.stanford.protege.webprotege.postcoordinationservice.config.ReadWriteLockConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.*;
 import java.util.concurrent.locks.*;
 
 @Service
+@ConditionalOnProperty(name = "webprotege.readWriteLock.mode", havingValue = "global", matchIfMissing = true)
 public class ReadWriteLockServiceImpl implements ReadWriteLockService{
 
     private final ReadWriteLockConfig config;
@@ -75,6 +77,10 @@ public class ReadWriteLockServiceImpl implements ReadWriteLockService{
                         throw new RuntimeException("Operation failed after " + maxRetries + " attempts", e);
                     }
                 } else {
+                    if (e instanceof InterruptedException) {
+                        // restore the flag so that the executor running this thread still sees the interrupt
+                        Thread.currentThread().interrupt();
+                    }
                     throw new RuntimeException("Operation failed due to unexpected error", e);
                 }
             }
@@ -20,19 +20,40 @@ public class RevisionCommitService {
     private final static Logger LOGGER = LoggerFactory.getLogger(RevisionCommitService.class);
     private final PostCoordinationRepository postCoordinationRepository;
 
-    public RevisionCommitService(PostCoordinationRepository postCoordinationRepository) {
+    private final PostCoordinationSnapshotService snapshotService;
+
+    private final HistoryCheckpointService checkpointService;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    public RevisionCommitService(PostCoordinationRepository postCoordinationRepository,
+                                 PostCoordinationSnapshotService snapshotService,
+                                 HistoryCheckpointService checkpointService,
+                                 CacheInvalidationService cacheInvalidationService) {
         this.postCoordinationRepository = postCoordinationRepository;
+        this.snapshotService = snapshotService;
+        this.checkpointService = checkpointService;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
     @Transactional
     public void rollbackRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
         postCoordinationRepository.deletePostCoordinationCustomScalesRevision(changeRequestId, projectId, entityIri);
         postCoordinationRepository.deletePostCoordinationSpecificationRevision(changeRequestId, projectId, entityIri);
+        cacheInvalidationService.invalidateHistories(projectId, entityIri);
+        checkpointService.removeInvalidCheckpoints(entityIri, projectId);
+        snapshotService.refreshCustomScalesSnapshot(entityIri, projectId);
+        snapshotService.refreshSpecificationSnapshot(entityIri, projectId);
     }
 
 
+    /*
+     * Committing only flips the commit status of a revision, so the materialized snapshots stay valid. The processed
+     * values don't show the commit status either, they are only dropped so that no cached state outlives a write.
+     */
     public void commitRevision(ChangeRequestId changeRequestId, ProjectId projectId, String entityIri) {
         postCoordinationRepository.commitPostCoordinationSpecificationRevision(changeRequestId, projectId, entityIri);
         postCoordinationRepository.commitPostCoordinationCustomScalesRevision(changeRequestId, projectId, entityIri);
+        cacheInvalidationService.invalidateHistories(projectId, entityIri);
     }
 }
@@ -0,0 +1,94 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.RevisionStore.HistoryKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.function.*;
+
+/**
+ * Moves the revisions that are still embedded in the history documents to the revisions collections, one entity at a
+ * time under its write lock, while the service keeps serving requests. {@link RevisionCollectionStore} reads both
+ * until an entity is moved, so the migration can be stopped and restarted at any point.
+ */
+@Service
+@ConditionalOnProperty(name = RevisionStore.STORAGE_PROPERTY, havingValue = "collection")
+public class RevisionStorageMigrationService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RevisionStorageMigrationService.class);
+
+    private final RevisionCollectionStore revisionStore;
+
+    private final ReadWriteLockService readWriteLock;
+
+    private final RevisionStorageConfig config;
+
+    private final Scheduler blockingScheduler;
+
+    public RevisionStorageMigrationService(RevisionCollectionStore revisionStore,
+                                           ReadWriteLockService readWriteLock,
+                                           RevisionStorageConfig config,
+                                           @Qualifier(ReactiveExecutionConfig.BLOCKING_SCHEDULER) Scheduler blockingScheduler) {
+        this.revisionStore = revisionStore;
+        this.readWriteLock = readWriteLock;
+        this.config = config;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (config.isMigrateOnStartup()) {
+            blockingScheduler.schedule(() -> {
+                try {
+                    migrate();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Moving the embedded revisions to the revisions collections failed, it is resumed on the next start", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of histories whose revisions were moved.
+     */
+    public long migrate() {
+        long specifications = migrate("specification", revisionStore::findEmbeddedSpecificationHistories, revisionStore::migrateSpecificationHistory);
+        long customScales = migrate("custom scales", revisionStore::findEmbeddedCustomScalesHistories, revisionStore::migrateCustomScalesHistory);
+        return specifications + customScales;
+    }
+
+    private long migrate(String historyName, IntFunction<List<HistoryKey>> nextBatch, BiPredicate<String, String> migration) {
+        long migrated = 0;
+        long start = System.currentTimeMillis();
+        List<HistoryKey> batch = nextBatch.apply(config.getMigrationBatchSize());
+        while (!batch.isEmpty()) {
+            long migratedInBatch = 0;
+            for (HistoryKey key : batch) {
+                boolean moved = readWriteLock.executeWriteLock(ProjectId.valueOf(key.projectId()), key.entityIri(),
+                        () -> migration.test(key.entityIri(), key.projectId()));
+                if (moved) {
+                    migratedInBatch++;
+                }
+            }
+            migrated += migratedInBatch;
+            if (migratedInBatch == 0) {
+                // only histories that keep changing are left, they are moved on the next start
+                LOGGER.warn("Could not move the revisions of {} {} histories", batch.size(), historyName);
+                break;
+            }
+            batch = nextBatch.apply(config.getMigrationBatchSize());
+        }
+        LOGGER.info("Moved the revisions of {} {} histories to the revisions collection in {} ms", migrated, historyName, System.currentTimeMillis() - start);
+        return migrated;
+    }
+}
@@ -0,0 +1,193 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationViewEvent;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Folds specification events into one specification per linearization view, with the same result as applying every
+ * event to a {@link PostCoordinationSpecification} one after the other.
+ * <p>
+ * An event removes its axis from the four lists of the view and appends it to one of them, so every axis of a view is
+ * in one list only, at the position of the last event that moved it. The views are kept by their name ignoring the
+ * case, and hold the list of every axis in a map ordered by the last move, so an event costs two lookups instead of a
+ * search of the views and four list scans. The lists are only built by {@link #result()}.
+ * <p>
+ * Not thread-safe, a replay is used for one history.
+ */
+final class SpecificationReplay {
+
+    private enum AxisList {
+        ALLOWED, DEFAULT, NOT_ALLOWED, REQUIRED
+    }
+
+    private final Map<String, ViewAccumulator> viewsByName = new HashMap<>();
+
+    private final List<ViewAccumulator> views = new ArrayList<>();
+
+    SpecificationReplay(List<PostCoordinationSpecification> initialSpecifications) {
+        for (PostCoordinationSpecification specification : initialSpecifications) {
+            register(ViewAccumulator.of(specification));
+        }
+    }
+
+    /**
+     * @param axisFilter the events of the axes it rejects are skipped, null to apply all of them.
+     */
+    void apply(Collection<PostCoordinationViewEvent> viewEvents, Predicate<String> axisFilter) {
+        for (PostCoordinationViewEvent viewEvent : viewEvents) {
+            ViewAccumulator view = view(viewEvent.linearizationView());
+            for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                if (axisFilter == null || axisFilter.test(event.getPostCoordinationAxis())) {
+                    view.apply(event);
+                }
+            }
+        }
+    }
+
+    List<PostCoordinationSpecification> result() {
+        List<PostCoordinationSpecification> specifications = new ArrayList<>(views.size());
+        for (ViewAccumulator view : views) {
+            specifications.add(view.materialize());
+        }
+        return Collections.unmodifiableList(specifications);
+    }
+
+    /*
+     * A view without a name never matches another one, every event for it starts a new specification.
+     */
+    private ViewAccumulator view(String linearizationView) {
+        if (linearizationView != null) {
+            ViewAccumulator view = viewsByName.get(normalize(linearizationView));
+            if (view != null) {
+                return view;
+            }
+        }
+        return register(new ViewAccumulator(linearizationView));
+    }
+
+    private ViewAccumulator register(ViewAccumulator view) {
+        views.add(view);
+        if (view.linearizationView != null) {
+            viewsByName.putIfAbsent(normalize(view.linearizationView), view);
+        }
+        return view;
+    }
+
+    /*
+     * Two names are equal ignoring the case exactly when they are equal once every char is folded like
+     * String.equalsIgnoreCase folds it. The names are URIs, so the ASCII path is the one taken.
+     */
+    static String normalize(String linearizationView) {
+        for (int i = 0; i < linearizationView.length(); i++) {
+            char c = linearizationView.charAt(i);
+            if (c >= 128 || (c >= 'A' && c <= 'Z')) {
+                return fold(linearizationView, i);
+            }
+        }
+        return linearizationView;
+    }
+
+    private static String fold(String linearizationView, int from) {
+        char[] chars = linearizationView.toCharArray();
+        for (int i = from; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static final class ViewAccumulator {
+
+        private final String linearizationView;
+
+        private final LinkedHashMap<String, AxisList> axes;
+
+        /*
+         * Set when the view can't be held as one list per axis, e.g. an initial specification with an axis in two
+         * lists. The events are then applied to the lists themselves.
+         */
+        private PostCoordinationSpecification lists;
+
+        private ViewAccumulator(String linearizationView) {
+            this.linearizationView = linearizationView;
+            this.axes = new LinkedHashMap<>();
+        }
+
+        static ViewAccumulator of(PostCoordinationSpecification specification) {
+            ViewAccumulator view = new ViewAccumulator(specification.getLinearizationView());
+            boolean seeded = view.seed(specification.getAllowedAxes(), AxisList.ALLOWED)
+                    && view.seed(specification.getDefaultAxes(), AxisList.DEFAULT)
+                    && view.seed(specification.getNotAllowedAxes(), AxisList.NOT_ALLOWED)
+                    && view.seed(specification.getRequiredAxes(), AxisList.REQUIRED);
+            if (!seeded) {
+                view.axes.clear();
+                view.lists = new PostCoordinationSpecification(specification.getLinearizationView(),
+                        new ArrayList<>(specification.getAllowedAxes()),
+                        new ArrayList<>(specification.getDefaultAxes()),
+                        new ArrayList<>(specification.getNotAllowedAxes()),
+                        new ArrayList<>(specification.getRequiredAxes()));
+            }
+            return view;
+        }
+
+        private boolean seed(List<String> axisList, AxisList list) {
+            for (String axis : axisList) {
+                if (axes.putIfAbsent(axis, list) != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void apply(PostCoordinationSpecificationEvent event) {
+            if (lists != null) {
+                event.applyEvent(lists);
+                return;
+            }
+            AxisList list = listOf(event);
+            if (list == null) {
+                lists = materialize();
+                event.applyEvent(lists);
+                return;
+            }
+            // moved to the end, where the event appends it
+            axes.remove(event.getPostCoordinationAxis());
+            axes.put(event.getPostCoordinationAxis(), list);
+        }
+
+        private static AxisList listOf(PostCoordinationSpecificationEvent event) {
+            if (event instanceof AddToAllowedAxisEvent) {
+                return AxisList.ALLOWED;
+            } else if (event instanceof AddToDefaultAxisEvent) {
+                return AxisList.DEFAULT;
+            } else if (event instanceof AddToNotAllowedAxisEvent) {
+                return AxisList.NOT_ALLOWED;
+            } else if (event instanceof AddToRequiredAxisEvent) {
+                return AxisList.REQUIRED;
+            }
+            return null;
+        }
+
+        PostCoordinationSpecification materialize() {
+            if (lists != null) {
+                return lists;
+            }
+            List<String> allowed = new ArrayList<>();
+            List<String> defaults = new ArrayList<>();
+            List<String> notAllowed = new ArrayList<>();
+            List<String> required = new ArrayList<>();
+            axes.forEach((axis, list) -> {
+                switch (list) {
+                    case ALLOWED -> allowed.add(axis);
+                    case DEFAULT -> defaults.add(axis);
+                    case NOT_ALLOWED -> notAllowed.add(axis);
+                    case REQUIRED -> required.add(axis);
+                }
+            });
+            return new PostCoordinationSpecification(linearizationView, allowed, defaults, notAllowed, required);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReadWriteLockConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Locks per (projectId, entityIri) using a bounded table of read write lock stripes, so writers of different entities
+ * do not serialize each other. Every entity operation also holds the read side of a global lock. The operations that
+ * need the whole service, like the first imports and the bulk deletes, still use the global write lock through the
+ * key-less methods.
+ * <p>
+ * Nesting is allowed for the same entity, and for an entity operation inside a global write. A global write can't be
+ * started while holding an entity lock, because the global read lock can't be upgraded.
+ */
+@Service
+@ConditionalOnProperty(name = "webprotege.readWriteLock.mode", havingValue = "striped")
+public class StripedReadWriteLockServiceImpl implements ReadWriteLockService {
+
+    private final ReadWriteLockConfig config;
+
+    private final ReadWriteLock globalLock;
+
+    private final ReadWriteLock[] stripes;
+
+    public StripedReadWriteLockServiceImpl(ReadWriteLockConfig config, ReadWriteLock readWriteLock) {
+        this.config = config;
+        this.globalLock = readWriteLock;
+        int stripeCount = Integer.highestOneBit(Math.max(1, config.getStripes() - 1)) << 1;
+        this.stripes = new ReadWriteLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public <T> T executeReadLock(Callable<T> readOperation) {
+        return executeWithRetries(() -> executeLocked(globalLock.readLock(), null, readOperation), config.getMaxRetries());
+    }
+
+    @Override
+    public <T> T executeWriteLock(Callable<T> writeOperation) {
+        return executeWithRetries(() -> executeLocked(globalLock.writeLock(), null, writeOperation), config.getMaxRetries());
+    }
+
+    @Override
+    public void executeWriteLock(Runnable writeOperation) {
+        executeWriteLock(Executors.callable(writeOperation));
+    }
+
+    @Override
+    public <T> T executeReadLock(ProjectId projectId, String entityIri, Callable<T> readOperation) {
+        return executeWithRetries(() -> executeLocked(globalLock.readLock(), stripeFor(projectId, entityIri).readLock(), readOperation), config.getMaxRetries());
+    }
+
+    @Override
+    public <T> T executeWriteLock(ProjectId projectId, String entityIri, Callable<T> writeOperation) {
+        return executeWithRetries(() -> executeLocked(globalLock.readLock(), stripeFor(projectId, entityIri).writeLock(), writeOperation), config.getMaxRetries());
+    }
+
+    @Override
+    public void executeWriteLock(ProjectId projectId, String entityIri, Runnable writeOperation) {
+        executeWriteLock(projectId, entityIri, Executors.callable(writeOperation));
+    }
+
+    ReadWriteLock stripeFor(ProjectId projectId, String entityIri) {
+        int hash = Objects.hash(projectId != null ? projectId.id() : null, entityIri);
+        // spread the high bits, the same way HashMap does, before masking
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    /*
+     * When the calling thread already holds the global write lock the global read lock is still acquired,
+     * which ReentrantReadWriteLock allows as a downgrade, so nesting an entity operation in a global one works.
+     */
+    private <T> T executeLocked(Lock outerLock, Lock innerLock, Callable<T> operation) throws Exception {
+        if (!outerLock.tryLock(config.getTimeout(), config.getTimeUnit())) {
+            throw new TimeoutException("Failed to acquire global lock");
+        }
+        try {
+            if (innerLock == null) {
+                return operation.call();
+            }
+            if (!innerLock.tryLock(config.getTimeout(), config.getTimeUnit())) {
+                throw new TimeoutException("Failed to acquire entity lock");
+            }
+            try {
+                return operation.call();
+            } finally {
+                innerLock.unlock();
+            }
+        } finally {
+            outerLock.unlock();
+        }
+    }
+
+    private <T> T executeWithRetries(Callable<T> operation, int maxRetries) {
+        int attempt = 0;
+        while (attempt < maxRetries) {
+            try {
+                return operation.call();
+            } catch (Exception e) {
+                if (e instanceof TimeoutException) {
+                    attempt++;
+                    if (attempt == maxRetries) {
+                        throw new RuntimeException("Operation failed after " + maxRetries + " attempts", e);
+                    }
+                } else {
+                    if (e instanceof InterruptedException) {
+                        // restore the flag so that the executor running this thread still sees the interrupt
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new RuntimeException("Operation failed due to unexpected error", e);
+                }
+            }
+        }
+        throw new RuntimeException("Operation failed after " + maxRetries + " attempts");
+    }
+}
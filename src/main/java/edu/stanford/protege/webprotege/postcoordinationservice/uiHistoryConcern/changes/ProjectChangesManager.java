@@ -9,19 +9,15 @@ import edu.stanford.protege.webprotege.ipc.util.CorrelationMDCUtil;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationTableConfigRepository;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.LinearizationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.EntityTypeService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.diff.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.nodeRendering.EntityRendererManager;
 import edu.stanford.protege.webprotege.revision.RevisionNumber;
-import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.*;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.*;
 
 import static edu.stanford.protege.webprotege.postcoordinationservice.mappers.SpecificationToEventsMapper.groupScaleEventsByAxis;
@@ -36,28 +32,26 @@ public class ProjectChangesManager {
 
     private final EntityRendererManager entityRendererManager;
 
-    private final PostCoordinationTableConfigRepository tableConfigurationRepo;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
 
-    private final LinearizationService linearizationService;
-    private final CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypesExecutor;
+    private final EntityTypeService entityTypeService;
 
 
     public ProjectChangesManager(
             Revision2DiffElementsTranslator revision2DiffElementsTranslator,
             EntityRendererManager entityRendererManager,
-            PostCoordinationTableConfigRepository tableConfigurationRepo,
-            LinearizationService linearizationService, CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypesExecutor) {
+            PostCoordinationConfigSnapshotService configSnapshotService,
+            EntityTypeService entityTypeService) {
         this.revision2DiffElementsTranslator = revision2DiffElementsTranslator;
         this.entityRendererManager = entityRendererManager;
-        this.tableConfigurationRepo = tableConfigurationRepo;
-        this.linearizationService = linearizationService;
-        this.entityTypesExecutor = entityTypesExecutor;
+        this.configSnapshotService = configSnapshotService;
+        this.entityTypeService = entityTypeService;
     }
 
     public ProjectChangeForEntity getProjectChangesForCustomScaleRevision(ProjectId projectId, String whoficEntityIri, PostCoordinationCustomScalesRevision revision, String commitMessage) {
         Map<String, String> entityIrisAndNames = new HashMap<>();
         entityIrisAndNames.put(whoficEntityIri, whoficEntityIri);
-        List<TableAxisLabel> tableAxisLabels = tableConfigurationRepo.getTableAxisLabels();
+        List<TableAxisLabel> tableAxisLabels = configSnapshotService.getSnapshot().getTableAxisLabels();
         tableAxisLabels.forEach(tableAxisLabel ->
                 entityIrisAndNames.put(tableAxisLabel.getPostCoordinationAxis(), tableAxisLabel.getScaleLabel())
         );
@@ -146,6 +140,10 @@ public class ProjectChangesManager {
     }
 
     public Set<ProjectChangeForEntity> getProjectChangesForCustomScaleHistories(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories) {
+        return getProjectChangesForCustomScaleHistories(projectId, entityCustomScaleHistories, "");
+    }
+
+    public Set<ProjectChangeForEntity> getProjectChangesForCustomScaleHistories(ProjectId projectId, List<EntityCustomScalesValuesHistory> entityCustomScaleHistories, String commitMessage) {
         Map<String, String> entityIrisAndNames = new HashMap<>();
 
         Set<CustomScaleRevisionWithEntity> scaleRevisions = entityCustomScaleHistories.stream()
@@ -178,7 +176,7 @@ public class ProjectChangesManager {
                                     entityIrisAndNames,
                                     projectId,
                                     revisionWithEntity.getWhoficEntityIri(),
-                                    ""
+                                    commitMessage
                             );
                             ProjectChangeForEntity projectChangeForEntity = ProjectChangeForEntity.create(
                                     revisionWithEntity.getWhoficEntityIri(),
@@ -194,46 +192,14 @@ public class ProjectChangesManager {
 
 
     private Map<String, Integer> createOrderAxisMapWithSubAxis(String whoficEntityiri, ProjectId projectId, UserId userId) {
-        Map<String, Integer> orderedAxisMap = new HashMap<>();
-        try {
-            GetIcatxEntityTypeResponse typeResponse = entityTypesExecutor.execute(new GetIcatxEntityTypeRequest(IRI.create(whoficEntityiri), projectId), new ExecutionContext(userId, "", CorrelationMDCUtil.getCorrelationId()))
-                    .get(15, TimeUnit.SECONDS);
-            List<TableConfiguration> tableConfiguration = tableConfigurationRepo.getTableConfigurationByEntityType(typeResponse.icatxEntityTypes());
-
-            if (tableConfiguration == null) {
-                return Collections.emptyMap();
-            }
-            List<String> orderedAxisList = tableConfiguration.stream()
-                    .flatMap(c -> c.getPostCoordinationAxes().stream()).distinct()
-                    .collect(Collectors.toList());
-
-
-            List<CompositeAxis> compositeAxisList = tableConfiguration.stream().flatMap(c -> c.getCompositePostCoordinationAxes().stream()).toList();
-
-            compositeAxisList.forEach(compositeAxis -> {
-                int indexForCurrAxis = orderedAxisList.indexOf(compositeAxis.getPostCoordinationAxis());
-
-                if (indexForCurrAxis != -1) {
-                    List<String> subAxisList = new LinkedList<>(compositeAxis.getSubAxis());
-                    orderedAxisList.addAll(indexForCurrAxis + 1, subAxisList);
-                    orderedAxisList.remove(indexForCurrAxis);
-                }
-            });
-
-            orderedAxisMap = IntStream.range(0, orderedAxisList.size())
-                    .boxed()
-                    .collect(Collectors.toMap(orderedAxisList::get, index -> index));
-
-            return orderedAxisMap;
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
-        }
+        List<String> entityTypes = entityTypeService.fetchEntityTypes(whoficEntityiri, projectId, new ExecutionContext(userId, "", CorrelationMDCUtil.getCorrelationId()));
+        return configSnapshotService.getSnapshot().getAxisOrder(entityTypes);
     }
 
 
-    public Set<ProjectChangeForEntity> getProjectChangesForSpecHistories(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories) {
+    public Set<ProjectChangeForEntity> getProjectChangesForSpecHistories(ProjectId projectId, List<EntityPostCoordinationHistory> entitySpecHistories, String commitMessage) {
         Map<String, String> entityIrisAndNames = new HashMap<>();
-        List<LinearizationDefinition> linearizationDefinitions = linearizationService.getLinearizationDefinitions();
+        List<LinearizationDefinition> linearizationDefinitions = configSnapshotService.getSnapshot().getLinearizationDefinitions();
         linearizationDefinitions.forEach(linDef -> entityIrisAndNames.put(linDef.getLinearizationUri(), linDef.getDisplayLabel()));
 
         Set<SpecRevisionWithEntity> specRevisions = entitySpecHistories.stream()
@@ -259,7 +225,7 @@ public class ProjectChangesManager {
                                     revisionWithEntity,
                                     entityIrisAndNames.get(revisionWithEntity.whoficEntityIri()),
                                     entityIrisAndNames,
-                                    ""
+                                    commitMessage
                             );
                             ProjectChangeForEntity projectChangeForEntity = ProjectChangeForEntity.create(
                                     revisionWithEntity.whoficEntityIri(),
@@ -351,14 +317,14 @@ public class ProjectChangesManager {
                 entityIrisAndNames.put(renderedEntity.getEntity().toStringID(), renderedEntity.getBrowserText());
             }
         });
-        List<LinearizationDefinition> linDefs = linearizationService.getLinearizationDefinitions();
+        List<LinearizationDefinition> linDefs = configSnapshotService.getSnapshot().getLinearizationDefinitions();
         linDefs.forEach(linDef -> {
             if (entityIrisAndNames.get(linDef.getLinearizationUri()) != null) {
                 entityIrisAndNames.put(linDef.getLinearizationUri(), linDef.getDisplayLabel());
             }
         });
 
-        List<TableAxisLabel> tableAxisLabels = tableConfigurationRepo.getTableAxisLabels();
+        List<TableAxisLabel> tableAxisLabels = configSnapshotService.getSnapshot().getTableAxisLabels();
         tableAxisLabels.forEach(tableAxis -> {
             if (entityIrisAndNames.get(tableAxis.getPostCoordinationAxis()) != null) {
                 entityIrisAndNames.put(tableAxis.getPostCoordinationAxis(), tableAxis.getTableLabel());
@@ -5,8 +5,9 @@ import com.google.common.base.Preconditions;
 import edu.stanford.protege.webprotege.diff.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationConfigSnapshot;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationViewEvent;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.LinearizationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.changes.*;
 import org.springframework.stereotype.Component;
 
@@ -18,11 +19,11 @@ public class Revision2DiffElementsTranslator {
 
     private final ChangeOperationVisitorEx<DiffOperation> changeOperationVisitor;
 
-    private final LinearizationService linearizationService;
+    private final PostCoordinationConfigSnapshotService configSnapshotService;
 
 
-    public Revision2DiffElementsTranslator(LinearizationService linearizationService) {
-        this.linearizationService = linearizationService;
+    public Revision2DiffElementsTranslator(PostCoordinationConfigSnapshotService configSnapshotService) {
+        this.configSnapshotService = configSnapshotService;
         this.changeOperationVisitor = new ChangeOperationVisitorEx<>() {
             @Override
             public DiffOperation visit(AddCustomScaleValueEvent addScaleValueEvent) {
@@ -83,20 +84,18 @@ public class Revision2DiffElementsTranslator {
     public List<DiffElement<SpecDocumentChange, List<PostCoordinationSpecificationEvent>>> getDiffElementsFromSpecRevision(List<PostCoordinationViewEvent> changesByView, Map<String, Integer> orderAxisMapWithSubAxis) {
         final List<DiffElement<SpecDocumentChange, List<PostCoordinationSpecificationEvent>>> changeRecordElements = new ArrayList<>();
 
-        List<LinearizationDefinition> linearizationDefinitions = linearizationService.getLinearizationDefinitions();
-        changesByView.forEach((eventsInView) -> changeRecordElements.add(toElement(eventsInView.linearizationView(), linearizationDefinitions, eventsInView.axisEvents(), orderAxisMapWithSubAxis)));
+        PostCoordinationConfigSnapshot configSnapshot = configSnapshotService.getSnapshot();
+        changesByView.forEach((eventsInView) -> changeRecordElements.add(toElement(eventsInView.linearizationView(), configSnapshot, eventsInView.axisEvents(), orderAxisMapWithSubAxis)));
         return changeRecordElements;
     }
 
     private DiffElement<SpecDocumentChange, List<PostCoordinationSpecificationEvent>> toElement(String linearizationView,
-                                                                                                List<LinearizationDefinition> linearizationDefinitions,
+                                                                                                PostCoordinationConfigSnapshot configSnapshot,
                                                                                                 List<PostCoordinationSpecificationEvent> postSpecEvents,
                                                                                                 Map<String, Integer> orderedAxisMap) {
 
         SpecDocumentChange sourceDocument;
-        Optional<LinearizationDefinition> linearizationDefinitionOptional = linearizationDefinitions.stream()
-                .filter(linearizationDefinition -> linearizationDefinition.getLinearizationUri().equals(linearizationView))
-                .findFirst();
+        Optional<LinearizationDefinition> linearizationDefinitionOptional = configSnapshot.getLinearizationDefinition(linearizationView);
         if (linearizationDefinitionOptional.isPresent()) {
             LinearizationDefinition linDef = linearizationDefinitionOptional.get();
             sourceDocument = SpecDocumentChange.create(linearizationView, linDef.getDisplayLabel(), linDef.getLinearizationId(), linDef.getSortingCode());
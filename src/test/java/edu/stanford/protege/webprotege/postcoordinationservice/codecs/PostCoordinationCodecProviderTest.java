@@ -0,0 +1,167 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.codecs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.common.UserId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ApplicationBeans;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.bson.*;
+import org.bson.codecs.*;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostCoordinationCodecProviderTest {
+
+    private final CodecRegistry registry = PostCoordinationCodecProvider.codecRegistry();
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new ApplicationBeans().objectMapper();
+    }
+
+    @Test
+    void GIVEN_specificationHistory_WHEN_encodedAndDecoded_THEN_historyUnchanged() {
+        EntityPostCoordinationHistory history = specificationHistory();
+
+        EntityPostCoordinationHistory decoded = decode(encode(history, EntityPostCoordinationHistory.class), EntityPostCoordinationHistory.class);
+
+        assertSpecificationHistory(history, decoded);
+    }
+
+    @Test
+    void GIVEN_documentWrittenByJackson_WHEN_decoded_THEN_sameSpecificationHistory() {
+        EntityPostCoordinationHistory history = specificationHistory();
+        Document jacksonDocument = objectMapper.convertValue(history, Document.class);
+        jacksonDocument.append("_class", EntityPostCoordinationHistory.class.getName());
+
+        EntityPostCoordinationHistory decoded = decode(jacksonDocument.toBsonDocument(Document.class, registry), EntityPostCoordinationHistory.class);
+
+        assertSpecificationHistory(history, decoded);
+    }
+
+    @Test
+    void GIVEN_documentWrittenByCodec_WHEN_readByJackson_THEN_sameCustomScalesHistory() {
+        EntityCustomScalesValuesHistory history = new EntityCustomScalesValuesHistory("entity1", "project1",
+                List.of(PostCoordinationCustomScalesRevision.create(UserId.valueOf("user1"),
+                        Set.of(new AddCustomScaleValueEvent("axis1", "value1"), new RemoveCustomScaleValueEvent("axis2", "value2")))),
+                PostCoordinationCustomScalesCheckpoint.create(1, 10L, List.of(new PostCoordinationScaleCustomization(List.of("value1"), "axis1"))),
+                3L);
+        BsonDocument encoded = encode(history, EntityCustomScalesValuesHistory.class);
+
+        EntityCustomScalesValuesHistory readByJackson = objectMapper.convertValue(toDocument(encoded), EntityCustomScalesValuesHistory.class);
+
+        for (EntityCustomScalesValuesHistory decoded : List.of(readByJackson, decode(encoded, EntityCustomScalesValuesHistory.class))) {
+            assertEquals(history.getWhoficEntityIri(), decoded.getWhoficEntityIri());
+            assertEquals(3L, decoded.getVersion());
+            PostCoordinationCustomScalesRevision revision = decoded.getPostCoordinationCustomScalesRevisions().get(0);
+            assertEquals(UserId.valueOf("user1"), revision.userId());
+            assertEquals(CommitStatus.COMMITTED, revision.commitStatus());
+            assertEquals(Set.of("AddCustomScaleValueEvent axis1 value1", "RemoveCustomScaleValueEvent axis2 value2"),
+                    revision.postCoordinationEvents().stream()
+                            .map(event -> event.getClass().getSimpleName() + " " + event.getPostCoordinationAxis() + " " + event.getPostCoordinationScaleValue())
+                            .collect(Collectors.toSet()));
+            assertEquals(1, decoded.getCustomScalesCheckpoint().revisionCount());
+            assertEquals(List.of("value1"), decoded.getCustomScalesCheckpoint().scaleCustomizations().get(0).getPostcoordinationScaleValues());
+        }
+    }
+
+    @Test
+    void GIVEN_compactEncoding_WHEN_encodedAndDecoded_THEN_iriCodesWrittenAndHistoryUnchanged() {
+        CodecRegistry compactRegistry = PostCoordinationCodecProvider.codecRegistry(dictionary("view1", "axis1", "axis2"), true);
+        EntityPostCoordinationHistory history = specificationHistory();
+
+        BsonDocument encoded = encode(history, EntityPostCoordinationHistory.class, compactRegistry);
+
+        BsonDocument viewEvent = encoded.getArray("postCoordinationRevisions").get(0).asDocument()
+                .getArray("postCoordinationEvents").get(0).asDocument();
+        assertEquals(new BsonInt32(0), viewEvent.get("v"));
+        assertEquals(new BsonDocument("t", new BsonInt32(3)).append("a", new BsonInt32(2)), viewEvent.getArray("e").get(1));
+        assertSpecificationHistory(history, decode(encoded, EntityPostCoordinationHistory.class, compactRegistry));
+    }
+
+    @Test
+    void GIVEN_verboseAndCompactRevisions_WHEN_decodedWithDictionary_THEN_bothRead() {
+        CodecRegistry compactRegistry = PostCoordinationCodecProvider.codecRegistry(dictionary("view1", "axis1"), true);
+        EntityPostCoordinationHistory history = specificationHistory();
+        BsonDocument verbose = encode(history, EntityPostCoordinationHistory.class);
+        // axis2 has no code, its event is written verbose inside the compact view event
+        BsonDocument compact = encode(history, EntityPostCoordinationHistory.class, compactRegistry);
+        BsonDocument viewEvent = compact.getArray("postCoordinationRevisions").get(0).asDocument()
+                .getArray("postCoordinationEvents").get(0).asDocument();
+        assertEquals("axis2", viewEvent.getArray("e").get(1).asDocument().getString("postCoordinationAxis").getValue());
+
+        assertSpecificationHistory(history, decode(verbose, EntityPostCoordinationHistory.class, compactRegistry));
+        assertSpecificationHistory(history, decode(compact, EntityPostCoordinationHistory.class, compactRegistry));
+    }
+
+    private static IriDictionary dictionary(String... iris) {
+        List<String> codes = List.of(iris);
+        return new IriDictionary() {
+            @Override
+            public int codeOf(String iri) {
+                return codes.indexOf(iri);
+            }
+
+            @Override
+            public String iriOf(int code) {
+                return codes.get(code);
+            }
+        };
+    }
+
+    private EntityPostCoordinationHistory specificationHistory() {
+        PostCoordinationViewEvent viewEvent = new PostCoordinationViewEvent("view1",
+                List.of(new AddToAllowedAxisEvent("axis1", "view1"), new AddToRequiredAxisEvent("axis2", "view1")));
+        PostCoordinationSpecificationRevision revision = PostCoordinationSpecificationRevision.create(UserId.valueOf("user1"), Set.of(viewEvent));
+        PostCoordinationSpecificationCheckpoint checkpoint = PostCoordinationSpecificationCheckpoint.create(1, revision.timestamp(),
+                List.of(new PostCoordinationSpecification("view1", List.of("axis1"), List.of(), List.of(), List.of("axis2"))));
+        return new EntityPostCoordinationHistory("entity1", "project1", List.of(revision), checkpoint, 2L);
+    }
+
+    private static void assertSpecificationHistory(EntityPostCoordinationHistory expected, EntityPostCoordinationHistory actual) {
+        assertEquals(expected.getWhoficEntityIri(), actual.getWhoficEntityIri());
+        assertEquals(expected.getProjectId(), actual.getProjectId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        PostCoordinationSpecificationRevision expectedRevision = expected.getPostCoordinationRevisions().get(0);
+        PostCoordinationSpecificationRevision revision = actual.getPostCoordinationRevisions().get(0);
+        assertEquals(expectedRevision.userId(), revision.userId());
+        assertEquals(expectedRevision.timestamp(), revision.timestamp());
+        assertEquals(expectedRevision.commitStatus(), revision.commitStatus());
+        PostCoordinationViewEvent viewEvent = revision.postCoordinationEvents().iterator().next();
+        assertEquals("view1", viewEvent.linearizationView());
+        assertEquals(List.of(AddToAllowedAxisEvent.class, AddToRequiredAxisEvent.class),
+                viewEvent.axisEvents().stream().map(Object::getClass).toList());
+        assertEquals("axis2", viewEvent.axisEvents().get(1).getPostCoordinationAxis());
+        assertEquals(List.of("axis2"), actual.getSpecificationCheckpoint().postcoordinationSpecifications().get(0).getRequiredAxes());
+    }
+
+    private <T> BsonDocument encode(T value, Class<T> type) {
+        return encode(value, type, registry);
+    }
+
+    private static <T> BsonDocument encode(T value, Class<T> type, CodecRegistry registry) {
+        BsonDocument document = new BsonDocument();
+        registry.get(type).encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+        return document;
+    }
+
+    private <T> T decode(BsonDocument document, Class<T> type) {
+        return decode(document, type, registry);
+    }
+
+    private static <T> T decode(BsonDocument document, Class<T> type, CodecRegistry registry) {
+        return registry.get(type).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    private Document toDocument(BsonDocument document) {
+        return registry.get(Document.class).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
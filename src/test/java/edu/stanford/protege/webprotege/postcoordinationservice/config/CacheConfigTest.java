@@ -0,0 +1,31 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig.*;
+import static org.mockito.Mockito.*;
+
+public class CacheConfigTest {
+
+    @Test
+    void GIVEN_configurationCache_WHEN_cleared_THEN_clearedEventPublished() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        CacheManager cacheManager = new CacheConfig().cacheManager(eventPublisher);
+
+        cacheManager.getCache(TABLE_CONFIGURATIONS).clear();
+
+        verify(eventPublisher).publishEvent(new ConfigurationCacheCleared(TABLE_CONFIGURATIONS));
+    }
+
+    @Test
+    void GIVEN_configurationCache_WHEN_entryEvicted_THEN_noEventPublished() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        CacheManager cacheManager = new CacheConfig().cacheManager(eventPublisher);
+
+        cacheManager.getCache(TABLE_CONFIGURATIONS_BY_ENTITY_TYPE).evict("key");
+
+        verifyNoInteractions(eventPublisher);
+    }
+}
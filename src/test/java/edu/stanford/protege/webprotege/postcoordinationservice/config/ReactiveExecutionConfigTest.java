@@ -0,0 +1,65 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ReactiveExecutionConfigTest {
+
+    @Test
+    void GIVEN_boundedMode_WHEN_newBlockingScheduler_THEN_workRunsOnBoundedThreads() {
+        Scheduler scheduler = newBlockingScheduler(BOUNDED_MODE, 2, 10, new SimpleMeterRegistry());
+        try {
+            String threadName = Mono.fromCallable(() -> Thread.currentThread().getName()).subscribeOn(scheduler).block();
+
+            assertTrue(threadName.startsWith("postcoordination-blocking"), threadName);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void GIVEN_boundedMode_WHEN_newBlockingScheduler_THEN_platformThreadsGaugeRegistered() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Scheduler scheduler = newBlockingScheduler(BOUNDED_MODE, 2, 10, meterRegistry);
+        try {
+            double platformThreads = meterRegistry.get(PLATFORM_THREADS_METER).tag("mode", BOUNDED_MODE).gauge().value();
+
+            assertTrue(platformThreads > 0);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void GIVEN_virtualModeOnJava21_WHEN_newBlockingScheduler_THEN_workRunsOnVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21);
+        Scheduler scheduler = newBlockingScheduler(VIRTUAL_MODE, 2, 10, new SimpleMeterRegistry());
+        try {
+            Boolean virtual = Mono.fromCallable(() -> (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                    .subscribeOn(scheduler)
+                    .block();
+
+            assertEquals(Boolean.TRUE, virtual);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void GIVEN_virtualModeBeforeJava21_WHEN_newBlockingScheduler_THEN_exceptionThrown() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        assertThrows(IllegalStateException.class, () -> newBlockingScheduler(VIRTUAL_MODE, 2, 10, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void GIVEN_unknownMode_WHEN_newBlockingScheduler_THEN_exceptionThrown() {
+        assertThrows(IllegalStateException.class, () -> newBlockingScheduler("pooled", 2, 10, new SimpleMeterRegistry()));
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.data.mongodb.core.query.*;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.*;
 import java.util.Arrays;
@@ -55,8 +56,33 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
 
     @Autowired
     private PostCoordinationDocumentRepository postCoordinationDocumentRepository;
+
+    @Autowired
+    private PostCoordinationSnapshotService snapshotService;
+
+    @Autowired
+    private HistoryCheckpointService checkpointService;
+
+    @Autowired
+    private OptimisticWriteService optimisticWriteService;
+
+    @Autowired
+    private EntityTypeService entityTypeService;
+
+    @Autowired
+    private PostCoordinationConfigSnapshotService configSnapshotService;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private ProcessedSpecificationCache processedCache;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
     @Autowired
-    private ReadWriteLockService readWriteLockService;
+    private HistoryMembershipService historyMembership;
 
     @MockBean
     private LinearizationService linearizationService;
@@ -98,14 +124,13 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
         when(entityTypeExecutor.execute(any(), any())).thenReturn(CompletableFuture.supplyAsync(() -> new GetIcatxEntityTypeResponse(Arrays.asList("ICD"))));
         when(postCoordinationTableConfigRepository.getALlTableConfiguration()).thenReturn(documents);
         mongoTemplate.getDb().drop();
+        configSnapshotService.invalidate();
         postCoordService = new PostCoordinationService(repository,
-                postCoordinationTableConfigRepository,
-                linearizationService,
-                readWriteLockService,
+                configSnapshotService,
                 postCoordinationDocumentRepository,
-                objectMapper,
                 newRevisionsEventEmitterService,
-                eventProcessor, entityTypeExecutor);
+                eventProcessor, entityTypeService, snapshotService, checkpointService, optimisticWriteService, importJobService, processedCache, cacheInvalidationService, historyMembership,
+                Schedulers.boundedElastic());
     }
 
     @Test
@@ -118,7 +143,7 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
                 parentEntityIri, "ICD", List.of(
                 new PostCoordinationSpecification("http://id.who.int/icd/release/11/mms", List.of("axis1"), List.of("axis2"), List.of(), List.of())
         ));
-        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId);
+        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId).block();
 
         handler.handleRequest(request, executionContext).block();
 
@@ -145,7 +170,7 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
                 parentEntityIri, "ICD", List.of(
                         new PostCoordinationSpecification("http://id.who.int/icd/release/11/icd-o", List.of("axis1"), List.of(), List.of(), List.of())
                 ));
-        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId);
+        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId).block();
 
 
         handler.handleRequest(request, executionContext).block();
@@ -188,7 +213,7 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
                 new PostCoordinationSpecification("http://id.who.int/icd/release/11/mms", List.of("axis1"), List.of(), List.of(), List.of()),
                 new PostCoordinationSpecification("http://id.who.int/icd/release/11/pch", List.of("axis2"), List.of(), List.of(), List.of())
         ));
-        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId);
+        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId).block();
 
 
         handler.handleRequest(request, executionContext).block();
@@ -219,7 +244,7 @@ class CreatePostcoordinationFromParentCommandHandlerIT {
                 parentEntityIri, "ICD", List.of(
                 new PostCoordinationSpecification("http://id.who.int/icd/release/11/mms", List.of("axis1"), List.of(), List.of(), List.of())
         ));
-        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId);
+        postCoordService.addSpecificationRevision(parentSpec, UserId.getGuest(), projectId).block();
 
 
         handler.handleRequest(request, executionContext).block();
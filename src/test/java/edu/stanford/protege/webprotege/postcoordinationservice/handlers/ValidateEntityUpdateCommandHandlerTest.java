@@ -3,6 +3,9 @@ package edu.stanford.protege.webprotege.postcoordinationservice.handlers;
 import edu.stanford.protege.webprotege.common.ProjectId;
 import edu.stanford.protege.webprotege.ipc.CommandExecutor;
 import edu.stanford.protege.webprotege.ipc.ExecutionContext;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.EntityTypeCacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReactiveExecutionConfig;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.CheckNonExistentIrisAction;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.CheckNonExistentIrisResult;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
@@ -18,18 +21,25 @@ import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficCusto
 import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationTableConfigRepository;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostcoordinationAxisToGenericScaleRepository;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.EntityTypeService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.LinearizationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.semanticweb.owlapi.model.IRI;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,6 +63,18 @@ class ValidateEntityUpdateCommandHandlerTest {
     @Mock
     private ExecutionContext executionContext;
 
+    @Mock
+    private ReactiveExecutionConfig reactiveConfig;
+
+    @Mock
+    private EntityTypeCacheConfig cacheConfig;
+
+    @Mock
+    private CacheConfig configCacheConfig;
+
+    @Mock
+    private LinearizationService linearizationService;
+
     private ValidateEntityUpdateCommandHandler handler;
 
     private static final String ENTITY_IRI = "http://who.int/icd/entity/123";
@@ -68,12 +90,16 @@ class ValidateEntityUpdateCommandHandlerTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(reactiveConfig.getIpcTimeout()).thenReturn(Duration.ofSeconds(5));
+        when(cacheConfig.getMaximumSize()).thenReturn(100L);
+        when(cacheConfig.getTtl()).thenReturn(Duration.ofMinutes(1));
         handler = new ValidateEntityUpdateCommandHandler(
-                entityTypeExecutor,
-                configRepository,
+                new EntityTypeService(entityTypeExecutor, reactiveConfig, cacheConfig, new SimpleMeterRegistry()),
+                new PostCoordinationConfigSnapshotService(configRepository, axisToGenericScaleRepository, linearizationService, configCacheConfig),
                 checkNonExistentIrisExecutor,
                 validateAxisBelongsToHierarchyExecutor,
-                axisToGenericScaleRepository
+                reactiveConfig,
+                Schedulers.boundedElastic()
         );
     }
 
@@ -450,7 +476,7 @@ class ValidateEntityUpdateCommandHandlerTest {
                 .thenReturn(CompletableFuture.completedFuture(
                         new GetIcatxEntityTypeResponse(List.of(ENTITY_TYPE))
                 ));
-        when(configRepository.getTableConfigurationByEntityType(List.of(ENTITY_TYPE)))
+        when(configRepository.getALlTableConfiguration())
                 .thenReturn(List.of(config));
         when(checkNonExistentIrisExecutor.execute(any(CheckNonExistentIrisAction.class), any(ExecutionContext.class)))
                 .thenReturn(CompletableFuture.completedFuture(
@@ -744,7 +770,7 @@ class ValidateEntityUpdateCommandHandlerTest {
                 .thenReturn(CompletableFuture.completedFuture(
                         new GetIcatxEntityTypeResponse(List.of(ENTITY_TYPE))
                 ));
-        when(configRepository.getTableConfigurationByEntityType(List.of(ENTITY_TYPE)))
+        when(configRepository.getALlTableConfiguration())
                 .thenReturn(List.of(config));
     }
 }
@@ -0,0 +1,59 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.model;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostCoordinationConfigSnapshotTest {
+
+    private PostCoordinationConfigSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        snapshot = new PostCoordinationConfigSnapshot(1,
+                List.of(new TableConfiguration("ICD", List.of("course", "consciousness", "laterality"),
+                                List.of(new CompositeAxis("consciousness", List.of("gcsEye", "gcsMotor")))),
+                        new TableConfiguration("ICHI", List.of("laterality", "device"), List.of())),
+                List.of(),
+                List.of(new PostcoordinationAxisToGenericScale("laterality", "http://id.who.int/icd/entity/laterality", "true")),
+                List.of(new LinearizationDefinition("MMS", "http://id.who.int/icd/release/11/mms", "", "", "", null, "1", "MMS", "")));
+    }
+
+    @Test
+    void GIVEN_entityTypes_WHEN_getAxes_THEN_unionOfTheirAxesReturned() {
+        assertEquals(Set.of("course", "consciousness", "laterality"), snapshot.getAxes(List.of("ICD")));
+        assertEquals(Set.of("course", "consciousness", "laterality", "device"), snapshot.getAxes(List.of("ICD", "ICHI")));
+        assertEquals(Set.of("course", "consciousness", "laterality", "gcsEye", "gcsMotor"), snapshot.getAxesWithSubAxes(List.of("ICD")));
+        assertEquals(Set.of(), snapshot.getAxes(List.of("Unknown")));
+    }
+
+    @Test
+    void GIVEN_axis_WHEN_lookedUp_THEN_indexedConfigurationReturned() {
+        assertEquals(Set.of("ICD", "ICHI"), snapshot.getEntityTypesForAxis("laterality"));
+        assertEquals(Map.of("ICD", Set.of("gcsEye", "gcsMotor")), snapshot.getSubAxesByEntityType("consciousness"));
+        assertEquals(Optional.of("laterality"), snapshot.getAxisForTopClass("http://id.who.int/icd/entity/laterality"));
+        assertTrue(snapshot.getAxisToGenericScale("laterality").isPresent());
+        assertTrue(snapshot.getLinearizationDefinitionIgnoreCase("HTTP://id.who.int/icd/release/11/MMS").isPresent());
+        assertTrue(snapshot.getLinearizationDefinition("HTTP://id.who.int/icd/release/11/MMS").isEmpty());
+    }
+
+    @Test
+    void GIVEN_compositeAxis_WHEN_getAxisOrder_THEN_subAxesTakeItsPlace() {
+        assertEquals(Map.of("course", 0, "gcsEye", 1, "gcsMotor", 2, "laterality", 3), snapshot.getAxisOrder(List.of("ICD")));
+    }
+
+    @Test
+    void GIVEN_sameEntityTypesInAnotherOrder_WHEN_getDefaultSpecifications_THEN_foldedSpecificationsShared() {
+        var specifications = snapshot.getDefaultSpecifications(List.of("ICD", "ICHI"));
+
+        assertSame(specifications, snapshot.getDefaultSpecifications(List.of("ICHI", "ICD")));
+        assertSame(snapshot.getDefaultInitialRevision(List.of("ICD", "ICHI")), snapshot.getDefaultInitialRevision(List.of("ICHI", "ICD")));
+        assertEquals(1, specifications.size());
+        assertEquals("http://id.who.int/icd/release/11/mms", specifications.get(0).getLinearizationView());
+        assertEquals(Set.of("course", "consciousness", "laterality", "device"), Set.copyOf(specifications.get(0).getDefaultAxes()));
+        assertTrue(specifications.get(0).getNotAllowedAxes().isEmpty());
+    }
+}
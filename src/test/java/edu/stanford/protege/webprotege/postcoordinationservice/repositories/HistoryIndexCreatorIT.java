@@ -0,0 +1,79 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.mongodb.MongoWriteException;
+import edu.stanford.protege.webprotege.common.*;
+import edu.stanford.protege.webprotege.ipc.CommandExecutor;
+import edu.stanford.protege.webprotege.postcoordinationservice.IntegrationTest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ExtendWith({SpringExtension.class, IntegrationTest.class})
+@ActiveProfiles("test")
+public class HistoryIndexCreatorIT {
+
+    private static final String ENTITY_IRI = "http://id.who.int/icd/entity/1";
+
+    @Autowired
+    private HistoryIndexCreator indexCreator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockBean
+    private MinioPostCoordinationDocumentLoader documentLoader;
+
+    @MockBean
+    private CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypesExecutor;
+
+    private ProjectId projectId;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate.dropCollection(POSTCOORDINATION_HISTORY_COLLECTION);
+        projectId = ProjectId.generate();
+    }
+
+    @Test
+    void GIVEN_duplicateHistories_WHEN_createIndexes_THEN_mergedIntoTheNewestAndDuplicateInsertRejected() {
+        var collection = mongoTemplate.getCollection(POSTCOORDINATION_HISTORY_COLLECTION);
+        collection.insertOne(history(3L, revision(1L), revision(2L)));
+        collection.insertOne(history(1L, revision(1L), revision(5L)));
+
+        indexCreator.createIndexes();
+
+        List<Document> histories = collection.find().into(new ArrayList<>());
+        assertEquals(1, histories.size());
+        assertEquals(4L, histories.get(0).get(VERSION, Number.class).longValue());
+        assertEquals(List.of(1L, 2L, 5L), histories.get(0).getList(SPEC_REVISIONS, Document.class).stream()
+                .map(revision -> revision.get("timestamp", Number.class).longValue()).toList());
+        assertTrue(mongoTemplate.indexOps(POSTCOORDINATION_HISTORY_COLLECTION).getIndexInfo().stream()
+                .anyMatch(index -> index.getName().equals(HistoryIndexCreator.ENTITY_IRI_PROJECT_INDEX) && index.isUnique()));
+        assertThrows(MongoWriteException.class, () -> collection.insertOne(history(0L)));
+    }
+
+    private Document history(long version, Document... revisions) {
+        return new Document(WHOFIC_ENTITY_IRI, ENTITY_IRI)
+                .append(PROJECT_ID, projectId.id())
+                .append(VERSION, version)
+                .append(SPEC_REVISIONS, List.of(revisions));
+    }
+
+    private static Document revision(long timestamp) {
+        return new Document("userId", "user1").append("timestamp", timestamp);
+    }
+}
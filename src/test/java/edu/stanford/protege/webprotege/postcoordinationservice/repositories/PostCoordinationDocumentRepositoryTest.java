@@ -0,0 +1,79 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PostCoordinationDocumentRepositoryTest {
+
+    private MinioPostCoordinationDocumentLoader documentLoader;
+
+    private PostCoordinationDocumentRepository documentRepository;
+
+    private byte[] specificationsDocument;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        documentLoader = mock(MinioPostCoordinationDocumentLoader.class);
+        documentRepository = new PostCoordinationDocumentRepository(documentLoader, new ObjectMapper());
+        specificationsDocument = Files.readAllBytes(Path.of("src/test/resources/postCoordinationImportFile.json"));
+    }
+
+    @Test
+    void GIVEN_plainDocument_WHEN_fetchTheSpecifications_THEN_allElementsRead() {
+        when(documentLoader.fetchPostCoordinationDocument("plain.json")).thenReturn(new ByteArrayInputStream(specificationsDocument));
+
+        assertSpecifications(documentRepository.fetchPostCoordinationSpecifications("plain.json").toList());
+    }
+
+    @Test
+    void GIVEN_gzipDocument_WHEN_fetchTheSpecifications_THEN_documentDecompressed() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(specificationsDocument);
+        }
+        when(documentLoader.fetchPostCoordinationDocument("document")).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+
+        assertSpecifications(documentRepository.fetchPostCoordinationSpecifications("document").toList());
+    }
+
+    @Test
+    void GIVEN_zstdDocument_WHEN_fetchTheSpecifications_THEN_documentDecompressed() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ZstdOutputStream(compressed)) {
+            outputStream.write(specificationsDocument);
+        }
+        when(documentLoader.fetchPostCoordinationDocument("document.json.zst")).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+
+        assertSpecifications(documentRepository.fetchPostCoordinationSpecifications("document.json.zst").toList());
+    }
+
+    @Test
+    void GIVEN_emptyArray_WHEN_fetchTheCustomScales_THEN_noElementsRead() {
+        String document = "{\"postcoordinationScaleCustomization\": []}";
+        when(documentLoader.fetchPostCoordinationDocument("empty.json")).thenReturn(new ByteArrayInputStream(document.getBytes()));
+
+        List<WhoficCustomScalesValues> values = documentRepository.fetchCustomScalesValues("empty.json").toList();
+
+        assertTrue(values.isEmpty());
+    }
+
+    private static void assertSpecifications(List<WhoficEntityPostCoordinationSpecification> specifications) {
+        assertEquals(3, specifications.size());
+        WhoficEntityPostCoordinationSpecification specification = specifications.stream()
+                .filter(s -> s.whoficEntityIri().equalsIgnoreCase("http://id.who.int/icd/entity/257068234"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("ICD", specification.entityType());
+        assertEquals(11, specification.postcoordinationSpecifications().size());
+    }
+}
@@ -0,0 +1,325 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.repositories;
+
+import edu.stanford.protege.webprotege.common.*;
+import edu.stanford.protege.webprotege.ipc.CommandExecutor;
+import edu.stanford.protege.webprotege.postcoordinationservice.IntegrationTest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.*;
+import org.bson.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.*;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityCustomScalesValuesHistory.POSTCOORDINATION_CUSTOM_SCALES_COLLECTION;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.POSTCOORDINATION_HISTORY_COLLECTION;
+import static edu.stanford.protege.webprotege.postcoordinationservice.repositories.RevisionCollectionStore.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {RevisionStore.STORAGE_PROPERTY + "=collection", "webprotege.history.migrateOnStartup=false"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ExtendWith({SpringExtension.class, IntegrationTest.class})
+@ActiveProfiles("test")
+public class RevisionCollectionStoreIT {
+
+    private static final String ENTITY_IRI = "http://id.who.int/icd/entity/1";
+
+    private static final String OTHER_ENTITY_IRI = "http://id.who.int/icd/entity/2";
+
+    @Autowired
+    private PostCoordinationRepository repository;
+
+    @Autowired
+    private RevisionStorageMigrationService migrationService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RevisionCollectionStore revisionStore;
+
+    @Autowired
+    private IriDictionaryService iriDictionaryService;
+
+    @Autowired
+    private HistoryIndexCreator historyIndexCreator;
+
+    @MockBean
+    private MinioPostCoordinationDocumentLoader documentLoader;
+
+    @MockBean
+    private CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypesExecutor;
+
+    private EmbeddedRevisionStore embeddedStore;
+
+    private ProjectId projectId;
+
+    @BeforeEach
+    public void setUp() {
+        List.of(POSTCOORDINATION_HISTORY_COLLECTION, POSTCOORDINATION_CUSTOM_SCALES_COLLECTION,
+                SPECIFICATION_REVISIONS_COLLECTION, CUSTOM_SCALES_REVISIONS_COLLECTION).forEach(mongoTemplate::dropCollection);
+        historyIndexCreator.createIndexes();
+        revisionStore.createIndexes();
+        embeddedStore = new EmbeddedRevisionStore(mongoTemplate, iriDictionaryService);
+        projectId = ProjectId.generate();
+    }
+
+    @Test
+    void GIVEN_historyWithEmbeddedRevisions_WHEN_migrated_THEN_revisionsMovedAndHistoryUnchanged() {
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+        embeddedStore.addSpecificationRevision(ENTITY_IRI, projectId.id(), specificationRevision(2L), 0);
+
+        assertEquals(1, migrationService.migrate());
+
+        assertEquals(2, mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).countDocuments());
+        assertTrue(embeddedStore.findSpecificationHistory(ENTITY_IRI, projectId.id()).orElseThrow().getPostCoordinationRevisions().isEmpty());
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L, 2L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(1L, history.getVersion());
+        assertTrue(repository.findHistoryByEntityIriAndProjectId(ENTITY_IRI, projectId).isPresent());
+    }
+
+    @Test
+    void GIVEN_partlyMigratedHistory_WHEN_revisionAdded_THEN_embeddedAndStoredRevisionsRead() {
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+
+        assertTrue(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(2L), 0));
+        assertFalse(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(3L), 0));
+
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L, 2L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(1, mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).countDocuments());
+    }
+
+    @Test
+    void GIVEN_uncommittedCustomScalesRevision_WHEN_committedAndDeleted_THEN_revisionDocumentsUpdated() {
+        ChangeRequestId changeRequestId = ChangeRequestId.generate();
+        EntityCustomScalesValuesHistory history = new EntityCustomScalesValuesHistory(ENTITY_IRI, projectId.id(),
+                List.of(PostCoordinationCustomScalesRevision.create(UserId.valueOf("user1"), Set.of(new AddCustomScaleValueEvent("axis", "value")), changeRequestId)));
+        assertTrue(repository.insertCustomScalesHistoryIfAbsent(history));
+
+        repository.commitPostCoordinationCustomScalesRevision(changeRequestId, projectId, ENTITY_IRI);
+        assertEquals(CommitStatus.COMMITTED, repository.getExistingCustomScaleHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow()
+                .getPostCoordinationCustomScalesRevisions().get(0).commitStatus());
+
+        repository.deletePostCoordinationCustomScalesRevision(changeRequestId, projectId, ENTITY_IRI);
+        EntityCustomScalesValuesHistory afterDelete = repository.getExistingCustomScaleHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertTrue(afterDelete.getPostCoordinationCustomScalesRevisions().isEmpty());
+        assertEquals(1L, afterDelete.getVersion());
+    }
+
+    @Test
+    void GIVEN_batchWithOneChangedHistory_WHEN_addSpecificationRevisions_THEN_onlyThatEntityReturned() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(OTHER_ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        assertTrue(repository.addSpecificationRevision(OTHER_ENTITY_IRI, projectId, specificationRevision(2L), 0));
+        long storedRevisions = mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).countDocuments();
+
+        Set<String> conflicts = new RevisionCollectionStore(mongoTemplate, iriDictionaryService).addSpecificationRevisions(projectId.id(), List.of(
+                new RevisionStore.PendingRevision<>(ENTITY_IRI, specificationRevision(3L), 0),
+                new RevisionStore.PendingRevision<>(OTHER_ENTITY_IRI, specificationRevision(3L), 0)), List.of());
+
+        assertEquals(Set.of(OTHER_ENTITY_IRI), conflicts);
+        assertEquals(storedRevisions + 1, mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).countDocuments());
+        assertEquals(List.of(1L, 3L), repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(List.of(1L, 2L), repository.getExistingHistoryOrderedByRevision(OTHER_ENTITY_IRI, projectId).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+    }
+
+    @Test
+    void GIVEN_revisionInsertedButVersionNotIncremented_WHEN_read_THEN_revisionIgnored() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        insertStrandedRevision(2L, 1L);
+
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+
+        assertEquals(List.of(1L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(0L, history.getVersion());
+    }
+
+    @Test
+    void GIVEN_versionTakenByStoppedWriter_WHEN_addSpecificationRevision_THEN_itsVersionIncrementedAndConflictReturned() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        insertStrandedRevision(2L, 1L);
+
+        assertFalse(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(3L), 0));
+        assertTrue(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(3L), 1));
+
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L, 2L, 3L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(2L, history.getVersion());
+    }
+
+    @Test
+    void GIVEN_rolledBackRevision_WHEN_revisionAddedAgainstTheOldVersion_THEN_conflict() {
+        ChangeRequestId changeRequestId = ChangeRequestId.generate();
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        assertTrue(repository.addSpecificationRevision(ENTITY_IRI, projectId, new PostCoordinationSpecificationRevision(UserId.valueOf("user1"), 2L,
+                specificationRevision(2L).postCoordinationEvents(), CommitStatus.UNCOMMITTED, changeRequestId.id()), 0));
+
+        repository.deletePostCoordinationSpecificationRevision(changeRequestId, projectId, ENTITY_IRI);
+
+        assertFalse(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(3L), 1));
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(2L, history.getVersion());
+    }
+
+    @Test
+    void GIVEN_versionTakenByRunningRollback_WHEN_addSpecificationRevision_THEN_versionLeftToTheRollback() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        insertMarker(1L, System.currentTimeMillis());
+
+        assertFalse(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(2L), 0));
+
+        assertEquals(0L, repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void GIVEN_versionTakenByAbandonedRollback_WHEN_addSpecificationRevision_THEN_itsVersionIncremented() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+        insertMarker(1L, System.currentTimeMillis() - RevisionCollectionStore.ABANDONED_MARKER_MILLIS - 1);
+
+        assertFalse(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(2L), 0));
+        assertTrue(repository.addSpecificationRevision(ENTITY_IRI, projectId, specificationRevision(2L), 1));
+
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L, 2L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(2L, history.getVersion());
+    }
+
+    @Test
+    void GIVEN_revisionsOfHistoryNeverInserted_WHEN_historyImportedAgain_THEN_onlyItsRevisionsRead() {
+        insertRevisionDocument(1L, HISTORY_ID, new BsonObjectId());
+
+        assertEquals(Set.of(), revisionStore.importSpecificationHistories(List.of(
+                new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(2L))))));
+
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(2L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+    }
+
+    @Test
+    void GIVEN_existingHistory_WHEN_insertSpecificationHistoryIfAbsent_THEN_itsRevisionsDeletedAgain() {
+        assertTrue(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L)))));
+
+        assertFalse(repository.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(2L)))));
+
+        assertEquals(1, mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).countDocuments());
+        EntityPostCoordinationHistory history = repository.getExistingHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow();
+        assertEquals(List.of(1L), history.getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+    }
+
+    @Test
+    void GIVEN_batchWithOneChangedEmbeddedHistory_WHEN_addSpecificationRevisions_THEN_onlyThatEntityReturned() {
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(OTHER_ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+        assertTrue(embeddedStore.addSpecificationRevision(OTHER_ENTITY_IRI, projectId.id(), specificationRevision(2L), 0));
+
+        Set<String> conflicts = embeddedStore.addSpecificationRevisions(projectId.id(), List.of(
+                new RevisionStore.PendingRevision<>(ENTITY_IRI, specificationRevision(3L), 0),
+                new RevisionStore.PendingRevision<>(OTHER_ENTITY_IRI, specificationRevision(3L), 0)), List.of());
+
+        assertEquals(Set.of(OTHER_ENTITY_IRI), conflicts);
+        assertEquals(List.of(1L, 3L), embeddedStore.findSpecificationHistory(ENTITY_IRI, projectId.id()).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(List.of(1L, 2L), embeddedStore.findSpecificationHistory(OTHER_ENTITY_IRI, projectId.id()).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+    }
+
+    @Test
+    void GIVEN_revisionAndNewHistories_WHEN_addSpecificationRevisions_THEN_writtenTogetherAndExistingHistoryReturned() {
+        String existingEntityIri = "http://id.who.int/icd/entity/3";
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(existingEntityIri, projectId.id(), List.of(specificationRevision(1L))));
+
+        Set<String> conflicts = embeddedStore.addSpecificationRevisions(projectId.id(),
+                List.of(new RevisionStore.PendingRevision<>(ENTITY_IRI, specificationRevision(2L), 0)),
+                List.of(new EntityPostCoordinationHistory(OTHER_ENTITY_IRI, projectId.id(), List.of(specificationRevision(2L))),
+                        new EntityPostCoordinationHistory(existingEntityIri, projectId.id(), List.of(specificationRevision(2L)))));
+
+        assertEquals(Set.of(existingEntityIri), conflicts);
+        assertEquals(List.of(1L, 2L), embeddedStore.findSpecificationHistory(ENTITY_IRI, projectId.id()).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(List.of(2L), embeddedStore.findSpecificationHistory(OTHER_ENTITY_IRI, projectId.id()).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+        assertEquals(List.of(1L), embeddedStore.findSpecificationHistory(existingEntityIri, projectId.id()).orElseThrow()
+                .getPostCoordinationRevisions().stream().map(PostCoordinationSpecificationRevision::timestamp).toList());
+    }
+
+    @Test
+    void GIVEN_revisionOfAnotherWriterWithTheSameTimestamp_WHEN_addSpecificationRevisions_THEN_entityReturned() {
+        embeddedStore.insertSpecificationHistoryIfAbsent(new EntityPostCoordinationHistory(ENTITY_IRI, projectId.id(), List.of(specificationRevision(1L))));
+        assertTrue(embeddedStore.addSpecificationRevision(ENTITY_IRI, projectId.id(), new PostCoordinationSpecificationRevision(UserId.valueOf("user2"), 2L,
+                specificationRevision(2L).postCoordinationEvents(), CommitStatus.COMMITTED, null), 0));
+
+        Set<String> conflicts = embeddedStore.addSpecificationRevisions(projectId.id(), List.of(
+                new RevisionStore.PendingRevision<>(ENTITY_IRI, specificationRevision(2L), 0)), List.of());
+
+        assertEquals(Set.of(ENTITY_IRI), conflicts);
+    }
+
+    @Test
+    void GIVEN_newHistoryCreatedByAnotherWriter_WHEN_addCustomScalesRevisions_THEN_itsRevisionsNotInsertedAndEntityReturned() {
+        EntityCustomScalesValuesHistory existing = new EntityCustomScalesValuesHistory(ENTITY_IRI, projectId.id(),
+                List.of(PostCoordinationCustomScalesRevision.create(UserId.valueOf("user1"), Set.of(new AddCustomScaleValueEvent("axis", "value1")))));
+        assertTrue(repository.insertCustomScalesHistoryIfAbsent(existing));
+        EntityCustomScalesValuesHistory created = new EntityCustomScalesValuesHistory(OTHER_ENTITY_IRI, projectId.id(),
+                List.of(PostCoordinationCustomScalesRevision.create(UserId.valueOf("user2"), Set.of(new AddCustomScaleValueEvent("axis", "value2")))));
+        EntityCustomScalesValuesHistory concurrent = new EntityCustomScalesValuesHistory(ENTITY_IRI, projectId.id(),
+                List.of(PostCoordinationCustomScalesRevision.create(UserId.valueOf("user2"), Set.of(new AddCustomScaleValueEvent("axis", "value3")))));
+
+        Set<String> conflicts = new RevisionCollectionStore(mongoTemplate, iriDictionaryService)
+                .addCustomScalesRevisions(projectId.id(), List.of(), List.of(created, concurrent));
+
+        assertEquals(Set.of(ENTITY_IRI), conflicts);
+        assertEquals(1, repository.getExistingCustomScaleHistoryOrderedByRevision(ENTITY_IRI, projectId).orElseThrow()
+                .getPostCoordinationCustomScalesRevisions().size());
+        assertEquals(1, repository.getExistingCustomScaleHistoryOrderedByRevision(OTHER_ENTITY_IRI, projectId).orElseThrow()
+                .getPostCoordinationCustomScalesRevisions().size());
+    }
+
+    /*
+     * What a writer that stopped between its two writes leaves behind.
+     */
+    private void insertStrandedRevision(long timestamp, long historyVersion) {
+        insertRevisionDocument(timestamp, HISTORY_VERSION, new BsonInt64(historyVersion));
+    }
+
+    private void insertRevisionDocument(long timestamp, String field, BsonValue value) {
+        iriDictionaryService.register(projectId.id(), List.of(specificationRevision(timestamp)));
+        var document = BsonDocumentWrapper.asBsonDocument(specificationRevision(timestamp), iriDictionaryService.codecRegistry(projectId.id()))
+                .append("projectId", new BsonString(projectId.id()))
+                .append("whoficEntityIri", new BsonString(ENTITY_IRI))
+                .append(field, value);
+        mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).withDocumentClass(BsonDocument.class).insertOne(document);
+    }
+
+    /*
+     * The version a rollback takes before it removes the revisions.
+     */
+    private void insertMarker(long historyVersion, long createdAt) {
+        var document = new BsonDocument("projectId", new BsonString(projectId.id()))
+                .append("whoficEntityIri", new BsonString(ENTITY_IRI))
+                .append(VERSION_MARKER, BsonBoolean.TRUE)
+                .append(TIMESTAMP, new BsonInt64(createdAt))
+                .append(HISTORY_VERSION, new BsonInt64(historyVersion));
+        mongoTemplate.getCollection(SPECIFICATION_REVISIONS_COLLECTION).withDocumentClass(BsonDocument.class).insertOne(document);
+    }
+
+    private static PostCoordinationSpecificationRevision specificationRevision(long timestamp) {
+        return new PostCoordinationSpecificationRevision(UserId.valueOf("user1"), timestamp,
+                Set.of(new PostCoordinationViewEvent("view", List.of(new AddToAllowedAxisEvent("axis", "view")))),
+                CommitStatus.COMMITTED, null);
+    }
+}
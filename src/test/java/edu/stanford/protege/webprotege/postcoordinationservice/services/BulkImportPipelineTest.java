@@ -0,0 +1,72 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ImportPipelineConfig;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BulkImportPipelineTest {
+
+    private BulkImportPipeline pipeline;
+
+    @BeforeEach
+    public void setUp() {
+        ImportPipelineConfig config = mock(ImportPipelineConfig.class);
+        when(config.getBatchSize()).thenReturn(10);
+        when(config.getParallelism()).thenReturn(4);
+        when(config.getMaxInFlightWrites()).thenReturn(2);
+        when(config.getMaxPendingBatches()).thenReturn(4);
+        pipeline = new BulkImportPipeline(config);
+    }
+
+    @Test
+    void GIVEN_source_WHEN_run_THEN_everyElementMappedAndWrittenOnce() {
+        Set<Integer> written = ConcurrentHashMap.newKeySet();
+
+        long imported = pipeline.run("test", IntStream.range(0, 1005).boxed(),
+                batch -> batch.stream().map(i -> i * 2).toList(),
+                written::addAll);
+
+        assertEquals(1005, imported);
+        assertEquals(IntStream.range(0, 1005).map(i -> i * 2).boxed().collect(Collectors.toSet()), written);
+    }
+
+    @Test
+    void GIVEN_slowWriter_WHEN_run_THEN_writesInFlightAreBounded() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        pipeline.run("test", IntStream.range(0, 200).boxed(), batch -> batch, batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+        });
+
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    void GIVEN_failingWriter_WHEN_run_THEN_bulkImportExceptionThrown() {
+        AtomicInteger writes = new AtomicInteger();
+
+        BulkImportException exception = assertThrows(BulkImportException.class,
+                () -> pipeline.run("test", IntStream.range(0, 1000).boxed(), batch -> batch, batch -> {
+                    if (writes.incrementAndGet() == 3) {
+                        throw new IllegalStateException("write failed");
+                    }
+                }));
+
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertTrue(writes.get() < 100);
+    }
+}
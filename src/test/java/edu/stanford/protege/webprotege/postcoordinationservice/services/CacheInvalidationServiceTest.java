@@ -0,0 +1,101 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheInvalidationConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.CacheInvalidationEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.events.CacheInvalidationEvent.Scope.*;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.*;
+
+public class CacheInvalidationServiceTest {
+
+    private static final String REMOTE_NODE = "remote-node";
+
+    private final ProjectId projectId = ProjectId.generate();
+
+    private ProcessedSpecificationCache processedCache;
+
+    private EntityTypeService entityTypeService;
+
+    private CacheInvalidationService cacheInvalidationService;
+
+    @BeforeEach
+    public void setUp() {
+        processedCache = mock(ProcessedSpecificationCache.class);
+        entityTypeService = mock(EntityTypeService.class);
+        CacheInvalidationConfig config = mock(CacheInvalidationConfig.class);
+        when(config.isEnabled()).thenReturn(false);
+        cacheInvalidationService = new CacheInvalidationService(processedCache, entityTypeService, mock(HistoryMembershipService.class), config,
+                mock(ConnectionFactory.class), new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void GIVEN_consecutiveEvents_WHEN_handleRemoteEvent_THEN_onlyTheirEntitiesEvicted() {
+        cacheInvalidationService.handleRemoteEvent(event(1, HISTORIES, "entity1"));
+        cacheInvalidationService.handleRemoteEvent(event(2, ENTITY_TYPES, "entity2"));
+
+        verify(processedCache).invalidate(projectId, List.of("entity1"));
+        verify(entityTypeService).invalidate(projectId, List.of("entity2"));
+        verify(processedCache, never()).invalidateAll();
+        verify(entityTypeService, never()).invalidateAll();
+    }
+
+    @Test
+    void GIVEN_missedEvents_WHEN_handleRemoteEvent_THEN_localCachesFlushed() {
+        cacheInvalidationService.handleRemoteEvent(event(1, HISTORIES, "entity1"));
+        cacheInvalidationService.handleRemoteEvent(event(4, HISTORIES, "entity2"));
+
+        verify(processedCache).invalidateAll();
+        verify(entityTypeService).invalidateAll();
+        verify(processedCache, never()).invalidate(projectId, List.of("entity2"));
+    }
+
+    @Test
+    void GIVEN_eventAfterFlush_WHEN_handleRemoteEvent_THEN_sequenceContinuesFromFlushedEvent() {
+        cacheInvalidationService.handleRemoteEvent(event(1, HISTORIES, "entity1"));
+        cacheInvalidationService.handleRemoteEvent(event(4, HISTORIES, "entity2"));
+        cacheInvalidationService.handleRemoteEvent(event(5, HISTORIES, "entity3"));
+
+        verify(processedCache, times(1)).invalidateAll();
+        verify(processedCache).invalidate(projectId, List.of("entity3"));
+    }
+
+    @Test
+    void GIVEN_brokerNotAnswering_WHEN_invalidateHistories_THEN_writersDoNotWaitForIt() throws Exception {
+        CountDownLatch brokerAnswers = new CountDownLatch(1);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenAnswer(invocation -> {
+            brokerAnswers.await();
+            throw new AmqpConnectException(new IllegalStateException("broker unavailable"));
+        });
+        CacheInvalidationConfig config = mock(CacheInvalidationConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.getExchange()).thenReturn("exchange");
+        CacheInvalidationService publishingService = new CacheInvalidationService(processedCache, entityTypeService, mock(HistoryMembershipService.class), config,
+                connectionFactory, new ObjectMapper(), new SimpleMeterRegistry());
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                publishingService.invalidateHistories(projectId, "entity1");
+                publishingService.invalidateHistories(projectId, "entity2");
+            });
+            verify(processedCache).invalidate(projectId, List.of("entity2"));
+        } finally {
+            brokerAnswers.countDown();
+        }
+    }
+
+    private CacheInvalidationEvent event(long sequence, CacheInvalidationEvent.Scope scope, String entityIri) {
+        return new CacheInvalidationEvent(REMOTE_NODE, sequence, scope, projectId, List.of(entityIri));
+    }
+}
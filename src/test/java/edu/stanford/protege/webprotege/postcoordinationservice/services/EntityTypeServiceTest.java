@@ -0,0 +1,102 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.ipc.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.semanticweb.owlapi.model.IRI;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class EntityTypeServiceTest {
+
+    private static final IRI ENTITY_IRI = IRI.create("http://id.who.int/icd/entity/1");
+
+    private CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
+
+    private EntityTypeService entityTypeService;
+
+    private ProjectId projectId;
+
+    private ExecutionContext executionContext;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        entityTypeExecutor = mock(CommandExecutor.class);
+        ReactiveExecutionConfig reactiveConfig = mock(ReactiveExecutionConfig.class);
+        when(reactiveConfig.getIpcTimeout()).thenReturn(Duration.ofSeconds(5));
+        EntityTypeCacheConfig cacheConfig = mock(EntityTypeCacheConfig.class);
+        when(cacheConfig.getMaximumSize()).thenReturn(100L);
+        when(cacheConfig.getTtl()).thenReturn(Duration.ofMinutes(1));
+        entityTypeService = new EntityTypeService(entityTypeExecutor, reactiveConfig, cacheConfig, new SimpleMeterRegistry());
+        projectId = ProjectId.generate();
+        executionContext = mock(ExecutionContext.class);
+    }
+
+    @Test
+    void GIVEN_concurrentLookups_WHEN_getEntityTypes_THEN_oneRequestSent() {
+        CompletableFuture<GetIcatxEntityTypeResponse> reply = new CompletableFuture<>();
+        when(entityTypeExecutor.execute(any(), any())).thenReturn(reply);
+
+        Mono<List<String>> first = entityTypeService.getEntityTypes(ENTITY_IRI, projectId, executionContext).cache();
+        Mono<List<String>> second = entityTypeService.getEntityTypes(ENTITY_IRI, projectId, executionContext).cache();
+        first.subscribe();
+        second.subscribe();
+        reply.complete(new GetIcatxEntityTypeResponse(List.of("ICD")));
+
+        assertEquals(List.of("ICD"), first.block());
+        assertEquals(List.of("ICD"), second.block());
+        verify(entityTypeExecutor, times(1)).execute(any(), any());
+    }
+
+    @Test
+    void GIVEN_cachedEntity_WHEN_invalidated_THEN_nextLookupSendsRequest() {
+        when(entityTypeExecutor.execute(any(), any())).thenReturn(CompletableFuture.completedFuture(new GetIcatxEntityTypeResponse(List.of("ICD"))));
+
+        entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext);
+        entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext);
+        verify(entityTypeExecutor, times(1)).execute(any(), any());
+
+        entityTypeService.invalidate(projectId, List.of(ENTITY_IRI.toString()));
+        entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext);
+        verify(entityTypeExecutor, times(2)).execute(any(), any());
+    }
+
+    @Test
+    void GIVEN_someCachedEntities_WHEN_getEntityTypesOfMany_THEN_onlyMissingEntitiesRequested() {
+        IRI otherIri = IRI.create("http://id.who.int/icd/entity/2");
+        when(entityTypeExecutor.execute(any(), any())).thenAnswer(invocation -> {
+            GetIcatxEntityTypeRequest request = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(new GetIcatxEntityTypeResponse(List.of("type of " + request.entityIri())));
+        });
+        entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext);
+
+        Map<String, List<String>> entityTypes = entityTypeService.getEntityTypes(List.of(ENTITY_IRI.toString(), otherIri.toString()), projectId, executionContext).block();
+
+        assertEquals(Map.of(ENTITY_IRI.toString(), List.of("type of " + ENTITY_IRI),
+                otherIri.toString(), List.of("type of " + otherIri)), entityTypes);
+        verify(entityTypeExecutor, times(2)).execute(any(), any());
+    }
+
+    @Test
+    void GIVEN_failedLookup_WHEN_getEntityTypesAgain_THEN_failureIsNotCached() {
+        when(entityTypeExecutor.execute(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(new GetIcatxEntityTypeResponse(List.of("ICD"))));
+
+        assertThrows(MessageProcessingException.class, () -> entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext));
+
+        assertEquals(List.of("ICD"), entityTypeService.fetchEntityTypes(ENTITY_IRI.toString(), projectId, executionContext));
+    }
+}
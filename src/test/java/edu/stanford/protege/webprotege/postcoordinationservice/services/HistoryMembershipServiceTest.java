@@ -0,0 +1,108 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.HistoryMembershipConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class HistoryMembershipServiceTest {
+
+    private static final String EDITED_ENTITY = "http://id.who.int/icd/entity/1";
+
+    private static final String UNEDITED_ENTITY = "http://id.who.int/icd/entity/2";
+
+    private final ProjectId projectId = ProjectId.generate();
+
+    private PostCoordinationRepository repository;
+
+    private HistoryMembershipConfig config;
+
+    private HistoryMembershipService historyMembership;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PostCoordinationRepository.class);
+        config = mock(HistoryMembershipConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.getExpectedEntitiesPerProject()).thenReturn(1000L);
+        when(config.getFalsePositiveProbability()).thenReturn(0.001);
+        when(config.getReloadInterval()).thenReturn(Duration.ofHours(1));
+        historyMembership = new HistoryMembershipService(repository, config, Schedulers.immediate(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void GIVEN_loadedFilter_WHEN_mightHaveHistory_THEN_onlyStoredEntitiesMayHaveOne() {
+        storedEntities(List.of(EDITED_ENTITY));
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, EDITED_ENTITY));
+        assertFalse(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+    }
+
+    @Test
+    void GIVEN_entityWrittenAfterLoad_WHEN_mightHaveHistory_THEN_entityMayHaveHistory() {
+        storedEntities(List.of(EDITED_ENTITY));
+        historyMembership.mightHaveHistory(projectId, EDITED_ENTITY);
+
+        historyMembership.add(projectId, List.of(UNEDITED_ENTITY));
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+    }
+
+    @Test
+    void GIVEN_historyWrittenByAnotherInstance_WHEN_broadcastNotYetReceived_THEN_entityMissedUntilItIs() {
+        storedEntities(List.of(EDITED_ENTITY));
+        historyMembership.mightHaveHistory(projectId, EDITED_ENTITY);
+        storedEntities(List.of(EDITED_ENTITY, UNEDITED_ENTITY));
+
+        assertFalse(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+
+        historyMembership.add(projectId, List.of(UNEDITED_ENTITY));
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+    }
+
+    @Test
+    void GIVEN_filterOlderThanTheReloadInterval_WHEN_mightHaveHistory_THEN_filterLoadedAgain() {
+        storedEntities(List.of(EDITED_ENTITY));
+        assertFalse(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+        when(config.getReloadInterval()).thenReturn(Duration.ZERO);
+
+        storedEntities(List.of(EDITED_ENTITY, UNEDITED_ENTITY));
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+        verify(repository, times(2)).forEachEntityIriWithHistory(eq(projectId), any());
+    }
+
+    @Test
+    void GIVEN_filterThatCouldNotBeLoaded_WHEN_mightHaveHistory_THEN_everyEntityMayHaveHistory() {
+        doThrow(new RuntimeException("connection refused")).when(repository).forEachEntityIriWithHistory(eq(projectId), any());
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+    }
+
+    @Test
+    void GIVEN_disabledMembership_WHEN_mightHaveHistory_THEN_storeNotRead() {
+        when(config.isEnabled()).thenReturn(false);
+
+        assertTrue(historyMembership.mightHaveHistory(projectId, UNEDITED_ENTITY));
+        verifyNoInteractions(repository);
+    }
+
+    private void storedEntities(List<String> entityIris) {
+        doAnswer(invocation -> {
+            entityIris.forEach(invocation.<Consumer<String>>getArgument(1));
+            return null;
+        }).when(repository).forEachEntityIriWithHistory(eq(projectId), any());
+    }
+}
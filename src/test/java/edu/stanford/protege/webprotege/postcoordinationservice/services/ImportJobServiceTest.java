@@ -0,0 +1,111 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ImportPipelineConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.ImportJob;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.ImportJobRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImportJobServiceTest {
+
+    private static final ProjectId PROJECT_ID = ProjectId.valueOf("b717d9a3-f265-46f5-bd15-9f1cf4b132c8");
+
+    private static final String LOCATION = "import.json";
+
+    private ImportJobRepository importJobRepository;
+
+    private ImportJobService importJobService;
+
+    private ImportJob storedJob;
+
+    @BeforeEach
+    public void setUp() {
+        ImportPipelineConfig config = mock(ImportPipelineConfig.class);
+        when(config.getBatchSize()).thenReturn(10);
+        when(config.getParallelism()).thenReturn(1);
+        when(config.getMaxInFlightWrites()).thenReturn(1);
+        when(config.getMaxPendingBatches()).thenReturn(1);
+        when(config.getMaxAttempts()).thenReturn(3);
+        when(config.getRetryBackoffInMillis()).thenReturn(0L);
+        when(config.getStaleJobTimeout()).thenReturn(Duration.ofMinutes(10));
+
+        storedJob = ImportJob.create(PROJECT_ID.id(), LOCATION, ImportJob.SPECIFICATIONS_IMPORT);
+        importJobRepository = mock(ImportJobRepository.class);
+        when(importJobRepository.claim(anyString(), anyLong())).thenAnswer(invocation -> Optional.of(storedJob));
+        when(importJobRepository.findById(anyString())).thenAnswer(invocation -> Optional.of(storedJob));
+        doAnswer(invocation -> {
+            storedJob = withProgress(storedJob, invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(importJobRepository).updateProgress(anyString(), anyLong(), anyLong());
+
+        importJobService = new ImportJobService(importJobRepository, new BulkImportPipeline(config), config);
+    }
+
+    @Test
+    void GIVEN_failingBatch_WHEN_runImport_THEN_retryResumesAfterCommittedRecords() {
+        Set<Integer> written = ConcurrentHashMap.newKeySet();
+        List<Long> skipped = new ArrayList<>();
+        AtomicInteger writes = new AtomicInteger();
+
+        importJobService.runImport(ImportJob.SPECIFICATIONS_IMPORT, LOCATION, PROJECT_ID,
+                committedRecords -> {
+                    skipped.add(committedRecords);
+                    return IntStream.range(0, 100).boxed().skip(committedRecords);
+                },
+                batch -> batch,
+                batch -> {
+                    if (writes.incrementAndGet() == 5) {
+                        throw new IllegalStateException("write failed");
+                    }
+                    written.addAll(batch);
+                });
+
+        assertEquals(List.of(0L, 40L), skipped);
+        assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toSet()), written);
+        assertEquals(100, storedJob.getCommittedRecords());
+        verify(importJobRepository).updateStatus(storedJob.getId(), ImportJob.Status.COMPLETED, null);
+    }
+
+    @Test
+    void GIVEN_completedJob_WHEN_runImport_THEN_nothingImported() {
+        when(importJobRepository.claim(anyString(), anyLong())).thenReturn(Optional.empty());
+        storedJob = new ImportJob(storedJob.getId(), PROJECT_ID.id(), LOCATION, ImportJob.SPECIFICATIONS_IMPORT,
+                ImportJob.Status.COMPLETED, 10, 100, 1, 0, 0, null);
+
+        importJobService.runImport(ImportJob.SPECIFICATIONS_IMPORT, LOCATION, PROJECT_ID,
+                committedRecords -> {
+                    throw new AssertionError("the document should not be read");
+                },
+                batch -> batch,
+                batch -> {
+                });
+    }
+
+    @Test
+    void GIVEN_jobRunningElsewhere_WHEN_runImport_THEN_bulkImportExceptionThrown() {
+        when(importJobRepository.claim(anyString(), anyLong())).thenReturn(Optional.empty());
+        storedJob = new ImportJob(storedJob.getId(), PROJECT_ID.id(), LOCATION, ImportJob.SPECIFICATIONS_IMPORT,
+                ImportJob.Status.RUNNING, 0, 0, 1, 0, System.currentTimeMillis(), null);
+
+        assertThrows(BulkImportException.class, () -> importJobService.runImport(ImportJob.SPECIFICATIONS_IMPORT, LOCATION, PROJECT_ID,
+                committedRecords -> Stream.of(1),
+                batch -> batch,
+                batch -> {
+                }));
+    }
+
+    private static ImportJob withProgress(ImportJob job, long committedBatches, long committedRecords) {
+        return new ImportJob(job.getId(), job.getProjectId(), job.getDocumentLocation(), job.getImportType(), ImportJob.Status.RUNNING,
+                committedBatches, committedRecords, job.getAttempts(), job.getStartedAt(), System.currentTimeMillis(), null);
+    }
+}
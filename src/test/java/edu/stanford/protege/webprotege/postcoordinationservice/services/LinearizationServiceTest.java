@@ -0,0 +1,55 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.ipc.CommandExecutor;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.CacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinitionRequest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinitionResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LinearizationServiceTest {
+
+    private CommandExecutor<LinearizationDefinitionRequest, LinearizationDefinitionResponse> commandExecutor;
+
+    private LinearizationService linearizationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        commandExecutor = mock(CommandExecutor.class);
+        CacheConfig cacheConfig = mock(CacheConfig.class);
+        when(cacheConfig.getLinearizationDefinitionsRefresh()).thenReturn(Duration.ofMinutes(5));
+        when(cacheConfig.getLinearizationDefinitionsTtl()).thenReturn(Duration.ofHours(1));
+        linearizationService = new LinearizationService(commandExecutor, cacheConfig, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void GIVEN_definitionsFetched_WHEN_getLinearizationDefinitionsAgain_THEN_cachedListReturned() {
+        when(commandExecutor.execute(any(), any())).thenReturn(CompletableFuture.completedFuture(new LinearizationDefinitionResponse(List.of())));
+
+        var first = linearizationService.getLinearizationDefinitions();
+        var second = linearizationService.getLinearizationDefinitions();
+
+        assertSame(first, second);
+        verify(commandExecutor, times(1)).execute(any(), any());
+    }
+
+    @Test
+    void GIVEN_cachedDefinitions_WHEN_invalidated_THEN_definitionsFetchedAgain() {
+        when(commandExecutor.execute(any(), any())).thenReturn(CompletableFuture.completedFuture(new LinearizationDefinitionResponse(List.of())));
+
+        linearizationService.getLinearizationDefinitions();
+        linearizationService.invalidate();
+        linearizationService.getLinearizationDefinitions();
+
+        verify(commandExecutor, times(2)).execute(any(), any());
+    }
+}
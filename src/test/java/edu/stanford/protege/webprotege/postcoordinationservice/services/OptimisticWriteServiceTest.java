@@ -0,0 +1,66 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.config.OptimisticConcurrencyConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.services.OptimisticWriteService.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OptimisticWriteServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OptimisticWriteService optimisticWriteService;
+
+    @BeforeEach
+    public void setUp() {
+        OptimisticConcurrencyConfig config = mock(OptimisticConcurrencyConfig.class);
+        when(config.getMaxAttempts()).thenReturn(3);
+        when(config.getBackoffInMillis()).thenReturn(0L);
+        meterRegistry = new SimpleMeterRegistry();
+        optimisticWriteService = new OptimisticWriteService(config, meterRegistry);
+    }
+
+    @Test
+    void GIVEN_conflictOnFirstAttempt_WHEN_executeWithRetries_THEN_attemptRepeatedAndConflictCounted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        optimisticWriteService.executeWithRetries(SPECIFICATION_HISTORY, "entity1", () -> attempts.incrementAndGet() > 1);
+
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, count(SPECIFICATION_HISTORY, "conflict"));
+        assertEquals(1.0, count(SPECIFICATION_HISTORY, "success"));
+    }
+
+    @Test
+    void GIVEN_conflictOnEveryAttempt_WHEN_executeWithRetries_THEN_exceptionThrownAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConcurrentHistoryUpdateException.class,
+                () -> optimisticWriteService.executeWithRetries(CUSTOM_SCALES_HISTORY, "entity1", () -> attempts.incrementAndGet() < 0));
+
+        assertEquals(3, attempts.get());
+        assertEquals(3.0, count(CUSTOM_SCALES_HISTORY, "conflict"));
+        assertEquals(1.0, count(CUSTOM_SCALES_HISTORY, "exhausted"));
+    }
+
+    @Test
+    void GIVEN_conflictOnLastAttempt_WHEN_executeWithRetries_THEN_exceptionThrownWithoutWaiting() {
+        OptimisticConcurrencyConfig config = mock(OptimisticConcurrencyConfig.class);
+        when(config.getMaxAttempts()).thenReturn(1);
+        when(config.getBackoffInMillis()).thenReturn(60_000L);
+        OptimisticWriteService singleAttemptService = new OptimisticWriteService(config, meterRegistry);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(ConcurrentHistoryUpdateException.class,
+                () -> singleAttemptService.executeWithRetries(SPECIFICATION_HISTORY, "entity1", () -> false)));
+    }
+
+    private double count(String history, String outcome) {
+        return meterRegistry.get(WRITE_ATTEMPTS_METRIC).tag("history", history).tag("outcome", outcome).counter().count();
+    }
+}
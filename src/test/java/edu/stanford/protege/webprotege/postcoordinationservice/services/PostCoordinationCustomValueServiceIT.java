@@ -4,8 +4,7 @@ package edu.stanford.protege.webprotege.postcoordinationservice.services;
 import edu.stanford.protege.webprotege.common.*;
 import edu.stanford.protege.webprotege.ipc.CommandExecutor;
 import edu.stanford.protege.webprotege.postcoordinationservice.IntegrationTest;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeRequest;
-import edu.stanford.protege.webprotege.postcoordinationservice.dto.GetIcatxEntityTypeResponse;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.repositories.MinioPostCoordinationDocumentLoader;
 import org.junit.jupiter.api.*;
@@ -71,4 +70,29 @@ public class PostCoordinationCustomValueServiceIT {
         assertEquals(UserId.valueOf("alexsilaghi"), revision.userId());
         assertEquals(7, revision.postCoordinationEvents().size());
     }
+
+    @Test
+    public void GIVEN_importedScales_WHEN_fetchingManyEntities_THEN_sameValuesAsSingleFetchInRequestOrder() {
+        ProjectId projectId = ProjectId.generate();
+        String entityIri = "http://id.who.int/icd/entity/515117475";
+        String entityWithoutHistory = "http://id.who.int/icd/entity/unknown";
+        postCoordinationService.crateFirstCustomScalesValuesImport("postCoordinationScalesImportFile.json", projectId, new UserId("alexsilaghi"));
+
+        List<GetEntityCustomScaleValueResponse> responses = postCoordinationService.fetchCustomScalesHistories(List.of(entityWithoutHistory, entityIri), projectId,
+                Map.of(entityIri, List.of("ICD"), entityWithoutHistory, List.of("ICD")));
+
+        assertEquals(2, responses.size());
+        assertEquals(entityWithoutHistory, responses.get(0).whoficCustomScalesValues().whoficEntityIri());
+        assertTrue(responses.get(0).whoficCustomScalesValues().scaleCustomizations().isEmpty());
+        GetEntityCustomScaleValueResponse single = postCoordinationService.fetchCustomScalesHistory(entityIri, projectId, List.of("ICD"));
+        assertEquals(single.lastRevisionDate(), responses.get(1).lastRevisionDate());
+        assertEquals(axesAndValues(single), axesAndValues(responses.get(1)));
+    }
+
+    private static List<String> axesAndValues(GetEntityCustomScaleValueResponse response) {
+        return response.whoficCustomScalesValues().scaleCustomizations().stream()
+                .map(customization -> customization.getPostcoordinationAxis() + " " + customization.getPostcoordinationScaleValues())
+                .sorted()
+                .toList();
+    }
 }
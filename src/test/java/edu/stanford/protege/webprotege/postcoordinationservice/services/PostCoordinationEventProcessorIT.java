@@ -148,7 +148,7 @@ public class PostCoordinationEventProcessorIT {
                 "ICD",
                 Collections.singletonList(postCoordinationSpecification));
 
-        postCoordService.addSpecificationRevision(newSpec, UserId.valueOf("alexsilaghi"), ProjectId.valueOf("b717d9a3-f265-46f5-bd15-9f1cf4b132c8"));
+        postCoordService.addSpecificationRevision(newSpec, UserId.valueOf("alexsilaghi"), ProjectId.valueOf("b717d9a3-f265-46f5-bd15-9f1cf4b132c8")).block();
 
         var history = repository.getExistingHistoryOrderedByRevision("http://id.who.int/icd/entity/2042704797", ProjectId.valueOf("b717d9a3-f265-46f5-bd15-9f1cf4b132c8"));
         assertTrue(history.isPresent());
@@ -109,4 +109,183 @@ public class PostCoordinationEventProcessorTest {
         assertEquals("entity1", result.whoficEntityIri());
         assertEquals(0, result.postcoordinationSpecifications().size());
     }
+
+    @Test
+    void GIVEN_snapshotOfStoredRevisions_WHEN_replayedOnTopOfDefaultRevision_THEN_sameSpecificationAsFullReplay() {
+        PostCoordinationSpecificationRevision defaultRevision = new PostCoordinationSpecificationRevision(UserId.valueOf("initialRevision"), 0L,
+                Set.of(new PostCoordinationViewEvent("view1", List.of(
+                        new AddToDefaultAxisEvent("axis1", "view1"),
+                        new AddToDefaultAxisEvent("axis2", "view1"),
+                        new AddToDefaultAxisEvent("axis3", "view1")))),
+                CommitStatus.COMMITTED, null);
+        List<PostCoordinationSpecificationRevision> storedRevisions = List.of(
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 1L, Set.of(new PostCoordinationViewEvent("view1", List.of(
+                        new AddToRequiredAxisEvent("axis1", "view1"),
+                        new AddToAllowedAxisEvent("axis3", "view1")))), CommitStatus.COMMITTED, null),
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 2L, Set.of(new PostCoordinationViewEvent("view1", List.of(
+                        new AddToNotAllowedAxisEvent("axis3", "view1"))),
+                        new PostCoordinationViewEvent("view2", List.of(
+                        new AddToAllowedAxisEvent("axis2", "view2")))), CommitStatus.UNCOMMITTED, "changeRequest")
+        );
+        EntityPostCoordinationHistory storedHistory = new EntityPostCoordinationHistory("entity1", "project1", storedRevisions);
+
+        List<PostCoordinationSpecificationRevision> allRevisions = new ArrayList<>(storedRevisions);
+        allRevisions.add(0, defaultRevision);
+        WhoficEntityPostCoordinationSpecification fullReplay = eventProcessor.processHistory(new EntityPostCoordinationHistory("entity1", "project1", allRevisions));
+
+        EntityPostCoordinationSnapshot snapshot = EntityPostCoordinationSnapshot.create(storedHistory, eventProcessor.processHistory(storedHistory));
+        WhoficEntityPostCoordinationSpecification snapshotReplay = eventProcessor.processHistory(
+                new EntityPostCoordinationHistory("entity1", "project1", List.of(defaultRevision, snapshot.toRevision())));
+
+        assertEquals(2, snapshot.getRevisionCount());
+        assertEquals(2L, snapshot.getLastRevisionTimestamp());
+        assertEquals(fullReplay.postcoordinationSpecifications().size(), snapshotReplay.postcoordinationSpecifications().size());
+        for (PostCoordinationSpecification expected : fullReplay.postcoordinationSpecifications()) {
+            PostCoordinationSpecification actual = snapshotReplay.postcoordinationSpecifications().stream()
+                    .filter(spec -> spec.getLinearizationView().equals(expected.getLinearizationView()))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(expected.getAllowedAxes(), actual.getAllowedAxes());
+            assertEquals(expected.getDefaultAxes(), actual.getDefaultAxes());
+            assertEquals(expected.getNotAllowedAxes(), actual.getNotAllowedAxes());
+            assertEquals(expected.getRequiredAxes(), actual.getRequiredAxes());
+        }
+    }
+
+    @Test
+    void GIVEN_defaultSpecifications_WHEN_processHistoryOnTopOfThem_THEN_sameSpecificationAsReplayingDefaultRevision() {
+        PostCoordinationConfigSnapshot configSnapshot = new PostCoordinationConfigSnapshot(1,
+                List.of(new TableConfiguration("ICD", List.of("axis1", "axis2", "axis3"), List.of())),
+                List.of(), List.of(),
+                List.of(new LinearizationDefinition("MMS", "view1", "", "", "", null, "1", "MMS", ""),
+                        new LinearizationDefinition("PCL", "view2", "", "", "", null, "2", null, "")));
+        List<PostCoordinationSpecificationRevision> storedRevisions = List.of(
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 1L, Set.of(new PostCoordinationViewEvent("view1", List.of(
+                        new AddToRequiredAxisEvent("axis1", "view1"),
+                        new AddToAllowedAxisEvent("axis3", "view1")))), CommitStatus.COMMITTED, null),
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 2L, Set.of(new PostCoordinationViewEvent("view2", List.of(
+                        new AddToAllowedAxisEvent("axis2", "view2")))), CommitStatus.COMMITTED, null));
+
+        List<PostCoordinationSpecificationRevision> allRevisions = new ArrayList<>(storedRevisions);
+        allRevisions.add(0, configSnapshot.getDefaultInitialRevision(List.of("ICD")));
+        WhoficEntityPostCoordinationSpecification fullReplay = eventProcessor.processHistory(new EntityPostCoordinationHistory("entity1", "project1", allRevisions));
+        WhoficEntityPostCoordinationSpecification fromDefaults = eventProcessor.processHistory(
+                new EntityPostCoordinationHistory("entity1", "project1", storedRevisions), configSnapshot.getDefaultSpecifications(List.of("ICD")));
+
+        assertEquals(fullReplay.postcoordinationSpecifications().size(), fromDefaults.postcoordinationSpecifications().size());
+        for (PostCoordinationSpecification expected : fullReplay.postcoordinationSpecifications()) {
+            PostCoordinationSpecification actual = fromDefaults.postcoordinationSpecifications().stream()
+                    .filter(spec -> spec.getLinearizationView().equals(expected.getLinearizationView()))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(Set.copyOf(expected.getAllowedAxes()), Set.copyOf(actual.getAllowedAxes()));
+            assertEquals(Set.copyOf(expected.getDefaultAxes()), Set.copyOf(actual.getDefaultAxes()));
+            assertEquals(Set.copyOf(expected.getNotAllowedAxes()), Set.copyOf(actual.getNotAllowedAxes()));
+            assertEquals(Set.copyOf(expected.getRequiredAxes()), Set.copyOf(actual.getRequiredAxes()));
+        }
+        PostCoordinationSpecification sharedMms = configSnapshot.getDefaultSpecifications(List.of("ICD")).stream()
+                .filter(spec -> spec.getLinearizationView().equals("view1"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(Set.of("axis1", "axis2", "axis3"), Set.copyOf(sharedMms.getDefaultAxes()));
+        assertTrue(sharedMms.getRequiredAxes().isEmpty());
+    }
+
+    @Test
+    void GIVEN_customScalesHistory_WHEN_createSnapshot_THEN_foldedValuesAndNewestTimestampStored() {
+        EntityCustomScalesValuesHistory customScalesHistory = new EntityCustomScalesValuesHistory(
+                "entity1",
+                "project1",
+                List.of(
+                        new PostCoordinationCustomScalesRevision(UserId.getGuest(), 5L, Set.of(new AddCustomScaleValueEvent("axis1", "value1")), CommitStatus.COMMITTED, null),
+                        new PostCoordinationCustomScalesRevision(UserId.getGuest(), 9L, Set.of(new RemoveCustomScaleValueEvent("axis1", "value1"), new AddCustomScaleValueEvent("axis2", "value2")), CommitStatus.COMMITTED, null)
+                )
+        );
+
+        EntityCustomScalesValuesSnapshot snapshot = EntityCustomScalesValuesSnapshot.create(customScalesHistory, eventProcessor.processCustomScaleHistory(customScalesHistory));
+
+        assertEquals(9L, snapshot.getLastRevisionTimestamp());
+        assertEquals(1, snapshot.getScaleCustomizations().size());
+        assertEquals("axis2", snapshot.getScaleCustomizations().get(0).getPostcoordinationAxis());
+        assertEquals(List.of("value2"), snapshot.toCustomScalesValues().scaleCustomizations().get(0).getPostcoordinationScaleValues());
+    }
+
+    @Test
+    void GIVEN_customScalesSnapshot_WHEN_historyGainedARevision_THEN_snapshotNotUpToDate() {
+        PostCoordinationCustomScalesRevision first = new PostCoordinationCustomScalesRevision(UserId.getGuest(), 5L, Set.of(new AddCustomScaleValueEvent("axis1", "value1")), CommitStatus.COMMITTED, null);
+        PostCoordinationCustomScalesRevision second = new PostCoordinationCustomScalesRevision(UserId.getGuest(), 9L, Set.of(new AddCustomScaleValueEvent("axis2", "value2")), CommitStatus.COMMITTED, null);
+        EntityCustomScalesValuesHistory customScalesHistory = new EntityCustomScalesValuesHistory("entity1", "project1", List.of(first));
+
+        EntityCustomScalesValuesSnapshot snapshot = EntityCustomScalesValuesSnapshot.create(customScalesHistory, eventProcessor.processCustomScaleHistory(customScalesHistory));
+
+        assertEquals(1, snapshot.getRevisionCount());
+        assertTrue(snapshot.isUpToDate(customScalesHistory));
+        assertFalse(snapshot.isUpToDate(new EntityCustomScalesValuesHistory("entity1", "project1", List.of(first, second), null, 1L)));
+        assertFalse(snapshot.isUpToDate(new EntityCustomScalesValuesHistory("entity1", "project1", List.of(second), null, 2L)));
+    }
+
+    @Test
+    void GIVEN_specificationSnapshot_WHEN_revisionReplacedWithSameCountAndTimestamp_THEN_snapshotNotUpToDate() {
+        PostCoordinationSpecificationRevision first = new PostCoordinationSpecificationRevision(UserId.getGuest(), 5L, Set.of(new PostCoordinationViewEvent("view1", List.of(
+                new AddToAllowedAxisEvent("axis1", "view1")))), CommitStatus.COMMITTED, null);
+        PostCoordinationSpecificationRevision replacement = new PostCoordinationSpecificationRevision(UserId.getGuest(), 5L, Set.of(new PostCoordinationViewEvent("view1", List.of(
+                new AddToNotAllowedAxisEvent("axis1", "view1")))), CommitStatus.COMMITTED, null);
+        EntityPostCoordinationHistory history = new EntityPostCoordinationHistory("entity1", "project1", List.of(first), null, 3L);
+
+        EntityPostCoordinationSnapshot snapshot = EntityPostCoordinationSnapshot.create(history, eventProcessor.processHistory(history));
+
+        assertTrue(snapshot.isUpToDate(new EntityPostCoordinationHistory("entity1", "project1", List.of(first), null, 3L)));
+        assertFalse(snapshot.isUpToDate(new EntityPostCoordinationHistory("entity1", "project1", List.of(replacement), null, 5L)));
+    }
+
+    @Test
+    void GIVEN_historyWithValidCheckpoint_WHEN_processStoredHistory_THEN_onlyTailIsReplayedOnTopOfCheckpoint() {
+        List<PostCoordinationSpecificationRevision> revisions = List.of(
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 1L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToRequiredAxisEvent("axis1", "view1")))), CommitStatus.COMMITTED, null),
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 2L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToDefaultAxisEvent("axis2", "view1")))), CommitStatus.COMMITTED, null),
+                new PostCoordinationSpecificationRevision(UserId.getGuest(), 3L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToAllowedAxisEvent("axis1", "view1")))), CommitStatus.COMMITTED, null)
+        );
+        EntityPostCoordinationHistory checkpointedPrefix = new EntityPostCoordinationHistory("entity1", "project1", revisions.subList(0, 2));
+        PostCoordinationSpecificationCheckpoint checkpoint = eventProcessor.createSpecificationCheckpoint(checkpointedPrefix);
+        EntityPostCoordinationHistory history = new EntityPostCoordinationHistory("entity1", "project1", revisions, checkpoint);
+
+        List<PostCoordinationSpecificationRevision> revisionsToReplay = eventProcessor.revisionsFromNewestCheckpoint(history);
+        WhoficEntityPostCoordinationSpecification result = eventProcessor.processStoredHistory(history);
+
+        assertEquals(2, checkpoint.revisionCount());
+        assertEquals(2L, checkpoint.timestamp());
+        assertEquals(2, revisionsToReplay.size());
+        assertEquals(3L, revisionsToReplay.get(1).timestamp());
+        PostCoordinationSpecification specification = result.postcoordinationSpecifications().get(0);
+        assertEquals(List.of("axis1"), specification.getAllowedAxes());
+        assertEquals(List.of("axis2"), specification.getDefaultAxes());
+        assertTrue(specification.getRequiredAxes().isEmpty());
+    }
+
+    @Test
+    void GIVEN_checkpointCoveringPulledRevision_WHEN_revisionsFromNewestCheckpoint_THEN_fullHistoryIsReplayed() {
+        PostCoordinationSpecificationRevision first = new PostCoordinationSpecificationRevision(UserId.getGuest(), 1L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToRequiredAxisEvent("axis1", "view1")))), CommitStatus.COMMITTED, null);
+        PostCoordinationSpecificationRevision second = new PostCoordinationSpecificationRevision(UserId.getGuest(), 2L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToDefaultAxisEvent("axis2", "view1")))), CommitStatus.UNCOMMITTED, "changeRequest");
+        PostCoordinationSpecificationRevision third = new PostCoordinationSpecificationRevision(UserId.getGuest(), 3L, Set.of(new PostCoordinationViewEvent("view1", List.of(new AddToAllowedAxisEvent("axis3", "view1")))), CommitStatus.COMMITTED, null);
+        PostCoordinationSpecificationCheckpoint checkpoint = eventProcessor.createSpecificationCheckpoint(new EntityPostCoordinationHistory("entity1", "project1", List.of(first, second)));
+
+        EntityPostCoordinationHistory historyAfterPull = new EntityPostCoordinationHistory("entity1", "project1", List.of(first, third), checkpoint);
+
+        assertEquals(List.of(first, third), eventProcessor.revisionsFromNewestCheckpoint(historyAfterPull));
+        PostCoordinationSpecification specification = eventProcessor.processStoredHistory(historyAfterPull).postcoordinationSpecifications().get(0);
+        assertTrue(specification.getDefaultAxes().isEmpty());
+        assertEquals(List.of("axis1"), specification.getRequiredAxes());
+    }
+
+    @Test
+    void GIVEN_customScalesCheckpoint_WHEN_processCustomScaleHistory_THEN_tailAppliedWithoutMutatingCheckpoint() {
+        PostCoordinationCustomScalesRevision first = new PostCoordinationCustomScalesRevision(UserId.getGuest(), 1L, Set.of(new AddCustomScaleValueEvent("axis1", "value1")), CommitStatus.COMMITTED, null);
+        PostCoordinationCustomScalesRevision second = new PostCoordinationCustomScalesRevision(UserId.getGuest(), 2L, Set.of(new AddCustomScaleValueEvent("axis1", "value2")), CommitStatus.COMMITTED, null);
+        PostCoordinationCustomScalesCheckpoint checkpoint = eventProcessor.createCustomScalesCheckpoint(new EntityCustomScalesValuesHistory("entity1", "project1", List.of(first)));
+
+        WhoficCustomScalesValues result = eventProcessor.processCustomScaleHistory(new EntityCustomScalesValuesHistory("entity1", "project1", List.of(first, second), checkpoint));
+
+        assertEquals(List.of("value1", "value2"), result.scaleCustomizations().get(0).getPostcoordinationScaleValues());
+        assertEquals(List.of("value1"), checkpoint.scaleCustomizations().get(0).getPostcoordinationScaleValues());
+    }
 }
@@ -0,0 +1,186 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.protege.webprotege.common.*;
+import edu.stanford.protege.webprotege.ipc.CommandExecutor;
+import edu.stanford.protege.webprotege.postcoordinationservice.IntegrationTest;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.repositories.MinioPostCoordinationDocumentLoader;
+import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.nodeRendering.EntityRendererManager;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationHistory.POSTCOORDINATION_HISTORY_COLLECTION;
+import static edu.stanford.protege.webprotege.postcoordinationservice.model.EntityPostCoordinationSnapshot.POSTCOORDINATION_SNAPSHOT_COLLECTION;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that {@link PostCoordinationService#fetchHistories} answers every entity like {@link PostCoordinationService#fetchHistory}.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ExtendWith({SpringExtension.class, IntegrationTest.class})
+@ActiveProfiles("test")
+public class PostCoordinationFetchHistoriesIT {
+
+    private static final String MMS = "http://id.who.int/icd/release/11/mms";
+
+    private static final String SEVERITY = "http://id.who.int/icd/schema/hasSeverity";
+
+    private static final String EDITED_ENTITY = "http://id.who.int/icd/entity/1";
+
+    private static final String OTHER_EDITED_ENTITY = "http://id.who.int/icd/entity/2";
+
+    private static final String UNEDITED_ENTITY = "http://id.who.int/icd/entity/3";
+
+    @Autowired
+    private PostCoordinationService postCoordinationService;
+
+    @Autowired
+    private ProcessedSpecificationCache processedCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockBean
+    private MinioPostCoordinationDocumentLoader documentLoader;
+
+    @MockBean
+    private EntityRendererManager entityRendererManager;
+
+    @MockBean
+    private LinearizationService linearizationService;
+
+    @MockBean
+    private CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypesExecutor;
+
+    private UserId userId;
+
+    private ProjectId projectId;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mongoTemplate.dropCollection(POSTCOORDINATION_HISTORY_COLLECTION);
+        mongoTemplate.dropCollection(POSTCOORDINATION_SNAPSHOT_COLLECTION);
+        processedCache.invalidateAll();
+
+        when(linearizationService.getLinearizationDefinitions())
+                .thenReturn(objectMapper.readValue(new FileInputStream("src/test/resources/LinearizationDefinitions.json"), new TypeReference<>() {
+                }));
+        List<Document> documents = objectMapper.readValue(new File("src/test/resources/postcoordinationTableConfig.json"), new TypeReference<>() {
+        });
+        documents.forEach(document -> mongoTemplate.save(document, TableConfiguration.DEFINITIONS_COLLECTION));
+        when(entityTypesExecutor.execute(any(), any())).thenReturn(CompletableFuture.supplyAsync(() -> new GetIcatxEntityTypeResponse(List.of("ICD"))));
+        userId = UserId.valueOf("user1");
+        projectId = ProjectId.generate();
+
+        postCoordinationService.addSpecificationRevision(new WhoficEntityPostCoordinationSpecification(EDITED_ENTITY, "ICD",
+                List.of(new PostCoordinationSpecification(MMS, List.of(SEVERITY), List.of(), List.of(), List.of()))), userId, projectId).block();
+        postCoordinationService.addSpecificationRevision(new WhoficEntityPostCoordinationSpecification(OTHER_EDITED_ENTITY, "ICD",
+                List.of(new PostCoordinationSpecification(MMS, List.of(), List.of(), List.of(), List.of(SEVERITY)))), userId, projectId).block();
+        processedCache.invalidateAll();
+    }
+
+    @Test
+    void GIVEN_entitiesInAnyOrder_WHEN_fetchHistories_THEN_answeredInRequestOrderLikeFetchHistory() {
+        List<String> entityIris = List.of(UNEDITED_ENTITY, OTHER_EDITED_ENTITY, EDITED_ENTITY);
+        Map<String, List<String>> entityTypes = icdTypes(entityIris);
+
+        var responses = postCoordinationService.fetchHistories(entityIris, projectId, entityTypes);
+
+        assertSameAsFetchHistory(entityIris, entityTypes, responses);
+    }
+
+    @Test
+    void GIVEN_someEntitiesCached_WHEN_fetchHistories_THEN_cachedAndReadEntitiesAnsweredLikeFetchHistory() {
+        List<String> entityIris = List.of(EDITED_ENTITY, UNEDITED_ENTITY, OTHER_EDITED_ENTITY);
+        Map<String, List<String>> entityTypes = icdTypes(entityIris);
+        postCoordinationService.fetchHistory(OTHER_EDITED_ENTITY, projectId, List.of("ICD"));
+
+        var responses = postCoordinationService.fetchHistories(entityIris, projectId, entityTypes);
+
+        assertSameAsFetchHistory(entityIris, entityTypes, responses);
+    }
+
+    @Test
+    void GIVEN_snapshotsMissing_WHEN_fetchHistories_THEN_replayedHistoriesAnsweredLikeSnapshots() {
+        List<String> entityIris = List.of(EDITED_ENTITY, OTHER_EDITED_ENTITY);
+        Map<String, List<String>> entityTypes = icdTypes(entityIris);
+        mongoTemplate.dropCollection(POSTCOORDINATION_SNAPSHOT_COLLECTION);
+
+        var responses = postCoordinationService.fetchHistories(entityIris, projectId, entityTypes);
+
+        assertEquals(2, mongoTemplate.getCollection(POSTCOORDINATION_SNAPSHOT_COLLECTION).countDocuments());
+        assertSameAsFetchHistory(entityIris, entityTypes, responses);
+    }
+
+    @Test
+    void GIVEN_entitiesWithoutTypes_WHEN_fetchHistories_THEN_answeredLikeFetchHistoryWithoutTypes() {
+        List<String> entityIris = List.of(EDITED_ENTITY, UNEDITED_ENTITY);
+
+        var responses = postCoordinationService.fetchHistories(entityIris, projectId, Map.of());
+
+        assertSameAsFetchHistory(entityIris, Map.of(), responses);
+    }
+
+    @Test
+    void GIVEN_duplicateEntity_WHEN_fetchHistories_THEN_answeredOncePerOccurrence() {
+        List<String> entityIris = List.of(EDITED_ENTITY, UNEDITED_ENTITY, EDITED_ENTITY);
+        Map<String, List<String>> entityTypes = icdTypes(entityIris);
+
+        var responses = postCoordinationService.fetchHistories(entityIris, projectId, entityTypes);
+
+        assertSameAsFetchHistory(entityIris, entityTypes, responses);
+    }
+
+    /*
+     * The cache is emptied first, so fetchHistory reads the store and does not return what fetchHistories cached.
+     */
+    private void assertSameAsFetchHistory(List<String> entityIris, Map<String, List<String>> entityTypes, List<GetEntityPostCoordinationResponse> responses) {
+        assertEquals(entityIris, responses.stream().map(GetEntityPostCoordinationResponse::entityIri).toList());
+        processedCache.invalidateAll();
+        for (int i = 0; i < entityIris.size(); i++) {
+            var expected = postCoordinationService.fetchHistory(entityIris.get(i), projectId, entityTypes.getOrDefault(entityIris.get(i), List.of()));
+            assertEquals(axesByView(expected), axesByView(responses.get(i)), entityIris.get(i));
+        }
+    }
+
+    private static Map<String, List<String>> icdTypes(List<String> entityIris) {
+        Map<String, List<String>> entityTypes = new HashMap<>();
+        entityIris.forEach(entityIri -> entityTypes.put(entityIri, List.of("ICD")));
+        return entityTypes;
+    }
+
+    /*
+     * The specifications don't implement equals and the order of their axes does not matter.
+     */
+    private static Map<String, List<Set<String>>> axesByView(GetEntityPostCoordinationResponse response) {
+        Map<String, List<Set<String>>> axesByView = new HashMap<>();
+        response.postCoordinationSpecification().postcoordinationSpecifications().forEach(specification ->
+                axesByView.put(specification.getLinearizationView(), List.of(
+                        new HashSet<>(specification.getAllowedAxes()),
+                        new HashSet<>(specification.getDefaultAxes()),
+                        new HashSet<>(specification.getNotAllowedAxes()),
+                        new HashSet<>(specification.getRequiredAxes()))));
+        return axesByView;
+    }
+}
@@ -154,4 +154,61 @@ public class PostCoordinationServiceIT {
         assertEquals(userId, latestRevision.userId());
         assertEquals(1, latestRevision.postCoordinationEvents().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void GIVEN_existingAndNewEntities_WHEN_addSpecificationRevisions_THEN_oneRevisionAddedPerEntity() {
+        String existingEntity = "http://id.who.int/icd/entity/12345";
+        String newEntity = "http://id.who.int/icd/entity/67890";
+        String mms = "http://id.who.int/icd/release/11/mms";
+        String severity = "http://id.who.int/icd/schema/hasSeverity";
+        postCoordinationService.addSpecificationRevision(new WhoficEntityPostCoordinationSpecification(existingEntity, "ICD",
+                List.of(new PostCoordinationSpecification(mms, List.of(severity), List.of(), List.of(), List.of()))), userId, projectId).block();
+
+        postCoordinationService.addSpecificationRevisions(List.of(
+                        new WhoficEntityPostCoordinationSpecification(existingEntity, "ICD",
+                                List.of(new PostCoordinationSpecification(mms, List.of(), List.of(), List.of(), List.of(severity)))),
+                        new WhoficEntityPostCoordinationSpecification(newEntity, "ICD",
+                                List.of(new PostCoordinationSpecification(mms, List.of(severity), List.of(), List.of(), List.of())))),
+                userId, projectId, null, "batch", Map.of(existingEntity, List.of("ICD"), newEntity, List.of("ICD")));
+
+        List<EntityPostCoordinationHistory> histories = mongoTemplate.findAll(EntityPostCoordinationHistory.class);
+        assertEquals(2, histories.size());
+        EntityPostCoordinationHistory existingHistory = histories.stream()
+                .filter(h -> h.getWhoficEntityIri().equals(existingEntity))
+                .findFirst().orElseThrow();
+        assertEquals(2, existingHistory.getPostCoordinationRevisions().size());
+        assertEquals(1L, existingHistory.getVersion());
+        EntityPostCoordinationHistory newHistory = histories.stream()
+                .filter(h -> h.getWhoficEntityIri().equals(newEntity))
+                .findFirst().orElseThrow();
+        assertEquals(1, newHistory.getPostCoordinationRevisions().size());
+    }
+
+    @Test
+    public void GIVEN_existingAndNewEntities_WHEN_addCustomScaleRevisions_THEN_oneRevisionAddedPerEntity() {
+        String existingEntity = "http://id.who.int/icd/entity/12345";
+        String newEntity = "http://id.who.int/icd/entity/67890";
+        mongoTemplate.save(new EntityCustomScalesValuesHistory(
+                existingEntity,
+                projectId.value(),
+                Collections.singletonList(PostCoordinationCustomScalesRevision.create(userId, Collections.emptySet()))
+        ));
+
+        postCoordinationService.addCustomScaleRevisions(List.of(
+                        new WhoficCustomScalesValues(existingEntity, List.of(new PostCoordinationScaleCustomization(List.of("scaleValue1"), "axis1"))),
+                        new WhoficCustomScalesValues(newEntity, List.of(new PostCoordinationScaleCustomization(List.of("scaleValue2"), "axis1")))),
+                projectId, userId, null, "batch");
+
+        List<EntityCustomScalesValuesHistory> histories = mongoTemplate.findAll(EntityCustomScalesValuesHistory.class);
+        assertEquals(2, histories.size());
+        EntityCustomScalesValuesHistory existingHistory = histories.stream()
+                .filter(h -> h.getWhoficEntityIri().equals(existingEntity))
+                .findFirst().orElseThrow();
+        assertEquals(2, existingHistory.getPostCoordinationCustomScalesRevisions().size());
+        assertEquals(1, existingHistory.getPostCoordinationCustomScalesRevisions().get(1).postCoordinationEvents().size());
+        EntityCustomScalesValuesHistory newHistory = histories.stream()
+                .filter(h -> h.getWhoficEntityIri().equals(newEntity))
+                .findFirst().orElseThrow();
+        assertEquals(1, newHistory.getPostCoordinationCustomScalesRevisions().size());
+    }
+}
@@ -0,0 +1,83 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ProcessedSpecificationCacheConfig;
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.WhoficEntityPostCoordinationSpecification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProcessedSpecificationCacheTest {
+
+    private static final String ENTITY_IRI = "http://id.who.int/icd/entity/1";
+
+    private static final List<String> ENTITY_TYPES = List.of("ICD");
+
+    private ProcessedSpecificationCache processedCache;
+
+    private ProjectId projectId;
+
+    private WhoficEntityPostCoordinationSpecification specification;
+
+    @BeforeEach
+    public void setUp() {
+        ProcessedSpecificationCacheConfig config = mock(ProcessedSpecificationCacheConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.getSpecificationsMaximumSizeInBytes()).thenReturn(1024L * 1024);
+        when(config.getCustomScalesMaximumSizeInBytes()).thenReturn(1024L * 1024);
+        when(config.getTtl()).thenReturn(Duration.ofMinutes(10));
+        processedCache = new ProcessedSpecificationCache(config, new SimpleMeterRegistry());
+        projectId = ProjectId.generate();
+        specification = new WhoficEntityPostCoordinationSpecification(ENTITY_IRI, "ICD",
+                List.of(new PostCoordinationSpecification("http://id.who.int/icd/release/11/mms", List.of("axis1"), List.of(), List.of(), List.of())));
+    }
+
+    @Test
+    void GIVEN_cachedSpecification_WHEN_invalidate_THEN_specificationNoLongerCached() {
+        processedCache.putSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1, specification, processedCache.stamp(projectId, ENTITY_IRI));
+        assertEquals(specification, processedCache.getSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1).orElseThrow());
+
+        processedCache.invalidate(projectId, ENTITY_IRI);
+
+        assertTrue(processedCache.getSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1).isEmpty());
+    }
+
+    @Test
+    void GIVEN_invalidationAfterTheRead_WHEN_putSpecification_THEN_staleSpecificationNotCached() {
+        long stamp = processedCache.stamp(projectId, ENTITY_IRI);
+        processedCache.invalidate(projectId, ENTITY_IRI);
+
+        processedCache.putSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1, specification, stamp);
+
+        assertTrue(processedCache.getSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1).isEmpty());
+    }
+
+    @Test
+    void GIVEN_otherEntityTypesOrConfiguration_WHEN_getSpecification_THEN_cachedSpecificationNotUsed() {
+        processedCache.putSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1, specification, processedCache.stamp(projectId, ENTITY_IRI));
+
+        assertTrue(processedCache.getSpecification(projectId, ENTITY_IRI, List.of("ICHIIntervention"), 1).isEmpty());
+        assertTrue(processedCache.getSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 2).isEmpty());
+    }
+
+    @Test
+    void GIVEN_specificationOlderThanTheTtl_WHEN_getSpecification_THEN_specificationNoLongerCached() throws InterruptedException {
+        ProcessedSpecificationCacheConfig config = mock(ProcessedSpecificationCacheConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.getSpecificationsMaximumSizeInBytes()).thenReturn(1024L * 1024);
+        when(config.getCustomScalesMaximumSizeInBytes()).thenReturn(1024L * 1024);
+        when(config.getTtl()).thenReturn(Duration.ofMillis(10));
+        ProcessedSpecificationCache shortLivedCache = new ProcessedSpecificationCache(config, new SimpleMeterRegistry());
+        shortLivedCache.putSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1, specification, shortLivedCache.stamp(projectId, ENTITY_IRI));
+
+        Thread.sleep(50);
+
+        assertTrue(shortLivedCache.getSpecification(projectId, ENTITY_IRI, ENTITY_TYPES, 1).isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.postcoordinationservice.dto.PostCoordinationSpecification;
+import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationViewEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpecificationReplayTest {
+
+    private static final List<String> VIEWS = List.of("http://id.who.int/icd/release/11/mms", "HTTP://ID.WHO.INT/ICD/RELEASE/11/MMS",
+            "http://id.who.int/icd/release/11/pcl", "http://id.who.int/icd/release/11/Ocu", "viewİ", "viewı");
+
+    @Test
+    void GIVEN_randomHistories_WHEN_replayed_THEN_sameSpecificationsAsApplyingEveryEventToTheLists() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            List<PostCoordinationSpecification> initialSpecifications = randomSpecifications(random);
+            List<List<PostCoordinationViewEvent>> revisions = new ArrayList<>();
+            int revisionCount = random.nextInt(30);
+            for (int i = 0; i < revisionCount; i++) {
+                revisions.add(randomRevision(random));
+            }
+            Predicate<String> axisFilter = random.nextBoolean() ? null : axis -> axis == null || !axis.endsWith("3");
+
+            SpecificationReplay replay = new SpecificationReplay(initialSpecifications);
+            revisions.forEach(revision -> replay.apply(revision, axisFilter));
+
+            assertSameSpecifications(foldLists(initialSpecifications, revisions, axisFilter), replay.result());
+        }
+    }
+
+    @Test
+    void GIVEN_initialSpecificationWithAnAxisInTwoLists_WHEN_replayed_THEN_onlyTheFirstOccurrenceIsMoved() {
+        PostCoordinationSpecification initial = new PostCoordinationSpecification("view1",
+                List.of("axis1", "axis2"), List.of("axis1"), List.of(), List.of());
+        List<PostCoordinationViewEvent> revision = List.of(new PostCoordinationViewEvent("VIEW1", List.of(new AddToRequiredAxisEvent("axis1", "VIEW1"))));
+
+        SpecificationReplay replay = new SpecificationReplay(List.of(initial));
+        replay.apply(revision, null);
+
+        PostCoordinationSpecification specification = replay.result().get(0);
+        assertEquals(List.of("axis2"), specification.getAllowedAxes());
+        assertEquals(List.of(), specification.getDefaultAxes());
+        assertEquals(List.of("axis1"), specification.getRequiredAxes());
+        assertEquals(List.of("axis1", "axis2"), initial.getAllowedAxes());
+    }
+
+    @Test
+    void GIVEN_eventsWithoutView_WHEN_replayed_THEN_everyViewEventStartsANewSpecification() {
+        SpecificationReplay replay = new SpecificationReplay(List.of());
+        replay.apply(List.of(new PostCoordinationViewEvent(null, List.of(new AddToAllowedAxisEvent("axis1", null))),
+                new PostCoordinationViewEvent(null, List.of(new AddToDefaultAxisEvent("axis1", null)))), null);
+
+        List<PostCoordinationSpecification> result = replay.result();
+        assertEquals(2, result.size());
+        assertEquals(List.of("axis1"), result.get(0).getAllowedAxes());
+        assertEquals(List.of("axis1"), result.get(1).getDefaultAxes());
+    }
+
+    /*
+     * The fold the replay replaced: the events are applied to the lists of the first specification whose view is
+     * equal ignoring the case.
+     */
+    private static List<PostCoordinationSpecification> foldLists(List<PostCoordinationSpecification> initialSpecifications,
+                                                                 List<List<PostCoordinationViewEvent>> revisions,
+                                                                 Predicate<String> axisFilter) {
+        List<PostCoordinationSpecification> specifications = new ArrayList<>();
+        for (PostCoordinationSpecification specification : initialSpecifications) {
+            specifications.add(new PostCoordinationSpecification(specification.getLinearizationView(),
+                    new ArrayList<>(specification.getAllowedAxes()),
+                    new ArrayList<>(specification.getDefaultAxes()),
+                    new ArrayList<>(specification.getNotAllowedAxes()),
+                    new ArrayList<>(specification.getRequiredAxes())));
+        }
+        for (List<PostCoordinationViewEvent> revision : revisions) {
+            for (PostCoordinationViewEvent viewEvent : revision) {
+                PostCoordinationSpecification specification = specifications.stream()
+                        .filter(spec -> spec.getLinearizationView() != null && spec.getLinearizationView().equalsIgnoreCase(viewEvent.linearizationView()))
+                        .findFirst()
+                        .orElseGet(() -> {
+                            PostCoordinationSpecification created = new PostCoordinationSpecification(viewEvent.linearizationView(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+                            specifications.add(created);
+                            return created;
+                        });
+                for (PostCoordinationSpecificationEvent event : viewEvent.axisEvents()) {
+                    if (axisFilter == null || axisFilter.test(event.getPostCoordinationAxis())) {
+                        event.applyEvent(specification);
+                    }
+                }
+            }
+        }
+        return specifications;
+    }
+
+    private static void assertSameSpecifications(List<PostCoordinationSpecification> expected, List<PostCoordinationSpecification> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLinearizationView(), actual.get(i).getLinearizationView());
+            assertEquals(expected.get(i).getAllowedAxes(), actual.get(i).getAllowedAxes());
+            assertEquals(expected.get(i).getDefaultAxes(), actual.get(i).getDefaultAxes());
+            assertEquals(expected.get(i).getNotAllowedAxes(), actual.get(i).getNotAllowedAxes());
+            assertEquals(expected.get(i).getRequiredAxes(), actual.get(i).getRequiredAxes());
+        }
+    }
+
+    private static List<PostCoordinationSpecification> randomSpecifications(Random random) {
+        List<PostCoordinationSpecification> specifications = new ArrayList<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            specifications.add(new PostCoordinationSpecification(randomView(random),
+                    randomAxes(random), randomAxes(random), randomAxes(random), randomAxes(random)));
+        }
+        return specifications;
+    }
+
+    private static List<String> randomAxes(Random random) {
+        List<String> axes = new ArrayList<>();
+        int count = random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            axes.add(randomAxis(random));
+        }
+        return axes;
+    }
+
+    private static List<PostCoordinationViewEvent> randomRevision(Random random) {
+        List<PostCoordinationViewEvent> revision = new ArrayList<>();
+        int viewCount = 1 + random.nextInt(3);
+        for (int i = 0; i < viewCount; i++) {
+            String view = randomView(random);
+            List<PostCoordinationSpecificationEvent> events = new ArrayList<>();
+            int eventCount = random.nextInt(6);
+            for (int j = 0; j < eventCount; j++) {
+                String axis = randomAxis(random);
+                events.add(switch (random.nextInt(4)) {
+                    case 0 -> new AddToAllowedAxisEvent(axis, view);
+                    case 1 -> new AddToDefaultAxisEvent(axis, view);
+                    case 2 -> new AddToNotAllowedAxisEvent(axis, view);
+                    default -> new AddToRequiredAxisEvent(axis, view);
+                });
+            }
+            revision.add(new PostCoordinationViewEvent(view, events));
+        }
+        return revision;
+    }
+
+    private static String randomView(Random random) {
+        int index = random.nextInt(VIEWS.size() + 1);
+        return index == VIEWS.size() ? null : VIEWS.get(index);
+    }
+
+    private static String randomAxis(Random random) {
+        int index = random.nextInt(7);
+        return index == 6 ? null : "http://id.who.int/icd/schema/axis" + index;
+    }
+}
@@ -0,0 +1,118 @@
+package edu.stanford.protege.webprotege.postcoordinationservice.services;
+
+import edu.stanford.protege.webprotege.common.ProjectId;
+import edu.stanford.protege.webprotege.postcoordinationservice.config.ReadWriteLockConfig;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StripedReadWriteLockServiceImplTest {
+
+    private StripedReadWriteLockServiceImpl lockService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        ReadWriteLockConfig config = mock(ReadWriteLockConfig.class);
+        when(config.getStripes()).thenReturn(1000);
+        when(config.getMaxRetries()).thenReturn(1);
+        when(config.getTimeout()).thenReturn(200);
+        when(config.getTimeUnit()).thenReturn(TimeUnit.MILLISECONDS);
+        lockService = new StripedReadWriteLockServiceImpl(config, new ReentrantReadWriteLock(true));
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void GIVEN_stripeConfiguration_WHEN_created_THEN_stripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(1024, lockService.getStripeCount());
+    }
+
+    @Test
+    void GIVEN_sameEntity_WHEN_stripeFor_THEN_sameLockReturned() {
+        ProjectId projectId = ProjectId.generate();
+
+        assertSame(lockService.stripeFor(projectId, "http://id.who.int/icd/entity/1"),
+                lockService.stripeFor(ProjectId.valueOf(projectId.id()), "http://id.who.int/icd/entity/1"));
+    }
+
+    @Test
+    void GIVEN_writeHeldOnOneEntity_WHEN_otherEntityWritten_THEN_writeIsNotBlocked() throws Exception {
+        ProjectId projectId = ProjectId.generate();
+        String firstEntity = "http://id.who.int/icd/entity/1";
+        String secondEntity = findEntityOnOtherStripe(projectId, firstEntity);
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> lockService.executeWriteLock(projectId, firstEntity, () -> {
+            firstLocked.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(firstLocked.await(1, TimeUnit.SECONDS));
+
+        Future<String> other = executor.submit(() -> lockService.executeWriteLock(projectId, secondEntity, () -> "written"));
+        assertEquals("written", other.get(1, TimeUnit.SECONDS));
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void GIVEN_writeHeldOnEntity_WHEN_sameEntityWritten_THEN_writeTimesOut() throws Exception {
+        ProjectId projectId = ProjectId.generate();
+        String entity = "http://id.who.int/icd/entity/1";
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> lockService.executeWriteLock(projectId, entity, () -> {
+            locked.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(locked.await(1, TimeUnit.SECONDS));
+
+        Future<String> other = executor.submit(() -> lockService.executeWriteLock(projectId, entity, () -> "written"));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> other.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, exception.getCause().getCause());
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void GIVEN_globalWriteHeld_WHEN_entityOperationNested_THEN_operationRuns() {
+        ProjectId projectId = ProjectId.generate();
+        AtomicInteger calls = new AtomicInteger();
+
+        lockService.executeWriteLock(() -> lockService.executeWriteLock(projectId, "http://id.who.int/icd/entity/1", calls::incrementAndGet));
+
+        assertEquals(1, calls.get());
+    }
+
+    private String findEntityOnOtherStripe(ProjectId projectId, String entity) {
+        var lock = lockService.stripeFor(projectId, entity);
+        for (int i = 2; ; i++) {
+            String candidate = "http://id.who.int/icd/entity/" + i;
+            if (lockService.stripeFor(projectId, candidate) != lock) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,12 +3,11 @@ package edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern
 import com.google.common.collect.ImmutableMap;
 import edu.stanford.protege.webprotege.common.*;
 import edu.stanford.protege.webprotege.entity.EntityNode;
-import edu.stanford.protege.webprotege.ipc.CommandExecutor;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.*;
-import edu.stanford.protege.webprotege.postcoordinationservice.repositories.PostCoordinationTableConfigRepository;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.LinearizationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.EntityTypeService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.diff.Revision2DiffElementsTranslator;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.nodeRendering.EntityRendererManager;
 import org.junit.jupiter.api.*;
@@ -20,7 +19,6 @@ import org.semanticweb.owlapi.model.*;
 import uk.ac.manchester.cs.owl.owlapi.OWLClassImpl;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,12 +33,10 @@ public class ProjectChangesManagerTest {
     @Mock
     private EntityRendererManager entityRendererManager;
     @Mock
-    private PostCoordinationTableConfigRepository tableConfigurationRepo;
-    @Mock
-    private LinearizationService linearizationService;
+    private PostCoordinationConfigSnapshotService configSnapshotService;
 
     @Mock
-    private CommandExecutor<GetIcatxEntityTypeRequest, GetIcatxEntityTypeResponse> entityTypeExecutor;
+    private EntityTypeService entityTypeService;
 
 
     @InjectMocks
@@ -48,7 +44,8 @@ public class ProjectChangesManagerTest {
 
     @BeforeEach
     public void setUp() {
-        when(entityTypeExecutor.execute(any(), any())).thenReturn(CompletableFuture.supplyAsync(() -> new GetIcatxEntityTypeResponse(Arrays.asList("ICD"))));
+        when(entityTypeService.fetchEntityTypes(any(), any(), any())).thenReturn(Arrays.asList("ICD"));
+        when(configSnapshotService.getSnapshot()).thenReturn(new PostCoordinationConfigSnapshot(1, List.of(), List.of(), List.of(), List.of()));
     }
 
     @Test
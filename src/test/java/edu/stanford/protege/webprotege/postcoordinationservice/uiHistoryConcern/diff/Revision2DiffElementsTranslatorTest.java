@@ -3,8 +3,9 @@ package edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern
 import edu.stanford.protege.webprotege.diff.DiffElement;
 import edu.stanford.protege.webprotege.postcoordinationservice.dto.LinearizationDefinition;
 import edu.stanford.protege.webprotege.postcoordinationservice.events.*;
+import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationConfigSnapshot;
 import edu.stanford.protege.webprotege.postcoordinationservice.model.PostCoordinationViewEvent;
-import edu.stanford.protege.webprotege.postcoordinationservice.services.LinearizationService;
+import edu.stanford.protege.webprotege.postcoordinationservice.services.PostCoordinationConfigSnapshotService;
 import edu.stanford.protege.webprotege.postcoordinationservice.uiHistoryConcern.changes.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,12 +20,12 @@ import static org.mockito.Mockito.*;
 class Revision2DiffElementsTranslatorTest {
 
     private Revision2DiffElementsTranslator translator;
-    private LinearizationService linearizationService;
+    private PostCoordinationConfigSnapshotService configSnapshotService;
 
     @BeforeEach
     void setUp() {
-        linearizationService = mock(LinearizationService.class);
-        translator = new Revision2DiffElementsTranslator(linearizationService);
+        configSnapshotService = mock(PostCoordinationConfigSnapshotService.class);
+        translator = new Revision2DiffElementsTranslator(configSnapshotService);
     }
 
     @Test
@@ -103,7 +104,7 @@ class Revision2DiffElementsTranslatorTest {
         when(linDef.getDisplayLabel()).thenReturn("Linearization View Label");
         when(linDef.getLinearizationId()).thenReturn("LinearizationViewID");
 
-        when(linearizationService.getLinearizationDefinitions()).thenReturn(List.of(linDef));
+        when(configSnapshotService.getSnapshot()).thenReturn(configSnapshot(List.of(linDef)));
 
         PostCoordinationSpecificationEvent event1 = mock(AddToRequiredAxisEvent.class);
         when(event1.getPostCoordinationAxis()).thenReturn("Axis1");
@@ -125,7 +126,7 @@ class Revision2DiffElementsTranslatorTest {
         Map<String, Integer> orderedAxisMap = new HashMap<>();
         orderedAxisMap.put("Axis1", 1);
 
-        when(linearizationService.getLinearizationDefinitions()).thenReturn(List.of());
+        when(configSnapshotService.getSnapshot()).thenReturn(configSnapshot(List.of()));
 
         PostCoordinationSpecificationEvent event1 = new AddToRequiredAxisEvent("Axis1","linView");
 
@@ -137,4 +138,8 @@ class Revision2DiffElementsTranslatorTest {
         assertEquals(1, result.size(), "Expected 1 diff element");
         assertEquals("UnknownView", result.get(0).getSourceDocument().getLinearizationViewName(), "Expected the linearization view to be used as the name when no definition is found");
     }
+
+    private static PostCoordinationConfigSnapshot configSnapshot(List<LinearizationDefinition> linearizationDefinitions) {
+        return new PostCoordinationConfigSnapshot(1, List.of(), List.of(), List.of(), linearizationDefinitions);
+    }
 }